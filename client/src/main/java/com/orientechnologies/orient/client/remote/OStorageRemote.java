@@ -22,13 +22,16 @@ import java.util.Arrays;
 import java.util.Collection;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.Callable;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ExecutionException;
 import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.concurrent.FutureTask;
 
 import org.xbill.DNS.Lookup;
@@ -79,6 +82,7 @@ import com.orientechnologies.orient.core.tx.OTransaction;
 import com.orientechnologies.orient.core.tx.OTransactionAbstract;
 import com.orientechnologies.orient.enterprise.channel.binary.OAsynchChannelServiceThread;
 import com.orientechnologies.orient.enterprise.channel.binary.OChannelBinaryClient;
+import com.orientechnologies.orient.enterprise.channel.binary.OChannelBinaryClientMultiplexed;
 import com.orientechnologies.orient.enterprise.channel.binary.OChannelBinaryProtocol;
 import com.orientechnologies.orient.enterprise.channel.binary.ONetworkProtocolException;
 import com.orientechnologies.orient.enterprise.channel.binary.ORemoteServerEventListener;
@@ -87,41 +91,44 @@ import com.orientechnologies.orient.enterprise.channel.binary.ORemoteServerEvent
  * This object is bound to each remote ODatabase instances.
  */
 public class OStorageRemote extends OStorageAbstract implements OStorageProxy {
-  private static final String              DEFAULT_HOST         = "localhost";
-  private static final int                 DEFAULT_PORT         = 2424;
-  private static final String              ADDRESS_SEPARATOR    = ";";
-
-  public static final String               PARAM_MIN_POOL       = "minpool";
-  public static final String               PARAM_MAX_POOL       = "maxpool";
-  public static final String               PARAM_DB_TYPE        = "dbtype";
-
-  private static final String              DRIVER_NAME          = "OrientDB Java";
-
-  private final ExecutorService            asynchExecutor;
-  private OAsynchChannelServiceThread      serviceThread;
-  private OContextConfiguration            clientConfiguration;
-  private int                              connectionRetry;
-  private int                              connectionRetryDelay;
-
-  private final List<OChannelBinaryClient> networkPool          = new ArrayList<OChannelBinaryClient>();
-  private int                              networkPoolCursor    = 0;
-
-  protected final List<String>             serverURLs           = new ArrayList<String>();
-  private OCluster[]                       clusters             = new OCluster[0];
-  protected final Map<String, OCluster>    clusterMap           = new ConcurrentHashMap<String, OCluster>();
-  private int                              defaultClusterId;
-  private int                              minPool;
-  private int                              maxPool;
-  private final boolean                    debug                = false;
-  private ODocument                        clusterConfiguration = new ODocument();
-  private ORemoteServerEventListener       asynchEventListener;
-  private String                           connectionDbType;
-  private String                           connectionUserName;
-  private String                           connectionUserPassword;
-  private Map<String, Object>              connectionOptions;
-  private final String                     clientId;
-
-  private final int                        maxReadQueue;
+  private static final String                         DEFAULT_HOST         = "localhost";
+  private static final int                            DEFAULT_PORT         = 2424;
+  private static final String                         ADDRESS_SEPARATOR    = ";";
+
+  public static final String                          PARAM_MIN_POOL       = "minpool";
+  public static final String                          PARAM_MAX_POOL       = "maxpool";
+  public static final String                          PARAM_DB_TYPE        = "dbtype";
+
+  private static final String                         DRIVER_NAME          = "OrientDB Java";
+
+  private final ExecutorService                       asynchExecutor;
+  private OAsynchChannelServiceThread                 serviceThread;
+  private OContextConfiguration                       clientConfiguration;
+  private int                                         connectionRetry;
+  private int                                         connectionRetryDelay;
+
+  private final List<OChannelBinaryClient>            networkPool          = new ArrayList<OChannelBinaryClient>();
+  private int                                         networkPoolCursor    = 0;
+
+  private final List<OChannelBinaryClientMultiplexed> multiplexedPool      = new ArrayList<OChannelBinaryClientMultiplexed>();
+  private final boolean                               multiplexed;
+
+  protected final List<String>                        serverURLs           = new ArrayList<String>();
+  private OCluster[]                                  clusters             = new OCluster[0];
+  protected final Map<String, OCluster>               clusterMap           = new ConcurrentHashMap<String, OCluster>();
+  private int                                         defaultClusterId;
+  private int                                         minPool;
+  private int                                         maxPool;
+  private final boolean                               debug                = false;
+  private ODocument                                   clusterConfiguration = new ODocument();
+  private ORemoteServerEventListener                  asynchEventListener;
+  private String                                      connectionDbType;
+  private String                                      connectionUserName;
+  private String                                      connectionUserPassword;
+  private Map<String, Object>                         connectionOptions;
+  private final String                                clientId;
+
+  private final int                                   maxReadQueue;
 
   public OStorageRemote(final String iClientId, final String iURL, final String iMode) throws IOException {
     super(iURL, iURL, iMode);
@@ -137,6 +144,7 @@ public class OStorageRemote extends OStorageAbstract implements OStorageProxy {
     asynchExecutor = Executors.newSingleThreadScheduledExecutor();
 
     maxReadQueue = Runtime.getRuntime().availableProcessors() - 1;
+    multiplexed = clientConfiguration.getValueAsBoolean(OGlobalConfiguration.CLIENT_CHANNEL_MULTIPLEXED);
   }
 
   public int getSessionId() {
@@ -270,6 +278,12 @@ public class OStorageRemote extends OStorageAbstract implements OStorageProxy {
         networkPool.clear();
       }
 
+      synchronized (multiplexedPool) {
+        for (OChannelBinaryClientMultiplexed n : multiplexedPool)
+          n.close();
+        multiplexedPool.clear();
+      }
+
       level2Cache.shutdown();
       super.close(iForce);
       status = STATUS.CLOSED;
@@ -309,6 +323,9 @@ public class OStorageRemote extends OStorageAbstract implements OStorageProxy {
       // ASYNCHRONOUS MODE NO ANSWER
       iMode = 2;
 
+    if (iMode == 0 && multiplexed)
+      return createRecordMultiplexed(iDataSegmentId, iRid, iContent, iRecordType);
+
     final OPhysicalPosition ppos = new OPhysicalPosition(iDataSegmentId, -1, iRecordType);
 
     do {
@@ -390,6 +407,9 @@ public class OStorageRemote extends OStorageAbstract implements OStorageProxy {
       // PENDING NETWORK OPERATION, CAN'T EXECUTE IT NOW
       return null;
 
+    if (multiplexed)
+      return readRecordMultiplexed(iRid, iFetchPlan, iIgnoreCache);
+
     do {
       try {
 
@@ -697,6 +717,9 @@ public class OStorageRemote extends OStorageAbstract implements OStorageProxy {
     if (!(iCommand instanceof OSerializableStream))
       throw new OCommandExecutionException("Cannot serialize the command to be executed to the server side.");
 
+    if (multiplexed && !(iCommand instanceof OCommandRequestAsynch))
+      return commandMultiplexed(iCommand);
+
     OSerializableStream command = iCommand;
     Object result = null;
 
@@ -758,36 +781,10 @@ public class OStorageRemote extends OStorageAbstract implements OStorageProxy {
               }
             }
           } else {
-            final byte type = network.readByte();
-            switch (type) {
-            case 'n':
-              result = null;
-              break;
-
-            case 'r':
-              result = OChannelBinaryProtocol.readIdentifiable(network);
-              if (result instanceof ORecord<?>)
-                database.getLevel1Cache().updateRecord((ORecordInternal<?>) result);
-              break;
-
-            case 'l':
-              final int tot = network.readInt();
-              final Collection<OIdentifiable> list = new ArrayList<OIdentifiable>();
-              for (int i = 0; i < tot; ++i) {
-                final OIdentifiable resultItem = OChannelBinaryProtocol.readIdentifiable(network);
-                if (resultItem instanceof ORecord<?>)
-                  database.getLevel1Cache().updateRecord((ORecordInternal<?>) resultItem);
-                list.add(resultItem);
-              }
-              result = list;
-              break;
-
-            case 'a':
-              final String value = new String(network.readBytes());
-              result = ORecordSerializerStringAbstract.fieldTypeFromStream(null, ORecordSerializerStringAbstract.getType(value),
-                  value);
-              break;
-            }
+            final List<ORecordInternal<?>> loaded = new ArrayList<ORecordInternal<?>>();
+            result = readCommandResult(network, loaded);
+            for (ORecordInternal<?> record : loaded)
+              database.getLevel1Cache().updateRecord(record);
           }
           break;
         } finally {
@@ -807,6 +804,111 @@ public class OStorageRemote extends OStorageAbstract implements OStorageProxy {
     return result;
   }
 
+  /**
+   * Executes the command remotely returning its records as a stream read lazily from the channel. The records aren't kept in
+   * the local cache, except the ones prefetched by the fetch plan. The stream must be read until the end or closed, otherwise its
+   * channel stays locked by the current thread.
+   */
+  public OStorageRemoteResultStream commandStream(final OCommandRequestText iCommand) {
+    checkConnection();
+
+    if (!(iCommand instanceof OSerializableStream))
+      throw new OCommandExecutionException("Cannot serialize the command to be executed to the server side.");
+
+    final boolean asynch = iCommand instanceof OCommandRequestAsynch;
+
+    do {
+      try {
+        final OChannelBinaryClient network = beginRequest(OChannelBinaryProtocol.REQUEST_COMMAND);
+        OStorageRemoteResultStream stream = null;
+        try {
+          network.writeByte((byte) (asynch ? 'a' : 's')); // ASYNC / SYNC
+          network.writeBytes(OStreamSerializerAnyStreamable.INSTANCE.toStream(iCommand));
+
+          // FLUSH KEEPING THE WRITE LOCK: NO OTHER REQUEST CAN WAIT FOR ITS RESPONSE BEHIND THE STREAM
+          network.flush();
+
+          try {
+            beginResponse(network);
+            stream = new OStorageRemoteResultStream(this, network, asynch);
+            return stream;
+          } finally {
+            if (stream == null)
+              endResponse(network);
+          }
+
+        } finally {
+          if (stream == null)
+            endRequest(network);
+        }
+
+      } catch (OModificationOperationProhibitedException mope) {
+        handleDBFreeze();
+      } catch (Exception e) {
+        handleException("Error on executing command: " + iCommand, e);
+      }
+    } while (true);
+  }
+
+  /**
+   * Loads a record without waiting for the response, that is read by the dispatcher thread of a multiplexed channel. The records
+   * prefetched by the fetch plan are discarded.
+   */
+  public Future<ORawBuffer> readRecordAsynch(final ORecordId iRid, final String iFetchPlan, final boolean iIgnoreCache) {
+    checkConnection();
+
+    do {
+      try {
+        return sendReadRecord(iRid, iFetchPlan, iIgnoreCache, null);
+      } catch (Exception e) {
+        handleException("Error on read record " + iRid, e);
+      }
+    } while (true);
+  }
+
+  /**
+   * Creates a record without waiting for the response, that is read by the dispatcher thread of a multiplexed channel. The cluster
+   * position of the RID is assigned when the future completes.
+   */
+  public Future<OPhysicalPosition> createRecordAsynch(final int iDataSegmentId, final ORecordId iRid, final byte[] iContent,
+      final byte iRecordType) {
+    checkConnection();
+
+    do {
+      try {
+        return sendCreateRecord(iDataSegmentId, iRid, iContent, iRecordType);
+      } catch (OModificationOperationProhibitedException mope) {
+        handleDBFreeze();
+      } catch (Exception e) {
+        handleException("Error on create record in cluster: " + iRid.clusterId, e);
+      }
+    } while (true);
+  }
+
+  /**
+   * Executes the command remotely without waiting for the response, that is read by the dispatcher thread of a multiplexed
+   * channel. Asynchronous commands are not supported since their listener would block the channel.
+   */
+  public Future<Object> commandAsynch(final OCommandRequestText iCommand) {
+    checkConnection();
+
+    if (!(iCommand instanceof OSerializableStream))
+      throw new OCommandExecutionException("Cannot serialize the command to be executed to the server side.");
+
+    if (iCommand instanceof OCommandRequestAsynch)
+      throw new OCommandExecutionException("Cannot send an asynchronous command on a multiplexed channel: use command()");
+
+    do {
+      try {
+        return sendCommand(iCommand, null);
+      } catch (OModificationOperationProhibitedException mope) {
+        handleDBFreeze();
+      } catch (Exception e) {
+        handleException("Error on executing command: " + iCommand, e);
+      }
+    } while (true);
+  }
+
   public void commit(final OTransaction iTx) {
     checkConnection();
 
@@ -1384,6 +1486,10 @@ public class OStorageRemote extends OStorageAbstract implements OStorageProxy {
   }
 
   protected OChannelBinaryClient createNetworkConnection() throws IOException, UnknownHostException {
+    return createNetworkConnection(false);
+  }
+
+  protected OChannelBinaryClient createNetworkConnection(final boolean iMultiplexed) throws IOException, UnknownHostException {
     for (String server : serverURLs) {
       OLogManager.instance().debug(this, "Trying to connect to the remote host %s...", server);
 
@@ -1392,6 +1498,10 @@ public class OStorageRemote extends OStorageAbstract implements OStorageProxy {
       final int remotePort = Integer.parseInt(server.substring(sepPos + 1));
 
       try {
+        if (iMultiplexed)
+          return new OChannelBinaryClientMultiplexed(remoteHost, remotePort, clientConfiguration,
+              OChannelBinaryProtocol.CURRENT_PROTOCOL_VERSION, asynchEventListener);
+
         return new OChannelBinaryClient(remoteHost, remotePort, clientConfiguration,
             OChannelBinaryProtocol.CURRENT_PROTOCOL_VERSION);
       } catch (Exception e) {
@@ -1455,7 +1565,8 @@ public class OStorageRemote extends OStorageAbstract implements OStorageProxy {
         network = networkPool.get(networkPoolCursor);
 
         networkPoolCursor++;
-        if (network.getLockWrite().tryLock())
+        if (!network.getLockWrite().isHeldByCurrentThread() && network.getLockWrite().tryLock())
+          // THE CHANNELS RESERVED BY THE CURRENT THREAD, LIKE THE ONE OF AN OPEN RESULT STREAM, CAN'T BE SHARED
           break;
 
         network = null;
@@ -1472,6 +1583,11 @@ public class OStorageRemote extends OStorageAbstract implements OStorageProxy {
             if (debug)
               System.out.println("Created new connection " + networkPool.size());
           } else {
+            if (isPoolReservedByCurrentThread())
+              // NO CHANNEL WILL EVER BE RELEASED: DON'T WAIT FOREVER
+              throw new OStorageException(
+                  "All the channels are reserved by result streams of the current thread: read them till the end or close them before to send new requests");
+
             if (debug)
               System.out.println("-> req (waiting) : " + getSessionId());
 
@@ -1500,6 +1616,16 @@ public class OStorageRemote extends OStorageAbstract implements OStorageProxy {
     return network;
   }
 
+  /**
+   * Tells if all the channels of the pool are locked by the current thread, like the ones of its open result streams.
+   */
+  private boolean isPoolReservedByCurrentThread() {
+    for (OChannelBinaryClient n : networkPool)
+      if (!n.getLockWrite().isHeldByCurrentThread())
+        return false;
+    return true;
+  }
+
   /**
    * Ends the request and unlock the write lock
    */
@@ -1586,6 +1712,267 @@ public class OStorageRemote extends OStorageAbstract implements OStorageProxy {
     }
   }
 
+  /**
+   * Releases the channel reserved by a result stream. If the stream has not been read completely the channel is closed, since the
+   * rest of the response can't be skipped.
+   */
+  protected void endResultStream(final OChannelBinaryClient iNetwork, final boolean iCompleted) {
+    endResponse(iNetwork);
+
+    if (!iCompleted) {
+      closeChannel(iNetwork);
+
+      try {
+        // REPLACE THE CLOSED CHANNEL IF IT WAS THE LAST ONE
+        createConnectionPool();
+      } catch (IOException e) {
+        OLogManager.instance().debug(this, "Error on replacing the channel closed by a result stream", e);
+      }
+    }
+
+    if (iNetwork.getLockWrite().isHeldByCurrentThread())
+      iNetwork.getLockWrite().unlock();
+
+    synchronized (networkPool) {
+      networkPool.notifyAll();
+    }
+  }
+
+  /**
+   * Acquires the multiplexed channel with less pending requests and locks its write stream. New channels are created up to the
+   * configured pool size when all the existent ones are busy.
+   */
+  protected OChannelBinaryClientMultiplexed beginMultiplexedRequest(final byte iCommand) throws IOException {
+    OChannelBinaryClientMultiplexed network = null;
+
+    synchronized (multiplexedPool) {
+      for (Iterator<OChannelBinaryClientMultiplexed> it = multiplexedPool.iterator(); it.hasNext();) {
+        final OChannelBinaryClientMultiplexed channel = it.next();
+        if (!channel.isConnected())
+          it.remove();
+        else if (network == null || channel.getPendingRequests() < network.getPendingRequests())
+          network = channel;
+      }
+
+      if ((network == null || network.getPendingRequests() > 0)
+          && multiplexedPool.size() < OGlobalConfiguration.CLIENT_CHANNEL_MULTIPLEXED_POOL.getValueAsInteger()) {
+        // CREATE NEW CONNECTION
+        network = (OChannelBinaryClientMultiplexed) createNetworkConnection(true);
+        multiplexedPool.add(network);
+      }
+    }
+
+    network.beginRequest();
+    try {
+      network.writeByte(iCommand);
+      network.writeInt(getSessionId());
+    } catch (IOException e) {
+      abortMultiplexedRequest(network);
+      throw e;
+    }
+    return network;
+  }
+
+  /**
+   * Closes the multiplexed channel after an error writing the request: the content sent so far can't be completed.
+   */
+  protected void abortMultiplexedRequest(final OChannelBinaryClientMultiplexed iNetwork) {
+    iNetwork.getLockWrite().unlock();
+    iNetwork.close();
+  }
+
+  protected <T> T waitForResponse(final Future<T> iResponse) throws Exception {
+    try {
+      return iResponse.get();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new OStorageException("Cannot read the response because the thread has been interrupted");
+    } catch (ExecutionException e) {
+      if (e.getCause() instanceof Exception)
+        throw (Exception) e.getCause();
+      throw e;
+    }
+  }
+
+  private ORawBuffer readRecordMultiplexed(final ORecordId iRid, final String iFetchPlan, final boolean iIgnoreCache) {
+    do {
+      try {
+        final List<ORecordInternal<?>> prefetched = new ArrayList<ORecordInternal<?>>();
+        final ORawBuffer buffer = waitForResponse(sendReadRecord(iRid, iFetchPlan, iIgnoreCache, prefetched));
+
+        final ODatabaseRecord database = ODatabaseRecordThreadLocal.INSTANCE.getIfDefined();
+        if (database != null)
+          for (ORecordInternal<?> record : prefetched)
+            // PUT IN THE CLIENT LOCAL CACHE
+            database.getLevel1Cache().updateRecord(record);
+
+        return buffer;
+
+      } catch (Exception e) {
+        handleException("Error on read record " + iRid, e);
+      }
+    } while (true);
+  }
+
+  private OPhysicalPosition createRecordMultiplexed(final int iDataSegmentId, final ORecordId iRid, final byte[] iContent,
+      final byte iRecordType) {
+    do {
+      try {
+        return waitForResponse(sendCreateRecord(iDataSegmentId, iRid, iContent, iRecordType));
+      } catch (OModificationOperationProhibitedException mope) {
+        handleDBFreeze();
+      } catch (Exception e) {
+        handleException("Error on create record in cluster: " + iRid.clusterId, e);
+      }
+    } while (true);
+  }
+
+  private Object commandMultiplexed(final OCommandRequestText iCommand) {
+    if (!(iCommand instanceof OSerializableStream))
+      throw new OCommandExecutionException("Cannot serialize the command to be executed to the server side.");
+
+    final ODatabaseRecord database = ODatabaseRecordThreadLocal.INSTANCE.get();
+
+    do {
+      try {
+        final List<ORecordInternal<?>> loaded = new ArrayList<ORecordInternal<?>>();
+        final Object result = waitForResponse(sendCommand(iCommand, loaded));
+
+        for (ORecordInternal<?> record : loaded)
+          database.getLevel1Cache().updateRecord(record);
+
+        return result;
+
+      } catch (OModificationOperationProhibitedException mope) {
+        handleDBFreeze();
+      } catch (Exception e) {
+        handleException("Error on executing command: " + iCommand, e);
+      }
+    } while (true);
+  }
+
+  private Future<ORawBuffer> sendReadRecord(final ORecordId iRid, final String iFetchPlan, final boolean iIgnoreCache,
+      final Collection<ORecordInternal<?>> iPrefetched) throws IOException {
+    final OChannelBinaryClientMultiplexed network = beginMultiplexedRequest(OChannelBinaryProtocol.REQUEST_RECORD_LOAD);
+    boolean written = false;
+    try {
+      network.writeRID(iRid);
+      network.writeString(iFetchPlan != null ? iFetchPlan : "");
+      if (network.getSrvProtocolVersion() >= 9)
+        network.writeByte((byte) (iIgnoreCache ? 1 : 0));
+      written = true;
+    } finally {
+      if (!written)
+        abortMultiplexedRequest(network);
+    }
+
+    return network.endRequest(getSessionId(), new Callable<ORawBuffer>() {
+      public ORawBuffer call() throws Exception {
+        if (network.readByte() == 0)
+          return null;
+
+        final ORawBuffer buffer = new ORawBuffer(network.readBytes(), network.readInt(), network.readByte());
+
+        while (network.readByte() == 2) {
+          final ORecordInternal<?> record = (ORecordInternal<?>) OChannelBinaryProtocol.readIdentifiable(network);
+          if (iPrefetched != null)
+            iPrefetched.add(record);
+        }
+        return buffer;
+      }
+    });
+  }
+
+  private Future<OPhysicalPosition> sendCreateRecord(final int iDataSegmentId, final ORecordId iRid, final byte[] iContent,
+      final byte iRecordType) throws IOException {
+    final OChannelBinaryClientMultiplexed network = beginMultiplexedRequest(OChannelBinaryProtocol.REQUEST_RECORD_CREATE);
+    boolean written = false;
+    try {
+      if (network.getSrvProtocolVersion() >= 10)
+        // SEND THE DATA SEGMENT ID
+        network.writeInt(iDataSegmentId);
+      network.writeShort((short) iRid.clusterId);
+      network.writeBytes(iContent);
+      network.writeByte(iRecordType);
+      // SYNCHRONOUS MODE: THE SERVER SENDS THE RESPONSE
+      network.writeByte((byte) 0);
+      written = true;
+    } finally {
+      if (!written)
+        abortMultiplexedRequest(network);
+    }
+
+    return network.endRequest(getSessionId(), new Callable<OPhysicalPosition>() {
+      public OPhysicalPosition call() throws Exception {
+        final OPhysicalPosition ppos = new OPhysicalPosition(iDataSegmentId, -1, iRecordType);
+        iRid.clusterPosition = network.readLong();
+        ppos.clusterPosition = iRid.clusterPosition;
+        if (network.getSrvProtocolVersion() >= 11)
+          ppos.recordVersion = network.readInt();
+        else
+          ppos.recordVersion = 0;
+        return ppos;
+      }
+    });
+  }
+
+  private Future<Object> sendCommand(final OCommandRequestText iCommand, final Collection<ORecordInternal<?>> iLoaded)
+      throws IOException {
+    // SERIALIZE IT BEFORE TO LOCK THE CHANNEL
+    final byte[] content = OStreamSerializerAnyStreamable.INSTANCE.toStream(iCommand);
+
+    final OChannelBinaryClientMultiplexed network = beginMultiplexedRequest(OChannelBinaryProtocol.REQUEST_COMMAND);
+    boolean written = false;
+    try {
+      network.writeByte((byte) 's'); // SYNC
+      network.writeBytes(content);
+      written = true;
+    } finally {
+      if (!written)
+        abortMultiplexedRequest(network);
+    }
+
+    return network.endRequest(getSessionId(), new Callable<Object>() {
+      public Object call() throws Exception {
+        return readCommandResult(network, iLoaded);
+      }
+    });
+  }
+
+  /**
+   * Reads the result of a synchronous command. The records received are collected to be put in the local cache by the caller.
+   */
+  private static Object readCommandResult(final OChannelBinaryClient network, final Collection<ORecordInternal<?>> iLoaded)
+      throws IOException {
+    final byte type = network.readByte();
+    switch (type) {
+    case 'n':
+      return null;
+
+    case 'r':
+      final OIdentifiable result = OChannelBinaryProtocol.readIdentifiable(network);
+      if (result instanceof ORecord<?> && iLoaded != null)
+        iLoaded.add((ORecordInternal<?>) result);
+      return result;
+
+    case 'l':
+      final int tot = network.readInt();
+      final Collection<OIdentifiable> list = new ArrayList<OIdentifiable>();
+      for (int i = 0; i < tot; ++i) {
+        final OIdentifiable resultItem = OChannelBinaryProtocol.readIdentifiable(network);
+        if (resultItem instanceof ORecord<?> && iLoaded != null)
+          iLoaded.add((ORecordInternal<?>) resultItem);
+        list.add(resultItem);
+      }
+      return list;
+
+    case 'a':
+      final String value = new String(network.readBytes());
+      return ORecordSerializerStringAbstract.fieldTypeFromStream(null, ORecordSerializerStringAbstract.getType(value), value);
+    }
+    return null;
+  }
+
   @SuppressWarnings("unchecked")
   public void updateClusterConfiguration(final byte[] obj) {
     if (obj == null)
@@ -0,0 +1,177 @@
+/*
+ * Copyright 2010-2012 Luca Garulli (l.garulli--at--orientechnologies.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.orientechnologies.orient.client.remote;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+import com.orientechnologies.orient.core.db.ODatabaseRecordThreadLocal;
+import com.orientechnologies.orient.core.db.record.ODatabaseRecord;
+import com.orientechnologies.orient.core.db.record.OIdentifiable;
+import com.orientechnologies.orient.core.exception.OCommandExecutionException;
+import com.orientechnologies.orient.core.exception.OStorageException;
+import com.orientechnologies.orient.core.record.ORecordInternal;
+import com.orientechnologies.orient.enterprise.channel.binary.OChannelBinaryClient;
+import com.orientechnologies.orient.enterprise.channel.binary.OChannelBinaryProtocol;
+
+/**
+ * Result of a remote command read lazily from the channel: every record is read when the iterator reaches it, so the first
+ * records are available as soon as the server sends them and the result set is never kept in memory as a whole. The channel is
+ * reserved to the stream until the last record is read or close() is called: a stream abandoned before the end keeps its channel
+ * locked by the executing thread, so it must be read in a try/finally block that closes it. Closing the stream before the end
+ * closes the channel too, which stops the transfer of the remaining records. The stream must be consumed by the thread that
+ * executed the command.
+ * 
+ * @author Luca Garulli
+ * 
+ */
+public class OStorageRemoteResultStream implements Iterable<OIdentifiable>, Iterator<OIdentifiable>, Closeable {
+  private final OStorageRemote       storage;
+  private final OChannelBinaryClient network;
+  private final boolean              asynch;
+  private final ODatabaseRecord      database;
+  private int                        remaining;
+  private OIdentifiable              next;
+  private boolean                    finished = false;
+
+  /**
+   * Reads the header of the response. The response must be already began on the channel.
+   * 
+   * @param iAsynch
+   *          true if the command has been sent in asynchronous mode, where every record is preceded by its status, otherwise the
+   *          synchronous result is expected
+   */
+  protected OStorageRemoteResultStream(final OStorageRemote iStorage, final OChannelBinaryClient iNetwork, final boolean iAsynch)
+      throws IOException {
+    storage = iStorage;
+    network = iNetwork;
+    asynch = iAsynch;
+    database = ODatabaseRecordThreadLocal.INSTANCE.getIfDefined();
+
+    if (asynch)
+      return;
+
+    final byte type = network.readByte();
+    switch (type) {
+    case 'n':
+      remaining = 0;
+      break;
+
+    case 'r':
+      next = OChannelBinaryProtocol.readIdentifiable(network);
+      remaining = 0;
+      break;
+
+    case 'l':
+      remaining = network.readInt();
+      break;
+
+    case 'a':
+      // DISCARD THE VALUE
+      network.readBytes();
+      throw new OCommandExecutionException("The command returned a value instead of records: use command() to execute it");
+
+    default:
+      remaining = 0;
+    }
+
+    if (next == null && remaining == 0)
+      // NOTHING TO READ: RELEASE THE CHANNEL NOW
+      finish(true);
+  }
+
+  public Iterator<OIdentifiable> iterator() {
+    return this;
+  }
+
+  public boolean hasNext() {
+    if (next != null)
+      return true;
+
+    if (finished)
+      return false;
+
+    try {
+      next = fetch();
+    } catch (IOException e) {
+      close();
+      throw new OStorageException("Error on reading the result of the remote command", e);
+    }
+
+    if (next == null)
+      finish(true);
+
+    return next != null;
+  }
+
+  public OIdentifiable next() {
+    if (!hasNext())
+      throw new NoSuchElementException();
+
+    final OIdentifiable result = next;
+    next = null;
+    return result;
+  }
+
+  public void remove() {
+    throw new UnsupportedOperationException("remove()");
+  }
+
+  /**
+   * Stops reading the result releasing the channel. If there are still records to read the channel is closed. It can be called
+   * many times.
+   */
+  public void close() {
+    if (!finished)
+      finish(false);
+    next = null;
+  }
+
+  public boolean isClosed() {
+    return finished;
+  }
+
+  private OIdentifiable fetch() throws IOException {
+    if (!asynch) {
+      if (remaining == 0)
+        return null;
+      remaining--;
+      return OChannelBinaryProtocol.readIdentifiable(network);
+    }
+
+    byte status;
+    while ((status = network.readByte()) > 0) {
+      final ORecordInternal<?> record = (ORecordInternal<?>) OChannelBinaryProtocol.readIdentifiable(network);
+      if (record == null)
+        break;
+
+      if (status == 1)
+        return record;
+
+      if (database != null)
+        // RECORD PREFETCHED BY THE FETCH PLAN: PUT IN THE CLIENT LOCAL CACHE
+        database.getLevel1Cache().updateRecord(record);
+    }
+    return null;
+  }
+
+  private void finish(final boolean iCompleted) {
+    finished = true;
+    storage.endResultStream(network, iCompleted);
+  }
+}
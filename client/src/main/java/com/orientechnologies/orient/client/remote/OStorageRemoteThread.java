@@ -20,6 +20,7 @@ import java.util.Collection;
 import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.Callable;
+import java.util.concurrent.Future;
 import java.util.concurrent.atomic.AtomicInteger;
 
 import com.orientechnologies.common.concur.resource.OSharedResourceAdaptive;
@@ -191,6 +192,27 @@ public class OStorageRemoteThread implements OStorageProxy {
     return delegate.command(iCommand);
   }
 
+  public OStorageRemoteResultStream commandStream(final OCommandRequestText iCommand) {
+    delegate.setSessionId(sessionId);
+    return delegate.commandStream(iCommand);
+  }
+
+  public Future<ORawBuffer> readRecordAsynch(final ORecordId iRid, final String iFetchPlan, final boolean iIgnoreCache) {
+    delegate.setSessionId(sessionId);
+    return delegate.readRecordAsynch(iRid, iFetchPlan, iIgnoreCache);
+  }
+
+  public Future<OPhysicalPosition> createRecordAsynch(final int iDataSegmentId, final ORecordId iRid, final byte[] iContent,
+      final byte iRecordType) {
+    delegate.setSessionId(sessionId);
+    return delegate.createRecordAsynch(iDataSegmentId, iRid, iContent, iRecordType);
+  }
+
+  public Future<Object> commandAsynch(final OCommandRequestText iCommand) {
+    delegate.setSessionId(sessionId);
+    return delegate.commandAsynch(iCommand);
+  }
+
   public void commit(final OTransaction iTx) {
     delegate.setSessionId(sessionId);
     delegate.commit(iTx);
@@ -0,0 +1,181 @@
+package com.orientechnologies.orient.client.remote;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketTimeoutException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import org.testng.Assert;
+
+import com.orientechnologies.orient.core.record.impl.ORecordBytes;
+import com.orientechnologies.orient.enterprise.channel.binary.OChannelBinaryProtocol;
+
+/**
+ * Stand-in of the server on the loopback interface: every connection is greeted with the protocol version, then the test reads
+ * the requests and writes the responses by hand.
+ */
+public class OLoopbackServer {
+  private final ServerSocket              serverSocket;
+  private final BlockingQueue<Connection> accepted    = new LinkedBlockingQueue<Connection>();
+  private final List<Connection>          connections = new ArrayList<Connection>();
+
+  public OLoopbackServer() throws IOException {
+    serverSocket = new ServerSocket(0, 50, InetAddress.getByName("127.0.0.1"));
+
+    final Thread acceptor = new Thread("Loopback server " + serverSocket.getLocalPort()) {
+      @Override
+      public void run() {
+        while (!serverSocket.isClosed())
+          try {
+            final Connection connection = new Connection(serverSocket.accept());
+            connection.out.writeShort(OChannelBinaryProtocol.CURRENT_PROTOCOL_VERSION);
+            connection.flush();
+            accepted.add(connection);
+          } catch (IOException e) {
+            return;
+          }
+      }
+    };
+    acceptor.setDaemon(true);
+    acceptor.start();
+  }
+
+  public int getPort() {
+    return serverSocket.getLocalPort();
+  }
+
+  public String getURL() {
+    return "127.0.0.1:" + getPort() + "/loopback";
+  }
+
+  /**
+   * Returns the next connection opened by the client.
+   */
+  public Connection accept() throws InterruptedException {
+    final Connection connection = accepted.poll(5, TimeUnit.SECONDS);
+    Assert.assertNotNull(connection, "The client did not connect");
+    synchronized (connections) {
+      connections.add(connection);
+    }
+    return connection;
+  }
+
+  /**
+   * Tells if the client opened a connection not accepted by the test yet.
+   */
+  public boolean hasPendingConnections() {
+    return !accepted.isEmpty();
+  }
+
+  public void close() throws IOException {
+    serverSocket.close();
+
+    synchronized (connections) {
+      connections.addAll(accepted);
+      for (Connection connection : connections)
+        connection.close();
+    }
+  }
+
+  public static class Connection {
+    private final Socket          socket;
+    public final DataInputStream  in;
+    public final DataOutputStream out;
+
+    Connection(final Socket iSocket) throws IOException {
+      socket = iSocket;
+      socket.setSoTimeout(5000);
+      in = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+      out = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()));
+    }
+
+    /**
+     * Reads the header of the next request checking its command, and returns the session id it has been sent with.
+     */
+    public int readRequest(final byte iCommand) throws IOException {
+      Assert.assertEquals(in.readByte(), iCommand);
+      return in.readInt();
+    }
+
+    public byte[] readBytes() throws IOException {
+      final int len = in.readInt();
+      if (len < 0)
+        return null;
+      final byte[] content = new byte[len];
+      in.readFully(content);
+      return content;
+    }
+
+    public String readString() throws IOException {
+      final byte[] content = readBytes();
+      return content != null ? new String(content) : null;
+    }
+
+    public Connection beginResponse(final int iSessionId) throws IOException {
+      out.writeByte(OChannelBinaryProtocol.RESPONSE_STATUS_OK);
+      out.writeInt(iSessionId);
+      return this;
+    }
+
+    public Connection writeRID(final int iClusterId, final long iClusterPosition) throws IOException {
+      out.writeShort(OChannelBinaryProtocol.RECORD_RID);
+      out.writeShort(iClusterId);
+      out.writeLong(iClusterPosition);
+      return this;
+    }
+
+    public Connection writeRecord(final int iClusterId, final long iClusterPosition, final byte[] iContent) throws IOException {
+      out.writeShort(0);
+      out.writeByte(ORecordBytes.RECORD_TYPE);
+      out.writeShort(iClusterId);
+      out.writeLong(iClusterPosition);
+      out.writeInt(1);
+      writeBytes(iContent);
+      return this;
+    }
+
+    public Connection writeBytes(final byte[] iContent) throws IOException {
+      out.writeInt(iContent.length);
+      out.write(iContent);
+      return this;
+    }
+
+    public void flush() throws IOException {
+      out.flush();
+    }
+
+    /**
+     * Tells if the client closed the connection, waiting for it up to the socket timeout. The content still sent by the client is
+     * discarded.
+     */
+    public boolean isClosedByClient() throws IOException {
+      try {
+        while (in.read() != -1)
+          ;
+        return true;
+      } catch (SocketTimeoutException e) {
+        return false;
+      } catch (IOException e) {
+        // CONNECTION RESET
+        return true;
+      }
+    }
+
+    public void close() {
+      try {
+        socket.close();
+      } catch (IOException e) {
+      }
+    }
+  }
+}
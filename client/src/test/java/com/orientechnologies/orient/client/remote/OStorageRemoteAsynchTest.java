@@ -0,0 +1,175 @@
+package com.orientechnologies.orient.client.remote;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.testng.Assert;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import com.orientechnologies.orient.core.config.OGlobalConfiguration;
+import com.orientechnologies.orient.core.db.record.OIdentifiable;
+import com.orientechnologies.orient.core.exception.OCommandExecutionException;
+import com.orientechnologies.orient.core.id.ORecordId;
+import com.orientechnologies.orient.core.record.impl.ODocument;
+import com.orientechnologies.orient.core.record.impl.ORecordBytes;
+import com.orientechnologies.orient.core.sql.OCommandSQL;
+import com.orientechnologies.orient.core.sql.query.OSQLAsynchQuery;
+import com.orientechnologies.orient.core.storage.OPhysicalPosition;
+import com.orientechnologies.orient.core.storage.ORawBuffer;
+import com.orientechnologies.orient.enterprise.channel.binary.OChannelBinaryClient;
+import com.orientechnologies.orient.enterprise.channel.binary.OChannelBinaryProtocol;
+
+@Test
+public class OStorageRemoteAsynchTest {
+  private int                        multiplexedPool;
+  private OLoopbackServer            server;
+  private List<OChannelBinaryClient> channels;
+  private OStorageRemote             storage;
+
+  @BeforeMethod
+  public void beforeMethod() throws Exception {
+    // ONE MULTIPLEXED CHANNEL CARRIES ALL THE REQUESTS
+    multiplexedPool = OGlobalConfiguration.CLIENT_CHANNEL_MULTIPLEXED_POOL.getValueAsInteger();
+    OGlobalConfiguration.CLIENT_CHANNEL_MULTIPLEXED_POOL.setValue(1);
+
+    server = new OLoopbackServer();
+    channels = new ArrayList<OChannelBinaryClient>();
+
+    storage = new OStorageRemote(null, server.getURL(), "rw") {
+      @Override
+      protected OChannelBinaryClient createNetworkConnection(final boolean iMultiplexed) throws IOException {
+        final OChannelBinaryClient channel = super.createNetworkConnection(iMultiplexed);
+        channels.add(channel);
+        return channel;
+      }
+    };
+    storage.createConnectionPool();
+    server.accept();
+  }
+
+  @AfterMethod
+  public void afterMethod() throws Exception {
+    for (OChannelBinaryClient channel : channels)
+      channel.close();
+    server.close();
+
+    OGlobalConfiguration.CLIENT_CHANNEL_MULTIPLEXED_POOL.setValue(multiplexedPool);
+  }
+
+  public void testPipelinedReads() throws Exception {
+    final Future<ORawBuffer> first = storage.readRecordAsynch(new ORecordId(5, 1), null, false);
+    final Future<ORawBuffer> second = storage.readRecordAsynch(new ORecordId(5, 2), "*:-1", true);
+    Assert.assertEquals(channels.size(), 2);
+
+    final OLoopbackServer.Connection connection = server.accept();
+    readLoadRequest(connection, new ORecordId(5, 1), "", false);
+    readLoadRequest(connection, new ORecordId(5, 2), "*:-1", true);
+    Assert.assertFalse(first.isDone());
+
+    connection.beginResponse(storage.getSessionId()).out.writeByte(1);
+    connection.writeBytes("content".getBytes());
+    connection.out.writeInt(3);
+    connection.out.writeByte(ORecordBytes.RECORD_TYPE);
+    // PREFETCHED RECORD: DISCARDED
+    connection.out.writeByte(2);
+    connection.writeRecord(5, 10, "prefetched".getBytes());
+    connection.out.writeByte(0);
+    // NOT FOUND
+    connection.beginResponse(storage.getSessionId()).out.writeByte(0);
+    connection.flush();
+
+    final ORawBuffer buffer = first.get(5, TimeUnit.SECONDS);
+    Assert.assertEquals(new String(buffer.buffer), "content");
+    Assert.assertEquals(buffer.version, 3);
+    Assert.assertEquals(buffer.recordType, ORecordBytes.RECORD_TYPE);
+    Assert.assertNull(second.get(5, TimeUnit.SECONDS));
+  }
+
+  public void testCreateRecordAsynch() throws Exception {
+    final ORecordId rid = new ORecordId(5);
+    final Future<OPhysicalPosition> response = storage.createRecordAsynch(0, rid, "content".getBytes(), ORecordBytes.RECORD_TYPE);
+
+    final OLoopbackServer.Connection connection = server.accept();
+    Assert.assertEquals(connection.readRequest(OChannelBinaryProtocol.REQUEST_RECORD_CREATE), storage.getSessionId());
+    Assert.assertEquals(connection.in.readInt(), 0);
+    Assert.assertEquals(connection.in.readShort(), 5);
+    Assert.assertEquals(new String(connection.readBytes()), "content");
+    Assert.assertEquals(connection.in.readByte(), ORecordBytes.RECORD_TYPE);
+    Assert.assertEquals(connection.in.readByte(), 0);
+
+    connection.beginResponse(storage.getSessionId()).out.writeLong(42);
+    connection.out.writeInt(1);
+    connection.flush();
+
+    final OPhysicalPosition ppos = response.get(5, TimeUnit.SECONDS);
+    Assert.assertEquals(ppos.clusterPosition, 42);
+    Assert.assertEquals(ppos.recordVersion, 1);
+    Assert.assertEquals(rid.clusterPosition, 42);
+  }
+
+  @SuppressWarnings("unchecked")
+  public void testCommandAsynch() throws Exception {
+    final Future<Object> response = storage.commandAsynch(new OCommandSQL("select from V"));
+
+    final OLoopbackServer.Connection connection = server.accept();
+    Assert.assertEquals(connection.readRequest(OChannelBinaryProtocol.REQUEST_COMMAND), storage.getSessionId());
+    Assert.assertEquals(connection.in.readByte(), (byte) 's');
+    Assert.assertNotNull(connection.readBytes());
+
+    connection.beginResponse(storage.getSessionId()).out.writeByte('l');
+    connection.out.writeInt(2);
+    connection.writeRID(5, 0).writeRID(6, 0).flush();
+
+    final List<OIdentifiable> result = new ArrayList<OIdentifiable>((Collection<OIdentifiable>) response.get(5,
+        TimeUnit.SECONDS));
+    Assert.assertEquals(result.size(), 2);
+    Assert.assertEquals(result.get(0), new ORecordId(5, 0));
+    Assert.assertEquals(result.get(1), new ORecordId(6, 0));
+
+    // THE LISTENER OF AN ASYNCHRONOUS COMMAND WOULD BLOCK THE CHANNEL
+    try {
+      storage.commandAsynch(new OSQLAsynchQuery<ODocument>("select from V"));
+      Assert.fail("Asynchronous commands must be refused");
+    } catch (OCommandExecutionException e) {
+    }
+  }
+
+  public void testClosedChannelFailsPendingAndIsReplaced() throws Exception {
+    final Future<ORawBuffer> pending = storage.readRecordAsynch(new ORecordId(5, 1), null, false);
+
+    OLoopbackServer.Connection connection = server.accept();
+    readLoadRequest(connection, new ORecordId(5, 1), "", false);
+    connection.close();
+
+    try {
+      pending.get(5, TimeUnit.SECONDS);
+      Assert.fail("The response must fail");
+    } catch (ExecutionException e) {
+      Assert.assertTrue(e.getCause() instanceof IOException, "Unexpected failure: " + e.getCause());
+    }
+
+    // THE NEXT REQUEST OPENS A NEW CHANNEL
+    final Future<ORawBuffer> next = storage.readRecordAsynch(new ORecordId(5, 1), null, false);
+    connection = server.accept();
+    readLoadRequest(connection, new ORecordId(5, 1), "", false);
+    connection.beginResponse(storage.getSessionId()).out.writeByte(0);
+    connection.flush();
+    Assert.assertNull(next.get(5, TimeUnit.SECONDS));
+    Assert.assertEquals(channels.size(), 3);
+  }
+
+  private void readLoadRequest(final OLoopbackServer.Connection iConnection, final ORecordId iRid, final String iFetchPlan,
+      final boolean iIgnoreCache) throws IOException {
+    Assert.assertEquals(iConnection.readRequest(OChannelBinaryProtocol.REQUEST_RECORD_LOAD), storage.getSessionId());
+    Assert.assertEquals(new ORecordId(iConnection.in.readShort(), iConnection.in.readLong()), iRid);
+    Assert.assertEquals(iConnection.readString(), iFetchPlan);
+    Assert.assertEquals(iConnection.in.readByte(), iIgnoreCache ? 1 : 0);
+  }
+}
@@ -0,0 +1,210 @@
+package com.orientechnologies.orient.client.remote;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.testng.Assert;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import com.orientechnologies.orient.core.db.record.OIdentifiable;
+import com.orientechnologies.orient.core.exception.OCommandExecutionException;
+import com.orientechnologies.orient.core.exception.OStorageException;
+import com.orientechnologies.orient.core.id.ORecordId;
+import com.orientechnologies.orient.core.record.ORecordInternal;
+import com.orientechnologies.orient.core.record.impl.ODocument;
+import com.orientechnologies.orient.core.sql.OCommandSQL;
+import com.orientechnologies.orient.core.sql.query.OSQLAsynchQuery;
+import com.orientechnologies.orient.enterprise.channel.binary.OChannelBinaryClient;
+import com.orientechnologies.orient.enterprise.channel.binary.OChannelBinaryProtocol;
+
+@Test
+public class OStorageRemoteResultStreamTest {
+  private OLoopbackServer            server;
+  private OLoopbackServer.Connection connection;
+  private List<OChannelBinaryClient> channels;
+  private OStorageRemote             storage;
+
+  @BeforeMethod
+  public void beforeMethod() throws Exception {
+    server = new OLoopbackServer();
+    channels = new ArrayList<OChannelBinaryClient>();
+
+    storage = new OStorageRemote(null, server.getURL(), "rw") {
+      @Override
+      protected OChannelBinaryClient createNetworkConnection(final boolean iMultiplexed) throws IOException {
+        final OChannelBinaryClient channel = super.createNetworkConnection(iMultiplexed);
+        channels.add(channel);
+        return channel;
+      }
+    };
+    storage.createConnectionPool();
+    connection = server.accept();
+  }
+
+  @AfterMethod
+  public void afterMethod() throws Exception {
+    for (OChannelBinaryClient channel : channels)
+      channel.close();
+    server.close();
+  }
+
+  public void testListReadLazily() throws Exception {
+    // ONLY THE FIRST RECORDS ARE AVAILABLE WHEN THE STREAM IS CREATED
+    connection.beginResponse(storage.getSessionId()).out.writeByte('l');
+    connection.out.writeInt(3);
+    connection.writeRID(5, 0).writeRID(5, 1).flush();
+
+    final OStorageRemoteResultStream stream = storage.commandStream(new OCommandSQL("select from V"));
+    Assert.assertEquals(connection.readRequest(OChannelBinaryProtocol.REQUEST_COMMAND), storage.getSessionId());
+    Assert.assertEquals(connection.in.readByte(), (byte) 's');
+    Assert.assertNotNull(connection.readBytes());
+
+    Assert.assertEquals(stream.next(), new ORecordId(5, 0));
+    Assert.assertEquals(stream.next(), new ORecordId(5, 1));
+    Assert.assertFalse(stream.isClosed());
+
+    connection.writeRID(5, 2).flush();
+    Assert.assertEquals(stream.next(), new ORecordId(5, 2));
+    Assert.assertFalse(stream.hasNext());
+    Assert.assertTrue(stream.isClosed());
+    Assert.assertFalse(channels.get(0).getLockWrite().isHeldByCurrentThread());
+  }
+
+  public void testListFraming() throws Exception {
+    // TWO RESPONSES IN A ROW: THE FIRST STREAM MUST CONSUME EXACTLY ITS OWN
+    connection.beginResponse(storage.getSessionId()).out.writeByte('l');
+    connection.out.writeInt(2);
+    connection.writeRID(5, 0).writeRID(6, 0);
+    connection.beginResponse(storage.getSessionId()).out.writeByte('r');
+    connection.writeRID(7, 0).flush();
+
+    final List<OIdentifiable> result = new ArrayList<OIdentifiable>();
+    for (OIdentifiable id : storage.commandStream(new OCommandSQL("select from V")))
+      result.add(id);
+    Assert.assertEquals(result.size(), 2);
+    Assert.assertEquals(result.get(0), new ORecordId(5, 0));
+    Assert.assertEquals(result.get(1), new ORecordId(6, 0));
+
+    final OStorageRemoteResultStream stream = storage.commandStream(new OCommandSQL("select from E"));
+    Assert.assertEquals(stream.next(), new ORecordId(7, 0));
+    Assert.assertFalse(stream.hasNext());
+
+    // NO CHANNEL HAS BEEN REPLACED
+    Assert.assertTrue(channels.get(0).isConnected());
+    Assert.assertFalse(server.hasPendingConnections());
+  }
+
+  public void testAsynchFraming() throws Exception {
+    connection.beginResponse(storage.getSessionId());
+    connection.out.writeByte(1);
+    connection.writeRecord(9, 1, "first".getBytes());
+    // RECORD PREFETCHED BY THE FETCH PLAN: NOT PART OF THE RESULT
+    connection.out.writeByte(2);
+    connection.writeRecord(9, 2, "prefetched".getBytes());
+    connection.out.writeByte(1);
+    connection.writeRecord(9, 3, "second".getBytes());
+    connection.out.writeByte(0);
+    connection.beginResponse(storage.getSessionId()).out.writeByte('n');
+    connection.flush();
+
+    final OStorageRemoteResultStream stream = storage.commandStream(new OSQLAsynchQuery<ODocument>("select from V"));
+    Assert.assertEquals(connection.readRequest(OChannelBinaryProtocol.REQUEST_COMMAND), storage.getSessionId());
+    Assert.assertEquals(connection.in.readByte(), (byte) 'a');
+
+    final ORecordInternal<?> first = (ORecordInternal<?>) stream.next();
+    Assert.assertEquals(first.getIdentity(), new ORecordId(9, 1));
+    Assert.assertEquals(new String(first.toStream()), "first");
+    final ORecordInternal<?> second = (ORecordInternal<?>) stream.next();
+    Assert.assertEquals(second.getIdentity(), new ORecordId(9, 3));
+    Assert.assertEquals(new String(second.toStream()), "second");
+    Assert.assertFalse(stream.hasNext());
+
+    final OStorageRemoteResultStream empty = storage.commandStream(new OCommandSQL("select from E"));
+    Assert.assertTrue(empty.isClosed());
+    Assert.assertFalse(empty.hasNext());
+    Assert.assertTrue(channels.get(0).isConnected());
+  }
+
+  public void testPartialReadThenClose() throws Exception {
+    connection.beginResponse(storage.getSessionId()).out.writeByte('l');
+    connection.out.writeInt(1000);
+    connection.writeRID(5, 0).flush();
+
+    final OStorageRemoteResultStream stream = storage.commandStream(new OCommandSQL("select from V"));
+    Assert.assertEquals(stream.next(), new ORecordId(5, 0));
+    stream.close();
+    stream.close();
+
+    // THE REST OF THE RESPONSE CAN'T BE SKIPPED: THE CHANNEL IS CLOSED AND REPLACED
+    Assert.assertTrue(stream.isClosed());
+    Assert.assertFalse(stream.hasNext());
+    Assert.assertTrue(channels.get(0).socket.isClosed());
+    Assert.assertFalse(channels.get(0).getLockWrite().isHeldByCurrentThread());
+    Assert.assertTrue(connection.isClosedByClient());
+
+    connection = server.accept();
+    connection.beginResponse(storage.getSessionId()).out.writeByte('n');
+    connection.flush();
+    Assert.assertFalse(storage.commandStream(new OCommandSQL("select from V")).hasNext());
+  }
+
+  public void testAbandonedStreamKeepsChannelUntilClosed() throws Exception {
+    connection.beginResponse(storage.getSessionId()).out.writeByte('l');
+    connection.out.writeInt(2);
+    connection.writeRID(5, 0).flush();
+
+    final OStorageRemoteResultStream stream = storage.commandStream(new OCommandSQL("select from V"));
+    Assert.assertEquals(stream.next(), new ORecordId(5, 0));
+
+    // NOT READ TILL THE END NOR CLOSED: NO OTHER THREAD CAN USE THE CHANNEL
+    final OChannelBinaryClient channel = channels.get(0);
+    Assert.assertTrue(channel.getLockWrite().isHeldByCurrentThread());
+    final boolean[] locked = new boolean[1];
+    final Thread other = new Thread() {
+      @Override
+      public void run() {
+        locked[0] = channel.getLockWrite().tryLock();
+      }
+    };
+    other.start();
+    other.join();
+    Assert.assertFalse(locked[0]);
+
+    // THE SAME THREAD CAN'T WAIT FOR ITS OWN CHANNEL
+    try {
+      storage.commandStream(new OCommandSQL("select from E"));
+      Assert.fail("The request must not wait for the channel of the open stream");
+    } catch (OStorageException e) {
+    }
+
+    stream.close();
+    Assert.assertFalse(channel.getLockWrite().isHeldByCurrentThread());
+    Assert.assertFalse(channel.getLockWrite().isLocked());
+  }
+
+  public void testConstructorFailureReleasesChannel() throws Exception {
+    connection.beginResponse(storage.getSessionId()).out.writeByte('a');
+    connection.writeBytes("5".getBytes());
+    connection.beginResponse(storage.getSessionId()).out.writeByte('n');
+    connection.flush();
+
+    try {
+      storage.commandStream(new OCommandSQL("select count(*) from V"));
+      Assert.fail("The value response must be refused");
+    } catch (OCommandExecutionException e) {
+    }
+
+    final OChannelBinaryClient channel = channels.get(0);
+    Assert.assertFalse(channel.getLockWrite().isHeldByCurrentThread());
+    Assert.assertFalse(channel.getLockRead().isHeldByCurrentThread());
+    Assert.assertTrue(channel.isConnected());
+
+    // THE VALUE HAS BEEN DISCARDED: THE NEXT RESPONSE IS STILL READ CORRECTLY
+    final OStorageRemoteResultStream stream = storage.commandStream(new OCommandSQL("select from V"));
+    Assert.assertTrue(stream.isClosed());
+    Assert.assertFalse(stream.hasNext());
+  }
+}
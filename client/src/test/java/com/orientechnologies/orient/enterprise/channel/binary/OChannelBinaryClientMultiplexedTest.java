@@ -0,0 +1,165 @@
+package com.orientechnologies.orient.enterprise.channel.binary;
+
+import java.io.IOException;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.testng.Assert;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import com.orientechnologies.common.concur.OTimeoutException;
+import com.orientechnologies.orient.client.remote.OLoopbackServer;
+import com.orientechnologies.orient.core.config.OContextConfiguration;
+import com.orientechnologies.orient.core.config.OGlobalConfiguration;
+
+@Test
+public class OChannelBinaryClientMultiplexedTest {
+  private static final int                MAX_PENDING = 3;
+
+  private int                             lockTimeout;
+  private OLoopbackServer                 server;
+  private OLoopbackServer.Connection      connection;
+  private OChannelBinaryClientMultiplexed channel;
+
+  @BeforeMethod
+  public void beforeMethod() throws Exception {
+    lockTimeout = OGlobalConfiguration.NETWORK_LOCK_TIMEOUT.getValueAsInteger();
+    OGlobalConfiguration.NETWORK_LOCK_TIMEOUT.setValue(500);
+
+    final OContextConfiguration config = new OContextConfiguration();
+    config.setValue(OGlobalConfiguration.CLIENT_CHANNEL_MULTIPLEXED_MAX_PENDING, MAX_PENDING);
+
+    server = new OLoopbackServer();
+    channel = new OChannelBinaryClientMultiplexed("127.0.0.1", server.getPort(), config,
+        OChannelBinaryProtocol.CURRENT_PROTOCOL_VERSION, null);
+    connection = server.accept();
+  }
+
+  @AfterMethod
+  public void afterMethod() throws Exception {
+    channel.close();
+    server.close();
+
+    OGlobalConfiguration.NETWORK_LOCK_TIMEOUT.setValue(lockTimeout);
+  }
+
+  public void testPipelinedOrdering() throws Exception {
+    final Future<Integer> first = send(1);
+    final Future<Integer> second = send(2);
+    final Future<Integer> third = send(1);
+    Assert.assertEquals(channel.getPendingRequests(), 3);
+
+    // ALL THE REQUESTS ARE ON THE WIRE BEFORE ANY RESPONSE
+    Assert.assertEquals(connection.readRequest(OChannelBinaryProtocol.REQUEST_RECORD_LOAD), 1);
+    Assert.assertEquals(connection.readRequest(OChannelBinaryProtocol.REQUEST_RECORD_LOAD), 2);
+    Assert.assertEquals(connection.readRequest(OChannelBinaryProtocol.REQUEST_RECORD_LOAD), 1);
+    Assert.assertFalse(first.isDone());
+
+    connection.beginResponse(1).out.writeInt(10);
+    connection.beginResponse(2).out.writeInt(20);
+    connection.beginResponse(1).out.writeInt(30);
+    connection.flush();
+
+    Assert.assertEquals(first.get(5, TimeUnit.SECONDS).intValue(), 10);
+    Assert.assertEquals(second.get(5, TimeUnit.SECONDS).intValue(), 20);
+    Assert.assertEquals(third.get(5, TimeUnit.SECONDS).intValue(), 30);
+    Assert.assertEquals(channel.getPendingRequests(), 0);
+    Assert.assertFalse(channel.isClosed());
+  }
+
+  public void testSessionMismatch() throws Exception {
+    final Future<Integer> first = send(1);
+    final Future<Integer> second = send(2);
+
+    connection.beginResponse(2).out.writeInt(20);
+    connection.flush();
+
+    // THE RESPONSES CAN'T BE TRUSTED ANYMORE: THE CHANNEL IS CLOSED AND NO REQUEST IS LEFT WAITING
+    assertFailure(first, ONetworkProtocolException.class);
+    assertFailure(second, IOException.class);
+    Assert.assertTrue(channel.isClosed());
+    Assert.assertFalse(channel.isConnected());
+    Assert.assertEquals(channel.getPendingRequests(), 0);
+  }
+
+  public void testBackPressureAtMaxPending() throws Exception {
+    final Future<Integer> first = send(1);
+    final Future<Integer> second = send(2);
+    final Future<Integer> third = send(3);
+
+    // NO SLOT FOR THE RESPONSE: THE REQUEST IS REFUSED BEFORE WRITING IT
+    try {
+      channel.beginRequest();
+      Assert.fail("The request must wait for a free slot");
+    } catch (OTimeoutException e) {
+    }
+    Assert.assertFalse(channel.getLockWrite().isHeldByCurrentThread());
+    Assert.assertFalse(channel.isClosed());
+
+    connection.beginResponse(1).out.writeInt(10);
+    connection.flush();
+    Assert.assertEquals(first.get(5, TimeUnit.SECONDS).intValue(), 10);
+
+    final Future<Integer> fourth = send(4);
+
+    // THE REFUSED REQUEST LEFT NOTHING ON THE WIRE
+    for (int i = 1; i <= 4; ++i)
+      Assert.assertEquals(connection.readRequest(OChannelBinaryProtocol.REQUEST_RECORD_LOAD), i);
+
+    connection.beginResponse(2).out.writeInt(20);
+    connection.beginResponse(3).out.writeInt(30);
+    connection.beginResponse(4).out.writeInt(40);
+    connection.flush();
+    Assert.assertEquals(second.get(5, TimeUnit.SECONDS).intValue(), 20);
+    Assert.assertEquals(third.get(5, TimeUnit.SECONDS).intValue(), 30);
+    Assert.assertEquals(fourth.get(5, TimeUnit.SECONDS).intValue(), 40);
+  }
+
+  public void testCloseFailsPending() throws Exception {
+    final Future<Integer> first = send(1);
+    final Future<Integer> second = send(2);
+
+    channel.close();
+
+    assertFailure(first, IOException.class);
+    assertFailure(second, IOException.class);
+    Assert.assertEquals(channel.getPendingRequests(), 0);
+  }
+
+  public void testServerDisconnectionFailsPending() throws Exception {
+    final Future<Integer> first = send(1);
+    final Future<Integer> second = send(2);
+
+    connection.beginResponse(1).out.writeInt(10);
+    connection.flush();
+    connection.close();
+
+    Assert.assertEquals(first.get(5, TimeUnit.SECONDS).intValue(), 10);
+    assertFailure(second, IOException.class);
+    Assert.assertTrue(channel.isClosed());
+  }
+
+  private Future<Integer> send(final int iSessionId) throws IOException {
+    channel.beginRequest();
+    channel.writeByte(OChannelBinaryProtocol.REQUEST_RECORD_LOAD);
+    channel.writeInt(iSessionId);
+    return channel.endRequest(iSessionId, new Callable<Integer>() {
+      public Integer call() throws Exception {
+        return channel.readInt();
+      }
+    });
+  }
+
+  private static void assertFailure(final Future<?> iResponse, final Class<? extends Throwable> iExpected) throws Exception {
+    try {
+      iResponse.get(5, TimeUnit.SECONDS);
+      Assert.fail("The response must fail");
+    } catch (ExecutionException e) {
+      Assert.assertTrue(iExpected.isInstance(e.getCause()), "Unexpected failure: " + e.getCause());
+    }
+  }
+}
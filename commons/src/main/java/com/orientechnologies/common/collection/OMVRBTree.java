@@ -52,10 +52,6 @@ public abstract class OMVRBTree<K, V> extends AbstractMap<K, V> implements ONavi
   private static final OAlwaysLessKey      ALWAYS_LESS_KEY     = new OAlwaysLessKey();
   private static final OAlwaysGreaterKey   ALWAYS_GREATER_KEY  = new OAlwaysGreaterKey();
 
-  boolean                                  pageItemFound       = false;
-  protected int                            pageItemComparator  = 0;
-  protected int                            pageIndex           = -1;
-
   protected float                          pageLoadFactor      = 0.7f;
 
   /**
@@ -73,12 +69,21 @@ public abstract class OMVRBTree<K, V> extends AbstractMap<K, V> implements ONavi
   protected transient boolean              runtimeCheckEnabled = false;
   protected transient boolean              debug               = false;
 
-  protected Object                         lastSearchKey;
-  protected OMVRBTreeEntry<K, V>           lastSearchNode;
-  protected boolean                        lastSearchFound     = false;
-  protected int                            lastSearchIndex     = -1;
   protected int                            keySize             = 1;
 
+  private transient ThreadLocal<SearchCursor> cursors;
+
+  /**
+   * Position of the last search or navigation of one thread: the item selected inside the current node. Every thread gets its own
+   * instance, so concurrent readers never move each other's position. It holds no reference to the nodes, otherwise the value of
+   * the thread-local would keep the tree, and so the thread-local itself, reachable for the whole life of the thread.
+   */
+  static final class SearchCursor {
+    boolean pageItemFound      = false;
+    int     pageItemComparator = 0;
+    int     pageIndex          = -1;
+  }
+
   /**
    * Indicates search behavior in case of {@link OCompositeKey} keys that have less amount of internal keys are used, whether lowest
    * or highest partially matched key should be used. Such keys is allowed to use only in
@@ -264,16 +269,8 @@ public abstract class OMVRBTree<K, V> extends AbstractMap<K, V> implements ONavi
     final long timer = OProfiler.getInstance().startChrono();
 
     try {
-      // TRY TO GET LATEST SEARCH
-      final OMVRBTreeEntry<K, V> node = getLastSearchNodeForSameKey(key);
-      if (node != null) {
-        // SAME SEARCH OF PREVIOUS ONE: REUSE LAST RESULT?
-        if (lastSearchFound)
-          // REUSE LAST RESULT, OTHERWISE THE KEY NOT EXISTS
-          return node.getValue(lastSearchIndex);
-      } else
-        // SEARCH THE ITEM
-        entry = getEntry(key, PartialSearchMode.NONE);
+      // SEARCH THE ITEM
+      entry = getEntry(key, PartialSearchMode.NONE);
 
       return entry == null ? null : entry.getValue();
 
@@ -353,12 +350,13 @@ public abstract class OMVRBTree<K, V> extends AbstractMap<K, V> implements ONavi
 
   final OMVRBTreeEntry<K, V> getEntry(final Object key, final boolean iGetContainer, final PartialSearchMode partialSearchMode) {
     if (key == null)
-      return setLastSearchNode(null, null);
+      return null;
 
-    pageItemFound = false;
+    final SearchCursor c = cursor();
+    c.pageItemFound = false;
 
     if (size() == 0) {
-      pageIndex = 0;
+      c.pageIndex = 0;
       return iGetContainer ? root : null;
     }
 
@@ -391,7 +389,7 @@ public abstract class OMVRBTree<K, V> extends AbstractMap<K, V> implements ONavi
     checkTreeStructure(p);
 
     if (p == null)
-      return setLastSearchNode(key, null);
+      return null;
 
     OMVRBTreeEntry<K, V> lastNode = p;
     OMVRBTreeEntry<K, V> prevNode = null;
@@ -410,17 +408,17 @@ public abstract class OMVRBTree<K, V> extends AbstractMap<K, V> implements ONavi
 
         if (beginKey == 0) {
           // EXACT MATCH, YOU'RE VERY LUCKY: RETURN THE FIRST KEY WITHOUT SEARCH INSIDE THE NODE
-          pageIndex = 0;
-          pageItemFound = true;
-          pageItemComparator = 0;
+          c.pageIndex = 0;
+          c.pageItemFound = true;
+          c.pageItemComparator = 0;
 
-          return setLastSearchNode(key, p);
+          return p;
         }
 
-        pageItemComparator = compare(k, p.getLastKey());
+        c.pageItemComparator = compare(k, p.getLastKey());
 
         if (beginKey < 0) {
-          if (pageItemComparator < 0) {
+          if (c.pageItemComparator < 0) {
             tmpNode = predecessor(p);
             if (tmpNode != null && tmpNode != prevNode) {
               // MINOR THAN THE CURRENT: GET THE LEFT NODE
@@ -430,7 +428,7 @@ public abstract class OMVRBTree<K, V> extends AbstractMap<K, V> implements ONavi
             }
           }
         } else if (beginKey > 0) {
-          if (pageItemComparator > 0) {
+          if (c.pageItemComparator > 0) {
             tmpNode = successor(p);
             if (tmpNode != null && tmpNode != prevNode) {
               // MAJOR THAN THE CURRENT: GET THE RIGHT NODE
@@ -449,7 +447,7 @@ public abstract class OMVRBTree<K, V> extends AbstractMap<K, V> implements ONavi
           final OCompositeKey compositeKey = (OCompositeKey) key;
 
           if (value != null && compositeKey.getKeys().size() == keySize) {
-            return setLastSearchNode(key, lastNode);
+            return lastNode;
           }
 
           if (partialSearchMode.equals(PartialSearchMode.NONE)) {
@@ -469,10 +467,6 @@ public abstract class OMVRBTree<K, V> extends AbstractMap<K, V> implements ONavi
           }
         }
 
-        if (value != null) {
-          setLastSearchNode(key, lastNode);
-        }
-
         if (value != null || iGetContainer)
           // FOUND: RETURN CURRENT NODE OR AT LEAST THE CONTAINER NODE
           return lastNode;
@@ -486,18 +480,19 @@ public abstract class OMVRBTree<K, V> extends AbstractMap<K, V> implements ONavi
       OProfiler.getInstance().updateStat("[OMVRBTree.getEntry] Steps of search", steps);
     }
 
-    return setLastSearchNode(key, null);
+    return null;
   }
 
   private OMVRBTreeEntry<K, V> adjustHighestPartialSearchResult(final boolean iGetContainer, final OMVRBTreeEntry<K, V> lastNode,
       final OCompositeKey compositeKey) {
-    final int oldPageIndex = pageIndex;
+    final SearchCursor c = cursor();
+    final int oldPageIndex = c.pageIndex;
 
     final OMVRBTreeEntry<K, V> prevNd = previous(lastNode);
 
     if (prevNd == null) {
-      pageIndex = oldPageIndex;
-      pageItemFound = false;
+      c.pageIndex = oldPageIndex;
+      c.pageItemFound = false;
 
       if (iGetContainer)
         return lastNode;
@@ -505,21 +500,21 @@ public abstract class OMVRBTree<K, V> extends AbstractMap<K, V> implements ONavi
       return null;
     }
 
-    pageItemComparator = compare(prevNd.getKey(), compositeKey);
+    c.pageItemComparator = compare(prevNd.getKey(), compositeKey);
 
-    if (pageItemComparator == 0) {
-      pageItemFound = true;
+    if (c.pageItemComparator == 0) {
+      c.pageItemFound = true;
       return prevNd;
-    } else if (pageItemComparator > 1) {
-      pageItemFound = false;
+    } else if (c.pageItemComparator > 1) {
+      c.pageItemFound = false;
 
       if (iGetContainer)
         return prevNd;
 
       return null;
     } else {
-      pageIndex = oldPageIndex;
-      pageItemFound = false;
+      c.pageIndex = oldPageIndex;
+      c.pageItemFound = false;
 
       if (iGetContainer)
         return lastNode;
@@ -533,17 +528,18 @@ public abstract class OMVRBTree<K, V> extends AbstractMap<K, V> implements ONavi
 
     // RARE CASE WHEN NODE ITSELF DOES CONTAIN KEY, BUT ALL KEYS LESS THAN GIVEN ONE
 
-    final int oldPageIndex = pageIndex;
+    final SearchCursor c = cursor();
+    final int oldPageIndex = c.pageIndex;
     final OMVRBTreeEntry<K, V> oldNode = lastNode;
 
-    if (pageIndex >= lastNode.getSize()) {
+    if (c.pageIndex >= lastNode.getSize()) {
       lastNode = next(lastNode);
 
       if (lastNode == null) {
         lastNode = oldNode;
-        pageIndex = oldPageIndex;
+        c.pageIndex = oldPageIndex;
 
-        pageItemFound = false;
+        c.pageItemFound = false;
 
         if (iGetContainer)
           return lastNode;
@@ -553,13 +549,13 @@ public abstract class OMVRBTree<K, V> extends AbstractMap<K, V> implements ONavi
 
     }
 
-    pageItemComparator = compare(lastNode.getKey(), compositeKey);
+    c.pageItemComparator = compare(lastNode.getKey(), compositeKey);
 
-    if (pageItemComparator == 0) {
-      pageItemFound = true;
+    if (c.pageItemComparator == 0) {
+      c.pageItemFound = true;
       return lastNode;
     } else {
-      pageItemFound = false;
+      c.pageItemFound = false;
 
       if (iGetContainer)
         return lastNode;
@@ -591,17 +587,22 @@ public abstract class OMVRBTree<K, V> extends AbstractMap<K, V> implements ONavi
     if (p == null)
       return null;
 
-    if (pageItemFound)
+    final SearchCursor c = cursor();
+    if (c.pageItemFound)
       return p;
     // NOT MATCHED, POSITION IS ALREADY TO THE NEXT ONE
-    else if (pageIndex < p.getSize()) {
+    else if (c.pageIndex < p.getSize()) {
       if (key instanceof OCompositeKey)
         return adjustSearchResult((OCompositeKey) key, partialSearchMode, p);
       else
         return p;
     }
 
-    return null;
+    // NOT MATCHED AND GREATER THAN ALL THE KEYS OF THE PAGE: MOVE TO THE FIRST ITEM OF THE NEXT PAGE
+    final OMVRBTreeEntry<K, V> succ = next(p);
+    if (succ != null && key instanceof OCompositeKey)
+      return adjustSearchResult((OCompositeKey) key, partialSearchMode, succ);
+    return succ;
   }
 
   /**
@@ -619,7 +620,7 @@ public abstract class OMVRBTree<K, V> extends AbstractMap<K, V> implements ONavi
     if (p == null)
       return null;
 
-    if (pageItemFound)
+    if (cursor().pageItemFound)
       return p;
 
     final OMVRBTreeEntry<K, V> adjacentEntry = previous(p);
@@ -677,14 +678,16 @@ public abstract class OMVRBTree<K, V> extends AbstractMap<K, V> implements ONavi
     if (p == null)
       return null;
 
-    if (pageItemFound)
+    final SearchCursor c = cursor();
+    if (c.pageItemFound)
       // MATCH, RETURN THE NEXT ONE
       return next(p);
-    else if (pageIndex < p.getSize())
+    else if (c.pageIndex < p.getSize())
       // NOT MATCHED, POSITION IS ALREADY TO THE NEXT ONE
       return p;
 
-    return null;
+    // NOT MATCHED AND GREATER THAN ALL THE KEYS OF THE PAGE: MOVE TO THE FIRST ITEM OF THE NEXT PAGE
+    return next(p);
   }
 
   /**
@@ -718,6 +721,7 @@ public abstract class OMVRBTree<K, V> extends AbstractMap<K, V> implements ONavi
    */
   @Override
   public V put(final K key, final V value) {
+    final SearchCursor c = cursor();
     OMVRBTreeEntry<K, V> parentNode = null;
 
     try {
@@ -730,46 +734,38 @@ public abstract class OMVRBTree<K, V> extends AbstractMap<K, V> implements ONavi
         return null;
       }
 
-      // TRY TO GET LATEST SEARCH
-      parentNode = getLastSearchNodeForSameKey(key);
-      if (parentNode != null) {
-        if (lastSearchFound) {
-          // EXACT MATCH: UPDATE THE VALUE
-          pageIndex = lastSearchIndex;
-          modCount++;
-          return parentNode.setValue(value);
-        }
-      }
-
       // SEARCH THE ITEM
       parentNode = getEntry(key, true, PartialSearchMode.NONE);
 
-      if (pageItemFound) {
+      if (c.pageItemFound) {
         modCount++;
         // EXACT MATCH: UPDATE THE VALUE
         return parentNode.setValue(value);
       }
 
-      setLastSearchNode(null, null);
-
       if (parentNode == null) {
         parentNode = root;
-        pageIndex = 0;
+        c.pageIndex = 0;
       }
 
       if (parentNode.getFreeSpace() > 0) {
         // INSERT INTO THE PAGE
-        parentNode.insert(pageIndex, key, value);
+        parentNode.insert(c.pageIndex, key, value);
+      } else if (c.pageIndex == parentNode.getSize() && parentNode.getRight() == null && successor(parentNode) == null) {
+        // APPEND AFTER THE GREATEST KEY: LEAVE THE LAST PAGE FULL AND START A NEW ONE, SO SORTED INSERTS PRODUCE FULL PAGES
+        final OMVRBTreeEntry<K, V> newNode = createEntry(key, value);
+        parentNode.setRight(newNode);
+        fixAfterInsertion(newNode);
       } else {
         // CREATE NEW NODE AND COPY HALF OF VALUES FROM THE ORIGIN TO THE NEW ONE IN ORDER TO GET VALUES BALANCED
         final OMVRBTreeEntry<K, V> newNode = createEntry(parentNode);
 
-        if (pageIndex < parentNode.getPageSplitItems())
+        if (c.pageIndex < parentNode.getPageSplitItems())
           // INSERT IN THE ORIGINAL NODE
-          parentNode.insert(pageIndex, key, value);
+          parentNode.insert(c.pageIndex, key, value);
         else
           // INSERT IN THE NEW NODE
-          newNode.insert(pageIndex - parentNode.getPageSplitItems(), key, value);
+          newNode.insert(c.pageIndex - parentNode.getPageSplitItems(), key, value);
 
         OMVRBTreeEntry<K, V> node = parentNode.getRight();
         OMVRBTreeEntry<K, V> prevNode = parentNode;
@@ -838,7 +834,6 @@ public abstract class OMVRBTree<K, V> extends AbstractMap<K, V> implements ONavi
   @Override
   public V remove(final Object key) {
     OMVRBTreeEntry<K, V> p = getEntry(key, PartialSearchMode.NONE);
-    setLastSearchNode(null, null);
     if (p == null)
       return null;
 
@@ -854,7 +849,6 @@ public abstract class OMVRBTree<K, V> extends AbstractMap<K, V> implements ONavi
   public void clear() {
     modCount++;
     setSize(0);
-    setLastSearchNode(null, null);
     setRoot(null);
   }
 
@@ -873,8 +867,7 @@ public abstract class OMVRBTree<K, V> extends AbstractMap<K, V> implements ONavi
     }
 
     // Put clone into "virgin" state (except for comparator)
-    clone.pageIndex = pageIndex;
-    clone.pageItemFound = pageItemFound;
+    clone.init();
     clone.pageLoadFactor = pageLoadFactor;
 
     clone.root = null;
@@ -2181,7 +2174,7 @@ public abstract class OMVRBTree<K, V> extends AbstractMap<K, V> implements ONavi
     OMVRBTreeEntry<K, V> p = root;
     if (p != null) {
       if (p.getSize() > 0)
-        pageIndex = 0;
+        cursor().pageIndex = 0;
 
       while (p.getLeft() != null)
         p = p.getLeft();
@@ -2200,7 +2193,7 @@ public abstract class OMVRBTree<K, V> extends AbstractMap<K, V> implements ONavi
         p = p.getRight();
 
     if (p != null)
-      pageIndex = p.getSize() - 1;
+      cursor().pageIndex = p.getSize() - 1;
 
     return p;
   }
@@ -2247,15 +2240,16 @@ public abstract class OMVRBTree<K, V> extends AbstractMap<K, V> implements ONavi
     if (t == null)
       return null;
 
+    final SearchCursor c = t.tree.cursor();
     final OMVRBTreeEntry<K, V> succ;
-    if (t.tree.pageIndex < t.getSize() - 1) {
+    if (c.pageIndex < t.getSize() - 1) {
       // ITERATE INSIDE THE NODE
       succ = t;
-      t.tree.pageIndex++;
+      c.pageIndex++;
     } else {
       // GET THE NEXT NODE
       succ = OMVRBTree.successor(t);
-      t.tree.pageIndex = 0;
+      c.pageIndex = 0;
     }
 
     return succ;
@@ -2300,18 +2294,19 @@ public abstract class OMVRBTree<K, V> extends AbstractMap<K, V> implements ONavi
     if (t == null)
       return null;
 
-    final int index = t.getTree().getPageIndex();
+    final SearchCursor c = t.tree.cursor();
+    final int index = c.pageIndex;
 
     final OMVRBTreeEntry<K, V> prev;
     if (index <= 0) {
       prev = predecessor(t);
       if (prev != null)
-        t.tree.pageIndex = prev.getSize() - 1;
+        c.pageIndex = prev.getSize() - 1;
       else
-        t.tree.pageIndex = 0;
+        c.pageIndex = 0;
     } else {
       prev = t;
-      t.tree.pageIndex = index - 1;
+      c.pageIndex = index - 1;
     }
 
     return prev;
@@ -2454,7 +2449,7 @@ public abstract class OMVRBTree<K, V> extends AbstractMap<K, V> implements ONavi
   OMVRBTreeEntry<K, V> deleteEntry(OMVRBTreeEntry<K, V> p) {
     setSizeDelta(-1);
     modCount++;
-    if (pageIndex > -1) {
+    if (cursor().pageIndex > -1) {
       // DELETE INSIDE THE NODE
       p.remove();
 
@@ -2618,6 +2613,7 @@ public abstract class OMVRBTree<K, V> extends AbstractMap<K, V> implements ONavi
   private void readObject(final java.io.ObjectInputStream s) throws IOException, ClassNotFoundException {
     // Read in the Comparator and any hidden stuff
     s.defaultReadObject();
+    init();
 
     // Read in size
     setSize(s.readInt());
@@ -2755,14 +2751,27 @@ public abstract class OMVRBTree<K, V> extends AbstractMap<K, V> implements ONavi
   }
 
   public int getPageIndex() {
-    return pageIndex;
+    return cursor().pageIndex;
   }
 
   public void setPageIndex(final int iPageIndex) {
-    pageIndex = iPageIndex;
+    cursor().pageIndex = iPageIndex;
+  }
+
+  /**
+   * Returns the search cursor of the calling thread.
+   */
+  final SearchCursor cursor() {
+    return cursors.get();
   }
 
   private void init() {
+    cursors = new ThreadLocal<SearchCursor>() {
+      @Override
+      protected SearchCursor initialValue() {
+        return new SearchCursor();
+      }
+    };
   }
 
   public OMVRBTreeEntry<K, V> getRoot() {
@@ -2792,7 +2801,8 @@ public abstract class OMVRBTree<K, V> extends AbstractMap<K, V> implements ONavi
     if (!runtimeCheckEnabled || iRootNode == null)
       return;
 
-    int currPageIndex = pageIndex;
+    final SearchCursor c = cursor();
+    final int currPageIndex = c.pageIndex;
 
     OMVRBTreeEntry<K, V> prevNode = null;
     int i = 0;
@@ -2845,7 +2855,7 @@ public abstract class OMVRBTree<K, V> extends AbstractMap<K, V> implements ONavi
       ++i;
     }
 
-    pageIndex = currPageIndex;
+    c.pageIndex = currPageIndex;
   }
 
   public boolean isRuntimeCheckEnabled() {
@@ -2868,31 +2878,6 @@ public abstract class OMVRBTree<K, V> extends AbstractMap<K, V> implements ONavi
     this.debug = debug;
   }
 
-  protected OMVRBTreeEntry<K, V> getLastSearchNodeForSameKey(final Object key) {
-    if (key != null && lastSearchKey != null) {
-      if (key instanceof OCompositeKey)
-        return key.equals(lastSearchKey) ? lastSearchNode : null;
-      if (comparator != null)
-        return comparator.compare((K) key, (K) lastSearchKey) == 0 ? lastSearchNode : null;
-      else
-        try {
-          return ((Comparable<? super K>) key).compareTo((K) lastSearchKey) == 0 ? lastSearchNode : null;
-        } catch (Exception e) {
-          // IGNORE IT
-        }
-    }
-
-    return null;
-  }
-
-  protected OMVRBTreeEntry<K, V> setLastSearchNode(final Object iKey, final OMVRBTreeEntry<K, V> iNode) {
-    lastSearchKey = iKey;
-    lastSearchNode = iNode;
-    lastSearchFound = iNode != null ? iNode.tree.pageItemFound : false;
-    lastSearchIndex = iNode != null ? iNode.tree.pageIndex : -1;
-    return iNode;
-  }
-
   protected void searchNodeCallback() {
   }
 
@@ -110,33 +110,44 @@ public abstract class OMVRBTreeEntry<K, V> implements Map.Entry<K, V>, Comparabl
    * @return the key
    */
   public K getKey() {
-    return getKey(tree.pageIndex);
+    return getKey(tree.cursor().pageIndex);
   }
 
   public K getKey(final int iIndex) {
     if (iIndex >= getSize())
       throw new IndexOutOfBoundsException("Requested index " + iIndex + " when the range is 0-" + getSize());
 
-    tree.pageIndex = iIndex;
+    tree.cursor().pageIndex = iIndex;
     return getKeyAt(iIndex);
   }
 
   protected abstract K getKeyAt(final int iIndex);
 
+  /**
+   * Compares the key at the given position with the key searched. Persistent nodes override it to compare the serialized key in
+   * place without unmarshalling it.
+   */
+  protected int compareKeyAt(final int iIndex, final K iKey) {
+    if (tree.comparator != null)
+      return tree.comparator.compare(getKeyAt(iIndex), iKey);
+    return ((Comparable<? super K>) getKeyAt(iIndex)).compareTo(iKey);
+  }
+
   /**
    * Returns the value associated with the key.
    * 
    * @return the value associated with the key
    */
   public V getValue() {
-    if (tree.pageIndex == -1)
+    final int index = tree.cursor().pageIndex;
+    if (index == -1)
       return getValueAt(0);
 
-    return getValueAt(tree.pageIndex);
+    return getValueAt(index);
   }
 
   public V getValue(final int iIndex) {
-    tree.pageIndex = iIndex;
+    tree.cursor().pageIndex = iIndex;
     return getValueAt(iIndex);
   }
 
@@ -147,84 +158,84 @@ public abstract class OMVRBTreeEntry<K, V> implements Map.Entry<K, V>, Comparabl
   }
 
   /**
-   * Execute a binary search between the keys of the node. The keys are always kept ordered. It update the pageIndex attribute with
-   * the most closer key found (useful for the next inserting).
+   * Execute a binary search between the keys of the node. The keys are always kept ordered. It update the pageIndex of the calling
+   * thread's cursor with the most closer key found (useful for the next inserting).
    * 
    * @param iKey
    *          Key to find
    * @return The value found if any, otherwise null
    */
   protected V search(final K iKey) {
-    tree.pageItemFound = false;
+    final OMVRBTree.SearchCursor c = tree.cursor();
+    c.pageItemFound = false;
     int size = getSize();
     if (size == 0)
       return null;
 
     // CHECK THE LOWER LIMIT
     if (tree.comparator != null)
-      tree.pageItemComparator = tree.comparator.compare(iKey, getKeyAt(0));
+      c.pageItemComparator = tree.comparator.compare(iKey, getKeyAt(0));
     else
-      tree.pageItemComparator = ((Comparable<? super K>) iKey).compareTo(getKeyAt(0));
+      c.pageItemComparator = ((Comparable<? super K>) iKey).compareTo(getKeyAt(0));
 
-    if (tree.pageItemComparator == 0) {
+    if (c.pageItemComparator == 0) {
       // FOUND: SET THE INDEX AND RETURN THE NODE
-      tree.pageItemFound = true;
-      tree.pageIndex = 0;
-      return getValueAt(tree.pageIndex);
+      c.pageItemFound = true;
+      c.pageIndex = 0;
+      return getValueAt(c.pageIndex);
 
-    } else if (tree.pageItemComparator < 0) {
+    } else if (c.pageItemComparator < 0) {
       // KEY OUT OF FIRST ITEM: AVOID SEARCH AND RETURN THE FIRST POSITION
-      tree.pageIndex = 0;
+      c.pageIndex = 0;
       return null;
 
     } else {
       // CHECK THE UPPER LIMIT
       if (tree.comparator != null)
-        tree.pageItemComparator = tree.comparator.compare((K) iKey, getKeyAt(size - 1));
+        c.pageItemComparator = tree.comparator.compare((K) iKey, getKeyAt(size - 1));
       else
-        tree.pageItemComparator = ((Comparable<? super K>) iKey).compareTo(getKeyAt(size - 1));
+        c.pageItemComparator = ((Comparable<? super K>) iKey).compareTo(getKeyAt(size - 1));
 
-      if (tree.pageItemComparator > 0) {
+      if (c.pageItemComparator > 0) {
         // KEY OUT OF LAST ITEM: AVOID SEARCH AND RETURN THE LAST POSITION
-        tree.pageIndex = size;
+        c.pageIndex = size;
         return null;
       }
     }
 
     if (size < BINARY_SEARCH_THRESHOLD)
-      return linearSearch(iKey);
+      return linearSearch(c, iKey);
     else
-      return binarySearch(iKey);
+      return binarySearch(c, iKey);
   }
 
   /**
    * Linear search inside the node
    * 
+   * @param c
+   *          Cursor of the calling thread
    * @param iKey
    *          Key to search
-   * @return Value if found, otherwise null and the tree.pageIndex updated with the closest-after-first position valid for further
-   *         inserts.
+   * @return Value if found, otherwise null and the cursor's pageIndex updated with the closest-after-first position valid for
+   *         further inserts.
    */
-  private V linearSearch(final K iKey) {
+  private V linearSearch(final OMVRBTree.SearchCursor c, final K iKey) {
     V value = null;
     int i = 0;
-    tree.pageItemComparator = -1;
+    c.pageItemComparator = -1;
     for (int s = getSize(); i < s; ++i) {
-      if (tree.comparator != null)
-        tree.pageItemComparator = tree.comparator.compare(getKeyAt(i), iKey);
-      else
-        tree.pageItemComparator = ((Comparable<? super K>) getKeyAt(i)).compareTo(iKey);
+      c.pageItemComparator = compareKeyAt(i, iKey);
 
-      if (tree.pageItemComparator == 0) {
+      if (c.pageItemComparator == 0) {
         // FOUND: SET THE INDEX AND RETURN THE NODE
-        tree.pageItemFound = true;
+        c.pageItemFound = true;
         value = getValueAt(i);
         break;
-      } else if (tree.pageItemComparator > 0)
+      } else if (c.pageItemComparator > 0)
         break;
     }
 
-    tree.pageIndex = i;
+    c.pageIndex = i;
 
     return value;
   }
@@ -232,42 +243,39 @@ public abstract class OMVRBTreeEntry<K, V> implements Map.Entry<K, V>, Comparabl
   /**
    * Binary search inside the node
    * 
+   * @param c
+   *          Cursor of the calling thread
    * @param iKey
    *          Key to search
-   * @return Value if found, otherwise null and the tree.pageIndex updated with the closest-after-first position valid for further
-   *         inserts.
+   * @return Value if found, otherwise null and the cursor's pageIndex updated with the closest-after-first position valid for
+   *         further inserts.
    */
-  private V binarySearch(final K iKey) {
+  private V binarySearch(final OMVRBTree.SearchCursor c, final K iKey) {
     int low = 0;
     int high = getSize() - 1;
     int mid = 0;
 
     while (low <= high) {
       mid = (low + high) >>> 1;
-      Object midVal = getKeyAt(mid);
-
-      if (tree.comparator != null)
-        tree.pageItemComparator = tree.comparator.compare((K) midVal, iKey);
-      else
-        tree.pageItemComparator = ((Comparable<? super K>) midVal).compareTo(iKey);
+      c.pageItemComparator = compareKeyAt(mid, iKey);
 
-      if (tree.pageItemComparator == 0) {
+      if (c.pageItemComparator == 0) {
         // FOUND: SET THE INDEX AND RETURN THE NODE
-        tree.pageItemFound = true;
-        tree.pageIndex = mid;
-        return getValueAt(tree.pageIndex);
+        c.pageItemFound = true;
+        c.pageIndex = mid;
+        return getValueAt(c.pageIndex);
       }
 
       if (low == high)
         break;
 
-      if (tree.pageItemComparator < 0)
+      if (c.pageItemComparator < 0)
         low = mid + 1;
       else
         high = mid;
     }
 
-    tree.pageIndex = mid;
+    c.pageIndex = mid;
     return null;
   }
 
@@ -326,7 +334,7 @@ public abstract class OMVRBTreeEntry<K, V> implements Map.Entry<K, V>, Comparabl
    */
   @Override
   public String toString() {
-    int idx = tree.pageIndex;
+    int idx = tree.cursor().pageIndex;
     if (idx > -1 && idx < getSize())
       return getKeyAt(idx) + "=" + getValueAt(idx);
     return null;
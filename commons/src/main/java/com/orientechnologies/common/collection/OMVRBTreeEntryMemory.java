@@ -184,7 +184,7 @@ public class OMVRBTreeEntryMemory<K, V> extends OMVRBTreeEntry<K, V> {
 	 */
 	public V setValue(final V value) {
 		V oldValue = this.getValue();
-		this.values[tree.pageIndex] = value;
+		this.values[tree.getPageIndex()] = value;
 		return oldValue;
 	}
 
@@ -201,12 +201,13 @@ public class OMVRBTreeEntryMemory<K, V> extends OMVRBTreeEntry<K, V> {
 	}
 
 	protected void remove() {
-		if (tree.pageIndex == size - 1) {
+		final OMVRBTree.SearchCursor c = tree.cursor();
+		if (c.pageIndex == size - 1) {
 			// LAST ONE: JUST REMOVE IT
-		} else if (tree.pageIndex > -1) {
+		} else if (c.pageIndex > -1) {
 			// SHIFT LEFT THE VALUES
-			System.arraycopy(keys, tree.pageIndex + 1, keys, tree.pageIndex, size - tree.pageIndex - 1);
-			System.arraycopy(values, tree.pageIndex + 1, values, tree.pageIndex, size - tree.pageIndex - 1);
+			System.arraycopy(keys, c.pageIndex + 1, keys, c.pageIndex, size - c.pageIndex - 1);
+			System.arraycopy(values, c.pageIndex + 1, values, c.pageIndex, size - c.pageIndex - 1);
 		}
 
 		// FREE RESOURCES
@@ -214,7 +215,7 @@ public class OMVRBTreeEntryMemory<K, V> extends OMVRBTreeEntry<K, V> {
 		values[size - 1] = null;
 
 		size--;
-		tree.pageIndex = 0;
+		c.pageIndex = 0;
 	}
 
 	protected void copyFrom(final OMVRBTreeEntry<K, V> iSource) {
@@ -237,7 +238,7 @@ public class OMVRBTreeEntryMemory<K, V> extends OMVRBTreeEntry<K, V> {
 
 		final StringBuilder buffer = new StringBuilder();
 
-		final Object k = tree.pageIndex >= size ? '?' : getKey();
+		final Object k = tree.getPageIndex() >= size ? '?' : getKey();
 
 		buffer.append(k);
 		buffer.append(" (size=");
@@ -19,13 +19,15 @@ package com.orientechnologies.common.profiler;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Date;
-import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Timer;
 import java.util.TimerTask;
+import java.util.TreeMap;
 import java.util.WeakHashMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 /**
  * Profiling utility class. Handles chronos (times), statistics and counters. By default it's used as Singleton but you can create
@@ -33,27 +35,33 @@ import java.util.WeakHashMap;
  * 
  * To start the recording use call startRecording(). By default record is turned off to avoid a run-time execution cost.
  * 
+ * Updates are lock-free: counters are striped across threads and chronos and statistics are recorded in fixed memory histograms,
+ * so the profiler can stay on under load. Use {@link #getSnapshot()} to read all the values without stopping the writers.
+ * 
  * @author Luca Garulli
  * @copyrights Orient Technologies.com
  */
 public class OProfiler implements OProfilerMBean {
-  private long                            recording = -1;
-  private Map<String, Long>               counters;
-  private Map<String, OProfilerEntry>     chronos;
-  private Map<String, OProfilerEntry>     stats;
-  private Map<OProfilerHookValue, String> hooks;                      // REVERSE MAP TO USE THE WEAK HASH MAP
-  private Date                            lastReset;
+  private volatile long                             recording = -1;
+  private ConcurrentMap<String, OProfilerCounter>   counters;
+  private ConcurrentMap<String, OProfilerHistogram> chronos;
+  private ConcurrentMap<String, OProfilerHistogram> stats;
+  private Map<OProfilerHookValue, String>           hooks;                      // REVERSE MAP TO USE THE WEAK HASH MAP
+  private volatile Date                             lastReset;
 
-  private volatile Timer                  timer;
-  private volatile boolean                autoDumpReset;
+  private volatile Timer                            timer;
+  private volatile boolean                          autoDumpReset;
 
-  protected static final OProfiler        instance  = new OProfiler();
+  protected static final OProfiler                  instance  = new OProfiler();
 
   public interface OProfilerHookValue {
     public Object getValue();
   }
 
-  public class OProfilerEntry {
+  /**
+   * Values of a chrono or a statistic at the time it was read.
+   */
+  public static class OProfilerEntry {
     public String name    = null;
     public long   items   = 0;
     public long   last    = 0;
@@ -61,11 +69,14 @@ public class OProfiler implements OProfilerMBean {
     public long   max     = 0;
     public long   average = 0;
     public long   total   = 0;
+    public long   p50     = 0;
+    public long   p99     = 0;
+    public long   p999    = 0;
 
     @Override
     public String toString() {
-      return "Chrono [average=" + average + ", items=" + items + ", last=" + last + ", max=" + max + ", min=" + min + ", name="
-          + name + ", total=" + total + "]";
+      return "Chrono [average=" + average + ", items=" + items + ", last=" + last + ", max=" + max + ", min=" + min + ", p50="
+          + p50 + ", p99=" + p99 + ", p999=" + p999 + ", name=" + name + ", total=" + total + "]";
     }
   }
 
@@ -92,15 +103,14 @@ public class OProfiler implements OProfilerMBean {
     if (recording < 0)
       return;
 
-    synchronized (counters) {
-      Long stat = counters.get(iStatName);
-
-      long oldValue = stat == null ? 0 : stat.longValue();
-
-      stat = new Long(oldValue + iPlus);
-
-      counters.put(iStatName, stat);
+    OProfilerCounter counter = counters.get(iStatName);
+    if (counter == null) {
+      final OProfilerCounter newCounter = new OProfilerCounter();
+      counter = counters.putIfAbsent(iStatName, newCounter);
+      if (counter == null)
+        counter = newCounter;
     }
+    counter.add(iPlus);
   }
 
   // ----------------------------------------------------------------------------
@@ -117,14 +127,11 @@ public class OProfiler implements OProfilerMBean {
     if (recording < 0)
       return -1;
 
-    synchronized (counters) {
-      Long stat = counters.get(iStatName);
-
-      if (stat == null)
-        return -1;
+    final OProfilerCounter counter = counters.get(iStatName);
+    if (counter == null)
+      return -1;
 
-      return stat.longValue();
-    }
+    return counter.get();
   }
 
   /*
@@ -166,23 +173,26 @@ public class OProfiler implements OProfilerMBean {
   public void reset() {
     lastReset = new Date();
 
-    if (counters != null) {
-      synchronized (counters) {
-        counters.clear();
-      }
-    }
+    if (counters != null)
+      counters.clear();
 
-    if (chronos != null) {
-      synchronized (chronos) {
-        chronos.clear();
-      }
-    }
+    if (chronos != null)
+      chronos.clear();
 
-    if (stats != null) {
-      synchronized (stats) {
-        stats.clear();
-      }
-    }
+    if (stats != null)
+      stats.clear();
+  }
+
+  /**
+   * Returns a copy of all the counters, chronos and statistics. Threads updating them are never blocked: values updated while the
+   * snapshot is taken could be partially included.
+   */
+  public OProfilerSnapshot getSnapshot() {
+    final Map<String, Long> countersCopy = new TreeMap<String, Long>();
+    for (Entry<String, OProfilerCounter> entry : counters.entrySet())
+      countersCopy.put(entry.getKey(), entry.getValue().get());
+
+    return new OProfilerSnapshot(lastReset, countersCopy, snapshotEntries(chronos), snapshotEntries(stats));
   }
 
   public long startChrono() {
@@ -213,20 +223,19 @@ public class OProfiler implements OProfilerMBean {
 
     final StringBuilder buffer = new StringBuilder();
 
-    synchronized (counters) {
-      buffer.append("DUMPING COUNTERS (last reset on: " + lastReset.toString() + ")...");
+    buffer.append("DUMPING COUNTERS (last reset on: " + lastReset.toString() + ")...");
 
-      buffer.append(String.format("\n%50s +-------------------------------------------------------------------+", ""));
-      buffer.append(String.format("\n%50s | Value                                                             |", "Name"));
-      buffer.append(String.format("\n%50s +-------------------------------------------------------------------+", ""));
+    buffer.append(String.format("\n%50s +-------------------------------------------------------------------+", ""));
+    buffer.append(String.format("\n%50s | Value                                                             |", "Name"));
+    buffer.append(String.format("\n%50s +-------------------------------------------------------------------+", ""));
 
-      final List<String> keys = new ArrayList<String>(counters.keySet());
-      Collections.sort(keys);
+    final List<String> keys = new ArrayList<String>(counters.keySet());
+    Collections.sort(keys);
 
-      for (String k : keys) {
-        final Long stat = counters.get(k);
-        buffer.append(String.format("\n%-50s | %-65d |", k, stat));
-      }
+    for (String k : keys) {
+      final OProfilerCounter counter = counters.get(k);
+      if (counter != null)
+        buffer.append(String.format("\n%-50s | %-65d |", k, counter.get()));
     }
 
     buffer.append(String.format("\n%50s +-------------------------------------------------------------------+", ""));
@@ -295,36 +304,18 @@ public class OProfiler implements OProfilerMBean {
    * @see com.orientechnologies.common.profiler.ProfileMBean#getStatistics()
    */
   public String[] getCountersAsString() {
-    synchronized (counters) {
-      final String[] output = new String[counters.size()];
-      int i = 0;
-      for (Entry<String, Long> entry : counters.entrySet()) {
-        output[i++] = entry.getKey() + ": " + entry.getValue().toString();
-      }
-      return output;
-    }
+    final List<String> output = new ArrayList<String>();
+    for (Entry<String, OProfilerCounter> entry : counters.entrySet())
+      output.add(entry.getKey() + ": " + entry.getValue().get());
+    return output.toArray(new String[output.size()]);
   }
 
   public String[] getChronosAsString() {
-    synchronized (chronos) {
-      final String[] output = new String[chronos.size()];
-      int i = 0;
-      for (Entry<String, OProfilerEntry> entry : chronos.entrySet()) {
-        output[i++] = entry.getKey() + ": " + entry.getValue().toString();
-      }
-      return output;
-    }
+    return entriesAsString(chronos);
   }
 
   public String[] getStatsAsString() {
-    synchronized (stats) {
-      final String[] output = new String[stats.size()];
-      int i = 0;
-      for (Entry<String, OProfilerEntry> entry : stats.entrySet()) {
-        output[i++] = entry.getKey() + ": " + entry.getValue().toString();
-      }
-      return output;
-    }
+    return entriesAsString(stats);
   }
 
   public Date getLastReset() {
@@ -332,11 +323,9 @@ public class OProfiler implements OProfilerMBean {
   }
 
   public List<String> getCounters() {
-    synchronized (counters) {
-      final List<String> list = new ArrayList<String>(counters.keySet());
-      Collections.sort(list);
-      return list;
-    }
+    final List<String> list = new ArrayList<String>(counters.keySet());
+    Collections.sort(list);
+    return list;
   }
 
   public List<String> getHooks() {
@@ -348,31 +337,25 @@ public class OProfiler implements OProfilerMBean {
   }
 
   public List<String> getChronos() {
-    synchronized (chronos) {
-      final List<String> list = new ArrayList<String>(chronos.keySet());
-      Collections.sort(list);
-      return list;
-    }
+    final List<String> list = new ArrayList<String>(chronos.keySet());
+    Collections.sort(list);
+    return list;
   }
 
   public List<String> getStats() {
-    synchronized (stats) {
-      final List<String> list = new ArrayList<String>(stats.keySet());
-      Collections.sort(list);
-      return list;
-    }
+    final List<String> list = new ArrayList<String>(stats.keySet());
+    Collections.sort(list);
+    return list;
   }
 
   public OProfilerEntry getStat(final String iStatName) {
-    synchronized (stats) {
-      return stats.get(iStatName);
-    }
+    final OProfilerHistogram histogram = stats.get(iStatName);
+    return histogram != null ? histogram.snapshot(iStatName) : null;
   }
 
   public OProfilerEntry getChrono(final String iChronoName) {
-    synchronized (chronos) {
-      return chronos.get(iChronoName);
-    }
+    final OProfilerHistogram histogram = chronos.get(iChronoName);
+    return histogram != null ? histogram.snapshot(iChronoName) : null;
   }
 
   public boolean isRecording() {
@@ -424,70 +407,65 @@ public class OProfiler implements OProfilerMBean {
   }
 
   private void init() {
-    counters = new HashMap<String, Long>();
-    chronos = new HashMap<String, OProfilerEntry>();
-    stats = new HashMap<String, OProfilerEntry>();
+    counters = new ConcurrentHashMap<String, OProfilerCounter>();
+    chronos = new ConcurrentHashMap<String, OProfilerHistogram>();
+    stats = new ConcurrentHashMap<String, OProfilerHistogram>();
     hooks = new WeakHashMap<OProfiler.OProfilerHookValue, String>();
 
     lastReset = new Date();
   }
 
-  private synchronized long updateEntry(final Map<String, OProfilerEntry> iValues, final String iName, final long iValue) {
+  private long updateEntry(final ConcurrentMap<String, OProfilerHistogram> iValues, final String iName, final long iValue) {
     if (recording < 0)
       return iValue;
 
-    synchronized (iValues) {
-      OProfilerEntry c = iValues.get(iName);
-
-      if (c == null) {
-        // CREATE NEW CHRONO
-        c = new OProfilerEntry();
-        iValues.put(iName, c);
-      }
-
-      c.name = iName;
-      c.items++;
-      c.last = iValue;
-      c.total += c.last;
-      c.average = c.total / c.items;
+    OProfilerHistogram histogram = iValues.get(iName);
+    if (histogram == null) {
+      // CREATE NEW CHRONO: IF ANOTHER THREAD CREATED IT IN THE MEANTIME USE THAT ONE
+      final OProfilerHistogram newHistogram = new OProfilerHistogram();
+      histogram = iValues.putIfAbsent(iName, newHistogram);
+      if (histogram == null)
+        histogram = newHistogram;
+    }
 
-      if (c.last < c.min)
-        c.min = c.last;
+    histogram.record(iValue);
+    return iValue;
+  }
 
-      if (c.last > c.max)
-        c.max = c.last;
+  private Map<String, OProfilerEntry> snapshotEntries(final Map<String, OProfilerHistogram> iValues) {
+    final Map<String, OProfilerEntry> copy = new TreeMap<String, OProfilerEntry>();
+    for (Entry<String, OProfilerHistogram> entry : iValues.entrySet())
+      copy.put(entry.getKey(), entry.getValue().snapshot(entry.getKey()));
+    return copy;
+  }
 
-      return c.last;
-    }
+  private String[] entriesAsString(final Map<String, OProfilerHistogram> iValues) {
+    final List<String> output = new ArrayList<String>();
+    for (OProfilerEntry entry : snapshotEntries(iValues).values())
+      output.add(entry.name + ": " + entry.toString());
+    return output.toArray(new String[output.size()]);
   }
 
-  private synchronized String dumpEntries(final Map<String, OProfilerEntry> iValues, final StringBuilder iBuffer) {
+  private String dumpEntries(final Map<String, OProfilerHistogram> iValues, final StringBuilder iBuffer) {
     // CHECK IF CHRONOS ARE ACTIVED
     if (recording < 0)
       return "<no recording>";
 
-    synchronized (iValues) {
-      if (iValues.size() == 0)
-        return "";
-
-      OProfilerEntry c;
+    final Map<String, OProfilerEntry> entries = snapshotEntries(iValues);
+    if (entries.size() == 0)
+      return "";
 
-      iBuffer.append(String.format("\n%50s +-------------------------------------------------------------------+", ""));
-      iBuffer.append(String.format("\n%50s | %10s %10s %10s %10s %10s %10s |", "Name", "last", "total", "min", "max", "average",
-          "items"));
-      iBuffer.append(String.format("\n%50s +-------------------------------------------------------------------+", ""));
+    iBuffer.append(String.format("\n%50s +-------------------------------------------------------------------+", ""));
+    iBuffer.append(String.format("\n%50s | %10s %10s %10s %10s %10s %10s |", "Name", "last", "total", "items", "p50", "p99",
+        "p999"));
+    iBuffer.append(String.format("\n%50s +-------------------------------------------------------------------+", ""));
 
-      final List<String> keys = new ArrayList<String>(iValues.keySet());
-      Collections.sort(keys);
+    for (OProfilerEntry c : entries.values())
+      iBuffer.append(String.format("\n%-50s | %10d %10d %10d %10d %10d %10d |", c.name, c.last, c.total, c.items, c.p50, c.p99,
+          c.p999));
 
-      for (String k : keys) {
-        c = iValues.get(k);
-        iBuffer.append(String.format("\n%-50s | %10d %10d %10d %10d %10d %10d |", k, c.last, c.total, c.min, c.max, c.average,
-            c.items));
-      }
-      iBuffer.append(String.format("\n%50s +-------------------------------------------------------------------+", ""));
-      return iBuffer.toString();
-    }
+    iBuffer.append(String.format("\n%50s +-------------------------------------------------------------------+", ""));
+    return iBuffer.toString();
   }
 
   public void setAutoDump(final int iSeconds) {
@@ -0,0 +1,56 @@
+/*
+ * Copyright 2010-2012 Luca Garulli (l.garulli--at--orientechnologies.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.orientechnologies.common.profiler;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Counter striped across several cells to let concurrent threads update it without contending on the same memory location. Each
+ * thread updates the cell selected by its id, the value is the sum of all the cells. Reading the value never blocks the writers.
+ * 
+ * @author Luca Garulli
+ */
+public class OProfilerCounter {
+  /**
+   * Distance in longs between two cells, so that each cell lays on its own cache line.
+   */
+  private static final int     PADDING = 8;
+  private static final int     STRIPES = stripes();
+  private static final int     MASK    = STRIPES - 1;
+
+  private final AtomicLongArray cells   = new AtomicLongArray(STRIPES * PADDING);
+
+  public void add(final long iDelta) {
+    cells.addAndGet(((int) Thread.currentThread().getId() & MASK) * PADDING, iDelta);
+  }
+
+  public long get() {
+    long sum = 0;
+    for (int i = 0; i < STRIPES; ++i)
+      sum += cells.get(i * PADDING);
+    return sum;
+  }
+
+  private static int stripes() {
+    // NEXT POWER OF 2 OF THE AVAILABLE CPUS, UP TO 16
+    final int cpus = Math.min(Runtime.getRuntime().availableProcessors(), 16);
+    int stripes = 1;
+    while (stripes < cpus)
+      stripes <<= 1;
+    return stripes;
+  }
+}
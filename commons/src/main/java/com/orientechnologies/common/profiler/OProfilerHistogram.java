@@ -0,0 +1,115 @@
+/*
+ * Copyright 2010-2012 Luca Garulli (l.garulli--at--orientechnologies.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.orientechnologies.common.profiler;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import com.orientechnologies.common.profiler.OProfiler.OProfilerEntry;
+
+/**
+ * Fixed memory histogram of values recorded by chronos and statistics. Values lower than 16 have their own bucket, bigger values
+ * are grouped in 8 linear buckets for each power of 2, so percentiles are reported with an error of 12.5% at most. Recording is
+ * lock-free and reading a snapshot never blocks the writers.
+ * 
+ * @author Luca Garulli
+ */
+public class OProfilerHistogram {
+  private static final int       LINEAR_BUCKETS = 16;
+  private static final int       SUB_BUCKETS    = 8;
+  private static final int       SUB_BITS       = 3;
+  private static final int       BUCKETS        = LINEAR_BUCKETS + (Long.SIZE - 1 - 4) * SUB_BUCKETS;
+
+  private final AtomicLongArray  counts         = new AtomicLongArray(BUCKETS);
+  private final OProfilerCounter total          = new OProfilerCounter();
+  private final AtomicLong       min            = new AtomicLong(Long.MAX_VALUE);
+  private final AtomicLong       max            = new AtomicLong(Long.MIN_VALUE);
+  private volatile long          last;
+
+  public void record(final long iValue) {
+    counts.incrementAndGet(bucket(iValue));
+    total.add(iValue);
+    last = iValue;
+
+    long current;
+    while (iValue < (current = min.get()) && !min.compareAndSet(current, iValue))
+      ;
+    while (iValue > (current = max.get()) && !max.compareAndSet(current, iValue))
+      ;
+  }
+
+  /**
+   * Returns a copy of the current values. Concurrent updates could be partially included.
+   */
+  public OProfilerEntry snapshot(final String iName) {
+    final long[] copy = new long[BUCKETS];
+    long items = 0;
+    for (int i = 0; i < BUCKETS; ++i) {
+      copy[i] = counts.get(i);
+      items += copy[i];
+    }
+
+    final OProfilerEntry entry = new OProfilerEntry();
+    entry.name = iName;
+    entry.items = items;
+    entry.last = last;
+    entry.total = total.get();
+    if (items > 0) {
+      entry.min = min.get();
+      entry.max = max.get();
+      entry.average = entry.total / items;
+      entry.p50 = percentile(copy, items, 0.5, entry.min, entry.max);
+      entry.p99 = percentile(copy, items, 0.99, entry.min, entry.max);
+      entry.p999 = percentile(copy, items, 0.999, entry.min, entry.max);
+    } else {
+      entry.min = 0;
+      entry.max = 0;
+    }
+    return entry;
+  }
+
+  private static long percentile(final long[] iCounts, final long iItems, final double iPercentile, final long iMin,
+      final long iMax) {
+    final long rank = Math.max(1, (long) Math.ceil(iItems * iPercentile));
+    long seen = 0;
+    for (int i = 0; i < iCounts.length; ++i) {
+      seen += iCounts[i];
+      if (seen >= rank)
+        return Math.max(iMin, Math.min(iMax, upperBound(i)));
+    }
+    return iMax;
+  }
+
+  static int bucket(final long iValue) {
+    if (iValue < LINEAR_BUCKETS)
+      return iValue < 0 ? 0 : (int) iValue;
+
+    final int exponent = Long.SIZE - 1 - Long.numberOfLeadingZeros(iValue);
+    final int subBucket = (int) (iValue >>> (exponent - SUB_BITS)) & (SUB_BUCKETS - 1);
+    return LINEAR_BUCKETS + (exponent - 4) * SUB_BUCKETS + subBucket;
+  }
+
+  static long upperBound(final int iBucket) {
+    if (iBucket < LINEAR_BUCKETS)
+      return iBucket;
+
+    final int exponent = (iBucket - LINEAR_BUCKETS) / SUB_BUCKETS + 4;
+    final long subBucket = (iBucket - LINEAR_BUCKETS) % SUB_BUCKETS;
+    final long lower = (SUB_BUCKETS + subBucket) << (exponent - SUB_BITS);
+    return lower + (1L << (exponent - SUB_BITS)) - 1;
+  }
+}
@@ -0,0 +1,65 @@
+/*
+ * Copyright 2010-2012 Luca Garulli (l.garulli--at--orientechnologies.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.orientechnologies.common.profiler;
+
+import java.util.Collections;
+import java.util.Date;
+import java.util.Map;
+
+import com.orientechnologies.common.profiler.OProfiler.OProfilerEntry;
+
+/**
+ * Point in time copy of the profiler values, taken without stopping the threads that keep updating them. Maps are sorted by name.
+ * 
+ * @author Luca Garulli
+ */
+public class OProfilerSnapshot {
+  private final Date                        date;
+  private final Date                        lastReset;
+  private final Map<String, Long>           counters;
+  private final Map<String, OProfilerEntry> chronos;
+  private final Map<String, OProfilerEntry> stats;
+
+  public OProfilerSnapshot(final Date iLastReset, final Map<String, Long> iCounters, final Map<String, OProfilerEntry> iChronos,
+      final Map<String, OProfilerEntry> iStats) {
+    date = new Date();
+    lastReset = iLastReset;
+    counters = Collections.unmodifiableMap(iCounters);
+    chronos = Collections.unmodifiableMap(iChronos);
+    stats = Collections.unmodifiableMap(iStats);
+  }
+
+  public Date getDate() {
+    return date;
+  }
+
+  public Date getLastReset() {
+    return lastReset;
+  }
+
+  public Map<String, Long> getCounters() {
+    return counters;
+  }
+
+  public Map<String, OProfilerEntry> getChronos() {
+    return chronos;
+  }
+
+  public Map<String, OProfilerEntry> getStats() {
+    return stats;
+  }
+}
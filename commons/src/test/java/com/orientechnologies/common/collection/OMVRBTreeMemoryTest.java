@@ -0,0 +1,33 @@
+package com.orientechnologies.common.collection;
+
+import java.lang.ref.WeakReference;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+@Test
+public class OMVRBTreeMemoryTest {
+
+  public void testSearchedTreeIsCollected() throws InterruptedException {
+    final WeakReference<OMVRBTreeMemory<Integer, String>> ref = searchedTree();
+
+    // THE SEARCH POSITION KEPT BY THIS THREAD MUST NOT KEEP THE TREE ALIVE
+    for (int i = 0; i < 50 && ref.get() != null; ++i) {
+      System.gc();
+      Thread.sleep(20);
+    }
+    Assert.assertNull(ref.get());
+  }
+
+  private static WeakReference<OMVRBTreeMemory<Integer, String>> searchedTree() {
+    final OMVRBTreeMemory<Integer, String> tree = new OMVRBTreeMemory<Integer, String>(4, 0.7f);
+    for (int i = 0; i < 100; ++i)
+      tree.put(i, "v" + i);
+
+    Assert.assertEquals(tree.get(42), "v42");
+    Assert.assertTrue(tree.containsKey(7));
+    Assert.assertEquals(tree.ceilingKey(50), Integer.valueOf(50));
+
+    return new WeakReference<OMVRBTreeMemory<Integer, String>>(tree);
+  }
+}
@@ -0,0 +1,78 @@
+package com.orientechnologies.common.profiler;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import com.orientechnologies.common.profiler.OProfiler.OProfilerEntry;
+
+@Test
+public class OProfilerTest {
+  public void testCountersFromManyThreads() throws InterruptedException {
+    final OProfiler profiler = new OProfiler("true");
+
+    final Thread[] threads = new Thread[8];
+    for (int i = 0; i < threads.length; ++i) {
+      threads[i] = new Thread() {
+        @Override
+        public void run() {
+          for (int k = 0; k < 10000; ++k)
+            profiler.updateCounter("test.counter", 1);
+        }
+      };
+      threads[i].start();
+    }
+    for (Thread t : threads)
+      t.join();
+
+    Assert.assertEquals(profiler.getCounter("test.counter"), 80000);
+    Assert.assertEquals(profiler.getCounter("test.missing"), -1);
+  }
+
+  public void testStatPercentiles() {
+    final OProfiler profiler = new OProfiler("true");
+    for (int i = 1; i <= 1000; ++i)
+      profiler.updateStat("test.stat", i);
+
+    final OProfilerEntry entry = profiler.getStat("test.stat");
+    Assert.assertEquals(entry.items, 1000);
+    Assert.assertEquals(entry.total, 500500);
+    Assert.assertEquals(entry.min, 1);
+    Assert.assertEquals(entry.max, 1000);
+    Assert.assertEquals(entry.last, 1000);
+    Assert.assertEquals(entry.average, 500);
+
+    // BUCKETS HAVE AN ERROR OF 12.5% AT MOST
+    Assert.assertTrue(entry.p50 >= 500 && entry.p50 <= 500 * 1.125, "p50=" + entry.p50);
+    Assert.assertTrue(entry.p99 >= 990 && entry.p99 <= 1000, "p99=" + entry.p99);
+    Assert.assertTrue(entry.p999 >= 999 && entry.p999 <= 1000, "p999=" + entry.p999);
+  }
+
+  public void testHistogramBuckets() {
+    long previous = -1;
+    for (long v = 0; v < 100000; ++v) {
+      final int bucket = OProfilerHistogram.bucket(v);
+      Assert.assertTrue(OProfilerHistogram.upperBound(bucket) >= v);
+      Assert.assertTrue(OProfilerHistogram.upperBound(bucket) >= previous);
+      previous = OProfilerHistogram.upperBound(bucket);
+    }
+    Assert.assertEquals(OProfilerHistogram.upperBound(OProfilerHistogram.bucket(Long.MAX_VALUE)), Long.MAX_VALUE);
+  }
+
+  public void testSnapshot() {
+    final OProfiler profiler = new OProfiler("true");
+    profiler.updateCounter("b.counter", 2);
+    profiler.updateCounter("a.counter", 3);
+    profiler.stopChrono("test.chrono", profiler.startChrono());
+
+    final OProfilerSnapshot snapshot = profiler.getSnapshot();
+    Assert.assertEquals(snapshot.getCounters().keySet().iterator().next(), "a.counter");
+    Assert.assertEquals(snapshot.getCounters().get("b.counter").longValue(), 2);
+    Assert.assertEquals(snapshot.getChronos().get("test.chrono").items, 1);
+
+    profiler.updateCounter("a.counter", 1);
+    Assert.assertEquals(snapshot.getCounters().get("a.counter").longValue(), 3);
+
+    profiler.reset();
+    Assert.assertEquals(profiler.getSnapshot().getCounters().size(), 0);
+  }
+}
@@ -0,0 +1,293 @@
+/*
+ * Copyright 2010-2012 Luca Garulli (l.garulli--at--orientechnologies.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.orientechnologies.orient.core.cache;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
+
+import com.orientechnologies.common.log.OLogManager;
+import com.orientechnologies.orient.core.Orient;
+import com.orientechnologies.orient.core.id.ORID;
+import com.orientechnologies.orient.core.memory.OMemoryWatchDog;
+import com.orientechnologies.orient.core.record.ORecordInternal;
+
+/**
+ * Concurrent implementation of {@link OCache} interface. Records are spread across segments: lookups don't take any lock, while
+ * insertions lock only the segment of the record. When the limit is reached the records are evicted using the CLOCK policy (an
+ * approximation of LRU): every lookup marks the record as referenced and referenced records get a second chance before to be
+ * removed. {@link #lock(ORID)} and {@link #unlock(ORID)} lock only the stripe the record belongs to.<br/>
+ * <br/>
+ * To use it as level-2 cache set "cache.level2.impl" to
+ * "com.orientechnologies.orient.core.cache.OConcurrentCache".
+ *
+ * @author Luca Garulli
+ */
+public class OConcurrentCache implements OCache {
+  private static final int           SEGMENTS        = 16;
+  private static final int           RECORD_LOCKS    = 64;
+
+  private final AtomicBoolean        enabled         = new AtomicBoolean(false);
+  private final OCacheSegment[]      segments        = new OCacheSegment[SEGMENTS];
+  private final ReentrantLock[]      recordLocks     = new ReentrantLock[RECORD_LOCKS];
+  private final AtomicInteger        size            = new AtomicInteger();
+  private final AtomicInteger        evictionCounter = new AtomicInteger();
+  private final int                  limit;
+
+  protected OMemoryWatchDog.Listener lowMemoryListener;
+
+  public OConcurrentCache(final String iName, final int initialLimit) {
+    limit = initialLimit;
+    for (int i = 0; i < segments.length; ++i)
+      segments[i] = new OCacheSegment();
+    for (int i = 0; i < recordLocks.length; ++i)
+      recordLocks[i] = new ReentrantLock();
+  }
+
+  public void startup() {
+    lowMemoryListener = Orient.instance().getMemoryWatchDog().addListener(new OLowMemoryListener());
+    enable();
+  }
+
+  public void shutdown() {
+    Orient.instance().getMemoryWatchDog().removeListener(lowMemoryListener);
+    disable();
+  }
+
+  public boolean isEnabled() {
+    return enabled.get();
+  }
+
+  public boolean enable() {
+    return enabled.compareAndSet(false, true);
+  }
+
+  public boolean disable() {
+    clear();
+    return enabled.compareAndSet(true, false);
+  }
+
+  public ORecordInternal<?> get(final ORID id) {
+    if (!isEnabled())
+      return null;
+
+    final OCacheEntry entry = getSegment(id).entries.get(id);
+    if (entry == null)
+      return null;
+
+    if (!entry.referenced)
+      entry.referenced = true;
+    return entry.record;
+  }
+
+  public ORecordInternal<?> put(final ORecordInternal<?> record) {
+    if (!isEnabled())
+      return null;
+
+    final ORecordInternal<?> previous = getSegment(record.getIdentity()).put(record);
+
+    if (limit > 0)
+      while (size.get() > limit)
+        if (!evict(false))
+          break;
+
+    return previous;
+  }
+
+  public ORecordInternal<?> remove(final ORID id) {
+    if (!isEnabled())
+      return null;
+
+    return getSegment(id).remove(id);
+  }
+
+  public void clear() {
+    if (!isEnabled())
+      return;
+
+    for (OCacheSegment segment : segments)
+      segment.clear();
+  }
+
+  public int size() {
+    return size.get();
+  }
+
+  public int limit() {
+    return limit;
+  }
+
+  public Collection<ORID> keys() {
+    final List<ORID> keys = new ArrayList<ORID>(size.get());
+    for (OCacheSegment segment : segments)
+      keys.addAll(segment.entries.keySet());
+    return keys;
+  }
+
+  public void lock(final ORID id) {
+    getRecordLock(id).lock();
+  }
+
+  public void unlock(final ORID id) {
+    getRecordLock(id).unlock();
+  }
+
+  /**
+   * Removes up to iAmount records. Dirty and pinned records are kept.
+   */
+  void removeEldest(final int iAmount) {
+    for (int i = 0; i < iAmount; ++i)
+      if (!evict(true))
+        break;
+  }
+
+  /**
+   * Removes one record starting from the next segment in round robin.
+   *
+   * @return true if a record has been removed, false if no record can be evicted
+   */
+  private boolean evict(final boolean iKeepDirty) {
+    final int start = evictionCounter.getAndIncrement();
+    for (int i = 0; i < SEGMENTS; ++i)
+      if (segments[(start + i) & (SEGMENTS - 1)].evict(iKeepDirty))
+        return true;
+    return false;
+  }
+
+  private OCacheSegment getSegment(final ORID id) {
+    return segments[hash(id) >>> 28];
+  }
+
+  private ReentrantLock getRecordLock(final ORID id) {
+    return recordLocks[hash(id) >>> 26];
+  }
+
+  /**
+   * Spreads the hash code of the record id, that is usually a small number, on the high bits.
+   */
+  private static int hash(final ORID id) {
+    return id.hashCode() * 0x9E3779B9;
+  }
+
+  static final class OCacheEntry {
+    final ORID               key;
+    final ORecordInternal<?> record;
+    volatile boolean         referenced;
+
+    OCacheEntry(final ORID iKey, final ORecordInternal<?> iRecord) {
+      key = iKey;
+      record = iRecord;
+    }
+  }
+
+  /**
+   * Segment of the cache. Lookups and removals work directly on the concurrent map, while insertions and evictions are synchronized
+   * on the segment to keep the clock consistent. Removed entries are discarded lazily by the clock hand.
+   */
+  final class OCacheSegment {
+    final ConcurrentHashMap<ORID, OCacheEntry> entries = new ConcurrentHashMap<ORID, OCacheEntry>();
+    private final LinkedList<OCacheEntry>      clock   = new LinkedList<OCacheEntry>();
+
+    synchronized ORecordInternal<?> put(final ORecordInternal<?> iRecord) {
+      final OCacheEntry entry = new OCacheEntry(iRecord.getIdentity(), iRecord);
+      final OCacheEntry previous = entries.put(entry.key, entry);
+      clock.addLast(entry);
+
+      if (clock.size() > entries.size() * 2 + 16)
+        // TOO MANY REMOVED OR REPLACED ENTRIES IN THE CLOCK: DISCARD THEM
+        for (Iterator<OCacheEntry> it = clock.iterator(); it.hasNext();)
+          if (!isAlive(it.next()))
+            it.remove();
+
+      if (previous == null) {
+        size.incrementAndGet();
+        return null;
+      }
+      return previous.record;
+    }
+
+    ORecordInternal<?> remove(final ORID iKey) {
+      final OCacheEntry entry = entries.remove(iKey);
+      if (entry == null)
+        return null;
+
+      size.decrementAndGet();
+      return entry.record;
+    }
+
+    synchronized void clear() {
+      for (OCacheEntry entry : clock)
+        if (entries.remove(entry.key, entry))
+          size.decrementAndGet();
+      clock.clear();
+    }
+
+    /**
+     * Moves the clock hand until a record not referenced since the last pass is found and removes it.
+     */
+    synchronized boolean evict(final boolean iKeepDirty) {
+      for (int steps = clock.size() * 2; steps > 0 && !clock.isEmpty(); --steps) {
+        final OCacheEntry entry = clock.removeFirst();
+        if (!isAlive(entry))
+          continue;
+
+        if (entry.referenced) {
+          // SECOND CHANCE
+          entry.referenced = false;
+          clock.addLast(entry);
+        } else if (iKeepDirty && (entry.record.isDirty() || entry.record.isPinned() == Boolean.TRUE))
+          clock.addLast(entry);
+        else if (entries.remove(entry.key, entry)) {
+          size.decrementAndGet();
+          return true;
+        }
+      }
+      return false;
+    }
+
+    private boolean isAlive(final OCacheEntry iEntry) {
+      return entries.get(iEntry.key) == iEntry;
+    }
+  }
+
+  class OLowMemoryListener implements OMemoryWatchDog.Listener {
+    public void memoryUsageLow(final long freeMemory, final long freeMemoryPercentage) {
+      try {
+        final int oldSize = size();
+        if (oldSize == 0)
+          return;
+
+        if (freeMemoryPercentage < 10) {
+          OLogManager.instance().debug(this, "Low memory (%d%%): clearing %d cached records", freeMemoryPercentage, oldSize);
+          removeEldest(oldSize);
+        } else {
+          final int newSize = (int) (oldSize * 0.9f);
+          removeEldest(oldSize - newSize);
+          OLogManager.instance().debug(this, "Low memory (%d%%): reducing cached records number from %d to %d",
+              freeMemoryPercentage, oldSize, newSize);
+        }
+      } catch (Exception e) {
+        OLogManager.instance().error(this, "Error occurred during concurrent cache cleanup", e);
+      }
+    }
+  }
+}
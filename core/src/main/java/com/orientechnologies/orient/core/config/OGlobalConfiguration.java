@@ -58,6 +58,30 @@ public enum OGlobalConfiguration {
   STORAGE_RECORD_LOCK_TIMEOUT("storage.record.lockTimeout", "Maximum timeout in milliseconds to lock a shared record",
       Integer.class, 5000),
 
+  STORAGE_LOCK_PER_CLUSTER(
+      "storage.lockPerCluster",
+      "Record operations lock only the involved cluster instead of the entire storage, so writes against different clusters run concurrently. "
+          + "The storage lock is kept for structural operations. Auto-defrag of data segments by moving records is disabled in this mode",
+      Boolean.class, Boolean.FALSE),
+
+  STORAGE_COMPACTION_INTERVAL("storage.compaction.interval",
+      "Interval in milliseconds between the runs of the background compaction of each data segment. 0 = disabled", Integer.class,
+      60000),
+
+  STORAGE_COMPACTION_FRAGMENTATION(
+      "storage.compaction.fragmentation",
+      "Percentage of a data segment taken by holes that starts its compaction. Once started the compaction goes on until all the holes are cut away",
+      Integer.class, 30),
+
+  STORAGE_COMPACTION_MAX_BYTES("storage.compaction.maxBytesPerRun",
+      "Maximum bytes of records moved by each run of the compaction, to limit the impact on the concurrent operations",
+      Integer.class, 1048576),
+
+  STORAGE_CLUSTER_READ_AHEAD(
+      "storage.cluster.readAhead",
+      "Maximum number of records read in one block by the iterators browsing forward a cluster of a local storage. The block starts from a few records "
+          + "and doubles while the browsing goes on. 0 = disabled", Integer.class, 256),
+
   // CACHE
   CACHE_LEVEL1_ENABLED("cache.level1.enabled", "Use the level-1 cache", Boolean.class, true),
 
@@ -67,8 +91,9 @@ public enum OGlobalConfiguration {
 
   CACHE_LEVEL2_SIZE("cache.level2.size", "Size of the cache that keeps the record in memory", Integer.class, -1),
 
-  CACHE_LEVEL2_IMPL("cache.level2.impl", "Actual implementation of secondary cache", String.class, ODefaultCache.class
-      .getCanonicalName()),
+  CACHE_LEVEL2_IMPL("cache.level2.impl",
+      "Actual implementation of secondary cache. Use OConcurrentCache for highly concurrent workloads", String.class,
+      ODefaultCache.class.getCanonicalName()),
 
   CACHE_LEVEL2_STRATEGY("cache.level2.strategy",
       "Strategy to use when a database requests a record: 0 = pop the record, 1 = copy the record", Integer.class, 0,
@@ -88,6 +113,35 @@ public enum OGlobalConfiguration {
 
   DB_VALIDATION("db.validation", "Enables or disables validation of records", Boolean.class, true),
 
+  DB_DOCUMENT_SERIALIZER("db.document.serializer",
+      "Serializer used to write documents: ORecordDocument2csv (default) or ORecordDocument2binary. Both formats can always be read",
+      String.class, "ORecordDocument2csv"),
+
+  DB_EXPORT_IMPORT_THREADS("db.exportImport.threads",
+      "Number of threads encoding the records of a database export and parsing the records of an import. 1 works sequentially",
+      Integer.class, 1),
+
+  // QUERIES
+  QUERY_GROUPBY_MAX_GROUPS("query.groupBy.maxGroups",
+      "Maximum number of groups a GROUP BY query keeps in memory. The query fails if it's exceeded. -1 means no limit",
+      Integer.class, 100000),
+
+  QUERY_PARSED_CACHE_SIZE("query.parsedCache.size",
+      "Number of distinct SELECT statements whose parsed executors are kept to be reused. 0 disables the cache", Integer.class, 200),
+
+  QUERY_COMPILED_FILTER("query.compiledFilter",
+      "Evaluates the WHERE conditions of the queries with comparisons specialized on the field types", Boolean.class, true),
+
+  QUERY_PARALLEL_SCAN("query.parallelScan", "Evaluates the WHERE conditions in parallel when a query scans the clusters",
+      Boolean.class, false),
+
+  QUERY_PARALLEL_SCAN_THREADS("query.parallelScan.threads", "Number of threads evaluating the conditions of a parallel scan",
+      Integer.class, Runtime.getRuntime().availableProcessors()),
+
+  QUERY_PARALLEL_SCAN_THRESHOLD("query.parallelScan.threshold",
+      "Minimum number of records to browse to scan the clusters in parallel. Below it the scan is sequential", Integer.class,
+      50000),
+
   // SETTINGS OF NON-TRANSACTIONAL MODE
   NON_TX_RECORD_UPDATE_SYNCH("nonTX.recordUpdate.synch",
       "Executes a synch against the file-system at every record operation. This slows down records updates "
@@ -106,6 +160,14 @@ public enum OGlobalConfiguration {
 
   TX_COMMIT_SYNCH("tx.commit.synch", "Synchronizes the storage after transaction commit", Boolean.class, false),
 
+  TX_GROUP_COMMIT("tx.groupCommit", "Concurrent commits share the same synch of the storage. Used only when tx.commit.synch is true",
+      Boolean.class, false),
+
+  TX_GROUP_COMMIT_BATCH("tx.groupCommit.batchSize", "Maximum number of commits covered by the same synch", Integer.class, 32),
+
+  TX_GROUP_COMMIT_MAX_WAIT("tx.groupCommit.maxWait",
+      "Maximum time in ms to wait for other commits before synchronizing the storage", Integer.class, 10),
+
   // GRAPH
   @Deprecated
   BLUEPRINTS_TX_MODE("blueprints.graph.txMode",
@@ -140,7 +202,16 @@ public enum OGlobalConfiguration {
   MVRBTREE_ENTRY_VALUES_IN_MEMORY("mvrbtree.entryValuesInMemory", "Keep unserialized values in memory", Boolean.class,
       Boolean.FALSE),
 
+  MVRBTREE_LOOKUP_CACHE_SIZE("mvrbtree.lookupCacheSize",
+      "Number of key lookups per index served without searching the tree. The cache is reset at every change of the index. 0 = disabled",
+      Integer.class, 1000),
+
   // TREEMAP OF RIDS
+  MVRBTREE_RID_COMPACT_THRESHOLD(
+      "mvrbtree.ridCompactThreshold",
+      "Valid for set of rids. It's the threshold as number of entries to keep the set as sorted arrays of cluster ids and positions instead of the MVRB-Tree. It never exceeds mvrbtree.ridBinaryThreshold when that is enabled. Once converted to the MVRB-Tree cannot come back. 0 means always use the MVRB-Tree",
+      Integer.class, 1000),
+
   MVRBTREE_RID_BINARY_THRESHOLD(
       "mvrbtree.ridBinaryThreshold",
       "Valid for set of rids. It's the threshold as number of entries to use the binary streaming instead of classic string streaming. -1 means never use binary streaming",
@@ -152,6 +223,20 @@ public enum OGlobalConfiguration {
   MVRBTREE_RID_NODE_SAVE_MEMORY("mvrbtree.ridNodeSaveMemory",
       "Save memory usage by avoid keeping RIDs in memory but creating them at every access", Boolean.class, Boolean.FALSE),
 
+  // INDEX
+  INDEX_BULK_LOAD("index.bulkLoad",
+      "Rebuilds the indexes by sorting the entries first and putting them in key order, so the tree pages are filled completely",
+      Boolean.class, true),
+
+  INDEX_BULK_LOAD_BUFFER_SIZE(
+      "index.bulkLoad.bufferSize",
+      "Number of entries sorted in memory while rebuilding an index. Bigger indexes are sorted in chunks written to temporary files and then merged",
+      Integer.class, 100000),
+
+  // HASH INDEX
+  HASH_INDEX_BUCKET_SIZE("hashIndex.bucketSize",
+      "Number of keys stored in each bucket of the hash indexes. A full bucket is split in two", Integer.class, 64),
+
   // COLLECTIONS
   LAZYSET_WORK_ON_STREAM("lazyset.workOnStream", "Upon add avoid unmarshalling set", Boolean.class, true),
 
@@ -168,6 +253,18 @@ public enum OGlobalConfiguration {
       "Max distance in bytes between holes to cause their defrag. Set it to -1 to use dynamic size. Beware that if the db is huge moving blocks to defrag could be expensive",
       Integer.class, 32768),
 
+  FILE_CLASSIC_CACHE_SIZE("file.classic.cacheSize",
+      "Size in bytes of the page cache shared by the files accessed through the channel (classic). 0 = disabled", Long.class,
+      4194304),
+
+  FILE_CLASSIC_CACHE_PAGE_SIZE("file.classic.cachePageSize", "Size in bytes of the pages of the classic file cache",
+      Integer.class, 4096),
+
+  FILE_CLASSIC_CACHE_WRITE_BACK(
+      "file.classic.cacheWriteBack",
+      "Writes the changed pages of the classic file cache only on synch, close and eviction. This reduces the I/O but changes not synched can be lost if the process crashes",
+      Boolean.class, Boolean.FALSE),
+
   FILE_MMAP_USE_OLD_MANAGER("file.mmap.useOldManager",
       "Manager that will be used to handle mmap files. true = USE OLD MANAGER, false = USE NEW MANAGER", boolean.class, false),
 
@@ -295,6 +392,14 @@ public enum OGlobalConfiguration {
 
   CLIENT_CHANNEL_MAX_POOL("client.channel.maxPool", "Maximum channel pool size", Integer.class, 5),
 
+  CLIENT_CHANNEL_MULTIPLEXED("client.channel.multiplexed",
+      "Sends record and command requests on multiplexed channels, which carry many requests at the same time", Boolean.class, false),
+
+  CLIENT_CHANNEL_MULTIPLEXED_POOL("client.channel.multiplexed.pool", "Number of multiplexed channels", Integer.class, 2),
+
+  CLIENT_CHANNEL_MULTIPLEXED_MAX_PENDING("client.channel.multiplexed.maxPending",
+      "Maximum number of requests waiting for the response on a multiplexed channel", Integer.class, 256),
+
   CLIENT_CONNECT_POOL_WAIT_TIMEOUT("client.connectionPool.waitTimeout",
       "Maximum time which client should wait connection from the pool", Integer.class, 5000),
 
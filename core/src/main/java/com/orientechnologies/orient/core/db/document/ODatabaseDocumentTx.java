@@ -32,7 +32,7 @@ import com.orientechnologies.orient.core.exception.OConcurrentModificationExcept
 import com.orientechnologies.orient.core.exception.ODatabaseException;
 import com.orientechnologies.orient.core.exception.OValidationException;
 import com.orientechnologies.orient.core.index.OIndex;
-import com.orientechnologies.orient.core.index.OIndexMVRBTreeAbstract;
+import com.orientechnologies.orient.core.index.OIndexAbstract;
 import com.orientechnologies.orient.core.iterator.ORecordIteratorClass;
 import com.orientechnologies.orient.core.iterator.ORecordIteratorCluster;
 import com.orientechnologies.orient.core.metadata.schema.OClass;
@@ -53,26 +53,26 @@ public class ODatabaseDocumentTx extends ODatabaseRecordWrapperAbstract<ODatabas
     super(iSource);
   }
 
-  private void freezeIndexes(final List<OIndexMVRBTreeAbstract<?>> indexesToFreeze, boolean throwException) {
+  private void freezeIndexes(final List<OIndexAbstract<?>> indexesToFreeze, boolean throwException) {
     if (indexesToFreeze != null) {
-      for (OIndexMVRBTreeAbstract<?> indexToLock : indexesToFreeze) {
+      for (OIndexAbstract<?> indexToLock : indexesToFreeze) {
         indexToLock.freeze(throwException);
       }
     }
   }
 
-  private void flushIndexes(List<OIndexMVRBTreeAbstract<?>> indexesToFlush) {
-    for (OIndexMVRBTreeAbstract<?> index : indexesToFlush) {
+  private void flushIndexes(List<OIndexAbstract<?>> indexesToFlush) {
+    for (OIndexAbstract<?> index : indexesToFlush) {
       index.flush();
     }
   }
 
-  private List<OIndexMVRBTreeAbstract<?>> prepareIndexesToFreeze(Collection<? extends OIndex<?>> indexes) {
-    List<OIndexMVRBTreeAbstract<?>> indexesToFreeze = null;
+  private List<OIndexAbstract<?>> prepareIndexesToFreeze(Collection<? extends OIndex<?>> indexes) {
+    List<OIndexAbstract<?>> indexesToFreeze = null;
     if (indexes != null && !indexes.isEmpty()) {
-      indexesToFreeze = new ArrayList<OIndexMVRBTreeAbstract<?>>(indexes.size());
+      indexesToFreeze = new ArrayList<OIndexAbstract<?>>(indexes.size());
       for (OIndex<?> index : indexes) {
-        indexesToFreeze.add((OIndexMVRBTreeAbstract<?>) index.getInternal());
+        indexesToFreeze.add((OIndexAbstract<?>) index.getInternal());
       }
 
       Collections.sort(indexesToFreeze, new Comparator<OIndex<?>>() {
@@ -107,7 +107,7 @@ public class ODatabaseDocumentTx extends ODatabaseRecordWrapperAbstract<ODatabas
     final long startTime = OProfiler.getInstance().startChrono();
 
     final Collection<? extends OIndex<?>> indexes = getMetadata().getIndexManager().getIndexes();
-    final List<OIndexMVRBTreeAbstract<?>> indexesToLock = prepareIndexesToFreeze(indexes);
+    final List<OIndexAbstract<?>> indexesToLock = prepareIndexesToFreeze(indexes);
 
     freezeIndexes(indexesToLock, true);
     flushIndexes(indexesToLock);
@@ -129,7 +129,7 @@ public class ODatabaseDocumentTx extends ODatabaseRecordWrapperAbstract<ODatabas
     final long startTime = OProfiler.getInstance().startChrono();
 
     final Collection<? extends OIndex<?>> indexes = getMetadata().getIndexManager().getIndexes();
-    final List<OIndexMVRBTreeAbstract<?>> indexesToLock = prepareIndexesToFreeze(indexes);
+    final List<OIndexAbstract<?>> indexesToLock = prepareIndexesToFreeze(indexes);
 
     freezeIndexes(indexesToLock, false);
     flushIndexes(indexesToLock);
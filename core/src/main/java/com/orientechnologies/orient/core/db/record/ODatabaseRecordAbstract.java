@@ -102,6 +102,21 @@ public abstract class ODatabaseRecordAbstract extends ODatabaseWrapperAbstract<O
 
   @Override
   public <DB extends ODatabase> DB open(final String iUserName, final String iUserPassword) {
+    return (DB) open(iUserName, iUserPassword, null);
+  }
+
+  /**
+   * Opens the database with the user of another instance already open on the same storage, without authenticating again.
+   */
+  ODatabaseRecordAbstract open(final ODatabaseRecordAbstract iSource) {
+    if (iSource.isClosed() || iSource.getUser() == null)
+      throw new ODatabaseException("Cannot open the database '" + getName()
+          + "' without authentication: the source database is not open");
+
+    return open(iSource.getUser().getName(), null, iSource);
+  }
+
+  private ODatabaseRecordAbstract open(final String iUserName, final String iUserPassword, final ODatabaseRecordAbstract iSource) {
     setCurrentDatabaseinThreadLocal();
 
     try {
@@ -114,7 +129,15 @@ public abstract class ODatabaseRecordAbstract extends ODatabaseWrapperAbstract<O
       recordFormat = DEF_RECORD_FORMAT;
 
       if (!(getStorage() instanceof OStorageProxy)) {
-        user = getMetadata().getSecurity().authenticate(iUserName, iUserPassword);
+        if (iSource != null) {
+          // THE USER IS ALREADY AUTHENTICATED ONLY IF THE SOURCE DATABASE WORKS ON THE SAME STORAGE
+          if (iSource.getStorage() != getStorage())
+            throw new ODatabaseException("Cannot open the database '" + getName()
+                + "' without authentication: the source database is open on another storage");
+          user = iSource.getUser();
+        } else
+          user = getMetadata().getSecurity().authenticate(iUserName, iUserPassword);
+
         if (user != null) {
           final Set<ORole> roles = user.getRoles();
           if (roles == null || roles.isEmpty() || roles.iterator().next() == null) {
@@ -149,7 +172,7 @@ public abstract class ODatabaseRecordAbstract extends ODatabaseWrapperAbstract<O
       close();
       throw new ODatabaseException("Cannot open database", e);
     }
-    return (DB) this;
+    return this;
   }
 
   @Override
@@ -530,6 +553,15 @@ public abstract class ODatabaseRecordAbstract extends ODatabaseWrapperAbstract<O
 
   public <RET extends ORecordInternal<?>> RET executeReadRecord(final ORecordId iRid, ORecordInternal<?> iRecord,
       final String iFetchPlan, final boolean iIgnoreCache) {
+    return (RET) executeReadRecord(iRid, iRecord, iFetchPlan, iIgnoreCache, null);
+  }
+
+  /**
+   * Reads the record using the content already read from the storage if iContent is not null, like the blocks read ahead by the
+   * cluster iterators. The record in the current transaction and the cached one have the precedence anyway.
+   */
+  public <RET extends ORecordInternal<?>> RET executeReadRecord(final ORecordId iRid, ORecordInternal<?> iRecord,
+      final String iFetchPlan, final boolean iIgnoreCache, final ORawBuffer iContent) {
     checkOpeness();
 
     // setCurrentDatabaseinThreadLocal();
@@ -563,7 +595,12 @@ public abstract class ODatabaseRecordAbstract extends ODatabaseWrapperAbstract<O
         return (RET) record;
       }
 
-      final ORawBuffer recordBuffer = underlying.read(iRid, iFetchPlan, iIgnoreCache);
+      final ORawBuffer recordBuffer;
+      if (iContent != null) {
+        OFetchHelper.checkFetchPlanValid(iFetchPlan);
+        recordBuffer = iContent;
+      } else
+        recordBuffer = underlying.read(iRid, iFetchPlan, iIgnoreCache);
       if (recordBuffer == null)
         return null;
 
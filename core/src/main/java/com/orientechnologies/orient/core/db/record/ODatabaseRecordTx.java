@@ -41,6 +41,16 @@ public class ODatabaseRecordTx extends ODatabaseRecordAbstract {
 		init();
 	}
 
+	/**
+	 * Opens another instance of the database with the same user, without authenticating again. The new instance becomes the current
+	 * database of the calling thread: it's used to give every thread working in parallel its own database.
+	 */
+	public ODatabaseRecordTx copy() {
+		final ODatabaseRecordTx db = new ODatabaseRecordTx(getURL(), getRecordType());
+		db.open(this);
+		return db;
+	}
+
 	public ODatabaseRecord begin() {
 		return begin(TXTYPE.OPTIMISTIC);
 	}
@@ -23,8 +23,13 @@ import java.io.OutputStreamWriter;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedList;
 import java.util.List;
 import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
 import java.util.zip.GZIPOutputStream;
 
 import com.orientechnologies.common.io.OIOException;
@@ -32,12 +37,17 @@ import com.orientechnologies.common.log.OLogManager;
 import com.orientechnologies.orient.core.OConstants;
 import com.orientechnologies.orient.core.command.OCommandOutputListener;
 import com.orientechnologies.orient.core.config.OStorageConfiguration;
+import com.orientechnologies.orient.core.db.ODatabaseRecordThreadLocal;
 import com.orientechnologies.orient.core.db.record.ODatabaseRecord;
+import com.orientechnologies.orient.core.db.record.ODatabaseRecordAbstract;
+import com.orientechnologies.orient.core.db.record.ODatabaseRecordTx;
+import com.orientechnologies.orient.core.id.ORecordId;
 import com.orientechnologies.orient.core.index.OIndex;
 import com.orientechnologies.orient.core.index.OIndexDefinition;
 import com.orientechnologies.orient.core.index.OIndexManagerProxy;
 import com.orientechnologies.orient.core.index.ORuntimeKeyIndexDefinition;
 import com.orientechnologies.orient.core.iterator.ORecordIteratorCluster;
+import com.orientechnologies.orient.core.iterator.ORecordIteratorClusters;
 import com.orientechnologies.orient.core.metadata.schema.OClass;
 import com.orientechnologies.orient.core.metadata.schema.OClassImpl;
 import com.orientechnologies.orient.core.metadata.schema.OProperty;
@@ -46,6 +56,7 @@ import com.orientechnologies.orient.core.metadata.schema.OSchemaProxy;
 import com.orientechnologies.orient.core.metadata.schema.OSchemaShared;
 import com.orientechnologies.orient.core.record.ORecordInternal;
 import com.orientechnologies.orient.core.record.impl.ODocument;
+import com.orientechnologies.orient.core.serialization.OBase64Utils;
 import com.orientechnologies.orient.core.serialization.serializer.OJSONWriter;
 import com.orientechnologies.orient.core.serialization.serializer.binary.OBinarySerializer;
 import com.orientechnologies.orient.core.sql.query.OSQLSynchQuery;
@@ -57,9 +68,13 @@ import com.orientechnologies.orient.core.type.tree.provider.OMVRBTreeMapProvider
  * @author Luca Garulli (l.garulli--at--orientechnologies.com)
  */
 public class ODatabaseExport extends ODatabaseImpExpAbstract {
-  private OJSONWriter     writer;
-  private long            recordExported;
-  public static final int VERSION = 3;
+  private static final String JSON_FORMAT      = "rid,type,version,class,attribSameRow,indent:4,keepTypes";
+  static final char           BINARY_SEPARATOR = '|';
+  private static final int    RANGE_SIZE       = 1000;
+  private OJSONWriter         writer;
+  private long                recordExported;
+  private boolean             binaryRecords    = false;
+  public static final int     VERSION          = 3;
 
   public ODatabaseExport(final ODatabaseRecord iDatabase, final String iFileName, final OCommandOutputListener iListener)
       throws IOException {
@@ -133,81 +148,52 @@ public class ODatabaseExport extends ODatabaseImpExpAbstract {
     int level = 1;
     listener.onMessage("\nExporting records...");
 
-    writer.beginCollection(level, true, "records");
-    int exportedClusters = 0;
-    int maxClusterId = getMaxClusterId();
-    for (int i = 0; exportedClusters <= maxClusterId; ++i) {
-      String clusterName = database.getClusterNameById(i);
-
-      exportedClusters++;
+    writer.beginCollection(level, true, binaryRecords ? "binaryRecords" : "records");
 
-      final long recordTot;
+    final ODatabaseRecordTx parallelDatabase = getParallelDatabase();
+    final ExecutorService workers = parallelDatabase != null ? createWorkers(parallelDatabase, "Export") : null;
+    try {
+      int exportedClusters = 0;
+      int maxClusterId = getMaxClusterId();
+      for (int i = 0; exportedClusters <= maxClusterId; ++i) {
+        String clusterName = database.getClusterNameById(i);
+
+        exportedClusters++;
+
+        final long recordTot;
+
+        if (clusterName != null) {
+          // CHECK IF THE CLUSTER IS INCLUDED
+          if (includeClusters != null) {
+            if (!includeClusters.contains(clusterName))
+              continue;
+          } else if (excludeClusters != null) {
+            if (excludeClusters.contains(clusterName))
+              continue;
+          }
 
-      if (clusterName != null) {
-        // CHECK IF THE CLUSTER IS INCLUDED
-        if (includeClusters != null) {
-          if (!includeClusters.contains(clusterName))
-            continue;
-        } else if (excludeClusters != null) {
-          if (excludeClusters.contains(clusterName))
+          if (excludeClusters != null && excludeClusters.contains(clusterName))
             continue;
-        }
-
-        if (excludeClusters != null && excludeClusters.contains(clusterName))
-          continue;
 
-        recordTot = database.countClusterElements(clusterName);
-      } else
-        recordTot = 0;
+          recordTot = database.countClusterElements(clusterName);
+        } else
+          recordTot = 0;
 
-      listener.onMessage("\n- Cluster " + (clusterName != null ? "'" + clusterName + "'" : "NULL") + " (id=" + i + ")...");
+        listener.onMessage("\n- Cluster " + (clusterName != null ? "'" + clusterName + "'" : "NULL") + " (id=" + i + ")...");
 
-      long recordNum = 0;
-      if (clusterName != null)
-        for (ORecordIteratorCluster<ORecordInternal<?>> it = database.browseCluster(clusterName); it.hasNext();) {
-
-          ORecordInternal<?> rec = null;
-
-          try {
-            rec = it.next();
-            if (rec instanceof ODocument) {
-              // CHECK IF THE CLASS OF THE DOCUMENT IS INCLUDED
-              ODocument doc = (ODocument) rec;
-              if (includeClasses != null) {
-                if (!includeClasses.contains(doc.getClassName()))
-                  continue;
-              } else if (excludeClasses != null) {
-                if (excludeClasses.contains(doc.getClassName()))
-                  continue;
-              }
-            }
-
-            exportRecord(recordTot, recordNum++, rec);
-          } catch (IOException e) {
-            OLogManager.instance().error(this, "\nError on exporting record %s because of I/O problems", e, rec.getIdentity());
-            // RE-THROW THE EXCEPTION UP
-            throw e;
-          } catch (OIOException e) {
-            OLogManager.instance().error(this, "\nError on exporting record %s because of I/O problems", e, rec.getIdentity());
-            // RE-THROW THE EXCEPTION UP
-            throw e;
-          } catch (Throwable t) {
-            if (rec != null) {
-              final byte[] buffer = rec.toStream();
-
-              OLogManager
-                  .instance()
-                  .error(
-                      this,
-                      "\nError on exporting record %s. It seems corrupted; size: %d bytes, raw content (as string):\n==========\n%s\n==========",
-                      t, rec.getIdentity(), buffer.length, new String(buffer));
-            }
-          }
-        }
+        if (clusterName != null)
+          if (workers != null)
+            exportClusterInParallel(workers, i, recordTot);
+          else
+            exportCluster(clusterName, recordTot);
 
-      listener.onMessage("OK (records=" + recordTot + ")");
+        listener.onMessage("OK (records=" + recordTot + ")");
 
-      totalRecords += recordTot;
+        totalRecords += recordTot;
+      }
+    } finally {
+      if (workers != null)
+        shutdownWorkers(workers);
     }
     writer.endCollection(level, true);
 
@@ -216,6 +202,22 @@ public class ODatabaseExport extends ODatabaseImpExpAbstract {
     return totalRecords;
   }
 
+  /**
+   * Returns true if the records of the binary format are exported in place of the JSON ones.
+   */
+  public boolean isBinaryRecords() {
+    return binaryRecords;
+  }
+
+  /**
+   * Exports the records in binary format: every record is written as a string with its identity, version, type and the content
+   * as stored, encoded in Base64. The records are not converted to JSON and back, so export and import are faster and the file is
+   * smaller, but the content can be read only by the same release of the engine.
+   */
+  public void setBinaryRecords(final boolean binaryRecords) {
+    this.binaryRecords = binaryRecords;
+  }
+
   public void close() {
     database.declareIntent(null);
 
@@ -460,6 +462,67 @@ public class ODatabaseExport extends ODatabaseImpExpAbstract {
     listener.onMessage("OK (" + s.getClasses().size() + " classes)");
   }
 
+  private void exportCluster(final String iClusterName, final long iRecordTot) throws IOException {
+    long recordNum = 0;
+    for (ORecordIteratorCluster<ORecordInternal<?>> it = database.browseCluster(iClusterName); it.hasNext();) {
+
+      ORecordInternal<?> rec = null;
+
+      try {
+        rec = it.next();
+        if (!isIncluded(rec))
+          continue;
+
+        exportRecord(iRecordTot, recordNum++, rec);
+      } catch (IOException e) {
+        OLogManager.instance().error(this, "\nError on exporting record %s because of I/O problems", e, rec.getIdentity());
+        // RE-THROW THE EXCEPTION UP
+        throw e;
+      } catch (OIOException e) {
+        OLogManager.instance().error(this, "\nError on exporting record %s because of I/O problems", e, rec.getIdentity());
+        // RE-THROW THE EXCEPTION UP
+        throw e;
+      } catch (Throwable t) {
+        if (rec != null)
+          logCorruptedRecord(rec, t);
+      }
+    }
+  }
+
+  /**
+   * Encodes the records of the cluster in the worker threads, a range of positions per task, and writes them in the order of the
+   * cluster. Only a few ranges are encoded ahead of the writer to bound the memory used.
+   */
+  private void exportClusterInParallel(final ExecutorService iWorkers, final int iClusterId, final long iRecordTot)
+      throws IOException {
+    final long[] range = database.getStorage().getClusterDataRange(iClusterId);
+    if (range[0] < 0 || range[1] < range[0])
+      return;
+
+    final LinkedList<Future<List<String>>> pending = new LinkedList<Future<List<String>>>();
+    long recordNum = 0;
+    for (long begin = range[0]; begin <= range[1] || !pending.isEmpty();) {
+      if (begin <= range[1] && pending.size() < threads * 2) {
+        pending.add(iWorkers.submit(new ORangeEncoder(iClusterId, begin, Math.min(begin + RANGE_SIZE - 1, range[1]))));
+        begin += RANGE_SIZE;
+        continue;
+      }
+
+      final List<String> encoded;
+      try {
+        encoded = pending.removeFirst().get();
+      } catch (ExecutionException e) {
+        throw new ODatabaseExportException("Error on exporting the records of cluster " + iClusterId, e.getCause());
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        throw new ODatabaseExportException("Export of the records of cluster " + iClusterId + " interrupted");
+      }
+
+      for (String record : encoded)
+        writeRecord(iRecordTot, recordNum++, record);
+    }
+  }
+
   private void exportRecord(long recordTot, long recordNum, ORecordInternal<?> rec) throws IOException {
     if (rec == null)
       return;
@@ -467,15 +530,90 @@ public class ODatabaseExport extends ODatabaseImpExpAbstract {
     if (rec.getIdentity().isValid())
       rec.reload();
 
+    writeRecord(recordTot, recordNum, encodeRecord(rec));
+  }
+
+  private void writeRecord(final long recordTot, final long recordNum, final String iEncoded) throws IOException {
     if (recordExported > 0)
       writer.append(",");
 
-    writer.append(rec.toJSON("rid,type,version,class,attribSameRow,indent:4,keepTypes"));
+    writer.append(iEncoded);
 
     recordExported++;
-    recordNum++;
 
     if (recordTot > 10 && (recordNum + 1) % (recordTot / 10) == 0)
       listener.onMessage(".");
   }
+
+  private String encodeRecord(final ORecordInternal<?> iRecord) {
+    if (!binaryRecords)
+      return iRecord.toJSON(JSON_FORMAT);
+
+    final StringBuilder buffer = new StringBuilder();
+    buffer.append("\n    \"");
+    buffer.append(iRecord.getIdentity());
+    buffer.append(BINARY_SEPARATOR);
+    buffer.append(iRecord.getVersion());
+    buffer.append(BINARY_SEPARATOR);
+    buffer.append((char) iRecord.getRecordType());
+    buffer.append(BINARY_SEPARATOR);
+    OBase64Utils.encodeBytes(buffer, iRecord.toStream());
+    buffer.append('"');
+    return buffer.toString();
+  }
+
+  private boolean isIncluded(final ORecordInternal<?> iRecord) {
+    if (iRecord instanceof ODocument) {
+      // CHECK IF THE CLASS OF THE DOCUMENT IS INCLUDED
+      final String className = ((ODocument) iRecord).getClassName();
+      if (includeClasses != null)
+        return includeClasses.contains(className);
+      else if (excludeClasses != null)
+        return !excludeClasses.contains(className);
+    }
+    return true;
+  }
+
+  private void logCorruptedRecord(final ORecordInternal<?> iRecord, final Throwable iError) {
+    final byte[] buffer = iRecord.toStream();
+
+    OLogManager.instance().error(this,
+        "\nError on exporting record %s. It seems corrupted; size: %d bytes, raw content (as string):\n==========\n%s\n==========",
+        iError, iRecord.getIdentity(), buffer.length, new String(buffer));
+  }
+
+  /**
+   * Encodes the records of a range of positions with the database of the worker thread.
+   */
+  private class ORangeEncoder implements Callable<List<String>> {
+    private final int  clusterId;
+    private final long begin;
+    private final long end;
+
+    public ORangeEncoder(final int iClusterId, final long iBegin, final long iEnd) {
+      clusterId = iClusterId;
+      begin = iBegin;
+      end = iEnd;
+    }
+
+    public List<String> call() {
+      final ODatabaseRecordAbstract db = (ODatabaseRecordAbstract) ODatabaseRecordThreadLocal.INSTANCE.get();
+
+      final List<String> encoded = new ArrayList<String>();
+      final Iterator<ORecordInternal<?>> it = new ORecordIteratorClusters<ORecordInternal<?>>(db, db, new int[] { clusterId })
+          .setRange(new ORecordId(clusterId, begin), new ORecordId(clusterId, end));
+      while (it.hasNext()) {
+        ORecordInternal<?> rec = null;
+        try {
+          rec = it.next();
+          if (isIncluded(rec))
+            encoded.add(encodeRecord(rec));
+        } catch (Throwable t) {
+          if (rec != null)
+            logCorruptedRecord(rec, t);
+        }
+      }
+      return encoded;
+    }
+  }
 }
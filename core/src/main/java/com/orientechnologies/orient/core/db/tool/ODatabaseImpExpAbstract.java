@@ -17,9 +17,21 @@ package com.orientechnologies.orient.core.db.tool;
 
 import java.util.LinkedHashSet;
 import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
+import com.orientechnologies.common.log.OLogManager;
 import com.orientechnologies.orient.core.command.OCommandOutputListener;
+import com.orientechnologies.orient.core.config.OGlobalConfiguration;
+import com.orientechnologies.orient.core.db.ODatabase;
+import com.orientechnologies.orient.core.db.ODatabaseComplex;
+import com.orientechnologies.orient.core.db.ODatabaseRecordThreadLocal;
 import com.orientechnologies.orient.core.db.record.ODatabaseRecord;
+import com.orientechnologies.orient.core.db.record.ODatabaseRecordTx;
+import com.orientechnologies.orient.core.storage.OStorageEmbedded;
 
 /**
  * Abstract class for import/export of database and data in general.
@@ -41,6 +53,7 @@ public abstract class ODatabaseImpExpAbstract {
 	protected boolean									includeRecords	= true;
 	protected boolean                 includeIndexDefinitions = true;
 	protected boolean                 includeManualIndexes = true;
+	protected int											threads					= OGlobalConfiguration.DB_EXPORT_IMPORT_THREADS.getValueAsInteger();
 
 	protected OCommandOutputListener	listener;
 
@@ -137,4 +150,80 @@ public abstract class ODatabaseImpExpAbstract {
 	public void setIncludeManualIndexes(boolean includeManualIndexes) {
 		this.includeManualIndexes = includeManualIndexes;
 	}
+
+	public int getThreads() {
+		return threads;
+	}
+
+	/**
+	 * Sets the number of threads processing the records. With more than one thread every worker opens its own copy of the database,
+	 * so it's used only against local and memory storages.
+	 */
+	public void setThreads(int threads) {
+		this.threads = threads;
+	}
+
+	/**
+	 * Returns the database the worker threads copy to open their own instances, or null if the records are processed by the calling
+	 * thread only.
+	 */
+	protected ODatabaseRecordTx getParallelDatabase() {
+		if (threads < 2 || !(database.getStorage() instanceof OStorageEmbedded))
+			return null;
+
+		ODatabase db = database;
+		while (!(db instanceof ODatabaseRecordTx) && db instanceof ODatabaseComplex<?>)
+			db = ((ODatabaseComplex<?>) db).getUnderlying();
+
+		return db instanceof ODatabaseRecordTx ? (ODatabaseRecordTx) db : null;
+	}
+
+	/**
+	 * Creates the pool of the worker threads. Every thread opens its own copy of the database as current database of the thread and
+	 * closes it when the pool is shut down.
+	 */
+	protected ExecutorService createWorkers(final ODatabaseRecordTx iSource, final String iName) {
+		final AtomicInteger counter = new AtomicInteger();
+		return Executors.newFixedThreadPool(threads, new ThreadFactory() {
+			public Thread newThread(final Runnable iRunnable) {
+				final Thread thread = new Thread(new Runnable() {
+					public void run() {
+						ODatabaseRecordTx db = null;
+						try {
+							db = iSource.copy();
+						} catch (Throwable t) {
+							// THE TASKS FAIL BECAUSE THE DATABASE IS NOT SET IN THE THREAD
+							OLogManager.instance().error(this, "Error on opening the database of the %s worker", t, iName);
+						}
+
+						try {
+							iRunnable.run();
+						} finally {
+							// THE POOL INTERRUPTS ITS IDLE THREADS ON SHUTDOWN: CLEAR IT OR CLOSING THE DATABASE FAILS ON THE FIRST LOCK
+							Thread.interrupted();
+							if (db != null)
+								db.close();
+							ODatabaseRecordThreadLocal.INSTANCE.remove();
+						}
+					}
+				}, "OrientDB " + iName + "-" + counter.incrementAndGet());
+				thread.setDaemon(true);
+				return thread;
+			}
+		});
+	}
+
+	/**
+	 * Stops the worker threads waiting for them to close their databases. The indexes are flushed by the calling thread first,
+	 * otherwise every worker would flush the same changes concurrently while closing its database.
+	 */
+	protected void shutdownWorkers(final ExecutorService iWorkers) {
+		database.getMetadata().getIndexManager().flush();
+		iWorkers.shutdown();
+		try {
+			iWorkers.awaitTermination(1, TimeUnit.MINUTES);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
 }
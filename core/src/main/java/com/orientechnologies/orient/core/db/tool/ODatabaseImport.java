@@ -15,10 +15,12 @@
  */
 package com.orientechnologies.orient.core.db.tool;
 
+import com.orientechnologies.orient.core.Orient;
 import com.orientechnologies.orient.core.command.OCommandOutputListener;
 import com.orientechnologies.orient.core.db.ODatabase.STATUS;
 import com.orientechnologies.orient.core.db.document.ODatabaseDocument;
 import com.orientechnologies.orient.core.db.record.ODatabaseRecord;
+import com.orientechnologies.orient.core.db.record.ODatabaseRecordTx;
 import com.orientechnologies.orient.core.db.record.OIdentifiable;
 import com.orientechnologies.orient.core.exception.OConfigurationException;
 import com.orientechnologies.orient.core.exception.OSchemaException;
@@ -35,6 +37,7 @@ import com.orientechnologies.orient.core.metadata.schema.OPropertyImpl;
 import com.orientechnologies.orient.core.metadata.schema.OType;
 import com.orientechnologies.orient.core.record.ORecordInternal;
 import com.orientechnologies.orient.core.record.impl.ODocument;
+import com.orientechnologies.orient.core.serialization.OBase64Utils;
 import com.orientechnologies.orient.core.serialization.serializer.OJSONReader;
 import com.orientechnologies.orient.core.serialization.serializer.OStringSerializerHelper;
 import com.orientechnologies.orient.core.serialization.serializer.binary.OBinarySerializer;
@@ -52,9 +55,15 @@ import java.text.ParseException;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
 import java.util.zip.GZIPInputStream;
 
 /**
@@ -63,13 +72,17 @@ import java.util.zip.GZIPInputStream;
  * @author Luca Garulli (l.garulli--at--orientechnologies.com)
  */
 public class ODatabaseImport extends ODatabaseImpExpAbstract {
-  private Map<OPropertyImpl, String> linkedClasses   = new HashMap<OPropertyImpl, String>();
-  private Map<OClass, String>        superClasses    = new HashMap<OClass, String>();
-  private OJSONReader                jsonReader;
-  private ORecordInternal<?>         record;
-  private List<String>               recordToDelete  = new ArrayList<String>();
-  private boolean                    schemaImported  = false;
-  private int                        exporterVersion = -1;
+  private static final int                             PARSE_BATCH_SIZE = 500;
+  private Map<OPropertyImpl, String>                   linkedClasses    = new HashMap<OPropertyImpl, String>();
+  private Map<OClass, String>                          superClasses     = new HashMap<OClass, String>();
+  private OJSONReader                                  jsonReader;
+  private ORecordInternal<?>                           record;
+  private List<String>                                 recordToDelete   = new ArrayList<String>();
+  private boolean                                      schemaImported   = false;
+  private int                                          exporterVersion  = -1;
+  private ExecutorService                              parsers;
+  private LinkedList<Future<List<ORecordInternal<?>>>> parsedRecords    = new LinkedList<Future<List<ORecordInternal<?>>>>();
+  private Iterator<ORecordInternal<?>>                 parsedBatch;
 
   public ODatabaseImport(final ODatabaseDocument database, final String iFileName, final OCommandOutputListener iListener)
       throws IOException {
@@ -122,7 +135,9 @@ public class ODatabaseImport extends ODatabaseImpExpAbstract {
         else if (tag.equals("schema"))
           importSchema();
         else if (tag.equals("records"))
-          importRecords();
+          importRecords(false);
+        else if (tag.equals("binaryRecords"))
+          importRecords(true);
         else if (tag.equals("indexes"))
           importIndexes();
         else if (tag.equals("manualIndexes"))
@@ -513,7 +528,7 @@ public class ODatabaseImport extends ODatabaseImpExpAbstract {
     return total;
   }
 
-  private long importRecords() throws Exception {
+  private long importRecords(final boolean iBinary) throws Exception {
     long total = 0;
 
     jsonReader.readNext(OJSONReader.BEGIN_COLLECTION);
@@ -522,27 +537,40 @@ public class ODatabaseImport extends ODatabaseImpExpAbstract {
 
     System.out.print("\nImporting records...");
 
-    ORID rid;
-    int lastClusterId = 0;
-    long clusterRecords = 0;
-    while (jsonReader.lastChar() != ']') {
-      rid = importRecord();
-
-      if (rid != null) {
-        ++clusterRecords;
+    final ODatabaseRecordTx parallelDatabase = iBinary ? null : getParallelDatabase();
+    if (parallelDatabase != null)
+      parsers = createWorkers(parallelDatabase, "Import");
 
-        if (rid.getClusterId() != lastClusterId || jsonReader.lastChar() == ']') {
-          // CHANGED CLUSTERID: DUMP STATISTICS
-          System.out.print("\n- Imported records into cluster '" + database.getClusterNameById(lastClusterId) + "' (id="
-              + lastClusterId + "): " + clusterRecords + " records");
-          clusterRecords = 0;
-          lastClusterId = rid.getClusterId();
-        }
+    try {
+      ORID rid;
+      int lastClusterId = 0;
+      long clusterRecords = 0;
+      while (hasNextRecord()) {
+        rid = importRecord(nextRecord(iBinary));
+
+        if (rid != null) {
+          ++clusterRecords;
+
+          if (rid.getClusterId() != lastClusterId || !hasNextRecord()) {
+            // CHANGED CLUSTERID: DUMP STATISTICS
+            System.out.print("\n- Imported records into cluster '" + database.getClusterNameById(lastClusterId) + "' (id="
+                + lastClusterId + "): " + clusterRecords + " records");
+            clusterRecords = 0;
+            lastClusterId = rid.getClusterId();
+          }
 
-        ++totalRecords;
-      } else
-        lastClusterId = 0;
-      record = null;
+          ++totalRecords;
+        } else
+          lastClusterId = 0;
+        record = null;
+      }
+    } finally {
+      if (parsers != null) {
+        shutdownWorkers(parsers);
+        parsers = null;
+        parsedRecords.clear();
+        parsedBatch = null;
+      }
     }
 
     listener.onMessage("\n\nDone. Imported " + totalRecords + " records\n");
@@ -552,18 +580,92 @@ public class ODatabaseImport extends ODatabaseImpExpAbstract {
     return total;
   }
 
-  private ORID importRecord() throws Exception {
-    String value = jsonReader.readString(OJSONReader.END_OBJECT, true);
+  private boolean hasNextRecord() throws Exception {
+    if (parsers == null)
+      return jsonReader.lastChar() != ']';
+
+    while (parsedBatch == null || !parsedBatch.hasNext()) {
+      // KEEP THE WORKERS BUSY PARSING THE NEXT BATCHES WHILE THE RECORDS ARE SAVED
+      while (parsedRecords.size() < threads * 2 && jsonReader.lastChar() != ']') {
+        final List<String> values = new ArrayList<String>(PARSE_BATCH_SIZE);
+        while (values.size() < PARSE_BATCH_SIZE && jsonReader.lastChar() != ']')
+          values.add(readRecordValue(false));
+
+        parsedRecords.add(parsers.submit(new Callable<List<ORecordInternal<?>>>() {
+          public List<ORecordInternal<?>> call() throws Exception {
+            final List<ORecordInternal<?>> records = new ArrayList<ORecordInternal<?>>(values.size());
+            for (String value : values)
+              records.add(parseRecord(value, false));
+            return records;
+          }
+        }));
+      }
+
+      if (parsedRecords.isEmpty())
+        return false;
+
+      try {
+        parsedBatch = parsedRecords.removeFirst().get().iterator();
+      } catch (ExecutionException e) {
+        throw e.getCause() instanceof Exception ? (Exception) e.getCause() : e;
+      }
+    }
+    return true;
+  }
+
+  private ORecordInternal<?> nextRecord(final boolean iBinary) throws Exception {
+    if (parsers != null)
+      return parsedBatch.next();
+
+    return parseRecord(readRecordValue(iBinary), iBinary);
+  }
+
+  private String readRecordValue(final boolean iBinary) throws IOException, ParseException {
+    if (iBinary)
+      // THE STRING IS READ TOGETHER WITH THE SEPARATOR
+      return jsonReader.readString(OJSONReader.NEXT_IN_ARRAY);
+
+    final String value = jsonReader.readString(OJSONReader.END_OBJECT, true);
+    jsonReader.readNext(OJSONReader.NEXT_IN_ARRAY);
+    return value;
+  }
+
+  /**
+   * Creates the record from its exported form. Returns null if there is no record to import.
+   */
+  private ORecordInternal<?> parseRecord(String iValue, final boolean iBinary) {
+    if (iBinary) {
+      if (iValue == null || iValue.length() == 0)
+        return null;
+
+      final String[] parts = iValue.split("\\" + ODatabaseExport.BINARY_SEPARATOR, 4);
+      final byte[] content = OBase64Utils.decode(parts[3]);
+
+      final ORecordInternal<?> rec = Orient.instance().getRecordFactoryManager().newInstance((byte) parts[2].charAt(0));
+      rec.fill(new ORecordId(parts[0]), Integer.parseInt(parts[1]), content, true);
+      if (content.length == 0)
+        // EMPTY CONTENT DOESN'T MAKE THE RECORD DIRTY
+        rec.setDirty();
+      return rec;
+    }
 
     // JUMP EMPTY RECORDS
-    while (!value.isEmpty() && value.charAt(0) != '{') {
-      value = value.substring(1);
+    while (!iValue.isEmpty() && iValue.charAt(0) != '{') {
+      iValue = iValue.substring(1);
     }
 
-    record = null;
-    try {
-      record = ORecordSerializerJSON.INSTANCE.fromString(value, record);
+    if (iValue.isEmpty())
+      return null;
+
+    return ORecordSerializerJSON.INSTANCE.fromString(iValue, null);
+  }
 
+  private ORID importRecord(final ORecordInternal<?> iRecord) throws Exception {
+    record = iRecord;
+    if (record == null)
+      return null;
+
+    try {
       if (schemaImported && record.getIdentity().toString().equals(database.getStorage().getConfiguration().schemaRecordId)) {
         // JUMP THE SCHEMA
         return null;
@@ -571,15 +673,11 @@ public class ODatabaseImport extends ODatabaseImpExpAbstract {
 
       // CHECK IF THE CLUSTER IS INCLUDED
       if (includeClusters != null) {
-        if (!includeClusters.contains(database.getClusterNameById(record.getIdentity().getClusterId()))) {
-          jsonReader.readNext(OJSONReader.NEXT_IN_ARRAY);
+        if (!includeClusters.contains(database.getClusterNameById(record.getIdentity().getClusterId())))
           return null;
-        }
       } else if (excludeClusters != null) {
-        if (excludeClusters.contains(database.getClusterNameById(record.getIdentity().getClusterId()))) {
-          jsonReader.readNext(OJSONReader.NEXT_IN_ARRAY);
+        if (excludeClusters.contains(database.getClusterNameById(record.getIdentity().getClusterId())))
           return null;
-        }
       }
 
       if (record.getIdentity().getClusterId() == 0 && record.getIdentity().getClusterPosition() == 1)
@@ -633,16 +731,10 @@ public class ODatabaseImport extends ODatabaseImpExpAbstract {
       if (!record.getIdentity().toString().equals(rid))
         throw new OSchemaException("Imported record '" + record.getIdentity() + "' has rid different from the original: " + rid);
     } catch (Exception t) {
-      if (record != null)
-        System.err.println("Error importing record " + record.getIdentity() + ". Source line " + jsonReader.getLineNumber()
-            + ", column " + jsonReader.getColumnNumber());
-      else
-        System.err.println("Error importing record. Source line " + jsonReader.getLineNumber() + ", column "
-            + jsonReader.getColumnNumber());
+      System.err.println("Error importing record " + record.getIdentity() + ". Source line " + jsonReader.getLineNumber()
+          + ", column " + jsonReader.getColumnNumber());
 
       throw t;
-    } finally {
-      jsonReader.readNext(OJSONReader.NEXT_IN_ARRAY);
     }
 
     return record.getIdentity();
@@ -0,0 +1,65 @@
+/*
+ * Copyright 2010-2012 Luca Garulli (l.garulli--at--orientechnologies.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.orientechnologies.orient.core.index;
+
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+
+import com.orientechnologies.orient.core.db.record.ODatabaseRecord;
+import com.orientechnologies.orient.core.exception.OConfigurationException;
+
+/**
+ * Factory of the hash indexes.<br>
+ * Supports index types :
+ * <ul>
+ * <li>UNIQUE_HASH</li>
+ * <li>NOTUNIQUE_HASH</li>
+ * </ul>
+ */
+public class OHashIndexFactory implements OIndexFactory {
+
+  private static final Set<String> TYPES;
+  static {
+    final Set<String> types = new HashSet<String>();
+    types.add(OIndexHashUnique.TYPE_ID);
+    types.add(OIndexHashNotUnique.TYPE_ID);
+    TYPES = Collections.unmodifiableSet(types);
+  }
+
+  /**
+   * Index types :
+   * <ul>
+   * <li>UNIQUE_HASH</li>
+   * <li>NOTUNIQUE_HASH</li>
+   * </ul>
+   */
+  public Set<String> getTypes() {
+    return TYPES;
+  }
+
+  public OIndexInternal<?> createIndex(ODatabaseRecord iDatabase, String iIndexType) throws OConfigurationException {
+
+    if (OIndexHashUnique.TYPE_ID.equals(iIndexType)) {
+      return new OIndexHashUnique();
+    } else if (OIndexHashNotUnique.TYPE_ID.equals(iIndexType)) {
+      return new OIndexHashNotUnique();
+    }
+
+    throw new OConfigurationException("Unsupported type : " + iIndexType);
+  }
+
+}
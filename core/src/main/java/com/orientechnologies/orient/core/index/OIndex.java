@@ -265,6 +265,26 @@ public interface OIndex<T> {
 
   public Collection<ODocument> getEntriesBetween(Object iRangeFrom, Object iRangeTo);
 
+  /**
+   * Returns a cursor to browse the entries with key between the range passed as parameter. Unlike the getValues* and getEntries*
+   * methods the result is not loaded in memory before to return: the entries are read while the cursor is browsed.
+   * <p/>
+   * In case of {@link com.orientechnologies.common.collection.OCompositeKey}s partial keys can be used as values boundaries.
+   * 
+   * @param iRangeFrom
+   *          Starting range, null means from the first key
+   * @param iFromInclusive
+   *          Indicates whether start range boundary is included in result.
+   * @param iRangeTo
+   *          Ending range, null means up to the last key
+   * @param iToInclusive
+   *          Indicates whether end range boundary is included in result.
+   * @param iAscending
+   *          Browses the entries in ascending order of key if true, otherwise in descending order
+   * @return The cursor to browse the entries
+   */
+  public OIndexCursor cursor(Object iRangeFrom, boolean iFromInclusive, Object iRangeTo, boolean iToInclusive, boolean iAscending);
+
   /**
    * @return number of entries in the index.
    */
@@ -0,0 +1,803 @@
+/*
+ * Copyright 2010-2012 Luca Garulli (l.garulli--at--orientechnologies.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.orientechnologies.orient.core.index;
+
+import java.io.IOException;
+import java.lang.reflect.InvocationTargetException;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import com.orientechnologies.common.collection.OCompositeKey;
+import com.orientechnologies.common.concur.lock.OModificationLock;
+import com.orientechnologies.common.concur.resource.OSharedResourceAdaptiveExternal;
+import com.orientechnologies.common.listener.OProgressListener;
+import com.orientechnologies.orient.core.annotation.ODocumentInstance;
+import com.orientechnologies.orient.core.config.OGlobalConfiguration;
+import com.orientechnologies.orient.core.db.ODatabase;
+import com.orientechnologies.orient.core.db.ODatabaseRecordThreadLocal;
+import com.orientechnologies.orient.core.db.record.ODatabaseRecord;
+import com.orientechnologies.orient.core.db.record.OIdentifiable;
+import com.orientechnologies.orient.core.db.record.ORecordElement;
+import com.orientechnologies.orient.core.exception.OConfigurationException;
+import com.orientechnologies.orient.core.exception.OTransactionException;
+import com.orientechnologies.orient.core.id.ORID;
+import com.orientechnologies.orient.core.intent.OIntentMassiveInsert;
+import com.orientechnologies.orient.core.metadata.schema.OType;
+import com.orientechnologies.orient.core.record.ORecord;
+import com.orientechnologies.orient.core.record.impl.ODocument;
+import com.orientechnologies.orient.core.serialization.serializer.OStringSerializerHelper;
+import com.orientechnologies.orient.core.serialization.serializer.binary.OBinarySerializer;
+import com.orientechnologies.orient.core.serialization.serializer.binary.OBinarySerializerFactory;
+import com.orientechnologies.orient.core.serialization.serializer.binary.impl.index.OCompositeKeySerializer;
+import com.orientechnologies.orient.core.serialization.serializer.binary.impl.index.OSimpleKeySerializer;
+import com.orientechnologies.orient.core.serialization.serializer.stream.OStreamSerializer;
+import com.orientechnologies.orient.core.serialization.serializer.stream.OStreamSerializerAnyStreamable;
+import com.orientechnologies.orient.core.tx.OTransactionIndexChanges;
+import com.orientechnologies.orient.core.tx.OTransactionIndexChanges.OPERATION;
+import com.orientechnologies.orient.core.tx.OTransactionIndexChangesPerKey;
+import com.orientechnologies.orient.core.tx.OTransactionIndexChangesPerKey.OTransactionIndexEntry;
+
+/**
+ * Base class of the indexes. Handles the configuration, the clusters to index, the rebuild and the commit of the changes made in
+ * transaction. Subclasses provide the structure where the entries are stored.
+ * 
+ * @author Luca Garulli
+ * 
+ */
+public abstract class OIndexAbstract<T> extends OSharedResourceAdaptiveExternal implements OIndexInternal<T> {
+  protected final OModificationLock               modificationLock = new OModificationLock();
+
+  protected static final String                   CONFIG_MAP_RID   = "mapRid";
+  protected static final String                   CONFIG_CLUSTERS  = "clusters";
+  protected static final Object                   LOOKUP_NOT_FOUND = new Object();
+  protected String                                name;
+  protected String                                type;
+  protected Set<String>                           clustersToIndex  = new LinkedHashSet<String>();
+  protected OIndexDefinition                      indexDefinition;
+
+  @ODocumentInstance
+  protected ODocument                             configuration;
+
+  private final ConcurrentHashMap<Object, Object> lookupCache      = new ConcurrentHashMap<Object, Object>();
+  private final int                               lookupCacheSize  = OGlobalConfiguration.MVRBTREE_LOOKUP_CACHE_SIZE
+                                                                       .getValueAsInteger();
+
+  public OIndexAbstract(final String iType) {
+    super(OGlobalConfiguration.ENVIRONMENT_CONCURRENT.getValueAsBoolean(), OGlobalConfiguration.MVRBTREE_TIMEOUT
+        .getValueAsInteger(), true);
+
+    type = iType;
+  }
+
+  public void flush() {
+    lazySave();
+  }
+
+  /**
+   * Creates the index.
+   * 
+   * @param iDatabase
+   *          Current Database instance
+   * @param iClusterIndexName
+   *          Cluster name where to place the index entries
+   * @param iProgressListener
+   */
+  public OIndexInternal<?> create(final String iName, final OIndexDefinition iIndexDefinition, final ODatabaseRecord iDatabase,
+      final String iClusterIndexName, final int[] iClusterIdsToIndex, final OProgressListener iProgressListener,
+      final OStreamSerializer iValueSerializer) {
+    acquireExclusiveLock();
+    try {
+
+      name = iName;
+      configuration = new ODocument();
+
+      indexDefinition = iIndexDefinition;
+
+      if (iClusterIdsToIndex != null)
+        for (final int id : iClusterIdsToIndex)
+          clustersToIndex.add(iDatabase.getClusterNameById(id));
+
+      createStorage(iClusterIndexName, iValueSerializer);
+
+      installHooks(iDatabase);
+
+      rebuild(iProgressListener);
+      updateConfiguration();
+    } catch (Exception e) {
+      deleteStorage();
+      if (e instanceof OIndexException)
+        throw (OIndexException) e;
+
+      throw new OIndexException("Cannot create the index '" + iName + "'", e);
+
+    } finally {
+      releaseExclusiveLock();
+    }
+    return this;
+  }
+
+  public OIndexInternal<T> loadFromConfiguration(final ODocument iConfig) {
+    acquireExclusiveLock();
+    try {
+
+      final ORID rid = (ORID) iConfig.field(CONFIG_MAP_RID, ORID.class);
+      if (rid == null)
+        throw new OIndexException("Error during deserialization of index definition: '" + CONFIG_MAP_RID + "' attribute is null");
+
+      configuration = iConfig;
+      name = configuration.field(OIndexInternal.CONFIG_NAME);
+
+      final ODocument indexDefinitionDoc = configuration.field(OIndexInternal.INDEX_DEFINITION);
+      if (indexDefinitionDoc != null) {
+        try {
+          final String indexDefClassName = configuration.field(OIndexInternal.INDEX_DEFINITION_CLASS);
+          final Class<?> indexDefClass = Class.forName(indexDefClassName);
+          indexDefinition = (OIndexDefinition) indexDefClass.getDeclaredConstructor().newInstance();
+          indexDefinition.fromStream(indexDefinitionDoc);
+
+        } catch (final ClassNotFoundException e) {
+          throw new OIndexException("Error during deserialization of index definition", e);
+        } catch (final NoSuchMethodException e) {
+          throw new OIndexException("Error during deserialization of index definition", e);
+        } catch (final InvocationTargetException e) {
+          throw new OIndexException("Error during deserialization of index definition", e);
+        } catch (final InstantiationException e) {
+          throw new OIndexException("Error during deserialization of index definition", e);
+        } catch (final IllegalAccessException e) {
+          throw new OIndexException("Error during deserialization of index definition", e);
+        }
+      } else {
+        // @COMPATIBILITY 1.0rc6 new index model was implemented
+        final Boolean isAutomatic = configuration.field(OIndexInternal.CONFIG_AUTOMATIC);
+        if (Boolean.TRUE.equals(isAutomatic)) {
+          final int pos = name.lastIndexOf('.');
+          if (pos < 0)
+            throw new OIndexException("Can not convert from old index model to new one. "
+                + "Invalid index name. Dot (.) separator should be present.");
+          final String className = name.substring(0, pos);
+          final String propertyName = name.substring(pos + 1);
+
+          final String keyTypeStr = configuration.field(OIndexInternal.CONFIG_KEYTYPE);
+          if (keyTypeStr == null)
+            throw new OIndexException("Can not convert from old index model to new one. " + "Index key type is absent.");
+          final OType keyType = OType.valueOf(keyTypeStr.toUpperCase(Locale.ENGLISH));
+          indexDefinition = new OPropertyIndexDefinition(className, propertyName, keyType);
+
+          configuration.removeField(OIndexInternal.CONFIG_AUTOMATIC);
+          configuration.removeField(OIndexInternal.CONFIG_KEYTYPE);
+        } else if (configuration.field(OIndexInternal.CONFIG_KEYTYPE) != null) {
+          final String keyTypeStr = configuration.field(OIndexInternal.CONFIG_KEYTYPE);
+          final OType keyType = OType.valueOf(keyTypeStr.toUpperCase(Locale.ENGLISH));
+
+          indexDefinition = new OSimpleKeyIndexDefinition(keyType);
+
+          configuration.removeField(OIndexInternal.CONFIG_KEYTYPE);
+        }
+      }
+
+      clustersToIndex.clear();
+
+      final Collection<? extends String> clusters = configuration.field(CONFIG_CLUSTERS);
+      if (clusters != null)
+        clustersToIndex.addAll(clusters);
+
+      loadStorage(rid);
+
+      installHooks(iConfig.getDatabase());
+
+      return this;
+
+    } finally {
+      releaseExclusiveLock();
+    }
+  }
+
+  /**
+   * Returns a set of records with key between the range passed as parameter. Range bounds are included.
+   * <p/>
+   * In case of {@link com.orientechnologies.common.collection.OCompositeKey}s partial keys can be used as values boundaries.
+   * 
+   * @param iRangeFrom
+   *          Starting range
+   * @param iRangeTo
+   *          Ending range
+   * @return a set of records with key between the range passed as parameter. Range bounds are included.
+   * @see com.orientechnologies.common.collection.OCompositeKey#compareTo(com.orientechnologies.common.collection.OCompositeKey)
+   * @see #getValuesBetween(Object, boolean, Object, boolean)
+   */
+  public Collection<OIdentifiable> getValuesBetween(final Object iRangeFrom, final Object iRangeTo) {
+    return getValuesBetween(iRangeFrom, true, iRangeTo, true);
+  }
+
+  /**
+   * Returns a set of documents with key between the range passed as parameter. Range bounds are included.
+   * 
+   * @param iRangeFrom
+   *          Starting range
+   * @param iRangeTo
+   *          Ending range
+   * @see #getEntriesBetween(Object, Object, boolean)
+   * @return
+   */
+  public Collection<ODocument> getEntriesBetween(final Object iRangeFrom, final Object iRangeTo) {
+    return getEntriesBetween(iRangeFrom, iRangeTo, true);
+  }
+
+  public Collection<OIdentifiable> getValuesMajor(final Object fromKey, final boolean isInclusive) {
+    return getValuesMajor(fromKey, isInclusive, -1);
+  }
+
+  public Collection<OIdentifiable> getValuesMinor(final Object toKey, final boolean isInclusive) {
+    return getValuesMinor(toKey, isInclusive, -1);
+  }
+
+  public Collection<ODocument> getEntriesMajor(final Object fromKey, final boolean isInclusive) {
+    return getEntriesMajor(fromKey, isInclusive, -1);
+  }
+
+  public Collection<ODocument> getEntriesMinor(final Object toKey, final boolean isInclusive) {
+    return getEntriesMinor(toKey, isInclusive, -1);
+  }
+
+  /**
+   * Returns a set of records with key between the range passed as parameter.
+   * <p/>
+   * In case of {@link com.orientechnologies.common.collection.OCompositeKey}s partial keys can be used as values boundaries.
+   * 
+   * @param iRangeFrom
+   *          Starting range
+   * @param iFromInclusive
+   *          Indicates whether start range boundary is included in result.
+   * @param iRangeTo
+   *          Ending range
+   * @param iToInclusive
+   *          Indicates whether end range boundary is included in result.
+   * @return Returns a set of records with key between the range passed as parameter.
+   * @see com.orientechnologies.common.collection.OCompositeKey#compareTo(com.orientechnologies.common.collection.OCompositeKey)
+   */
+  public Collection<OIdentifiable> getValuesBetween(final Object iRangeFrom, final boolean iFromInclusive, final Object iRangeTo,
+      final boolean iToInclusive) {
+    return getValuesBetween(iRangeFrom, iFromInclusive, iRangeTo, iToInclusive, -1);
+  }
+
+  public Collection<ODocument> getEntriesBetween(final Object iRangeFrom, final Object iRangeTo, final boolean iInclusive) {
+    return getEntriesBetween(iRangeFrom, iRangeTo, iInclusive, -1);
+  }
+
+  public Collection<OIdentifiable> getValues(final Collection<?> iKeys) {
+    return getValues(iKeys, -1);
+  }
+
+  public Collection<ODocument> getEntries(final Collection<?> iKeys) {
+    return getEntries(iKeys, -1);
+  }
+
+  public long rebuild() {
+    return rebuild(null);
+  }
+
+  /**
+   * Populates the index with all the existent records. Uses the massive insert intent to speed up and keep the consumed memory low.
+   */
+  public long rebuild(final OProgressListener iProgressListener) {
+    long documentIndexed = 0;
+
+    final boolean intentInstalled = getDatabase().declareIntent(new OIntentMassiveInsert());
+
+    acquireExclusiveLock();
+    try {
+      try {
+        clearStorage();
+      } catch (Exception e) {
+        // IGNORE EXCEPTION: IF THE REBUILD WAS LAUNCHED IN CASE OF RID INVALID CLEAR ALWAYS GOES IN ERROR
+      }
+
+      final OIndexBulkLoader bulkLoader = createBulkLoader();
+      // WITH THE BULK LOADER THE BROWSING OF THE CLUSTERS IS THE FIRST HALF OF THE WORK
+      final float progressRange = bulkLoader != null ? 50f : 100f;
+
+      int documentNum = 0;
+      long documentTotal = 0;
+
+      for (final String cluster : clustersToIndex)
+        documentTotal += getDatabase().countClusterElements(cluster);
+
+      if (iProgressListener != null)
+        iProgressListener.onBegin(this, documentTotal);
+
+      for (final String clusterName : clustersToIndex)
+        try {
+          for (final ORecord<?> record : getDatabase().browseCluster(clusterName)) {
+            if (record instanceof ODocument) {
+              final ODocument doc = (ODocument) record;
+
+              if (indexDefinition == null)
+                throw new OConfigurationException("Index '" + name + "' cannot be rebuilt because has no a valid definition ("
+                    + indexDefinition + ")");
+
+              final Object fieldValue = indexDefinition.getDocumentValueToIndex(doc);
+
+              if (fieldValue != null) {
+                if (fieldValue instanceof Collection) {
+                  for (final Object fieldValueItem : (Collection<?>) fieldValue) {
+                    if (bulkLoader != null && fieldValueItem != null)
+                      bulkLoader.add(fieldValueItem, doc.getIdentity());
+                    else
+                      put(fieldValueItem, doc);
+                  }
+                } else if (bulkLoader != null)
+                  bulkLoader.add(fieldValue, doc.getIdentity());
+                else
+                  put(fieldValue, doc);
+
+                ++documentIndexed;
+              }
+            }
+            documentNum++;
+
+            if (iProgressListener != null)
+              iProgressListener.onProgress(this, documentNum, documentNum * progressRange / documentTotal);
+          }
+        } catch (NoSuchElementException e) {
+          // END OF CLUSTER REACHED, IGNORE IT
+        } catch (RuntimeException e) {
+          if (bulkLoader != null)
+            bulkLoader.close();
+          throw e;
+        }
+
+      if (bulkLoader != null)
+        bulkLoader.load(iProgressListener);
+
+      lazySave();
+
+      if (iProgressListener != null)
+        iProgressListener.onCompletition(this, true);
+
+    } catch (final Exception e) {
+      if (iProgressListener != null)
+        iProgressListener.onCompletition(this, false);
+
+      try {
+        clearStorage();
+      } catch (Exception e2) {
+        // IGNORE EXCEPTION: IF THE REBUILD WAS LAUNCHED IN CASE OF RID INVALID CLEAR ALWAYS GOES IN ERROR
+      }
+
+      throw new OIndexException("Error on rebuilding the index for clusters: " + clustersToIndex, e);
+
+    } finally {
+      if (intentInstalled)
+        getDatabase().declareIntent(null);
+
+      releaseExclusiveLock();
+    }
+
+    return documentIndexed;
+  }
+
+  public boolean remove(final Object iKey, final OIdentifiable iValue) {
+    modificationLock.requestModificationLock();
+    try {
+      return remove(iKey);
+    } finally {
+      modificationLock.releaseModificationLock();
+    }
+
+  }
+
+  public OIndex<T> clear() {
+    modificationLock.requestModificationLock();
+
+    try {
+      acquireExclusiveLock();
+      try {
+
+        clearStorage();
+        return this;
+
+      } finally {
+        releaseExclusiveLock();
+      }
+    } finally {
+      modificationLock.releaseModificationLock();
+    }
+  }
+
+  public String getName() {
+    return name;
+  }
+
+  public String getType() {
+    return type;
+  }
+
+  @Override
+  public String toString() {
+    return name;
+  }
+
+  public OIndexInternal<T> getInternal() {
+    return this;
+  }
+
+  public Set<String> getClusters() {
+
+    acquireSharedLock();
+    try {
+
+      return Collections.unmodifiableSet(clustersToIndex);
+
+    } finally {
+      releaseSharedLock();
+    }
+  }
+
+  /**
+   * Returns the loader used by {@link #rebuild(OProgressListener)} to put the entries in key order, or null to put them one by one
+   * while the clusters are browsed.
+   */
+  protected OIndexBulkLoader createBulkLoader() {
+    return null;
+  }
+
+  public OIndexAbstract<T> addCluster(final String iClusterName) {
+    acquireExclusiveLock();
+    try {
+      if (clustersToIndex.add(iClusterName))
+        updateConfiguration();
+      return this;
+    } finally {
+      releaseExclusiveLock();
+    }
+  }
+
+  public OIndexAbstract<T> removeCluster(String iClusterName) {
+    acquireExclusiveLock();
+    try {
+      if (clustersToIndex.remove(iClusterName))
+        updateConfiguration();
+      return this;
+    } finally {
+      releaseExclusiveLock();
+    }
+  }
+
+  public void checkEntry(final OIdentifiable iRecord, final Object iKey) {
+  }
+
+  public ODocument updateConfiguration() {
+
+    acquireExclusiveLock();
+    try {
+
+      configuration.setInternalStatus(ORecordElement.STATUS.UNMARSHALLING);
+
+      try {
+        configuration.field(OIndexInternal.CONFIG_TYPE, type);
+        configuration.field(OIndexInternal.CONFIG_NAME, name);
+
+        if (indexDefinition != null) {
+          final ODocument indexDefDocument = indexDefinition.toStream();
+          if (!indexDefDocument.hasOwners())
+            indexDefDocument.addOwner(configuration);
+
+          configuration.field(OIndexInternal.INDEX_DEFINITION, indexDefDocument, OType.EMBEDDED);
+          configuration.field(OIndexInternal.INDEX_DEFINITION_CLASS, indexDefinition.getClass().getName());
+        } else {
+          configuration.removeField(OIndexInternal.INDEX_DEFINITION);
+          configuration.removeField(OIndexInternal.INDEX_DEFINITION_CLASS);
+        }
+
+        configuration.field(CONFIG_CLUSTERS, clustersToIndex, OType.EMBEDDEDSET);
+        configuration.field(CONFIG_MAP_RID, getIdentity());
+
+      } finally {
+        configuration.setInternalStatus(ORecordElement.STATUS.LOADED);
+      }
+
+    } finally {
+      releaseExclusiveLock();
+    }
+    return configuration;
+  }
+
+  /**
+   * Commits the index changes received in the document format, as sent by remote clients. Changes are decoded and then applied by
+   * {@link #commit(OTransactionIndexChanges)}.
+   */
+  @SuppressWarnings("unchecked")
+  public void commit(final ODocument iDocument) {
+    if (iDocument == null)
+      return;
+
+    final OTransactionIndexChanges changes = new OTransactionIndexChanges();
+
+    final Boolean clearAll = (Boolean) iDocument.field("clear");
+    if (clearAll != null && clearAll)
+      changes.setCleared();
+
+    final Collection<ODocument> entries = iDocument.field("entries");
+
+    for (final ODocument entry : entries) {
+      final String serializedKey = OStringSerializerHelper.decode((String) entry.field("k"));
+
+      final OTransactionIndexChangesPerKey changesPerKey;
+
+      try {
+        if (serializedKey.equals("*"))
+          changesPerKey = changes.getChangesCrossKey();
+        else {
+          final ODocument keyContainer = new ODocument();
+          keyContainer.setLazyLoad(false);
+
+          keyContainer.fromString(serializedKey);
+
+          final Object storedKey = keyContainer.field("key");
+          final Object key;
+          if (storedKey instanceof List)
+            key = new OCompositeKey((List<? extends Comparable<?>>) storedKey);
+          else if (Boolean.TRUE.equals(keyContainer.field("binary"))) {
+            key = OStreamSerializerAnyStreamable.INSTANCE.fromStream((byte[]) storedKey);
+          } else
+            key = storedKey;
+
+          changesPerKey = changes.getChangesPerKey(key);
+        }
+      } catch (IOException ioe) {
+        throw new OTransactionException("Error during index changes deserialization. ", ioe);
+      }
+
+      final List<ODocument> operations = (List<ODocument>) entry.field("ops");
+      if (operations != null) {
+        for (final ODocument op : operations) {
+          final int operation = (Integer) op.rawField("o");
+          final OIdentifiable value = op.field("v", OType.LINK);
+
+          changesPerKey.add(value, OPERATION.values()[operation]);
+        }
+      }
+    }
+
+    commit(changes);
+  }
+
+  /**
+   * Applies the changes collected by a transaction for this index. Keys are visited in their sort order, so consecutive changes
+   * mostly hit the tree nodes already loaded by the previous ones.
+   */
+  public void commit(final OTransactionIndexChanges iChanges) {
+    if (iChanges == null)
+      return;
+
+    acquireExclusiveLock();
+    try {
+      setRunningTransaction(true);
+
+      if (iChanges.cleared)
+        clear();
+
+      if (iChanges.changesCrossKey != null)
+        for (OTransactionIndexEntry entry : iChanges.changesCrossKey.entries)
+          if (entry.operation == OPERATION.REMOVE)
+            remove(entry.value);
+
+      for (OTransactionIndexChangesPerKey changesPerKey : iChanges.changesPerKey.values())
+        for (OTransactionIndexEntry entry : changesPerKey.entries) {
+          if (entry.operation == OPERATION.PUT)
+            put(changesPerKey.key, entry.value);
+          else if (entry.operation == OPERATION.REMOVE) {
+            if (entry.value == null)
+              remove(changesPerKey.key);
+            else
+              remove(changesPerKey.key, entry.value);
+          }
+        }
+
+    } finally {
+      releaseExclusiveLock();
+      setRunningTransaction(false);
+    }
+  }
+
+  public ODocument getConfiguration() {
+    return configuration;
+  }
+
+  /**
+   * Acquires the exclusive lock to change the index. The cached lookups are discarded since they could be not valid anymore.
+   */
+  @Override
+  public void acquireExclusiveLock() {
+    super.acquireExclusiveLock();
+    if (!lookupCache.isEmpty())
+      lookupCache.clear();
+  }
+
+  /**
+   * Returns the cached result of the lookup of a key, {@link #LOOKUP_NOT_FOUND} if the key was searched but not found or null if
+   * the key is not in cache. Found results are read without taking any lock.
+   */
+  protected Object getCachedLookup(final Object iKey) {
+    if (lookupCacheSize <= 0 || !isCacheableKey(iKey))
+      return null;
+    return lookupCache.get(iKey);
+  }
+
+  /**
+   * Caches the result of the lookup of a key. Must be called with the shared lock acquired, so no writer can change the index in
+   * the meanwhile.
+   */
+  protected void cacheLookup(final Object iKey, final Object iValue) {
+    if (lookupCacheSize <= 0 || !isCacheableKey(iKey))
+      return;
+
+    if (lookupCache.size() >= lookupCacheSize)
+      lookupCache.clear();
+    lookupCache.put(iKey, iValue != null ? iValue : LOOKUP_NOT_FOUND);
+  }
+
+  /**
+   * Only immutable keys can be cached, since the caller could change the key after the lookup.
+   */
+  private static boolean isCacheableKey(final Object iKey) {
+    return iKey instanceof String || iKey instanceof Number || iKey instanceof Boolean;
+  }
+
+  /**
+   * Creates the structure that stores the entries of a new index.
+   */
+  protected abstract void createStorage(String iClusterIndexName, OStreamSerializer iValueSerializer);
+
+  /**
+   * Loads the structure that stores the entries of an existent index.
+   */
+  protected abstract void loadStorage(ORID iRid);
+
+  /**
+   * Removes all the entries without taking any lock.
+   */
+  protected abstract void clearStorage();
+
+  /**
+   * Deletes the structure after a failed creation. Does nothing if the structure was not created yet.
+   */
+  protected abstract void deleteStorage();
+
+  /**
+   * Tells the structure that the changes of a transaction are being applied, so they have to be saved as soon as done.
+   */
+  protected abstract void setRunningTransaction(boolean iTxRunning);
+
+  protected abstract void installHooks(ODatabaseRecord iDatabase);
+
+  /**
+   * Returns the serializer of the keys based on the index definition.
+   */
+  @SuppressWarnings("unchecked")
+  protected OBinarySerializer<Object> getKeySerializer() {
+    if (indexDefinition == null)
+      return (OBinarySerializer<Object>) (OBinarySerializer<?>) new OSimpleKeySerializer<Comparable<?>>();
+
+    if (indexDefinition instanceof ORuntimeKeyIndexDefinition)
+      return ((ORuntimeKeyIndexDefinition<Object>) indexDefinition).getSerializer();
+
+    if (indexDefinition.getTypes().length > 1)
+      return (OBinarySerializer<Object>) (OBinarySerializer<?>) OCompositeKeySerializer.INSTANCE;
+
+    return (OBinarySerializer<Object>) OBinarySerializerFactory.INSTANCE.getObjectSerializer(indexDefinition.getTypes()[0]);
+  }
+
+  protected void clearLookupCache() {
+    lookupCache.clear();
+  }
+
+  public boolean isAutomatic() {
+    return indexDefinition != null && indexDefinition.getClassName() != null;
+  }
+
+  public void onCreate(final ODatabase iDatabase) {
+  }
+
+  public void onDelete(final ODatabase iDatabase) {
+  }
+
+  public void onOpen(final ODatabase iDatabase) {
+  }
+
+  public void onBeforeTxRollback(final ODatabase iDatabase) {
+  }
+
+  public boolean onCorruptionRepairDatabase(final ODatabase iDatabase, final String iReason, String iWhatWillbeFixed) {
+    if (iReason.equals("load"))
+      return true;
+    return false;
+  }
+
+  public void onBeforeTxCommit(final ODatabase iDatabase) {
+  }
+
+  protected void checkForKeyType(final Object iKey) {
+    if (indexDefinition == null) {
+      // RECOGNIZE THE KEY TYPE AT RUN-TIME
+
+      final OType type = OType.getTypeByClass(iKey.getClass());
+      if (type == null)
+        return;
+
+      indexDefinition = new OSimpleKeyIndexDefinition(type);
+
+      updateConfiguration();
+    }
+  }
+
+  protected ODatabaseRecord getDatabase() {
+    return ODatabaseRecordThreadLocal.INSTANCE.get();
+  }
+
+  public OType[] getKeyTypes() {
+    if (indexDefinition == null)
+      return null;
+
+    return indexDefinition.getTypes();
+  }
+
+  public OIndexDefinition getDefinition() {
+    return indexDefinition;
+  }
+
+  public void freeze(boolean throwException) {
+    modificationLock.prohibitModifications(throwException);
+  }
+
+  public void release() {
+    modificationLock.allowModifications();
+  }
+
+  public void acquireModificationLock() {
+    modificationLock.requestModificationLock();
+  }
+
+  public void releaseModificationLock() {
+    modificationLock.releaseModificationLock();
+  }
+
+  @Override
+  public boolean equals(final Object o) {
+    if (this == o)
+      return true;
+    if (o == null || getClass() != o.getClass())
+      return false;
+
+    final OIndexAbstract<?> that = (OIndexAbstract<?>) o;
+
+    if (!name.equals(that.name))
+      return false;
+
+    return true;
+  }
+
+  @Override
+  public int hashCode() {
+    return name.hashCode();
+  }
+}
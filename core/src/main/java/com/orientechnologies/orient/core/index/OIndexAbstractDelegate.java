@@ -111,6 +111,11 @@ public class OIndexAbstractDelegate<T> implements OIndex<T> {
     return delegate.getEntriesBetween(iRangeFrom, iRangeTo);
   }
 
+  public OIndexCursor cursor(final Object iRangeFrom, final boolean iFromInclusive, final Object iRangeTo,
+      final boolean iToInclusive, final boolean iAscending) {
+    return delegate.cursor(iRangeFrom, iFromInclusive, iRangeTo, iToInclusive, iAscending);
+  }
+
   public Collection<OIdentifiable> getValuesMajor(final Object fromKey, final boolean isInclusive) {
     return delegate.getValuesMajor(fromKey, isInclusive);
   }
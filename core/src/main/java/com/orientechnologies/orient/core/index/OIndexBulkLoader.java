@@ -0,0 +1,266 @@
+/*
+ * Copyright 2010-2012 Luca Garulli (l.garulli--at--orientechnologies.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.orientechnologies.orient.core.index;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.PriorityQueue;
+
+import com.orientechnologies.common.comparator.ODefaultComparator;
+import com.orientechnologies.common.listener.OProgressListener;
+import com.orientechnologies.common.log.OLogManager;
+import com.orientechnologies.orient.core.id.ORID;
+import com.orientechnologies.orient.core.id.ORecordId;
+import com.orientechnologies.orient.core.serialization.serializer.binary.OBinarySerializer;
+
+/**
+ * Loads the entries of an index being rebuilt in key order. The entries are collected and sorted in memory in chunks of
+ * "index.bulkLoad.bufferSize" entries: every full chunk is written sorted to a temporary file and at the end all the chunks are
+ * merged. Putting the keys in order avoids random searches in the tree and lets it fill every page before starting the next one.
+ * 
+ * @author Luca Garulli
+ * 
+ */
+public class OIndexBulkLoader {
+  private final OIndexInternal<?>         index;
+  private final OBinarySerializer<Object> keySerializer;
+  private final int                       bufferSize;
+  private final List<OBulkEntry>          buffer;
+  private final List<File>                chunks = new ArrayList<File>();
+  private OChunkMergeIterator             merger;
+  private long                            entries;
+
+  public OIndexBulkLoader(final OIndexInternal<?> iIndex, final OBinarySerializer<Object> iKeySerializer, final int iBufferSize) {
+    index = iIndex;
+    keySerializer = iKeySerializer;
+    bufferSize = Math.max(iBufferSize, 1);
+    buffer = new ArrayList<OBulkEntry>(Math.min(bufferSize, 10000));
+  }
+
+  /**
+   * Collects an entry to load. When the buffer is full its entries are sorted and written to a temporary file.
+   */
+  public void add(final Object iKey, final ORID iRid) {
+    buffer.add(new OBulkEntry(iKey, iRid));
+    entries++;
+
+    if (buffer.size() >= bufferSize)
+      flushChunk();
+  }
+
+  /**
+   * Returns the number of the entries collected.
+   */
+  public long getEntries() {
+    return entries;
+  }
+
+  /**
+   * Puts all the collected entries in the index in key order and removes the temporary files. The progress is reported as the
+   * second half of the rebuild, the first half is the browsing of the clusters.
+   * 
+   * @return the number of the entries loaded
+   */
+  public long load(final OProgressListener iProgressListener) {
+    try {
+      final Iterator<OBulkEntry> iterator;
+      if (chunks.isEmpty()) {
+        Collections.sort(buffer);
+        iterator = buffer.iterator();
+      } else {
+        if (!buffer.isEmpty())
+          flushChunk();
+        merger = new OChunkMergeIterator();
+        iterator = merger;
+      }
+
+      long loaded = 0;
+      while (iterator.hasNext()) {
+        final OBulkEntry entry = iterator.next();
+        index.put(entry.key, entry.rid);
+        loaded++;
+
+        if (iProgressListener != null)
+          iProgressListener.onProgress(index, loaded, 50f + loaded * 50f / entries);
+      }
+      return loaded;
+
+    } finally {
+      close();
+    }
+  }
+
+  /**
+   * Discards the entries collected and removes the temporary files.
+   */
+  public void close() {
+    buffer.clear();
+    if (merger != null) {
+      merger.closeReaders();
+      merger = null;
+    }
+
+    for (File chunk : chunks)
+      if (!chunk.delete())
+        OLogManager.instance().warn(this, "Cannot delete the temporary file %s used to rebuild the index '%s'", chunk,
+            index.getName());
+    chunks.clear();
+  }
+
+  private void flushChunk() {
+    Collections.sort(buffer);
+
+    try {
+      final File chunk = File.createTempFile("orientdb-index-", ".sort");
+      chunk.deleteOnExit();
+      chunks.add(chunk);
+
+      final DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(chunk)));
+      try {
+        for (OBulkEntry entry : buffer) {
+          final byte[] key = new byte[keySerializer.getObjectSize(entry.key)];
+          keySerializer.serialize(entry.key, key, 0);
+
+          out.writeInt(key.length);
+          out.write(key);
+          out.writeShort(entry.rid.getClusterId());
+          out.writeLong(entry.rid.getClusterPosition());
+        }
+      } finally {
+        out.close();
+      }
+    } catch (IOException e) {
+      throw new OIndexException("Cannot write the sorted entries of index '" + index.getName() + "' to a temporary file", e);
+    }
+
+    buffer.clear();
+  }
+
+  private static class OBulkEntry implements Comparable<OBulkEntry> {
+    private final Object key;
+    private final ORID   rid;
+
+    private OBulkEntry(final Object iKey, final ORID iRid) {
+      key = iKey;
+      rid = iRid;
+    }
+
+    public int compareTo(final OBulkEntry o) {
+      final int cmp = ODefaultComparator.INSTANCE.compare(key, o.key);
+      return cmp != 0 ? cmp : rid.compareTo(o.rid);
+    }
+  }
+
+  /**
+   * Reads the entries of a chunk sequentially, keeping in memory only the current one.
+   */
+  private class OChunkReader implements Comparable<OChunkReader> {
+    private final DataInputStream in;
+    private OBulkEntry            current;
+
+    private OChunkReader(final File iChunk) throws IOException {
+      in = new DataInputStream(new BufferedInputStream(new FileInputStream(iChunk)));
+      advance();
+    }
+
+    private void advance() throws IOException {
+      final int keySize;
+      try {
+        keySize = in.readInt();
+      } catch (EOFException e) {
+        current = null;
+        in.close();
+        return;
+      }
+
+      final byte[] key = new byte[keySize];
+      in.readFully(key);
+      current = new OBulkEntry(keySerializer.deserialize(key, 0), new ORecordId(in.readShort(), in.readLong()));
+    }
+
+    public int compareTo(final OChunkReader o) {
+      return current.compareTo(o.current);
+    }
+  }
+
+  /**
+   * Merges the sorted chunks, always returning the lowest entry among the current ones of the chunks.
+   */
+  private class OChunkMergeIterator implements Iterator<OBulkEntry> {
+    private final PriorityQueue<OChunkReader> readers = new PriorityQueue<OChunkReader>();
+
+    private OChunkMergeIterator() {
+      try {
+        for (File chunk : chunks) {
+          final OChunkReader reader = new OChunkReader(chunk);
+          if (reader.current != null)
+            readers.add(reader);
+        }
+      } catch (IOException e) {
+        closeReaders();
+        throw new OIndexException("Cannot read the sorted entries of index '" + index.getName() + "'", e);
+      }
+    }
+
+    public boolean hasNext() {
+      return !readers.isEmpty();
+    }
+
+    public OBulkEntry next() {
+      final OChunkReader reader = readers.poll();
+      if (reader == null)
+        throw new NoSuchElementException();
+
+      final OBulkEntry entry = reader.current;
+      try {
+        reader.advance();
+      } catch (IOException e) {
+        closeReaders();
+        throw new OIndexException("Cannot read the sorted entries of index '" + index.getName() + "'", e);
+      }
+
+      if (reader.current != null)
+        readers.add(reader);
+      return entry;
+    }
+
+    public void remove() {
+      throw new UnsupportedOperationException("remove");
+    }
+
+    private void closeReaders() {
+      for (OChunkReader reader : readers)
+        try {
+          reader.in.close();
+        } catch (IOException e) {
+          // IGNORE IT
+        }
+      readers.clear();
+    }
+  }
+}
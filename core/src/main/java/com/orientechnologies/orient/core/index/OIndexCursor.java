@@ -0,0 +1,32 @@
+/*
+ * Copyright 2010-2012 Luca Garulli (l.garulli--at--orientechnologies.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.orientechnologies.orient.core.index;
+
+import java.util.Iterator;
+import java.util.Map.Entry;
+
+import com.orientechnologies.orient.core.db.record.OIdentifiable;
+
+/**
+ * Cursor to browse the entries of an index. Every entry contains the key and one of the records associated to it, so multi-value
+ * indexes return one entry for each record. The entries are fetched from the index while browsing, so stopping the browsing before
+ * the end avoids to read the rest of the range.
+ * 
+ * @author Luca Garulli
+ * 
+ */
+public interface OIndexCursor extends Iterator<Entry<Object, OIdentifiable>> {
+}
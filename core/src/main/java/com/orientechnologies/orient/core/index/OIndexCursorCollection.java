@@ -0,0 +1,63 @@
+/*
+ * Copyright 2010-2012 Luca Garulli (l.garulli--at--orientechnologies.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.orientechnologies.orient.core.index;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map.Entry;
+
+import com.orientechnologies.common.comparator.ODefaultComparator;
+import com.orientechnologies.orient.core.db.record.OIdentifiable;
+import com.orientechnologies.orient.core.record.impl.ODocument;
+
+/**
+ * Cursor over entries already loaded as documents with the fields "key" and "rid". Used by the indexes that can't browse the
+ * entries lazily, like the remote ones.
+ * 
+ * @author Luca Garulli
+ * 
+ */
+public class OIndexCursorCollection implements OIndexCursor {
+  private final Iterator<ODocument> iterator;
+
+  public OIndexCursorCollection(final Collection<ODocument> iEntries, final boolean iAscending) {
+    final List<ODocument> entries = new ArrayList<ODocument>(iEntries);
+    Collections.sort(entries, new Comparator<ODocument>() {
+      public int compare(final ODocument o1, final ODocument o2) {
+        final int result = ODefaultComparator.INSTANCE.compare(o1.field("key"), o2.field("key"));
+        return iAscending ? result : -result;
+      }
+    });
+    iterator = entries.iterator();
+  }
+
+  public boolean hasNext() {
+    return iterator.hasNext();
+  }
+
+  public Entry<Object, OIdentifiable> next() {
+    final ODocument entry = iterator.next();
+    return new OIndexEntry(entry.field("key"), (OIdentifiable) entry.field("rid"));
+  }
+
+  public void remove() {
+    throw new UnsupportedOperationException("remove");
+  }
+}
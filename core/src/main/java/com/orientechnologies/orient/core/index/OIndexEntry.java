@@ -0,0 +1,53 @@
+/*
+ * Copyright 2010-2012 Luca Garulli (l.garulli--at--orientechnologies.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.orientechnologies.orient.core.index;
+
+import java.util.Map.Entry;
+
+import com.orientechnologies.orient.core.db.record.OIdentifiable;
+
+/**
+ * Immutable entry of an index returned by {@link OIndexCursor}.
+ * 
+ * @author Luca Garulli
+ * 
+ */
+public class OIndexEntry implements Entry<Object, OIdentifiable> {
+  private final Object        key;
+  private final OIdentifiable value;
+
+  public OIndexEntry(final Object iKey, final OIdentifiable iValue) {
+    key = iKey;
+    value = iValue;
+  }
+
+  public Object getKey() {
+    return key;
+  }
+
+  public OIdentifiable getValue() {
+    return value;
+  }
+
+  public OIdentifiable setValue(final OIdentifiable iValue) {
+    throw new UnsupportedOperationException("setValue");
+  }
+
+  @Override
+  public String toString() {
+    return key + "=" + value;
+  }
+}
@@ -84,6 +84,14 @@ public class OIndexFullText extends OIndexMultiValues {
     }
   }
 
+  /**
+   * The words are extracted from the keys only by {@link #put(Object, OIdentifiable)}, so the entries can't be sorted in advance.
+   */
+  @Override
+  protected OIndexBulkLoader createBulkLoader() {
+    return null;
+  }
+
   /**
    * Indexes a value and save the index. Splits the value in single words and index each one. Save of the index is responsibility of
    * the caller.
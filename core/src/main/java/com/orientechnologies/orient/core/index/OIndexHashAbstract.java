@@ -0,0 +1,553 @@
+/*
+ * Copyright 2010-2012 Luca Garulli (l.garulli--at--orientechnologies.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.orientechnologies.orient.core.index;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map.Entry;
+import java.util.Set;
+
+import com.orientechnologies.common.collection.OCompositeKey;
+import com.orientechnologies.common.listener.OProgressListener;
+import com.orientechnologies.common.log.OLogManager;
+import com.orientechnologies.common.profiler.OProfiler;
+import com.orientechnologies.common.profiler.OProfiler.OProfilerHookValue;
+import com.orientechnologies.orient.core.Orient;
+import com.orientechnologies.orient.core.db.ODatabase;
+import com.orientechnologies.orient.core.db.record.ODatabaseRecord;
+import com.orientechnologies.orient.core.db.record.OIdentifiable;
+import com.orientechnologies.orient.core.id.ORID;
+import com.orientechnologies.orient.core.memory.OMemoryWatchDog.Listener;
+import com.orientechnologies.orient.core.metadata.schema.OType;
+import com.orientechnologies.orient.core.record.impl.ODocument;
+import com.orientechnologies.orient.core.serialization.serializer.stream.OStreamSerializer;
+import com.orientechnologies.orient.core.type.hash.OHashTableDatabase;
+
+/**
+ * Index that stores the entries in a persistent extendible hash table. Lookups by key read at most one bucket record instead of
+ * walking the tree, but the keys are not ordered, so the index can be used only by equality operators and IN, not by range
+ * operators nor to browse the keys in order.
+ * 
+ * @author Luca Garulli
+ * 
+ */
+public abstract class OIndexHashAbstract<T> extends OIndexAbstract<T> {
+  protected OHashTableDatabase table;
+  private final Listener       watchDog;
+
+  public OIndexHashAbstract(final String iType) {
+    super(iType);
+
+    watchDog = new Listener() {
+      public void memoryUsageLow(final long iFreeMemory, final long iFreeMemoryPercentage) {
+        if (table == null)
+          return;
+
+        clearLookupCache();
+
+        // EXCLUDE BOTH WRITERS AND READERS. ONLY THE BUCKETS ALREADY SAVED ARE FREED
+        acquireExclusiveLock();
+        try {
+          table.optimize();
+        } finally {
+          releaseExclusiveLock();
+        }
+      }
+    };
+  }
+
+  @SuppressWarnings("unchecked")
+  public OIndexHashAbstract<T> create(final String iName, final OIndexDefinition iIndexDefinition, final ODatabaseRecord iDatabase,
+      final String iClusterIndexName, final int[] iClusterIdsToIndex, final OProgressListener iProgressListener) {
+    // THE TABLE STORES THE RIDS ITSELF: NO VALUE SERIALIZER IS NEEDED
+    return (OIndexHashAbstract<T>) create(iName, iIndexDefinition, iDatabase, iClusterIndexName, iClusterIdsToIndex,
+        iProgressListener, null);
+  }
+
+  /**
+   * Converts the values of a key to the value returned by the index.
+   */
+  protected abstract T toValue(Set<OIdentifiable> iValues);
+
+  @Override
+  protected void createStorage(final String iClusterIndexName, final OStreamSerializer iValueSerializer) {
+    table = new OHashTableDatabase(iClusterIndexName, getKeySerializer());
+  }
+
+  @Override
+  protected void loadStorage(final ORID rid) {
+    final String clusterName = getDatabase().getClusterNameById(rid.getClusterId());
+    table = new OHashTableDatabase(clusterName, rid);
+    try {
+      table.load();
+    } catch (Exception e) {
+      if (onCorruptionRepairDatabase(null, "load", "Index will be rebuilt")) {
+        OLogManager.instance().warn(this, "Cannot load index '%s' from storage (rid=%s): rebuilt it from scratch", getName(), rid);
+        table = new OHashTableDatabase(clusterName, getKeySerializer());
+        rebuild();
+        updateConfiguration();
+      }
+    }
+  }
+
+  @Override
+  protected void clearStorage() {
+    table.clear();
+  }
+
+  @Override
+  protected void deleteStorage() {
+    if (table != null)
+      table.delete();
+  }
+
+  @Override
+  protected void setRunningTransaction(final boolean iTxRunning) {
+    table.setRunningTransaction(iTxRunning);
+  }
+
+  public boolean canBeUsedInEqualityOperators() {
+    return true;
+  }
+
+  public boolean canBeUsedInRangeOperators() {
+    return false;
+  }
+
+  public T get(final Object iKey) {
+    return toValue(getValuesOfKey(iKey));
+  }
+
+  public long count(final Object iKey) {
+    return getValuesOfKey(iKey).size();
+  }
+
+  public boolean contains(final Object iKey) {
+    acquireSharedLock();
+    try {
+
+      return table.containsKey(normalizeKey(iKey));
+
+    } finally {
+      releaseSharedLock();
+    }
+  }
+
+  public boolean remove(final Object iKey) {
+    modificationLock.requestModificationLock();
+
+    try {
+      acquireExclusiveLock();
+      try {
+
+        return table.remove(normalizeKey(iKey));
+
+      } finally {
+        releaseExclusiveLock();
+      }
+    } finally {
+      modificationLock.releaseModificationLock();
+    }
+  }
+
+  @Override
+  public boolean remove(final Object iKey, final OIdentifiable iValue) {
+    modificationLock.requestModificationLock();
+
+    try {
+      acquireExclusiveLock();
+      try {
+
+        return table.remove(normalizeKey(iKey), iValue);
+
+      } finally {
+        releaseExclusiveLock();
+      }
+    } finally {
+      modificationLock.releaseModificationLock();
+    }
+  }
+
+  public int remove(final OIdentifiable iRecord) {
+    modificationLock.requestModificationLock();
+
+    try {
+      acquireExclusiveLock();
+      try {
+
+        // COLLECT THE KEYS FIRST: REMOVING THEM CHANGES THE BUCKETS
+        final List<Object> keys = new ArrayList<Object>();
+        for (final Iterator<Entry<Object, Set<OIdentifiable>>> it = table.iterator(); it.hasNext();) {
+          final Entry<Object, Set<OIdentifiable>> entry = it.next();
+          if (entry.getValue().contains(iRecord))
+            keys.add(entry.getKey());
+        }
+
+        for (final Object key : keys)
+          table.remove(key, iRecord);
+
+        return keys.size();
+      } finally {
+        releaseExclusiveLock();
+      }
+    } finally {
+      modificationLock.releaseModificationLock();
+    }
+  }
+
+  public int count(final OIdentifiable iRecord) {
+    acquireSharedLock();
+    try {
+
+      int tot = 0;
+      for (final Iterator<Entry<Object, Set<OIdentifiable>>> it = table.iterator(); it.hasNext();)
+        if (it.next().getValue().contains(iRecord))
+          ++tot;
+
+      return tot;
+
+    } finally {
+      releaseSharedLock();
+    }
+  }
+
+  public Collection<OIdentifiable> getValues(final Collection<?> iKeys, final int maxValuesToFetch) {
+    final Set<OIdentifiable> result = new HashSet<OIdentifiable>();
+
+    for (final Object key : iKeys) {
+      for (final OIdentifiable value : getValuesOfKey(key)) {
+        if (maxValuesToFetch > -1 && maxValuesToFetch == result.size())
+          return result;
+
+        result.add(value);
+      }
+    }
+
+    return result;
+  }
+
+  public Collection<ODocument> getEntries(final Collection<?> iKeys, final int maxEntriesToFetch) {
+    final Set<ODocument> result = new ODocumentFieldsHashSet();
+
+    for (final Object key : iKeys) {
+      for (final OIdentifiable value : getValuesOfKey(key)) {
+        if (maxEntriesToFetch > -1 && maxEntriesToFetch == result.size())
+          return result;
+
+        final ODocument document = new ODocument();
+        document.field("key", key);
+        document.field("rid", value.getIdentity());
+        document.unsetDirty();
+
+        result.add(document);
+      }
+    }
+
+    return result;
+  }
+
+  public Collection<OIdentifiable> getValuesBetween(final Object iRangeFrom, final boolean iFromInclusive, final Object iRangeTo,
+      final boolean iToInclusive, final int maxValuesToFetch) {
+    throw rangeNotSupported();
+  }
+
+  public Collection<OIdentifiable> getValuesMajor(final Object fromKey, final boolean isInclusive, final int maxValuesToFetch) {
+    throw rangeNotSupported();
+  }
+
+  public Collection<OIdentifiable> getValuesMinor(final Object toKey, final boolean isInclusive, final int maxValuesToFetch) {
+    throw rangeNotSupported();
+  }
+
+  public Collection<ODocument> getEntriesMajor(final Object fromKey, final boolean isInclusive, final int maxEntriesToFetch) {
+    throw rangeNotSupported();
+  }
+
+  public Collection<ODocument> getEntriesMinor(final Object toKey, final boolean isInclusive, final int maxEntriesToFetch) {
+    throw rangeNotSupported();
+  }
+
+  public Collection<ODocument> getEntriesBetween(final Object iRangeFrom, final Object iRangeTo, final boolean iInclusive,
+      final int maxEntriesToFetch) {
+    throw rangeNotSupported();
+  }
+
+  public OIndexCursor cursor(final Object iRangeFrom, final boolean iFromInclusive, final Object iRangeTo,
+      final boolean iToInclusive, final boolean iAscending) {
+    throw rangeNotSupported();
+  }
+
+  public ORID getIdentity() {
+    return table.getRecord().getIdentity();
+  }
+
+  public OIndexInternal<T> delete() {
+    modificationLock.requestModificationLock();
+
+    try {
+      acquireExclusiveLock();
+
+      try {
+        table.delete();
+        return this;
+
+      } finally {
+        releaseExclusiveLock();
+      }
+    } finally {
+      modificationLock.releaseModificationLock();
+    }
+  }
+
+  public OIndexInternal<T> lazySave() {
+    acquireExclusiveLock();
+    try {
+
+      table.lazySave();
+      return this;
+
+    } finally {
+      releaseExclusiveLock();
+    }
+  }
+
+  /**
+   * Browses the entries in no particular order.
+   */
+  public Iterator<Entry<Object, T>> iterator() {
+    acquireExclusiveLock();
+    try {
+
+      final Iterator<Entry<Object, Set<OIdentifiable>>> entries = table.iterator();
+      return new Iterator<Entry<Object, T>>() {
+        public boolean hasNext() {
+          return entries.hasNext();
+        }
+
+        public Entry<Object, T> next() {
+          final Entry<Object, Set<OIdentifiable>> entry = entries.next();
+          final T value = toValue(entry.getValue());
+          return new Entry<Object, T>() {
+            public Object getKey() {
+              return entry.getKey();
+            }
+
+            public T getValue() {
+              return value;
+            }
+
+            public T setValue(final T iValue) {
+              throw new UnsupportedOperationException("setValue");
+            }
+          };
+        }
+
+        public void remove() {
+          throw new UnsupportedOperationException("remove");
+        }
+      };
+
+    } finally {
+      releaseExclusiveLock();
+    }
+  }
+
+  /**
+   * Browses the keys in no particular order.
+   */
+  public Iterable<Object> keys() {
+    return new Iterable<Object>() {
+      public Iterator<Object> iterator() {
+        final Iterator<Entry<Object, T>> entries = OIndexHashAbstract.this.iterator();
+        return new Iterator<Object>() {
+          public boolean hasNext() {
+            return entries.hasNext();
+          }
+
+          public Object next() {
+            return entries.next().getKey();
+          }
+
+          public void remove() {
+            throw new UnsupportedOperationException("remove");
+          }
+        };
+      }
+    };
+  }
+
+  public void unload() {
+    acquireExclusiveLock();
+    try {
+
+      table.unload();
+
+    } finally {
+      releaseExclusiveLock();
+    }
+  }
+
+  public long getSize() {
+    acquireSharedLock();
+    try {
+      return table.getValues();
+    } finally {
+      releaseSharedLock();
+    }
+  }
+
+  public long getKeySize() {
+    acquireSharedLock();
+    try {
+      return table.getKeys();
+    } finally {
+      releaseSharedLock();
+    }
+  }
+
+  @Override
+  protected void installHooks(final ODatabaseRecord iDatabase) {
+    OProfiler.getInstance().registerHookValue("index." + name + ".items", new OProfilerHookValue() {
+      public Object getValue() {
+        acquireSharedLock();
+        try {
+          return table != null ? table.getKeys() : "-";
+        } finally {
+          releaseSharedLock();
+        }
+      }
+    });
+
+    OProfiler.getInstance().registerHookValue("index." + name + ".hashDepth", new OProfilerHookValue() {
+      public Object getValue() {
+        return table != null ? table.getDepth() : "-";
+      }
+    });
+
+    Orient.instance().getMemoryWatchDog().addListener(watchDog);
+    iDatabase.registerListener(this);
+  }
+
+  public void onBeforeTxBegin(final ODatabase iDatabase) {
+    acquireExclusiveLock();
+    try {
+
+      table.commitChanges(true);
+
+    } finally {
+      releaseExclusiveLock();
+    }
+  }
+
+  public void onAfterTxRollback(final ODatabase iDatabase) {
+    acquireExclusiveLock();
+    try {
+
+      table.unload();
+
+    } finally {
+      releaseExclusiveLock();
+    }
+  }
+
+  public void onAfterTxCommit(final ODatabase iDatabase) {
+    acquireExclusiveLock();
+    try {
+
+      table.lazySave();
+
+    } finally {
+      releaseExclusiveLock();
+    }
+  }
+
+  public void onClose(final ODatabase iDatabase) {
+    acquireExclusiveLock();
+    try {
+
+      table.lazySave();
+      Orient.instance().getMemoryWatchDog().removeListener(watchDog);
+
+    } finally {
+      releaseExclusiveLock();
+    }
+  }
+
+  /**
+   * Converts the key to the types of the index definition, since the keys are hashed on their binary form. Composite keys must
+   * contain all the fields of the index.
+   */
+  protected Object normalizeKey(final Object iKey) {
+    if (indexDefinition == null || indexDefinition instanceof ORuntimeKeyIndexDefinition)
+      return iKey;
+
+    final OType[] types = indexDefinition.getTypes();
+    if (iKey instanceof OCompositeKey) {
+      final List<Object> keys = ((OCompositeKey) iKey).getKeys();
+      if (keys.size() != types.length)
+        throw new OIndexException("Index '" + name + "' of type " + type + " can be searched only by the complete key, while "
+            + iKey + " was passed");
+
+      final OCompositeKey key = new OCompositeKey();
+      for (int i = 0; i < types.length; ++i)
+        key.addKey(convertKey(keys.get(i), types[i]));
+      return key;
+    }
+
+    if (types.length == 1)
+      return convertKey(iKey, types[0]);
+
+    return iKey;
+  }
+
+  @SuppressWarnings("unchecked")
+  protected Set<OIdentifiable> getValuesOfKey(final Object iKey) {
+    final Object cached = getCachedLookup(iKey);
+    if (cached != null)
+      return cached != LOOKUP_NOT_FOUND ? (Set<OIdentifiable>) cached : Collections.<OIdentifiable> emptySet();
+
+    acquireSharedLock();
+    try {
+
+      final Set<OIdentifiable> values = table.get(normalizeKey(iKey));
+
+      final Set<OIdentifiable> result;
+      if (values == null || values.isEmpty())
+        result = Collections.emptySet();
+      else
+        result = Collections.unmodifiableSet(values);
+
+      cacheLookup(iKey, values != null ? result : null);
+      return result;
+
+    } finally {
+      releaseSharedLock();
+    }
+  }
+
+  private OIndexException rangeNotSupported() {
+    return new OIndexException("Index '" + name + "' of type " + type + " does not support range queries");
+  }
+
+  private static Object convertKey(final Object iKey, final OType iType) {
+    final Class<?> javaType = iType.getDefaultJavaType();
+    return javaType != null ? OType.convert(iKey, javaType) : iKey;
+  }
+}
@@ -97,6 +97,14 @@ public interface OIndexInternal<T> extends OIndex<T>, Iterable<Entry<Object, T>>
    */
   public boolean canBeUsedInEqualityOperators();
 
+  /**
+   * Indicates whether given index keeps the keys ordered, so it can be used to calculate result of range operators (major, minor,
+   * between) and of equality operators on a part of a composite key.
+   * 
+   * @return {@code true} if given index can be used to calculate result of range operators.
+   */
+  public boolean canBeUsedInRangeOperators();
+
   /**
    * Prohibit index modifications. Only index read commands are allowed after this call.
    * 
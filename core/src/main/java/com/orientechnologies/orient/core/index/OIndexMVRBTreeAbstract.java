@@ -15,456 +15,146 @@
  */
 package com.orientechnologies.orient.core.index;
 
-import java.io.IOException;
-import java.lang.reflect.InvocationTargetException;
 import java.util.Collection;
-import java.util.Collections;
 import java.util.Iterator;
-import java.util.LinkedHashSet;
-import java.util.List;
-import java.util.Locale;
+import java.util.LinkedList;
 import java.util.Map.Entry;
 import java.util.NoSuchElementException;
-import java.util.Set;
 
-import com.orientechnologies.common.collection.OCompositeKey;
-import com.orientechnologies.common.concur.lock.OModificationLock;
-import com.orientechnologies.common.concur.resource.OSharedResourceAdaptiveExternal;
-import com.orientechnologies.common.listener.OProgressListener;
+import com.orientechnologies.common.collection.OMVRBTree;
+import com.orientechnologies.common.collection.OMVRBTree.PartialSearchMode;
+import com.orientechnologies.common.collection.OMVRBTreeEntry;
+import com.orientechnologies.common.comparator.ODefaultComparator;
 import com.orientechnologies.common.log.OLogManager;
 import com.orientechnologies.common.profiler.OProfiler;
 import com.orientechnologies.common.profiler.OProfiler.OProfilerHookValue;
 import com.orientechnologies.orient.core.Orient;
-import com.orientechnologies.orient.core.annotation.ODocumentInstance;
 import com.orientechnologies.orient.core.config.OGlobalConfiguration;
 import com.orientechnologies.orient.core.db.ODatabase;
-import com.orientechnologies.orient.core.db.ODatabaseRecordThreadLocal;
 import com.orientechnologies.orient.core.db.record.ODatabaseRecord;
 import com.orientechnologies.orient.core.db.record.OIdentifiable;
-import com.orientechnologies.orient.core.db.record.ORecordElement;
-import com.orientechnologies.orient.core.exception.OConfigurationException;
-import com.orientechnologies.orient.core.exception.OTransactionException;
 import com.orientechnologies.orient.core.id.ORID;
-import com.orientechnologies.orient.core.intent.OIntentMassiveInsert;
 import com.orientechnologies.orient.core.memory.OMemoryWatchDog.Listener;
 import com.orientechnologies.orient.core.metadata.schema.OType;
 import com.orientechnologies.orient.core.record.ORecord;
-import com.orientechnologies.orient.core.record.impl.ODocument;
-import com.orientechnologies.orient.core.serialization.serializer.OStringSerializerHelper;
-import com.orientechnologies.orient.core.serialization.serializer.binary.OBinarySerializer;
-import com.orientechnologies.orient.core.serialization.serializer.binary.OBinarySerializerFactory;
-import com.orientechnologies.orient.core.serialization.serializer.binary.impl.index.OCompositeKeySerializer;
-import com.orientechnologies.orient.core.serialization.serializer.binary.impl.index.OSimpleKeySerializer;
 import com.orientechnologies.orient.core.serialization.serializer.stream.OStreamSerializer;
-import com.orientechnologies.orient.core.serialization.serializer.stream.OStreamSerializerAnyStreamable;
-import com.orientechnologies.orient.core.tx.OTransactionIndexChanges.OPERATION;
 import com.orientechnologies.orient.core.type.tree.OMVRBTreeDatabaseLazySave;
 import com.orientechnologies.orient.core.type.tree.provider.OMVRBTreeProviderAbstract;
 
 /**
- * Handles indexing when records change.
+ * Handles indexing when records change. The entries are stored in a MVRB-Tree, so the index supports range queries and browsing
+ * in key order.
  * 
  * @author Luca Garulli
  * 
  */
-public abstract class OIndexMVRBTreeAbstract<T> extends OSharedResourceAdaptiveExternal implements OIndexInternal<T> {
-  protected final OModificationLock              modificationLock = new OModificationLock();
-
-  protected static final String                  CONFIG_MAP_RID   = "mapRid";
-  protected static final String                  CONFIG_CLUSTERS  = "clusters";
-  protected String                               name;
-  protected String                               type;
+public abstract class OIndexMVRBTreeAbstract<T> extends OIndexAbstract<T> {
+  protected static final int                     CURSOR_BATCH_SIZE = 100;
   protected OMVRBTreeDatabaseLazySave<Object, T> map;
-  protected Set<String>                          clustersToIndex  = new LinkedHashSet<String>();
-  protected OIndexDefinition                     indexDefinition;
-
-  @ODocumentInstance
-  protected ODocument                            configuration;
   private final Listener                         watchDog;
 
   public OIndexMVRBTreeAbstract(final String iType) {
-    super(OGlobalConfiguration.ENVIRONMENT_CONCURRENT.getValueAsBoolean(), OGlobalConfiguration.MVRBTREE_TIMEOUT
-        .getValueAsInteger(), true);
+    super(iType);
 
-    type = iType;
     watchDog = new Listener() {
       public void memoryUsageLow(final long iFreeMemory, final long iFreeMemoryPercentage) {
+        // READERS DON'T OPTIMIZE THE TREE: IT'S DONE BY THE NEXT CHANGE UNDER THE EXCLUSIVE LOCK
         map.setOptimization(iFreeMemoryPercentage < 10 ? 2 : 1);
+        clearLookupCache();
       }
     };
   }
 
-  public void flush() {
-    lazySave();
+  @Override
+  protected void createStorage(final String iClusterIndexName, final OStreamSerializer iValueSerializer) {
+    final int keySize = indexDefinition != null && !(indexDefinition instanceof ORuntimeKeyIndexDefinition) ? indexDefinition
+        .getTypes().length : 1;
+    map = new OMVRBTreeDatabaseLazySave<Object, T>(iClusterIndexName, getKeySerializer(), iValueSerializer, keySize);
+    map.setConcurrentReads(true);
   }
 
-  /**
-   * Creates the index.
-   * 
-   * @param iDatabase
-   *          Current Database instance
-   * @param iClusterIndexName
-   *          Cluster name where to place the TreeMap
-   * @param iProgressListener
-   */
-  @SuppressWarnings({ "unchecked", "rawtypes" })
-  public OIndexInternal<?> create(final String iName, final OIndexDefinition iIndexDefinition, final ODatabaseRecord iDatabase,
-      final String iClusterIndexName, final int[] iClusterIdsToIndex, final OProgressListener iProgressListener,
-      final OStreamSerializer iValueSerializer) {
-    acquireExclusiveLock();
+  @Override
+  protected void loadStorage(final ORID rid) {
+    map = new OMVRBTreeDatabaseLazySave<Object, T>(getDatabase(), rid);
+    map.setConcurrentReads(true);
     try {
-
-      name = iName;
-      configuration = new ODocument();
-
-      indexDefinition = iIndexDefinition;
-
-      if (iClusterIdsToIndex != null)
-        for (final int id : iClusterIdsToIndex)
-          clustersToIndex.add(iDatabase.getClusterNameById(id));
-
-      if (indexDefinition != null) {
-        if (indexDefinition instanceof ORuntimeKeyIndexDefinition) {
-          map = new OMVRBTreeDatabaseLazySave<Object, T>(iClusterIndexName,
-              ((ORuntimeKeyIndexDefinition) indexDefinition).getSerializer(), iValueSerializer, 1);
-        } else {
-          final OBinarySerializer<?> keySerializer;
-          if (indexDefinition.getTypes().length > 1) {
-            keySerializer = OCompositeKeySerializer.INSTANCE;
-          } else {
-            keySerializer = OBinarySerializerFactory.INSTANCE.getObjectSerializer(indexDefinition.getTypes()[0]);
-          }
-          map = new OMVRBTreeDatabaseLazySave<Object, T>(iClusterIndexName, (OBinarySerializer<Object>) keySerializer,
-              iValueSerializer, indexDefinition.getTypes().length);
-        }
-      } else
-        map = new OMVRBTreeDatabaseLazySave<Object, T>(iClusterIndexName, new OSimpleKeySerializer(), iValueSerializer, 1);
-
-      installHooks(iDatabase);
-
-      rebuild(iProgressListener);
-      updateConfiguration();
+      map.load();
     } catch (Exception e) {
-      if (map != null)
-        map.delete();
-      if (e instanceof OIndexException)
-        throw (OIndexException) e;
-
-      throw new OIndexException("Cannot create the index '" + iName + "'", e);
-
-    } finally {
-      releaseExclusiveLock();
-    }
-    return this;
-  }
-
-  public OIndexInternal<T> loadFromConfiguration(final ODocument iConfig) {
-    acquireExclusiveLock();
-    try {
-
-      final ORID rid = (ORID) iConfig.field(CONFIG_MAP_RID, ORID.class);
-      if (rid == null)
-        throw new OIndexException("Error during deserialization of index definition: '" + CONFIG_MAP_RID + "' attribute is null");
-
-      configuration = iConfig;
-      name = configuration.field(OIndexInternal.CONFIG_NAME);
-
-      final ODocument indexDefinitionDoc = configuration.field(OIndexInternal.INDEX_DEFINITION);
-      if (indexDefinitionDoc != null) {
-        try {
-          final String indexDefClassName = configuration.field(OIndexInternal.INDEX_DEFINITION_CLASS);
-          final Class<?> indexDefClass = Class.forName(indexDefClassName);
-          indexDefinition = (OIndexDefinition) indexDefClass.getDeclaredConstructor().newInstance();
-          indexDefinition.fromStream(indexDefinitionDoc);
-
-        } catch (final ClassNotFoundException e) {
-          throw new OIndexException("Error during deserialization of index definition", e);
-        } catch (final NoSuchMethodException e) {
-          throw new OIndexException("Error during deserialization of index definition", e);
-        } catch (final InvocationTargetException e) {
-          throw new OIndexException("Error during deserialization of index definition", e);
-        } catch (final InstantiationException e) {
-          throw new OIndexException("Error during deserialization of index definition", e);
-        } catch (final IllegalAccessException e) {
-          throw new OIndexException("Error during deserialization of index definition", e);
-        }
-      } else {
-        // @COMPATIBILITY 1.0rc6 new index model was implemented
-        final Boolean isAutomatic = configuration.field(OIndexInternal.CONFIG_AUTOMATIC);
-        if (Boolean.TRUE.equals(isAutomatic)) {
-          final int pos = name.lastIndexOf('.');
-          if (pos < 0)
-            throw new OIndexException("Can not convert from old index model to new one. "
-                + "Invalid index name. Dot (.) separator should be present.");
-          final String className = name.substring(0, pos);
-          final String propertyName = name.substring(pos + 1);
-
-          final String keyTypeStr = configuration.field(OIndexInternal.CONFIG_KEYTYPE);
-          if (keyTypeStr == null)
-            throw new OIndexException("Can not convert from old index model to new one. " + "Index key type is absent.");
-          final OType keyType = OType.valueOf(keyTypeStr.toUpperCase(Locale.ENGLISH));
-          indexDefinition = new OPropertyIndexDefinition(className, propertyName, keyType);
-
-          configuration.removeField(OIndexInternal.CONFIG_AUTOMATIC);
-          configuration.removeField(OIndexInternal.CONFIG_KEYTYPE);
-        } else if (configuration.field(OIndexInternal.CONFIG_KEYTYPE) != null) {
-          final String keyTypeStr = configuration.field(OIndexInternal.CONFIG_KEYTYPE);
-          final OType keyType = OType.valueOf(keyTypeStr.toUpperCase(Locale.ENGLISH));
-
-          indexDefinition = new OSimpleKeyIndexDefinition(keyType);
-
-          configuration.removeField(OIndexInternal.CONFIG_KEYTYPE);
-        }
-      }
-
-      clustersToIndex.clear();
-
-      final Collection<? extends String> clusters = configuration.field(CONFIG_CLUSTERS);
-      if (clusters != null)
-        clustersToIndex.addAll(clusters);
-
-      map = new OMVRBTreeDatabaseLazySave<Object, T>(getDatabase(), rid);
-      try {
-        map.load();
-      } catch (Exception e) {
-        if (onCorruptionRepairDatabase(null, "load", "Index will be rebuilt")) {
-          if (isAutomatic())
-            // AUTOMATIC REBUILD IT
-            OLogManager.instance().warn(this, "Cannot load index '%s' from storage (rid=%s): rebuilt it from scratch", getName(),
-                rid);
-          rebuild();
-        }
+      if (onCorruptionRepairDatabase(null, "load", "Index will be rebuilt")) {
+        if (isAutomatic())
+          // AUTOMATIC REBUILD IT
+          OLogManager.instance().warn(this, "Cannot load index '%s' from storage (rid=%s): rebuilt it from scratch", getName(),
+              rid);
+        rebuild();
       }
-
-      installHooks(iConfig.getDatabase());
-
-      return this;
-
-    } finally {
-      releaseExclusiveLock();
-    }
-  }
-
-  public boolean contains(final Object iKey) {
-
-    acquireExclusiveLock();
-    try {
-
-      return map.containsKey(iKey);
-
-    } finally {
-      releaseExclusiveLock();
     }
   }
 
-  /**
-   * Returns a set of records with key between the range passed as parameter. Range bounds are included.
-   * <p/>
-   * In case of {@link com.orientechnologies.common.collection.OCompositeKey}s partial keys can be used as values boundaries.
-   * 
-   * @param iRangeFrom
-   *          Starting range
-   * @param iRangeTo
-   *          Ending range
-   * @return a set of records with key between the range passed as parameter. Range bounds are included.
-   * @see com.orientechnologies.common.collection.OCompositeKey#compareTo(com.orientechnologies.common.collection.OCompositeKey)
-   * @see #getValuesBetween(Object, boolean, Object, boolean)
-   */
-  public Collection<OIdentifiable> getValuesBetween(final Object iRangeFrom, final Object iRangeTo) {
-    return getValuesBetween(iRangeFrom, true, iRangeTo, true);
-  }
-
-  /**
-   * Returns a set of documents with key between the range passed as parameter. Range bounds are included.
-   * 
-   * @param iRangeFrom
-   *          Starting range
-   * @param iRangeTo
-   *          Ending range
-   * @see #getEntriesBetween(Object, Object, boolean)
-   * @return
-   */
-  public Collection<ODocument> getEntriesBetween(final Object iRangeFrom, final Object iRangeTo) {
-    return getEntriesBetween(iRangeFrom, iRangeTo, true);
-  }
-
-  public Collection<OIdentifiable> getValuesMajor(final Object fromKey, final boolean isInclusive) {
-    return getValuesMajor(fromKey, isInclusive, -1);
-  }
-
-  public Collection<OIdentifiable> getValuesMinor(final Object toKey, final boolean isInclusive) {
-    return getValuesMinor(toKey, isInclusive, -1);
-  }
-
-  public Collection<ODocument> getEntriesMajor(final Object fromKey, final boolean isInclusive) {
-    return getEntriesMajor(fromKey, isInclusive, -1);
-  }
-
-  public Collection<ODocument> getEntriesMinor(final Object toKey, final boolean isInclusive) {
-    return getEntriesMinor(toKey, isInclusive, -1);
-  }
-
-  /**
-   * Returns a set of records with key between the range passed as parameter.
-   * <p/>
-   * In case of {@link com.orientechnologies.common.collection.OCompositeKey}s partial keys can be used as values boundaries.
-   * 
-   * @param iRangeFrom
-   *          Starting range
-   * @param iFromInclusive
-   *          Indicates whether start range boundary is included in result.
-   * @param iRangeTo
-   *          Ending range
-   * @param iToInclusive
-   *          Indicates whether end range boundary is included in result.
-   * @return Returns a set of records with key between the range passed as parameter.
-   * @see com.orientechnologies.common.collection.OCompositeKey#compareTo(com.orientechnologies.common.collection.OCompositeKey)
-   */
-  public Collection<OIdentifiable> getValuesBetween(final Object iRangeFrom, final boolean iFromInclusive, final Object iRangeTo,
-      final boolean iToInclusive) {
-    return getValuesBetween(iRangeFrom, iFromInclusive, iRangeTo, iToInclusive, -1);
+  @Override
+  protected void clearStorage() {
+    map.clear();
   }
 
-  public Collection<ODocument> getEntriesBetween(final Object iRangeFrom, final Object iRangeTo, final boolean iInclusive) {
-    return getEntriesBetween(iRangeFrom, iRangeTo, iInclusive, -1);
+  @Override
+  protected void deleteStorage() {
+    if (map != null)
+      map.delete();
   }
 
-  public Collection<OIdentifiable> getValues(final Collection<?> iKeys) {
-    return getValues(iKeys, -1);
+  @Override
+  protected void setRunningTransaction(final boolean iTxRunning) {
+    map.setRunningTransaction(iTxRunning);
   }
 
-  public Collection<ODocument> getEntries(final Collection<?> iKeys) {
-    return getEntries(iKeys, -1);
+  public boolean canBeUsedInRangeOperators() {
+    return true;
   }
 
-  public ORID getIdentity() {
-    return ((OMVRBTreeProviderAbstract<Object, ?>) map.getProvider()).getRecord().getIdentity();
-  }
+  @Override
+  protected OIndexBulkLoader createBulkLoader() {
+    if (!OGlobalConfiguration.INDEX_BULK_LOAD.getValueAsBoolean())
+      return null;
 
-  public long rebuild() {
-    return rebuild(null);
+    return new OIndexBulkLoader(this, getKeySerializer(), OGlobalConfiguration.INDEX_BULK_LOAD_BUFFER_SIZE.getValueAsInteger());
   }
 
-  /**
-   * Populates the index with all the existent records. Uses the massive insert intent to speed up and keep the consumed memory low.
-   */
-  public long rebuild(final OProgressListener iProgressListener) {
-    long documentIndexed = 0;
-
-    final boolean intentInstalled = getDatabase().declareIntent(new OIntentMassiveInsert());
+  public boolean contains(final Object iKey) {
 
-    acquireExclusiveLock();
+    acquireSharedLock();
     try {
-      try {
-        map.clear();
-      } catch (Exception e) {
-        // IGNORE EXCEPTION: IF THE REBUILD WAS LAUNCHED IN CASE OF RID INVALID CLEAR ALWAYS GOES IN ERROR
-      }
-
-      int documentNum = 0;
-      long documentTotal = 0;
-
-      for (final String cluster : clustersToIndex)
-        documentTotal += getDatabase().countClusterElements(cluster);
-
-      if (iProgressListener != null)
-        iProgressListener.onBegin(this, documentTotal);
-
-      for (final String clusterName : clustersToIndex)
-        try {
-          for (final ORecord<?> record : getDatabase().browseCluster(clusterName)) {
-            if (record instanceof ODocument) {
-              final ODocument doc = (ODocument) record;
-
-              if (indexDefinition == null)
-                throw new OConfigurationException("Index '" + name + "' cannot be rebuilt because has no a valid definition ("
-                    + indexDefinition + ")");
-
-              final Object fieldValue = indexDefinition.getDocumentValueToIndex(doc);
-
-              if (fieldValue != null) {
-                if (fieldValue instanceof Collection) {
-                  for (final Object fieldValueItem : (Collection<?>) fieldValue) {
-                    put(fieldValueItem, doc);
-                  }
-                } else
-                  put(fieldValue, doc);
-
-                ++documentIndexed;
-              }
-            }
-            documentNum++;
-
-            if (iProgressListener != null)
-              iProgressListener.onProgress(this, documentNum, documentNum * 100f / documentTotal);
-          }
-        } catch (NoSuchElementException e) {
-          // END OF CLUSTER REACHED, IGNORE IT
-        }
-
-      lazySave();
-
-      if (iProgressListener != null)
-        iProgressListener.onCompletition(this, true);
 
-    } catch (final Exception e) {
-      if (iProgressListener != null)
-        iProgressListener.onCompletition(this, false);
-
-      try {
-        map.clear();
-      } catch (Exception e2) {
-        // IGNORE EXCEPTION: IF THE REBUILD WAS LAUNCHED IN CASE OF RID INVALID CLEAR ALWAYS GOES IN ERROR
-      }
-
-      throw new OIndexException("Error on rebuilding the index for clusters: " + clustersToIndex, e);
+      return map.containsKey(iKey);
 
     } finally {
-      if (intentInstalled)
-        getDatabase().declareIntent(null);
-
-      releaseExclusiveLock();
+      releaseSharedLock();
     }
-
-    return documentIndexed;
   }
 
-  public boolean remove(final Object iKey, final OIdentifiable iValue) {
-    modificationLock.requestModificationLock();
-    try {
-      return remove(iKey);
-    } finally {
-      modificationLock.releaseModificationLock();
+  public OIndexCursor cursor(Object iRangeFrom, final boolean iFromInclusive, Object iRangeTo, final boolean iToInclusive,
+      final boolean iAscending) {
+    final OType[] types = indexDefinition != null ? indexDefinition.getTypes() : null;
+    if (types != null && types.length == 1) {
+      if (iRangeFrom != null)
+        iRangeFrom = OType.convert(iRangeFrom, types[0].getDefaultJavaType());
+      if (iRangeTo != null)
+        iRangeTo = OType.convert(iRangeTo, types[0].getDefaultJavaType());
     }
 
+    return new OIndexMVRBTreeCursor(iRangeFrom, iFromInclusive, iRangeTo, iToInclusive, iAscending);
   }
 
-  public boolean remove(final Object key) {
-    modificationLock.requestModificationLock();
-
-    try {
-      acquireExclusiveLock();
-      try {
-
-        return map.remove(key) != null;
-
-      } finally {
-        releaseExclusiveLock();
-      }
-    } finally {
-      modificationLock.releaseModificationLock();
-    }
+  public ORID getIdentity() {
+    return ((OMVRBTreeProviderAbstract<Object, ?>) map.getProvider()).getRecord().getIdentity();
   }
 
-  public OIndex<T> clear() {
+  public boolean remove(final Object key) {
     modificationLock.requestModificationLock();
 
     try {
       acquireExclusiveLock();
       try {
 
-        map.clear();
-        return this;
+        return map.remove(key) != null;
 
       } finally {
         releaseExclusiveLock();
@@ -533,60 +223,6 @@ public abstract class OIndexMVRBTreeAbstract<T> extends OSharedResourceAdaptiveE
     }
   }
 
-  public String getName() {
-    return name;
-  }
-
-  public String getType() {
-    return type;
-  }
-
-  @Override
-  public String toString() {
-    return name;
-  }
-
-  public OIndexInternal<T> getInternal() {
-    return this;
-  }
-
-  public Set<String> getClusters() {
-
-    acquireSharedLock();
-    try {
-
-      return Collections.unmodifiableSet(clustersToIndex);
-
-    } finally {
-      releaseSharedLock();
-    }
-  }
-
-  public OIndexMVRBTreeAbstract<T> addCluster(final String iClusterName) {
-    acquireExclusiveLock();
-    try {
-      if (clustersToIndex.add(iClusterName))
-        updateConfiguration();
-      return this;
-    } finally {
-      releaseExclusiveLock();
-    }
-  }
-
-  public OIndexMVRBTreeAbstract<T> removeCluster(String iClusterName) {
-    acquireExclusiveLock();
-    try {
-      if (clustersToIndex.remove(iClusterName))
-        updateConfiguration();
-      return this;
-    } finally {
-      releaseExclusiveLock();
-    }
-  }
-
-  public void checkEntry(final OIdentifiable iRecord, final Object iKey) {
-  }
-
   public void unload() {
 
     acquireExclusiveLock();
@@ -599,117 +235,7 @@ public abstract class OIndexMVRBTreeAbstract<T> extends OSharedResourceAdaptiveE
     }
   }
 
-  public ODocument updateConfiguration() {
-
-    acquireExclusiveLock();
-    try {
-
-      configuration.setInternalStatus(ORecordElement.STATUS.UNMARSHALLING);
-
-      try {
-        configuration.field(OIndexInternal.CONFIG_TYPE, type);
-        configuration.field(OIndexInternal.CONFIG_NAME, name);
-
-        if (indexDefinition != null) {
-          final ODocument indexDefDocument = indexDefinition.toStream();
-          if (!indexDefDocument.hasOwners())
-            indexDefDocument.addOwner(configuration);
-
-          configuration.field(OIndexInternal.INDEX_DEFINITION, indexDefDocument, OType.EMBEDDED);
-          configuration.field(OIndexInternal.INDEX_DEFINITION_CLASS, indexDefinition.getClass().getName());
-        } else {
-          configuration.removeField(OIndexInternal.INDEX_DEFINITION);
-          configuration.removeField(OIndexInternal.INDEX_DEFINITION_CLASS);
-        }
-
-        configuration.field(CONFIG_CLUSTERS, clustersToIndex, OType.EMBEDDEDSET);
-        configuration.field(CONFIG_MAP_RID, ((OMVRBTreeProviderAbstract<Object, ?>) map.getProvider()).getRecord().getIdentity());
-
-      } finally {
-        configuration.setInternalStatus(ORecordElement.STATUS.LOADED);
-      }
-
-    } finally {
-      releaseExclusiveLock();
-    }
-    return configuration;
-  }
-
-  @SuppressWarnings("unchecked")
-  public void commit(final ODocument iDocument) {
-    if (iDocument == null)
-      return;
-
-    acquireExclusiveLock();
-    try {
-      map.setRunningTransaction(true);
-
-      final Boolean clearAll = (Boolean) iDocument.field("clear");
-      if (clearAll != null && clearAll)
-        clear();
-
-      final Collection<ODocument> entries = iDocument.field("entries");
-
-      for (final ODocument entry : entries) {
-        final String serializedKey = OStringSerializerHelper.decode((String) entry.field("k"));
-
-        final Object key;
-
-        try {
-          if (serializedKey.equals("*"))
-            key = "*";
-          else {
-            final ODocument keyContainer = new ODocument();
-            keyContainer.setLazyLoad(false);
-
-            keyContainer.fromString(serializedKey);
-
-            final Object storedKey = keyContainer.field("key");
-            if (storedKey instanceof List)
-              key = new OCompositeKey((List<? extends Comparable<?>>) storedKey);
-            else if (Boolean.TRUE.equals(keyContainer.field("binary"))) {
-              key = OStreamSerializerAnyStreamable.INSTANCE.fromStream((byte[]) storedKey);
-            } else
-              key = storedKey;
-          }
-        } catch (IOException ioe) {
-          throw new OTransactionException("Error during index changes deserialization. ", ioe);
-        }
-
-        final List<ODocument> operations = (List<ODocument>) entry.field("ops");
-        if (operations != null) {
-          for (final ODocument op : operations) {
-            final int operation = (Integer) op.rawField("o");
-            final OIdentifiable value = op.field("v", OType.LINK);
-
-            if (operation == OPERATION.PUT.ordinal())
-              put(key, value);
-            else if (operation == OPERATION.REMOVE.ordinal()) {
-              if (key.equals("*"))
-                remove(value);
-              else if (value == null)
-                remove(key);
-              else
-                remove(key, value);
-            }
-          }
-        }
-      }
-
-    } finally {
-      releaseExclusiveLock();
-      map.setRunningTransaction(false);
-    }
-  }
-
-  public ODocument getConfiguration() {
-    return configuration;
-  }
-
-  public boolean isAutomatic() {
-    return indexDefinition != null && indexDefinition.getClassName() != null;
-  }
-
+  @Override
   protected void installHooks(final ODatabaseRecord iDatabase) {
     OProfiler.getInstance().registerHookValue("index." + name + ".items", new OProfilerHookValue() {
       public Object getValue() {
@@ -753,15 +279,6 @@ public abstract class OIndexMVRBTreeAbstract<T> extends OSharedResourceAdaptiveE
     iDatabase.unregisterListener(this);
   }
 
-  public void onCreate(final ODatabase iDatabase) {
-  }
-
-  public void onDelete(final ODatabase iDatabase) {
-  }
-
-  public void onOpen(final ODatabase iDatabase) {
-  }
-
   public void onBeforeTxBegin(final ODatabase iDatabase) {
     acquireExclusiveLock();
     try {
@@ -773,15 +290,6 @@ public abstract class OIndexMVRBTreeAbstract<T> extends OSharedResourceAdaptiveE
     }
   }
 
-  public void onBeforeTxRollback(final ODatabase iDatabase) {
-  }
-
-  public boolean onCorruptionRepairDatabase(final ODatabase iDatabase, final String iReason, String iWhatWillbeFixed) {
-    if (iReason.equals("load"))
-      return true;
-    return false;
-  }
-
   public void onAfterTxRollback(final ODatabase iDatabase) {
 
     acquireExclusiveLock();
@@ -794,9 +302,6 @@ public abstract class OIndexMVRBTreeAbstract<T> extends OSharedResourceAdaptiveE
     }
   }
 
-  public void onBeforeTxCommit(final ODatabase iDatabase) {
-  }
-
   public void onAfterTxCommit(final ODatabase iDatabase) {
     acquireExclusiveLock();
     try {
@@ -842,68 +347,111 @@ public abstract class OIndexMVRBTreeAbstract<T> extends OSharedResourceAdaptiveE
     }
   }
 
-  protected void checkForKeyType(final Object iKey) {
-    if (indexDefinition == null) {
-      // RECOGNIZE THE KEY TYPE AT RUN-TIME
-
-      final OType type = OType.getTypeByClass(iKey.getClass());
-      if (type == null)
-        return;
-
-      indexDefinition = new OSimpleKeyIndexDefinition(type);
-
-      updateConfiguration();
+  /**
+   * Cursor that browses the tree lazily. The entries are read in batches of {@link #CURSOR_BATCH_SIZE} keys under the shared lock,
+   * that is released between batches. The next batch starts from the last key read, so changes made by other threads while browsing
+   * are visible only in the batches not read yet.
+   */
+  protected class OIndexMVRBTreeCursor implements OIndexCursor {
+    private final Object                   rangeFrom;
+    private final boolean                  fromInclusive;
+    private final Object                   rangeTo;
+    private final boolean                  toInclusive;
+    private final boolean                  ascending;
+    private final LinkedList<OIndexEntry> batch    = new LinkedList<OIndexEntry>();
+    private Object                         lastKey;
+    private boolean                        started  = false;
+    private boolean                        finished = false;
+
+    public OIndexMVRBTreeCursor(final Object iRangeFrom, final boolean iFromInclusive, final Object iRangeTo,
+        final boolean iToInclusive, final boolean iAscending) {
+      rangeFrom = iRangeFrom;
+      fromInclusive = iFromInclusive;
+      rangeTo = iRangeTo;
+      toInclusive = iToInclusive;
+      ascending = iAscending;
     }
-  }
 
-  protected ODatabaseRecord getDatabase() {
-    return ODatabaseRecordThreadLocal.INSTANCE.get();
-  }
-
-  public OType[] getKeyTypes() {
-    if (indexDefinition == null)
-      return null;
+    public boolean hasNext() {
+      while (batch.isEmpty() && !finished)
+        fetch();
+      return !batch.isEmpty();
+    }
 
-    return indexDefinition.getTypes();
-  }
+    public Entry<Object, OIdentifiable> next() {
+      if (!hasNext())
+        throw new NoSuchElementException();
+      return batch.removeFirst();
+    }
 
-  public OIndexDefinition getDefinition() {
-    return indexDefinition;
-  }
+    public void remove() {
+      throw new UnsupportedOperationException("remove");
+    }
 
-  public void freeze(boolean throwException) {
-    modificationLock.prohibitModifications(throwException);
-  }
+    @SuppressWarnings("unchecked")
+    private void fetch() {
+      acquireSharedLock();
+      try {
+        OMVRBTreeEntry<Object, T> entry;
+        if (!started) {
+          entry = seekFirst();
+          started = true;
+        } else
+          entry = ascending ? map.getHigherEntry(lastKey) : map.getLowerEntry(lastKey);
+
+        for (int keys = 0; entry != null && keys < CURSOR_BATCH_SIZE; ++keys) {
+          final Object key = entry.getKey();
+          if (!isInRange(key)) {
+            entry = null;
+            break;
+          }
 
-  public void release() {
-    modificationLock.allowModifications();
-  }
+          final T value = entry.getValue();
+          if (value instanceof Collection<?>) {
+            for (OIdentifiable identifiable : (Collection<OIdentifiable>) value)
+              batch.add(new OIndexEntry(key, identifiable));
+          } else if (value != null)
+            batch.add(new OIndexEntry(key, (OIdentifiable) value));
 
-  public void acquireModificationLock() {
-    modificationLock.requestModificationLock();
-  }
+          lastKey = key;
+          entry = ascending ? OMVRBTree.next(entry) : OMVRBTree.previous(entry);
+        }
 
-  public void releaseModificationLock() {
-    modificationLock.releaseModificationLock();
-  }
+        if (entry == null)
+          finished = true;
 
-  @Override
-  public boolean equals(final Object o) {
-    if (this == o)
-      return true;
-    if (o == null || getClass() != o.getClass())
-      return false;
+      } finally {
+        releaseSharedLock();
+      }
+    }
 
-    final OIndexMVRBTreeAbstract<?> that = (OIndexMVRBTreeAbstract<?>) o;
+    private OMVRBTreeEntry<Object, T> seekFirst() {
+      if (ascending) {
+        if (rangeFrom != null)
+          return fromInclusive ? map.getCeilingEntry(rangeFrom, PartialSearchMode.LOWEST_BOUNDARY) : map.getHigherEntry(rangeFrom);
+        return map.isEmpty() ? null : map.getCeilingEntry(map.firstKey(), PartialSearchMode.NONE);
+      }
 
-    if (!name.equals(that.name))
-      return false;
+      if (rangeTo != null)
+        return toInclusive ? map.getFloorEntry(rangeTo, PartialSearchMode.HIGHEST_BOUNDARY) : map.getLowerEntry(rangeTo);
+      return map.isEmpty() ? null : map.getFloorEntry(map.lastKey(), PartialSearchMode.NONE);
+    }
 
-    return true;
-  }
+    /**
+     * Checks the key against the end of the range, since the start has been already checked by the search.
+     */
+    private boolean isInRange(final Object iKey) {
+      if (ascending) {
+        if (rangeTo == null)
+          return true;
+        final int result = ODefaultComparator.INSTANCE.compare(iKey, rangeTo);
+        return result < 0 || (toInclusive && result == 0);
+      }
 
-  @Override
-  public int hashCode() {
-    return name.hashCode();
+      if (rangeFrom == null)
+        return true;
+      final int result = ODefaultComparator.INSTANCE.compare(iKey, rangeFrom);
+      return result > 0 || (fromInclusive && result == 0);
+    }
   }
 }
@@ -27,6 +27,7 @@ import com.orientechnologies.orient.core.metadata.schema.OClass;
 import com.orientechnologies.orient.core.metadata.schema.OType;
 import com.orientechnologies.orient.core.record.ORecordInternal;
 import com.orientechnologies.orient.core.record.impl.ODocument;
+import com.orientechnologies.orient.core.sql.OSQLStatementCache;
 import com.orientechnologies.orient.core.storage.OStorage;
 import com.orientechnologies.orient.core.type.ODocumentWrapper;
 import com.orientechnologies.orient.core.type.ODocumentWrapperNoClass;
@@ -97,6 +98,7 @@ public abstract class OIndexManagerAbstract extends ODocumentWrapperNoClass impl
       // RELOAD IT
       ((ORecordId) document.getIdentity()).fromString(getDatabase().getStorage().getConfiguration().indexMgrRecordId);
       super.reload("*:-1 index:0");
+      OSQLStatementCache.instance().invalidate();
       return this;
     } finally {
       releaseExclusiveLock();
@@ -107,7 +109,9 @@ public abstract class OIndexManagerAbstract extends ODocumentWrapperNoClass impl
   public <RET extends ODocumentWrapper> RET reload() {
     acquireExclusiveLock();
     try {
-      return (RET) super.reload();
+      final RET result = (RET) super.reload();
+      OSQLStatementCache.instance().invalidate();
+      return result;
     } finally {
       releaseExclusiveLock();
     }
@@ -117,7 +121,11 @@ public abstract class OIndexManagerAbstract extends ODocumentWrapperNoClass impl
   public <RET extends ODocumentWrapper> RET save() {
     acquireExclusiveLock();
     try {
-      return (RET) super.save();
+      final RET result = (RET) super.save();
+
+      // THE PARSED STATEMENTS COULD USE THE INDEXES CHANGED
+      OSQLStatementCache.instance().invalidate();
+      return result;
     } finally {
       releaseExclusiveLock();
     }
@@ -358,11 +366,11 @@ public abstract class OIndexManagerAbstract extends ODocumentWrapperNoClass impl
 
   protected OIndex<?> preProcessBeforeReturn(final OIndexInternal<?> index) {
     getDatabase().registerListener(index);
-    if (index instanceof OIndexMultiValues)
+    if (index instanceof OIndexMultiValues || index instanceof OIndexHashNotUnique)
       return new OIndexTxAwareMultiValue(getDatabase(), (OIndex<Collection<OIdentifiable>>) getIndexInstance(index));
     else if (index instanceof OIndexDictionary)
       return new OIndexTxAwareDictionary(getDatabase(), (OIndex<OIdentifiable>) getIndexInstance(index));
-    else if (index instanceof OIndexOneValue)
+    else if (index instanceof OIndexOneValue || index instanceof OIndexHashUnique)
       return new OIndexTxAwareOneValue(getDatabase(), (OIndex<OIdentifiable>) getIndexInstance(index));
     return index;
   }
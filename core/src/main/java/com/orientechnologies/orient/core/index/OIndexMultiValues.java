@@ -47,36 +47,16 @@ public abstract class OIndexMultiValues extends OIndexMVRBTreeAbstract<Set<OIden
   }
 
   public Set<OIdentifiable> get(final Object iKey) {
+    final Set<OIdentifiable> values = getValuesOfKey(iKey);
 
-    acquireExclusiveLock();
-    try {
-
-      final OMVRBTreeRIDSet values = (OMVRBTreeRIDSet) map.get(iKey);
-
-      if (values == null)
-        return Collections.emptySet();
-
-      return new HashSet<OIdentifiable>(values);
+    if (values.isEmpty())
+      return Collections.emptySet();
 
-    } finally {
-      releaseExclusiveLock();
-    }
+    return new HashSet<OIdentifiable>(values);
   }
 
   public long count(final Object iKey) {
-    acquireExclusiveLock();
-    try {
-
-      final OMVRBTreeRIDSet values = (OMVRBTreeRIDSet) map.get(iKey);
-
-      if (values == null)
-        return 0;
-
-      return values.size();
-
-    } finally {
-      releaseExclusiveLock();
-    }
+    return getValuesOfKey(iKey).size();
   }
 
   public OIndexMultiValues put(final Object iKey, final OIdentifiable iSingleValue) {
@@ -164,7 +144,7 @@ public abstract class OIndexMultiValues extends OIndexMVRBTreeAbstract<Set<OIden
 
   public int count(final OIdentifiable iRecord) {
 
-    acquireExclusiveLock();
+    acquireSharedLock();
     try {
 
       Set<OIdentifiable> rids;
@@ -181,7 +161,7 @@ public abstract class OIndexMultiValues extends OIndexMVRBTreeAbstract<Set<OIden
       return tot;
 
     } finally {
-      releaseExclusiveLock();
+      releaseSharedLock();
     }
   }
 
@@ -193,7 +173,7 @@ public abstract class OIndexMultiValues extends OIndexMVRBTreeAbstract<Set<OIden
 
   public Collection<OIdentifiable> getValuesBetween(final Object iRangeFrom, final boolean iFromInclusive, final Object iRangeTo,
       final boolean iToInclusive, final int maxValuesToFetch) {
-    acquireExclusiveLock();
+    acquireSharedLock();
 
     try {
       final OMVRBTreeEntry<Object, Set<OIdentifiable>> firstEntry;
@@ -244,12 +224,12 @@ public abstract class OIndexMultiValues extends OIndexMVRBTreeAbstract<Set<OIden
 
       return result;
     } finally {
-      releaseExclusiveLock();
+      releaseSharedLock();
     }
   }
 
   public Collection<OIdentifiable> getValuesMajor(final Object fromKey, final boolean isInclusive, final int maxValuesToFetch) {
-    acquireExclusiveLock();
+    acquireSharedLock();
 
     try {
       final OMVRBTreeEntry<Object, Set<OIdentifiable>> firstEntry;
@@ -283,12 +263,12 @@ public abstract class OIndexMultiValues extends OIndexMVRBTreeAbstract<Set<OIden
 
       return result;
     } finally {
-      releaseExclusiveLock();
+      releaseSharedLock();
     }
   }
 
   public Collection<OIdentifiable> getValuesMinor(final Object toKey, final boolean isInclusive, final int maxValuesToFetch) {
-    acquireExclusiveLock();
+    acquireSharedLock();
 
     try {
       final OMVRBTreeEntry<Object, Set<OIdentifiable>> lastEntry;
@@ -322,7 +302,7 @@ public abstract class OIndexMultiValues extends OIndexMVRBTreeAbstract<Set<OIden
 
       return result;
     } finally {
-      releaseExclusiveLock();
+      releaseSharedLock();
     }
   }
 
@@ -330,7 +310,7 @@ public abstract class OIndexMultiValues extends OIndexMVRBTreeAbstract<Set<OIden
     final List<Object> sortedKeys = new ArrayList<Object>(iKeys);
     Collections.sort(sortedKeys, ODefaultComparator.INSTANCE);
 
-    acquireExclusiveLock();
+    acquireSharedLock();
     try {
       final Set<OIdentifiable> result = new HashSet<OIdentifiable>();
 
@@ -352,12 +332,12 @@ public abstract class OIndexMultiValues extends OIndexMVRBTreeAbstract<Set<OIden
 
       return result;
     } finally {
-      releaseExclusiveLock();
+      releaseSharedLock();
     }
   }
 
   public Collection<ODocument> getEntriesMajor(final Object fromKey, final boolean isInclusive, final int maxEntriesToFetch) {
-    acquireExclusiveLock();
+    acquireSharedLock();
 
     try {
       final OMVRBTreeEntry<Object, Set<OIdentifiable>> firstEntry;
@@ -397,12 +377,12 @@ public abstract class OIndexMultiValues extends OIndexMVRBTreeAbstract<Set<OIden
 
       return result;
     } finally {
-      releaseExclusiveLock();
+      releaseSharedLock();
     }
   }
 
   public Collection<ODocument> getEntriesMinor(Object toKey, boolean isInclusive, int maxEntriesToFetch) {
-    acquireExclusiveLock();
+    acquireSharedLock();
 
     try {
       final OMVRBTreeEntry<Object, Set<OIdentifiable>> lastEntry;
@@ -443,7 +423,7 @@ public abstract class OIndexMultiValues extends OIndexMVRBTreeAbstract<Set<OIden
 
       return result;
     } finally {
-      releaseExclusiveLock();
+      releaseSharedLock();
     }
   }
 
@@ -455,7 +435,7 @@ public abstract class OIndexMultiValues extends OIndexMVRBTreeAbstract<Set<OIden
       iRangeTo = OType.convert(iRangeTo, types[0].getDefaultJavaType());
     }
 
-    acquireExclusiveLock();
+    acquireSharedLock();
 
     try {
       final OMVRBTreeEntry<Object, Set<OIdentifiable>> firstEntry;
@@ -513,7 +493,7 @@ public abstract class OIndexMultiValues extends OIndexMVRBTreeAbstract<Set<OIden
 
       return result;
     } finally {
-      releaseExclusiveLock();
+      releaseSharedLock();
     }
 
   }
@@ -522,7 +502,7 @@ public abstract class OIndexMultiValues extends OIndexMVRBTreeAbstract<Set<OIden
     final List<Object> sortedKeys = new ArrayList<Object>(iKeys);
     Collections.sort(sortedKeys, ODefaultComparator.INSTANCE);
 
-    acquireExclusiveLock();
+    acquireSharedLock();
     try {
       final Set<ODocument> result = new ODocumentFieldsHashSet();
 
@@ -549,7 +529,7 @@ public abstract class OIndexMultiValues extends OIndexMVRBTreeAbstract<Set<OIden
 
       return result;
     } finally {
-      releaseExclusiveLock();
+      releaseSharedLock();
     }
   }
 
@@ -557,7 +537,7 @@ public abstract class OIndexMultiValues extends OIndexMVRBTreeAbstract<Set<OIden
     if (map.size() == 0)
       return 0;
 
-    acquireExclusiveLock();
+    acquireSharedLock();
     try {
       OMVRBTreeEntry<Object, Set<OIdentifiable>> rootEntry = map.getRoot();
       long size = 0;
@@ -580,7 +560,7 @@ public abstract class OIndexMultiValues extends OIndexMVRBTreeAbstract<Set<OIden
 
       return size;
     } finally {
-      releaseExclusiveLock();
+      releaseSharedLock();
     }
   }
 
@@ -592,4 +572,32 @@ public abstract class OIndexMultiValues extends OIndexMVRBTreeAbstract<Set<OIden
       releaseSharedLock();
     }
   }
+
+  /**
+   * Returns a read-only copy of the values of the key, taking it from the cached lookups if any.
+   */
+  @SuppressWarnings("unchecked")
+  private Set<OIdentifiable> getValuesOfKey(final Object iKey) {
+    final Object cached = getCachedLookup(iKey);
+    if (cached != null)
+      return cached != LOOKUP_NOT_FOUND ? (Set<OIdentifiable>) cached : Collections.<OIdentifiable> emptySet();
+
+    acquireSharedLock();
+    try {
+
+      final OMVRBTreeRIDSet values = (OMVRBTreeRIDSet) map.get(iKey);
+
+      final Set<OIdentifiable> result;
+      if (values == null || values.isEmpty())
+        result = Collections.emptySet();
+      else
+        result = Collections.unmodifiableSet(new HashSet<OIdentifiable>(values));
+
+      cacheLookup(iKey, values != null ? result : null);
+      return result;
+
+    } finally {
+      releaseSharedLock();
+    }
+  }
 }
@@ -50,25 +50,24 @@ public abstract class OIndexOneValue extends OIndexMVRBTreeAbstract<OIdentifiabl
   }
 
   public OIdentifiable get(final Object iKey) {
-    acquireExclusiveLock();
+    final Object cached = getCachedLookup(iKey);
+    if (cached != null)
+      return cached != LOOKUP_NOT_FOUND ? (OIdentifiable) cached : null;
+
+    acquireSharedLock();
     try {
 
-      return map.get(iKey);
+      final OIdentifiable value = map.get(iKey);
+      cacheLookup(iKey, value);
+      return value;
 
     } finally {
-      releaseExclusiveLock();
+      releaseSharedLock();
     }
   }
 
   public long count(final Object iKey) {
-    acquireExclusiveLock();
-    try {
-
-      return map.containsKey(iKey) ? 1 : 0;
-
-    } finally {
-      releaseExclusiveLock();
-    }
+    return get(iKey) != null ? 1 : 0;
   }
 
   public int remove(final OIdentifiable iRecord) {
@@ -97,7 +96,7 @@ public abstract class OIndexOneValue extends OIndexMVRBTreeAbstract<OIdentifiabl
 
   public int count(final OIdentifiable iRecord) {
 
-    acquireExclusiveLock();
+    acquireSharedLock();
     try {
 
       int tot = 0;
@@ -109,7 +108,7 @@ public abstract class OIndexOneValue extends OIndexMVRBTreeAbstract<OIdentifiabl
       return tot;
 
     } finally {
-      releaseExclusiveLock();
+      releaseSharedLock();
     }
   }
 
@@ -148,7 +147,7 @@ public abstract class OIndexOneValue extends OIndexMVRBTreeAbstract<OIdentifiabl
     if (iRangeFrom.getClass() != iRangeTo.getClass())
       throw new IllegalArgumentException("Range from-to parameters are of different types");
 
-    acquireExclusiveLock();
+    acquireSharedLock();
 
     try {
       final OMVRBTreeEntry<Object, OIdentifiable> firstEntry;
@@ -191,12 +190,12 @@ public abstract class OIndexOneValue extends OIndexMVRBTreeAbstract<OIdentifiabl
 
       return result;
     } finally {
-      releaseExclusiveLock();
+      releaseSharedLock();
     }
   }
 
   public Collection<OIdentifiable> getValuesMajor(final Object fromKey, final boolean isInclusive, final int maxValuesToFetch) {
-    acquireExclusiveLock();
+    acquireSharedLock();
 
     try {
       final OMVRBTreeEntry<Object, OIdentifiable> firstEntry;
@@ -219,12 +218,12 @@ public abstract class OIndexOneValue extends OIndexMVRBTreeAbstract<OIdentifiabl
 
       return result;
     } finally {
-      releaseExclusiveLock();
+      releaseSharedLock();
     }
   }
 
   public Collection<OIdentifiable> getValuesMinor(final Object toKey, final boolean isInclusive, final int maxValuesToFetch) {
-    acquireExclusiveLock();
+    acquireSharedLock();
 
     try {
 
@@ -250,7 +249,7 @@ public abstract class OIndexOneValue extends OIndexMVRBTreeAbstract<OIdentifiabl
 
       return result;
     } finally {
-      releaseExclusiveLock();
+      releaseSharedLock();
     }
   }
 
@@ -258,7 +257,7 @@ public abstract class OIndexOneValue extends OIndexMVRBTreeAbstract<OIdentifiabl
     final List<Object> sortedKeys = new ArrayList<Object>(iKeys);
     Collections.sort(sortedKeys, ODefaultComparator.INSTANCE);
 
-    acquireExclusiveLock();
+    acquireSharedLock();
 
     final Set<OIdentifiable> result = new HashSet<OIdentifiable>();
     try {
@@ -274,12 +273,12 @@ public abstract class OIndexOneValue extends OIndexMVRBTreeAbstract<OIdentifiabl
 
       return result;
     } finally {
-      releaseExclusiveLock();
+      releaseSharedLock();
     }
   }
 
   public Collection<ODocument> getEntriesMajor(final Object fromKey, final boolean isInclusive, final int maxEntriesToFetch) {
-    acquireExclusiveLock();
+    acquireSharedLock();
 
     try {
       final OMVRBTreeEntry<Object, OIdentifiable> firstEntry;
@@ -308,13 +307,13 @@ public abstract class OIndexOneValue extends OIndexMVRBTreeAbstract<OIdentifiabl
 
       return result;
     } finally {
-      releaseExclusiveLock();
+      releaseSharedLock();
     }
 
   }
 
   public Collection<ODocument> getEntriesMinor(final Object toKey, final boolean isInclusive, final int maxEntriesToFetch) {
-    acquireExclusiveLock();
+    acquireSharedLock();
 
     try {
 
@@ -345,7 +344,7 @@ public abstract class OIndexOneValue extends OIndexMVRBTreeAbstract<OIdentifiabl
 
       return result;
     } finally {
-      releaseExclusiveLock();
+      releaseSharedLock();
     }
 
   }
@@ -355,7 +354,7 @@ public abstract class OIndexOneValue extends OIndexMVRBTreeAbstract<OIdentifiabl
     if (iRangeFrom.getClass() != iRangeTo.getClass())
       throw new IllegalArgumentException("Range from-to parameters are of different types");
 
-    acquireExclusiveLock();
+    acquireSharedLock();
 
     try {
       final OMVRBTreeEntry<Object, OIdentifiable> firstEntry;
@@ -404,7 +403,7 @@ public abstract class OIndexOneValue extends OIndexMVRBTreeAbstract<OIdentifiabl
 
       return result;
     } finally {
-      releaseExclusiveLock();
+      releaseSharedLock();
     }
 
   }
@@ -413,7 +412,7 @@ public abstract class OIndexOneValue extends OIndexMVRBTreeAbstract<OIdentifiabl
     final List<Object> sortedKeys = new ArrayList<Object>(iKeys);
     Collections.sort(sortedKeys, ODefaultComparator.INSTANCE);
 
-    acquireExclusiveLock();
+    acquireSharedLock();
 
     final Set<ODocument> result = new ODocumentFieldsHashSet();
     try {
@@ -434,7 +433,7 @@ public abstract class OIndexOneValue extends OIndexMVRBTreeAbstract<OIdentifiabl
 
       return result;
     } finally {
-      releaseExclusiveLock();
+      releaseSharedLock();
     }
 
   }
@@ -15,6 +15,7 @@
  */
 package com.orientechnologies.orient.core.index;
 
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.HashSet;
@@ -147,6 +148,32 @@ public abstract class OIndexRemote<T> implements OIndex<T> {
     return (Collection<ODocument>) getDatabase().command(cmd).execute(iRangeFrom, iRangeTo);
   }
 
+  /**
+   * Browses the entries returned by the server, since the remote protocol doesn't support cursors.
+   */
+  public OIndexCursor cursor(final Object iRangeFrom, final boolean iFromInclusive, final Object iRangeTo,
+      final boolean iToInclusive, final boolean iAscending) {
+    final StringBuilder query = new StringBuilder(QUERY_ENTRIES);
+    final List<Object> params = new ArrayList<Object>();
+
+    if (iRangeFrom != null) {
+      query.append(" where ");
+      query.append(iFromInclusive ? QUERY_GET_VALUES_BEETWEN_INCLUSIVE_FROM_CONDITION
+          : QUERY_GET_VALUES_BEETWEN_EXCLUSIVE_FROM_CONDITION);
+      params.add(iRangeFrom);
+    }
+
+    if (iRangeTo != null) {
+      query.append(iRangeFrom != null ? QUERY_GET_VALUES_AND_OPERATOR : " where ");
+      query.append(iToInclusive ? QUERY_GET_VALUES_BEETWEN_INCLUSIVE_TO_CONDITION : QUERY_GET_VALUES_BEETWEN_EXCLUSIVE_TO_CONDITION);
+      params.add(iRangeTo);
+    }
+
+    final OCommandRequest cmd = formatCommand(query.toString(), name);
+    final Collection<ODocument> entries = getDatabase().command(cmd).execute(params.toArray());
+    return new OIndexCursorCollection(entries, iAscending);
+  }
+
   public Collection<OIdentifiable> getValuesMajor(final Object fromKey, final boolean isInclusive) {
     final OCommandRequest cmd;
     if (isInclusive)
@@ -19,12 +19,15 @@ import java.util.Iterator;
 import java.util.List;
 import java.util.NoSuchElementException;
 
+import com.orientechnologies.orient.core.config.OGlobalConfiguration;
 import com.orientechnologies.orient.core.db.record.ODatabaseRecord;
 import com.orientechnologies.orient.core.db.record.ODatabaseRecordAbstract;
 import com.orientechnologies.orient.core.db.record.OIdentifiable;
 import com.orientechnologies.orient.core.db.record.ORecordOperation;
 import com.orientechnologies.orient.core.id.ORecordId;
 import com.orientechnologies.orient.core.record.ORecordInternal;
+import com.orientechnologies.orient.core.storage.ORawBuffer;
+import com.orientechnologies.orient.core.storage.OStorageEmbedded;
 
 /**
  * Iterator class to browse forward and backward the records of a cluster. Once browsed in a direction, the iterator cannot change
@@ -36,6 +39,8 @@ import com.orientechnologies.orient.core.record.ORecordInternal;
  *          Record Type
  */
 public abstract class OIdentifiableIterator<REC extends OIdentifiable> implements Iterator<REC>, Iterable<REC> {
+	private static final int								READ_AHEAD_MIN					= 8;
+
 	protected final ODatabaseRecord					database;
 	protected final ODatabaseRecordAbstract	lowLevelDatabase;
 
@@ -52,11 +57,21 @@ public abstract class OIdentifiableIterator<REC extends OIdentifiable> implement
 	protected List<ORecordOperation>				txEntries;
 	protected int														currentTxEntryPosition	= -1;
 
+	private int															readAheadMax;
+	private int															readAheadSize						= 0;
+	private ORawBuffer[]										readAhead;
+	private long														readAheadBegin;
+	private int															readAheadClusterId			= -1;
+	private long														readAheadNext						= -1;
+
 	public OIdentifiableIterator(final ODatabaseRecord iDatabase, final ODatabaseRecordAbstract iLowLevelDatabase) {
 		database = iDatabase;
 		lowLevelDatabase = iLowLevelDatabase;
 
 		current.clusterPosition = -1; // DEFAULT = START FROM THE BEGIN
+
+		readAheadMax = database.getStorage() instanceof OStorageEmbedded ? OGlobalConfiguration.STORAGE_CLUSTER_READ_AHEAD
+				.getValueAsInteger() : 0;
 	}
 
 	public abstract boolean hasPrevious();
@@ -215,15 +230,71 @@ public abstract class OIdentifiableIterator<REC extends OIdentifiable> implement
 
 		current.clusterPosition += iMovement;
 
-		if (iRecord != null) {
+		final ORawBuffer[] block = iMovement > 0 ? readAhead() : null;
+		final ORawBuffer content = block != null ? block[(int) (current.clusterPosition - readAheadBegin)] : null;
+
+		if (block != null && content == null && lowLevelDatabase.getTransaction().getRecord(current) == null
+				&& lowLevelDatabase.getLevel1Cache().findRecord(current) == null)
+			// DELETED: SKIP THE READ UNLESS THE TRANSACTION OR THE CACHE HAVE THE RECORD
+			iRecord = null;
+		else if (iRecord != null) {
 			iRecord.setIdentity(current);
-			iRecord = lowLevelDatabase.load(iRecord, fetchPlan);
+			iRecord = lowLevelDatabase.executeReadRecord((ORecordId) iRecord.getIdentity(), iRecord, fetchPlan, false, content);
 		} else
-			iRecord = lowLevelDatabase.load(current, fetchPlan);
+			iRecord = lowLevelDatabase.executeReadRecord(current, null, fetchPlan, false, content);
 
 		if (iRecord != null)
 			browsedRecords++;
 
 		return iRecord;
 	}
+
+	/**
+	 * Returns the block of records read ahead that contains the current position, or null to read the record alone. A block is read
+	 * only from the second consecutive position browsed forward and the next ones double in size up to the configured maximum, so
+	 * short browsings like the ones with a small limit don't read records they don't use.
+	 * 
+	 * @see OGlobalConfiguration#STORAGE_CLUSTER_READ_AHEAD
+	 */
+	private ORawBuffer[] readAhead() {
+		if (readAheadMax < 2 || liveUpdated)
+			return null;
+
+		final int clusterId = current.clusterId;
+		final long position = current.clusterPosition;
+
+		final boolean sequential = readAheadClusterId == clusterId && position == readAheadNext;
+		readAheadClusterId = clusterId;
+		readAheadNext = position + 1;
+
+		if (readAhead != null && sequential && position >= readAheadBegin && position < readAheadBegin + readAhead.length)
+			return readAhead;
+
+		readAhead = null;
+		if (!sequential) {
+			// RESTART FROM THE SMALLEST BLOCK
+			readAheadSize = 0;
+			return null;
+		}
+
+		readAheadSize = readAheadSize == 0 ? Math.min(READ_AHEAD_MIN, readAheadMax) : Math.min(readAheadSize * 2, readAheadMax);
+
+		long size = readAheadSize;
+		if (limit > -1)
+			size = Math.min(size, limit - browsedRecords);
+		if (lastClusterPosition > -1)
+			size = Math.min(size, lastClusterPosition - position + 1);
+		if (size < 2)
+			return null;
+
+		readAhead = ((OStorageEmbedded) database.getStorage()).readRecords(clusterId, position, position + size - 1);
+		if (readAhead == null) {
+			// NOT SUPPORTED BY THE STORAGE
+			readAheadMax = 0;
+			return null;
+		}
+
+		readAheadBegin = position;
+		return readAhead;
+	}
 }
@@ -54,6 +54,18 @@ public class ORecordIteratorClusters<REC extends ORecordInternal<?>> extends OId
     super(iDatabase, iLowLevelDatabase);
   }
 
+  public int[] getClusterIds() {
+    return clusterIds;
+  }
+
+  public ORID getBeginRange() {
+    return beginRange;
+  }
+
+  public ORID getEndRange() {
+    return endRange;
+  }
+
   public ORecordIteratorClusters<REC> setRange(final ORID iBegin, final ORID iEnd) {
     beginRange = iBegin;
     endRange = iEnd;
@@ -40,6 +40,7 @@ import com.orientechnologies.orient.core.metadata.security.ODatabaseSecurityReso
 import com.orientechnologies.orient.core.metadata.security.ORole;
 import com.orientechnologies.orient.core.record.impl.ODocument;
 import com.orientechnologies.orient.core.sql.OCommandSQL;
+import com.orientechnologies.orient.core.sql.OSQLStatementCache;
 import com.orientechnologies.orient.core.storage.OStorage;
 import com.orientechnologies.orient.core.storage.OStorage.CLUSTER_TYPE;
 import com.orientechnologies.orient.core.type.ODocumentWrapper;
@@ -387,6 +388,7 @@ public class OSchemaShared extends ODocumentWrapperNoClass implements OSchema, O
         lock.acquireExclusiveLock();
         try {
           reload(null);
+          OSQLStatementCache.instance().invalidate();
         } finally {
           lock.releaseExclusiveLock();
         }
@@ -547,6 +549,7 @@ public class OSchemaShared extends ODocumentWrapperNoClass implements OSchema, O
       getDatabase();
       ((ORecordId) document.getIdentity()).fromString(getDatabase().getStorage().getConfiguration().schemaRecordId);
       super.reload("*:-1 index:0");
+      OSQLStatementCache.instance().invalidate();
       return this;
 
     } finally {
@@ -573,6 +576,9 @@ public class OSchemaShared extends ODocumentWrapperNoClass implements OSchema, O
       document.setDirty();
       super.save();
 
+      // THE PARSED STATEMENTS REFER TO THE OLD DEFINITION OF THE CLASSES
+      OSQLStatementCache.instance().invalidate();
+
     } finally {
       lock.releaseExclusiveLock();
     }
@@ -45,6 +45,7 @@ import com.orientechnologies.orient.core.db.record.OTrackedList;
 import com.orientechnologies.orient.core.db.record.OTrackedMap;
 import com.orientechnologies.orient.core.db.record.OTrackedMultiValue;
 import com.orientechnologies.orient.core.db.record.OTrackedSet;
+import com.orientechnologies.orient.core.config.OGlobalConfiguration;
 import com.orientechnologies.orient.core.exception.OConfigurationException;
 import com.orientechnologies.orient.core.exception.ORecordNotFoundException;
 import com.orientechnologies.orient.core.id.ORID;
@@ -60,6 +61,7 @@ import com.orientechnologies.orient.core.record.ORecordSchemaAwareAbstract;
 import com.orientechnologies.orient.core.serialization.OBinaryProtocol;
 import com.orientechnologies.orient.core.serialization.serializer.OStringSerializerHelper;
 import com.orientechnologies.orient.core.serialization.serializer.record.ORecordSerializerFactory;
+import com.orientechnologies.orient.core.serialization.serializer.record.string.ORecordSerializerDocument2Binary;
 import com.orientechnologies.orient.core.serialization.serializer.record.string.ORecordSerializerSchemaAware2CSV;
 
 /**
@@ -490,6 +492,16 @@ public class ODocument extends ORecordSchemaAwareAbstract<Object> implements Ite
       return null;
 
     checkForLoading();
+
+    if ((_fieldValues == null || _fieldValues.size() == 0) && _status == ORecordElement.STATUS.LOADED
+        && ORecordSerializerDocument2Binary.isBinary(_source) && iFieldName.charAt(0) != '@'
+        && OStringSerializerHelper.indexOf(iFieldName, 0, '.', '[') == -1) {
+      // BINARY RECORD NOT YET UNMARSHALLED: TRY TO READ THE SINGLE FIELD
+      final Object value = ORecordSerializerDocument2Binary.readField(_source, iFieldName);
+      if (value != ORecordSerializerDocument2Binary.NOT_SIMPLE)
+        return (RET) value;
+    }
+
     checkForFields();
 
     if (_fieldValues.size() == 0)
@@ -1207,7 +1219,9 @@ public class ODocument extends ORecordSchemaAwareAbstract<Object> implements Ite
   @Override
   protected void setup() {
     super.setup();
-    _recordFormat = ORecordSerializerFactory.instance().getFormat(ORecordSerializerSchemaAware2CSV.NAME);
+    _recordFormat = ORecordSerializerFactory.instance().getFormat(OGlobalConfiguration.DB_DOCUMENT_SERIALIZER.getValueAsString());
+    if (_recordFormat == null)
+      _recordFormat = ORecordSerializerFactory.instance().getFormat(ORecordSerializerSchemaAware2CSV.NAME);
   }
 
   /**
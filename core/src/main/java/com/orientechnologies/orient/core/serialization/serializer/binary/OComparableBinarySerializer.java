@@ -0,0 +1,44 @@
+/*
+ * Copyright 2010-2012 Luca Garulli (l.garulli--at--orientechnologies.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.orientechnologies.orient.core.serialization.serializer.binary;
+
+/**
+ * Binary serializer able to compare its serialized presentation with a key object without deserializing it. Used by the index
+ * nodes to run the binary search directly against the node buffer, so keys are materialized only when they are returned.
+ * 
+ */
+public interface OComparableBinarySerializer<T> extends OBinarySerializer<T> {
+	/**
+	 * Value returned by {@link #compareInStream(byte[], int, Object)} when the key cannot be compared in place, for example because
+	 * it is of a different type. Callers must fall back to deserialize the object and compare it.
+	 */
+	int	NOT_COMPARABLE	= Integer.MIN_VALUE;
+
+	/**
+	 * Compares the object serialized at the given position with the key.
+	 * 
+	 * @param stream
+	 *          Serialized content.
+	 * @param startPosition
+	 *          Position from which serialized presentation of the object is stored.
+	 * @param key
+	 *          Key to compare with.
+	 * @return A result with the same sign of <code>deserialize(stream, startPosition).compareTo(key)</code>, or
+	 *         {@link #NOT_COMPARABLE} if the comparison cannot be done in place.
+	 */
+	int compareInStream(byte[] stream, int startPosition, Object key);
+}
@@ -19,7 +19,7 @@ package com.orientechnologies.orient.core.serialization.serializer.binary.impl;
 import java.util.Calendar;
 import java.util.Date;
 
-import com.orientechnologies.orient.core.serialization.serializer.binary.OBinarySerializer;
+import com.orientechnologies.orient.core.serialization.serializer.binary.OComparableBinarySerializer;
 
 /**
  * Serializer for  {@link com.orientechnologies.orient.core.metadata.schema.OType#DATE} .
@@ -27,7 +27,7 @@ import com.orientechnologies.orient.core.serialization.serializer.binary.OBinary
  * @author ibershadskiy <a href="mailto:ibersh20@gmail.com">Ilya Bershadskiy</a>
  * @since 20.01.12
  */
-public class ODateSerializer implements OBinarySerializer<Date> {
+public class ODateSerializer implements OComparableBinarySerializer<Date> {
 
 	public static ODateSerializer INSTANCE = new ODateSerializer();
 	public static final byte ID = 4;
@@ -56,6 +56,15 @@ public class ODateSerializer implements OBinarySerializer<Date> {
 		return OLongSerializer.LONG_SIZE;
 	}
 
+	public int compareInStream(final byte[] stream, final int startPosition, final Object key) {
+		if (!(key instanceof Date))
+			return NOT_COMPARABLE;
+
+		final long value = OLongSerializer.INSTANCE.deserialize(stream, startPosition);
+		final long other = ((Date) key).getTime();
+		return value < other ? -1 : (value == other ? 0 : 1);
+	}
+
 	public byte getId() {
 		return ID;
 	}
@@ -16,7 +16,7 @@
 
 package com.orientechnologies.orient.core.serialization.serializer.binary.impl;
 
-import com.orientechnologies.orient.core.serialization.serializer.binary.OBinarySerializer;
+import com.orientechnologies.orient.core.serialization.serializer.binary.OComparableBinarySerializer;
 
 import static com.orientechnologies.orient.core.serialization.OBinaryProtocol.bytes2int;
 import static com.orientechnologies.orient.core.serialization.OBinaryProtocol.int2bytes;
@@ -27,7 +27,7 @@ import static com.orientechnologies.orient.core.serialization.OBinaryProtocol.in
  * @author ibershadskiy <a href="mailto:ibersh20@gmail.com">Ilya Bershadskiy</a>
  * @since 17.01.12
  */
-public class OIntegerSerializer implements OBinarySerializer<Integer> {
+public class OIntegerSerializer implements OComparableBinarySerializer<Integer> {
 	public static  OIntegerSerializer INSTANCE = new  OIntegerSerializer();
 	public static final byte ID = 8;
 
@@ -52,6 +52,15 @@ public class OIntegerSerializer implements OBinarySerializer<Integer> {
 		return INT_SIZE;
 	}
 
+	public int compareInStream(final byte[] stream, final int startPosition, final Object key) {
+		if (!(key instanceof Integer))
+			return NOT_COMPARABLE;
+
+		final int value = bytes2int(stream, startPosition);
+		final int other = (Integer) key;
+		return value < other ? -1 : (value == other ? 0 : 1);
+	}
+
 	public byte getId() {
 		return ID;
 	}
@@ -24,7 +24,7 @@ import static com.orientechnologies.orient.core.serialization.OBinaryProtocol.sh
 import com.orientechnologies.orient.core.db.record.OIdentifiable;
 import com.orientechnologies.orient.core.id.ORID;
 import com.orientechnologies.orient.core.id.ORecordId;
-import com.orientechnologies.orient.core.serialization.serializer.binary.OBinarySerializer;
+import com.orientechnologies.orient.core.serialization.serializer.binary.OComparableBinarySerializer;
 
 /**
  * Serializer for {@link com.orientechnologies.orient.core.metadata.schema.OType#LINK}
@@ -32,7 +32,7 @@ import com.orientechnologies.orient.core.serialization.serializer.binary.OBinary
  * @author ibershadskiy <a href="mailto:ibersh20@gmail.com">Ilya Bershadskiy</a>
  * @since 07.02.12
  */
-public class OLinkSerializer implements OBinarySerializer<OIdentifiable> {
+public class OLinkSerializer implements OComparableBinarySerializer<OIdentifiable> {
 
 	public static OLinkSerializer	INSTANCE	= new OLinkSerializer();
 	public static final byte			ID				= 9;
@@ -55,6 +55,19 @@ public class OLinkSerializer implements OBinarySerializer<OIdentifiable> {
 		return OShortSerializer.SHORT_SIZE + OLongSerializer.LONG_SIZE;
 	}
 
+	public int compareInStream(final byte[] stream, final int startPosition, final Object key) {
+		if (!(key instanceof OIdentifiable))
+			return NOT_COMPARABLE;
+
+		final ORID other = ((OIdentifiable) key).getIdentity();
+		final int clusterId = bytes2short(stream, startPosition);
+		if (clusterId != other.getClusterId())
+			return clusterId > other.getClusterId() ? 1 : -1;
+
+		final long clusterPosition = bytes2long(stream, startPosition + OShortSerializer.SHORT_SIZE);
+		return clusterPosition < other.getClusterPosition() ? -1 : (clusterPosition == other.getClusterPosition() ? 0 : 1);
+	}
+
 	public byte getId() {
 		return ID;
 	}
@@ -16,7 +16,7 @@
 
 package com.orientechnologies.orient.core.serialization.serializer.binary.impl;
 
-import com.orientechnologies.orient.core.serialization.serializer.binary.OBinarySerializer;
+import com.orientechnologies.orient.core.serialization.serializer.binary.OComparableBinarySerializer;
 
 import static com.orientechnologies.orient.core.serialization.OBinaryProtocol.bytes2long;
 import static com.orientechnologies.orient.core.serialization.OBinaryProtocol.long2bytes;
@@ -27,7 +27,7 @@ import static com.orientechnologies.orient.core.serialization.OBinaryProtocol.lo
  * @author ibershadskiy <a href="mailto:ibersh20@gmail.com">Ilya Bershadskiy</a>
  * @since 18.01.12
  */
-public class OLongSerializer implements OBinarySerializer<Long> {
+public class OLongSerializer implements OComparableBinarySerializer<Long> {
 
 	public static OLongSerializer INSTANCE = new  OLongSerializer();
 	public static final byte ID = 10;
@@ -53,6 +53,15 @@ public class OLongSerializer implements OBinarySerializer<Long> {
 		return LONG_SIZE;
 	}
 
+	public int compareInStream(final byte[] stream, final int startPosition, final Object key) {
+		if (!(key instanceof Long))
+			return NOT_COMPARABLE;
+
+		final long value = bytes2long(stream, startPosition);
+		final long other = (Long) key;
+		return value < other ? -1 : (value == other ? 0 : 1);
+	}
+
 	public byte getId() {
 		return ID;
 	}
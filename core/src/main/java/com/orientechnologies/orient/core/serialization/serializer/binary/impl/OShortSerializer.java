@@ -16,7 +16,7 @@
 
 package com.orientechnologies.orient.core.serialization.serializer.binary.impl;
 
-import com.orientechnologies.orient.core.serialization.serializer.binary.OBinarySerializer;
+import com.orientechnologies.orient.core.serialization.serializer.binary.OComparableBinarySerializer;
 
 import static com.orientechnologies.orient.core.serialization.OBinaryProtocol.bytes2short;
 import static com.orientechnologies.orient.core.serialization.OBinaryProtocol.short2bytes;
@@ -27,7 +27,7 @@ import static com.orientechnologies.orient.core.serialization.OBinaryProtocol.sh
  * @author ibershadskiy <a href="mailto:ibersh20@gmail.com">Ilya Bershadskiy</a>
  * @since 18.01.12
  */
-public class OShortSerializer implements OBinarySerializer<Short> {
+public class OShortSerializer implements OComparableBinarySerializer<Short> {
 
 	public static OShortSerializer INSTANCE = new  OShortSerializer();
 	public static final byte ID = 12;
@@ -53,6 +53,15 @@ public class OShortSerializer implements OBinarySerializer<Short> {
 		return SHORT_SIZE;
 	}
 
+	public int compareInStream(final byte[] stream, final int startPosition, final Object key) {
+		if (!(key instanceof Short))
+			return NOT_COMPARABLE;
+
+		final short value = bytes2short(stream, startPosition);
+		final short other = (Short) key;
+		return value < other ? -1 : (value == other ? 0 : 1);
+	}
+
 	public byte getId() {
 		return ID;
 	}
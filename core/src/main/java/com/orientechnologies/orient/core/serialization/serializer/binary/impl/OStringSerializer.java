@@ -16,7 +16,7 @@
 
 package com.orientechnologies.orient.core.serialization.serializer.binary.impl;
 
-import com.orientechnologies.orient.core.serialization.serializer.binary.OBinarySerializer;
+import com.orientechnologies.orient.core.serialization.serializer.binary.OComparableBinarySerializer;
 
 import static com.orientechnologies.orient.core.serialization.OBinaryProtocol.bytes2int;
 import static com.orientechnologies.orient.core.serialization.OBinaryProtocol.int2bytes;
@@ -27,7 +27,7 @@ import static com.orientechnologies.orient.core.serialization.OBinaryProtocol.in
  * @author ibershadskiy <a href="mailto:ibersh20@gmail.com">Ilya Bershadskiy</a>
  * @since 18.01.12
  */
-public class OStringSerializer implements OBinarySerializer<String> {
+public class OStringSerializer implements OComparableBinarySerializer<String> {
 
 	public static OStringSerializer INSTANCE = new  OStringSerializer();
 	public static final byte ID = 13;
@@ -59,6 +59,27 @@ public class OStringSerializer implements OBinarySerializer<String> {
 		return bytes2int(stream, startPosition) * 2 + OIntegerSerializer.INT_SIZE;
 	}
 
+	public int compareInStream(final byte[] stream, final int startPosition, final Object key) {
+		if (!(key instanceof String))
+			return NOT_COMPARABLE;
+
+		final String other = (String) key;
+		final int len = bytes2int(stream, startPosition);
+		final int otherLen = other.length();
+		final int min = Math.min(len, otherLen);
+
+		int offset = startPosition + OIntegerSerializer.INT_SIZE;
+		for (int i = 0; i < min; i++) {
+			// CHARS ARE STORED BIG-ENDIAN: COMPARE THEM WITHOUT BUILDING THE STRING
+			final char c = (char) (((stream[offset] & 0xFF) << 8) + (stream[offset + 1] & 0xFF));
+			final char o = other.charAt(i);
+			if (c != o)
+				return c - o;
+			offset += OCharSerializer.CHAR_SIZE;
+		}
+		return len - otherLen;
+	}
+
 	public byte getId() {
 		return ID;
 	}
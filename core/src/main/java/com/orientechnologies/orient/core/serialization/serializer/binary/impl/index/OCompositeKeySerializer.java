@@ -17,14 +17,18 @@
 package com.orientechnologies.orient.core.serialization.serializer.binary.impl.index;
 
 import java.io.IOException;
+import java.util.Iterator;
 import java.util.List;
 
+import com.orientechnologies.common.collection.OAlwaysGreaterKey;
+import com.orientechnologies.common.collection.OAlwaysLessKey;
 import com.orientechnologies.common.collection.OCompositeKey;
 import com.orientechnologies.orient.core.metadata.schema.OType;
 import com.orientechnologies.orient.core.serialization.OBinaryProtocol;
 import com.orientechnologies.orient.core.serialization.OMemoryInputStream;
 import com.orientechnologies.orient.core.serialization.serializer.binary.OBinarySerializer;
 import com.orientechnologies.orient.core.serialization.serializer.binary.OBinarySerializerFactory;
+import com.orientechnologies.orient.core.serialization.serializer.binary.OComparableBinarySerializer;
 import com.orientechnologies.orient.core.serialization.serializer.binary.impl.OIntegerSerializer;
 import com.orientechnologies.orient.core.serialization.serializer.record.string.ORecordSerializerStringAbstract;
 import com.orientechnologies.orient.core.serialization.serializer.stream.OStreamSerializer;
@@ -35,7 +39,7 @@ import com.orientechnologies.orient.core.serialization.serializer.stream.OStream
  * @author Andrey Lomakin
  * @since 29.07.11
  */
-public class OCompositeKeySerializer implements OBinarySerializer<OCompositeKey>, OStreamSerializer {
+public class OCompositeKeySerializer implements OComparableBinarySerializer<OCompositeKey>, OStreamSerializer {
 
   public static final String                  NAME     = "cks";
 
@@ -116,6 +120,46 @@ public class OCompositeKeySerializer implements OBinarySerializer<OCompositeKey>
     return OIntegerSerializer.INSTANCE.deserialize(stream, startPosition);
   }
 
+  /**
+   * Compares the serialized composite key with the given one following the {@link OCompositeKey#compareTo(OCompositeKey)} rules,
+   * item by item and only as far as the shorter key goes.
+   */
+  public int compareInStream(final byte[] stream, int startPosition, final Object key) {
+    if (!(key instanceof OCompositeKey))
+      return NOT_COMPARABLE;
+
+    startPosition += OIntegerSerializer.INT_SIZE;
+
+    final int keysSize = OIntegerSerializer.INSTANCE.deserialize(stream, startPosition);
+    startPosition += OIntegerSerializer.INT_SIZE;
+
+    final OBinarySerializerFactory factory = OBinarySerializerFactory.INSTANCE;
+    final Iterator<Object> outIter = ((OCompositeKey) key).getKeys().iterator();
+    for (int i = 0; i < keysSize && outIter.hasNext(); i++) {
+      final Object outKey = outIter.next();
+
+      if (outKey instanceof OAlwaysGreaterKey)
+        return -1;
+
+      if (outKey instanceof OAlwaysLessKey)
+        return 1;
+
+      final OBinarySerializer<?> binarySerializer = factory.getObjectSerializer(stream[startPosition]);
+      startPosition += OBinarySerializerFactory.TYPE_IDENTIFIER_SIZE;
+
+      if (!(binarySerializer instanceof OComparableBinarySerializer))
+        return NOT_COMPARABLE;
+
+      final int result = ((OComparableBinarySerializer<?>) binarySerializer).compareInStream(stream, startPosition, outKey);
+      if (result != 0)
+        return result;
+
+      startPosition += binarySerializer.getObjectSize(stream, startPosition);
+    }
+
+    return 0;
+  }
+
   public byte getId() {
     return ID;
   }
@@ -19,6 +19,7 @@ package com.orientechnologies.orient.core.serialization.serializer.binary.impl.i
 import com.orientechnologies.orient.core.metadata.schema.OType;
 import com.orientechnologies.orient.core.serialization.serializer.binary.OBinarySerializer;
 import com.orientechnologies.orient.core.serialization.serializer.binary.OBinarySerializerFactory;
+import com.orientechnologies.orient.core.serialization.serializer.binary.OComparableBinarySerializer;
 
 /**
  * Serializer that is used for serialization of non {@link com.orientechnologies.common.collection.OCompositeKey} keys in index.
@@ -27,7 +28,7 @@ import com.orientechnologies.orient.core.serialization.serializer.binary.OBinary
  * @since 31.03.12
  */
 @SuppressWarnings({ "rawtypes", "unchecked" })
-public class OSimpleKeySerializer<T extends Comparable<?>> implements OBinarySerializer<T> {
+public class OSimpleKeySerializer<T extends Comparable<?>> implements OComparableBinarySerializer<T> {
 
   private OType              type;
   private OBinarySerializer  binarySerializer;
@@ -71,6 +72,16 @@ public class OSimpleKeySerializer<T extends Comparable<?>> implements OBinarySer
         + binarySerializer.getObjectSize(stream, startPosition + OBinarySerializerFactory.TYPE_IDENTIFIER_SIZE);
   }
 
+  public int compareInStream(final byte[] stream, final int startPosition, final Object key) {
+    final byte serializerId = stream[startPosition];
+    init(serializerId);
+    if (!(binarySerializer instanceof OComparableBinarySerializer))
+      return NOT_COMPARABLE;
+
+    return ((OComparableBinarySerializer<?>) binarySerializer).compareInStream(stream, startPosition
+        + OBinarySerializerFactory.TYPE_IDENTIFIER_SIZE, key);
+  }
+
   public byte getId() {
     return ID;
   }
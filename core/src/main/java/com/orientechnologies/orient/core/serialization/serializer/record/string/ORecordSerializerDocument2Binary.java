@@ -15,250 +15,389 @@
  */
 package com.orientechnologies.orient.core.serialization.serializer.record.string;
 
-import java.io.ByteArrayInputStream;
-import java.io.ByteArrayOutputStream;
-import java.io.DataInputStream;
-import java.io.DataOutputStream;
-import java.io.IOException;
+import java.math.BigDecimal;
+import java.util.Calendar;
 import java.util.Date;
+import java.util.Set;
 
 import com.orientechnologies.common.log.OLogManager;
-import com.orientechnologies.orient.core.db.record.ODatabaseRecord;
-import com.orientechnologies.orient.core.exception.ODatabaseException;
-import com.orientechnologies.orient.core.id.ORID;
-import com.orientechnologies.orient.core.id.ORecordId;
+import com.orientechnologies.common.profiler.OProfiler;
+import com.orientechnologies.orient.core.db.ODatabaseRecordThreadLocal;
+import com.orientechnologies.orient.core.db.OUserObject2RecordHandler;
+import com.orientechnologies.orient.core.exception.OSerializationException;
 import com.orientechnologies.orient.core.metadata.schema.OProperty;
-import com.orientechnologies.orient.core.record.ORecord;
+import com.orientechnologies.orient.core.metadata.schema.OType;
 import com.orientechnologies.orient.core.record.ORecordInternal;
-import com.orientechnologies.orient.core.record.ORecordSchemaAware;
 import com.orientechnologies.orient.core.record.impl.ODocument;
+import com.orientechnologies.orient.core.serialization.OBinaryProtocol;
+import com.orientechnologies.orient.core.serialization.OMemoryStream;
 import com.orientechnologies.orient.core.serialization.serializer.record.ORecordSerializer;
+import com.orientechnologies.orient.core.serialization.serializer.record.OSerializationThreadLocal;
+import com.orientechnologies.orient.core.serialization.serializer.record.string.ORecordSerializerSchemaAware2CSV.OFieldTypeInfo;
 
+/**
+ * Serializes documents in binary format. The record starts with a header containing the class name and, for every field, its
+ * name, type and the offset of its value. This allows to read a single field without unmarshalling the whole record (see
+ * {@link #readField(byte[], String)}). Values of simple types are written in binary form, while links, collections, maps and
+ * embedded records are written in the CSV format of {@link ORecordSerializerSchemaAware2CSV}.<br/>
+ * <br/>
+ * Binary records start with the byte {@link #MAGIC} that can't be the first byte of a CSV record. Records in CSV format are
+ * unmarshalled by the CSV serializer and vice versa, so both formats can be mixed in the same database.
+ *
+ * @author Luca Garulli (l.garulli--at--orientechnologies.com)
+ *
+ */
 public class ORecordSerializerDocument2Binary implements ORecordSerializer {
-	public static final String	NAME	= "ORecordDocument2binary";
-
-	protected ORecordSchemaAware<?> newObject(ODatabaseRecord iDatabase, String iClassName) throws InstantiationException,
-			IllegalAccessException {
-		return new ODocument();
-	}
-
-	public ORecordInternal<?> fromStream(ODatabaseRecord iDatabase, byte[] iSource) {
-		// TODO: HANDLE FACTORIES
-		return fromStream(iSource, null);
-	}
-
-	public ORecordInternal<?> fromStream(byte[] iSource, ORecordInternal<?> iRecord) {
-		ODocument record = (ODocument) iRecord;
-		if (iRecord == null)
-			record = new ODocument();
-
-		ByteArrayInputStream stream = null;
-		DataInputStream in = null;
-
-		try {
-			stream = new ByteArrayInputStream(iSource);
-			in = new DataInputStream(stream);
-
-			// UNMARSHALL ALL THE PROPERTIES
-			Object value;
-			int length;
-			byte[] buffer;
-			for (OProperty p : record.getSchemaClass().properties()) {
-				value = null;
-
-				switch (p.getType()) {
-				case BINARY:
-					length = in.readInt();
-					if (length >= 0) {
-						// != NULL
-						buffer = new byte[length];
-						in.readFully(buffer);
-						value = buffer;
-					}
-					break;
-				case BOOLEAN:
-					value = in.readBoolean();
-					break;
-				case DATE:
-				case DATETIME:
-					long date = in.readLong();
-					if (date > -1)
-						value = new Date(date);
-					break;
-				case DOUBLE:
-					value = in.readDouble();
-					break;
-				case EMBEDDED:
-					length = in.readInt();
-					if (length >= 0) {
-						// != NULL
-						buffer = new byte[length];
-						in.readFully(buffer);
-						value = new ODocument(p.getLinkedClass().getName()).fromStream(buffer);
-					}
-					break;
-				case EMBEDDEDLIST:
-					break;
-				case EMBEDDEDSET:
-					break;
-				case FLOAT:
-					value = in.readFloat();
-					break;
-				case INTEGER:
-					value = in.readInt();
-					break;
-				case LINK:
-					value = new ORecordId(in.readInt(), in.readInt());
-					break;
-				case LINKLIST:
-					break;
-				case LINKSET:
-					break;
-				case LONG:
-					value = in.readLong();
-					break;
-				case SHORT:
-					value = in.readShort();
-					break;
-				case STRING:
-					value = in.readUTF();
-					break;
-				}
-				record.field(p.getName(), value);
-			}
-		} catch (Exception e) {
-			OLogManager.instance().error(this, "Error on unmarshalling object in binary format: " + record.getIdentity(), e);
-
-		} finally {
-			try {
-				if (stream != null)
-					stream.close();
-
-				if (in != null)
-					in.close();
-			} catch (IOException e) {
-			}
-		}
-
-		return iRecord;
-	}
-
-	public byte[] toStream(final ORecordInternal<?> iRecord, boolean iOnlyDelta) {
-		ODocument record = (ODocument) iRecord;
-
-		ByteArrayOutputStream stream = null;
-		DataOutputStream out = null;
-
-		try {
-			stream = new ByteArrayOutputStream();
-			out = new DataOutputStream(stream);
-
-			// MARSHALL ALL THE PROPERTIES
-			Object value;
-			byte[] buffer;
-			for (OProperty p : record.getSchemaClass().properties()) {
-				value = record.field(p.getName());
-
-				switch (p.getType()) {
-				case BINARY:
-					if (value == null)
-						// NULL: WRITE -1 AS LENGTH
-						out.writeInt(-1);
-					else {
-						buffer = (byte[]) value;
-						out.writeInt(buffer.length);
-						out.write(buffer);
-					}
-					break;
-				case BOOLEAN:
-					out.writeBoolean(value != null);
-					if (value != null)
-						out.writeBoolean((Boolean) value);
-					break;
-				case DATE:
-				case DATETIME:
-					out.writeLong(value != null ? ((Date) value).getTime() : -1);
-					break;
-				case DOUBLE:
-					out.writeBoolean(value != null);
-					if (value != null)
-						out.writeDouble((Double) value);
-					break;
-				case EMBEDDED:
-					if (value == null)
-						// NULL: WRITE -1 AS LENGTH
-						out.writeInt(-1);
-					else {
-						buffer = ((ORecordInternal<?>) value).toStream();
-						out.writeInt(buffer.length);
-						out.write(buffer);
-					}
-					break;
-				case EMBEDDEDLIST:
-					break;
-				case EMBEDDEDSET:
-					break;
-				case FLOAT:
-					out.writeBoolean(value != null);
-					if (value != null)
-						out.writeFloat((Float) value);
-					break;
-				case INTEGER:
-					out.writeBoolean(value != null);
-					if (value != null)
-						out.writeInt((Integer) value);
-					break;
-				case LINK:
-					out.writeBoolean(value != null);
-					if (value != null) {
-						if (!(value instanceof ORecord<?>))
-							throw new ODatabaseException("Invalid property value in '" + p.getName() + "': found " + value.getClass()
-									+ " while it was expected a ORecord");
-
-						ORID rid = ((ORecord<?>) value).getIdentity();
-						out.writeInt(rid.getClusterId());
-						out.writeLong(rid.getClusterPosition());
-					}
-					break;
-				case LINKLIST:
-					break;
-				case LINKSET:
-					break;
-				case LONG:
-					out.writeBoolean(value != null);
-					if (value != null)
-						out.writeLong((Long) value);
-					break;
-				case SHORT:
-					out.writeBoolean(value != null);
-					if (value != null)
-						out.writeShort((Short) value);
-					break;
-				case STRING:
-					out.writeBoolean(value != null);
-					if (value != null)
-						out.writeUTF((String) value);
-					break;
-				}
-			}
-			return stream.toByteArray();
-		} catch (Exception e) {
-			OLogManager.instance().error(this, "Error on marshalling object in binary format: " + iRecord.getIdentity(), e);
-		} finally {
-			try {
-				if (stream != null)
-					stream.close();
-
-				if (out != null)
-					out.close();
-			} catch (IOException e) {
-			}
-		}
-		return null;
-	}
-
-	@Override
-	public String toString() {
-		return NAME;
-	}
+  public static final String                     NAME           = "ORecordDocument2binary";
+  public static final byte                       MAGIC          = 0;
+  public static final Object                     NOT_SIMPLE     = new Object();
+
+  private static final byte                      VERSION        = 1;
+  private static final byte                      TEXT           = 0x40;
+  private static final byte                      NO_TYPE        = -1;
+  private static final byte[]                    EMPTY          = new byte[0];
+
+  private final ORecordSerializerSchemaAware2CSV csv            = new ORecordSerializerSchemaAware2CSV();
+
+  /**
+   * Returns true if the content has been written by this serializer.
+   */
+  public static boolean isBinary(final byte[] iSource) {
+    return iSource != null && iSource.length > 1 && iSource[0] == MAGIC && iSource[1] == VERSION;
+  }
+
+  public ORecordInternal<?> fromStream(final byte[] iSource, ORecordInternal<?> iRecord) {
+    if (!isBinary(iSource))
+      // OLD RECORD IN CSV FORMAT
+      return csv.fromStream(iSource, iRecord);
+
+    final long timer = OProfiler.getInstance().startChrono();
+
+    if (iRecord == null)
+      iRecord = new ODocument();
+
+    final ODocument record = (ODocument) iRecord;
+
+    final OBinaryHeader header = new OBinaryHeader(iSource);
+    record.setClassNameIfExists(header.className.length() > 0 ? header.className : null);
+
+    for (int i = 0; i < header.names.length; ++i) {
+      final String fieldName = header.names[i];
+      try {
+        final OProperty prop = record.getSchemaClass() != null ? record.getSchemaClass().getProperty(fieldName) : null;
+        final OType type = OType.getById((byte) (header.types[i] & ~TEXT));
+
+        final Object value;
+        if (header.offsets[i] < 0)
+          value = null;
+        else if ((header.types[i] & TEXT) == 0)
+          value = readSimpleValue(iSource, header.dataOffset + header.offsets[i], type);
+        else {
+          final OType linkedType;
+          if (prop != null)
+            linkedType = prop.getLinkedType();
+          else
+            linkedType = header.linkedTypes[i] != NO_TYPE ? OType.getById(header.linkedTypes[i]) : null;
+
+          value = csv.fieldFromStream(record, type, prop != null ? prop.getLinkedClass() : null, linkedType, fieldName,
+              readString(iSource, header.dataOffset + header.offsets[i]));
+        }
+
+        if (type == OType.EMBEDDEDLIST || type == OType.EMBEDDEDSET || type == OType.EMBEDDEDMAP || type == OType.EMBEDDED)
+          // SAVE THE TYPE AS EMBEDDED
+          record.field(fieldName, value, type);
+        else
+          record.field(fieldName, value);
+
+      } catch (Exception e) {
+        OLogManager.instance().exception("Error on unmarshalling field '%s' in record %s", e, OSerializationException.class,
+            fieldName, iRecord.getIdentity());
+      }
+    }
+
+    OProfiler.getInstance().stopChrono("ORecordSerializerDocument2Binary.fromStream", timer);
+    return iRecord;
+  }
+
+  /**
+   * Reads the value of a field without unmarshalling the record.
+   *
+   * @return the field value, null if the field is not present or {@link #NOT_SIMPLE} if the value is not of a simple type and
+   *         needs the entire record to be unmarshalled
+   */
+  public static Object readField(final byte[] iSource, final String iFieldName) {
+    final OBinaryHeader header = new OBinaryHeader(iSource);
+    for (int i = 0; i < header.names.length; ++i)
+      if (header.names[i].equals(iFieldName)) {
+        if (header.offsets[i] < 0)
+          return null;
+        if ((header.types[i] & TEXT) != 0)
+          return NOT_SIMPLE;
+        return readSimpleValue(iSource, header.dataOffset + header.offsets[i], OType.getById(header.types[i]));
+      }
+    return null;
+  }
+
+  public byte[] toStream(final ORecordInternal<?> iRecord, final boolean iOnlyDelta) {
+    if (!(iRecord instanceof ODocument))
+      throw new OSerializationException("Cannot marshall a record of type " + iRecord.getClass().getSimpleName() + " to binary");
+
+    final ODocument record = (ODocument) iRecord;
+
+    // CHECK IF THE RECORD IS PENDING TO BE MARSHALLED
+    final Set<Integer> marshalledRecords = OSerializationThreadLocal.INSTANCE.get();
+    final Integer identityRecord = System.identityHashCode(record);
+    if (marshalledRecords.contains(identityRecord))
+      return EMPTY;
+    marshalledRecords.add(identityRecord);
+
+    final long timer = OProfiler.getInstance().startChrono();
+
+    try {
+      final OUserObject2RecordHandler objHandler = ODatabaseRecordThreadLocal.INSTANCE.isDefined() ? ODatabaseRecordThreadLocal.INSTANCE
+          .get() : null;
+
+      final String[] fieldNames = iOnlyDelta && record.isTrackingChanges() ? record.getDirtyFields() : record.fieldNames();
+
+      final OMemoryStream header = new OMemoryStream();
+      final OMemoryStream values = new OMemoryStream();
+      int fields = 0;
+
+      for (String fieldName : fieldNames) {
+        final Object fieldValue = record.rawField(fieldName);
+
+        final OFieldTypeInfo fieldType = csv.getFieldType(record, fieldName, fieldValue, true);
+        if (fieldType.type == OType.TRANSIENT)
+          // TRANSIENT FIELD
+          continue;
+
+        if (fieldType.type == null && fieldValue != null)
+          // NOT DETECTED BY THE CSV SERIALIZER (LIKE BOOLEANS): THE TYPE IS STORED IN THE HEADER, SO SEARCH A BETTER ONE
+          fieldType.type = OType.getTypeByClass(fieldValue.getClass());
+
+        if (fieldType.type == null)
+          fieldType.type = OType.EMBEDDED;
+
+        byte type = (byte) fieldType.type.getId();
+        final int offset;
+        if (fieldValue == null)
+          offset = -1;
+        else {
+          offset = values.getPosition();
+          if (!writeSimpleValue(values, fieldType.type, fieldValue)) {
+            // NOT A SIMPLE TYPE: WRITE IT AS CSV
+            final StringBuilder buffer = new StringBuilder();
+            csv.fieldToStream(record, buffer, objHandler, fieldType.type, fieldType.linkedClass, fieldType.linkedType, fieldName,
+                fieldValue, marshalledRecords, true);
+            values.set(buffer.toString());
+            type |= TEXT;
+          }
+        }
+
+        header.set(fieldName);
+        header.set(type);
+        header.set(fieldType.linkedType != null ? (byte) fieldType.linkedType.getId() : NO_TYPE);
+        header.set(offset);
+        fields++;
+      }
+
+      final OMemoryStream stream = new OMemoryStream(2 + header.size() + values.size() + 64);
+      stream.set(MAGIC);
+      stream.set(VERSION);
+      stream.set(!iOnlyDelta && record.getSchemaClass() != null ? record.getSchemaClass().getStreamableName() : "");
+      stream.set(fields);
+      stream.write(header.getInternalBuffer(), 0, header.size());
+      stream.write(values.getInternalBuffer(), 0, values.size());
+
+      // APPEND EMPTY BYTES TO FILL THE AVAILABLE SPACE AND AVOID FRAGMENTATION, SEE ORecordSerializerSchemaAware2CSV
+      final int size = stream.size();
+      final int newSize;
+      if (record.hasOwners())
+        newSize = size;
+      else if (record.getSize() > size)
+        newSize = record.getSize();
+      else if (record.getSchemaClass() != null && record.getSchemaClass().getOverSize() > 0)
+        newSize = (int) (size * record.getSchemaClass().getOverSize());
+      else
+        newSize = size;
+
+      if (newSize > size)
+        stream.fill(newSize - size);
+
+      return stream.copy();
+
+    } finally {
+      marshalledRecords.remove(identityRecord);
+      OProfiler.getInstance().stopChrono("ORecordSerializerDocument2Binary.toStream", timer);
+    }
+  }
+
+  @Override
+  public String toString() {
+    return NAME;
+  }
+
+  /**
+   * Writes the value if it's of a simple type.
+   *
+   * @return false if the value must be written as CSV
+   */
+  private static boolean writeSimpleValue(final OMemoryStream iStream, final OType iType, final Object iValue) {
+    switch (iType) {
+    case BOOLEAN:
+      if (!(iValue instanceof Boolean))
+        return false;
+      iStream.set(((Boolean) iValue).booleanValue());
+      return true;
+
+    case INTEGER:
+      if (!(iValue instanceof Integer))
+        return false;
+      iStream.set(((Integer) iValue).intValue());
+      return true;
+
+    case SHORT:
+      if (!(iValue instanceof Short))
+        return false;
+      iStream.set(((Short) iValue).shortValue());
+      return true;
+
+    case LONG:
+      if (!(iValue instanceof Long))
+        return false;
+      iStream.set(((Long) iValue).longValue());
+      return true;
+
+    case FLOAT:
+      if (!(iValue instanceof Float))
+        return false;
+      iStream.set(Float.floatToIntBits((Float) iValue));
+      return true;
+
+    case DOUBLE:
+      if (!(iValue instanceof Double))
+        return false;
+      iStream.set(Double.doubleToLongBits((Double) iValue));
+      return true;
+
+    case BYTE:
+      if (!(iValue instanceof Byte))
+        return false;
+      iStream.set(((Byte) iValue).byteValue());
+      return true;
+
+    case DATETIME:
+      if (!(iValue instanceof Date))
+        return false;
+      iStream.set(((Date) iValue).getTime());
+      return true;
+
+    case DATE:
+      if (!(iValue instanceof Date))
+        return false;
+      // RESET HOURS, MINUTES, SECONDS AND MILLISECONDS
+      final Calendar calendar = Calendar.getInstance();
+      calendar.setTime((Date) iValue);
+      calendar.set(Calendar.HOUR_OF_DAY, 0);
+      calendar.set(Calendar.MINUTE, 0);
+      calendar.set(Calendar.SECOND, 0);
+      calendar.set(Calendar.MILLISECOND, 0);
+      iStream.set(calendar.getTimeInMillis());
+      return true;
+
+    case STRING:
+      if (!(iValue instanceof String))
+        return false;
+      iStream.set((String) iValue);
+      return true;
+
+    case BINARY:
+      if (!(iValue instanceof byte[]))
+        return false;
+      iStream.set((byte[]) iValue);
+      return true;
+
+    case DECIMAL:
+      if (!(iValue instanceof BigDecimal))
+        return false;
+      iStream.set(iValue.toString());
+      return true;
+    }
+    return false;
+  }
+
+  private static Object readSimpleValue(final byte[] iSource, final int iOffset, final OType iType) {
+    switch (iType) {
+    case BOOLEAN:
+      return iSource[iOffset] == 1;
+    case INTEGER:
+      return OBinaryProtocol.bytes2int(iSource, iOffset);
+    case SHORT:
+      return OBinaryProtocol.bytes2short(iSource, iOffset);
+    case LONG:
+      return OBinaryProtocol.bytes2long(iSource, iOffset);
+    case FLOAT:
+      return Float.intBitsToFloat(OBinaryProtocol.bytes2int(iSource, iOffset));
+    case DOUBLE:
+      return Double.longBitsToDouble(OBinaryProtocol.bytes2long(iSource, iOffset));
+    case BYTE:
+      return iSource[iOffset];
+    case DATETIME:
+    case DATE:
+      return new Date(OBinaryProtocol.bytes2long(iSource, iOffset));
+    case STRING:
+      return readString(iSource, iOffset);
+    case BINARY:
+      final int length = OBinaryProtocol.bytes2int(iSource, iOffset);
+      final byte[] value = new byte[length];
+      System.arraycopy(iSource, iOffset + OBinaryProtocol.SIZE_INT, value, 0, length);
+      return value;
+    case DECIMAL:
+      return new BigDecimal(readString(iSource, iOffset));
+    }
+    throw new OSerializationException("Type " + iType + " is not supported by the binary format");
+  }
+
+  private static String readString(final byte[] iSource, final int iOffset) {
+    return OBinaryProtocol.bytes2string(iSource, iOffset + OBinaryProtocol.SIZE_INT, OBinaryProtocol.bytes2int(iSource, iOffset));
+  }
+
+  /**
+   * Header of a binary record: class name and, for every field, name, type, linked type and offset of the value from the begin
+   * of the values.
+   */
+  private static class OBinaryHeader {
+    private final String   className;
+    private final String[] names;
+    private final byte[]   types;
+    private final byte[]   linkedTypes;
+    private final int[]    offsets;
+    private final int      dataOffset;
+
+    private OBinaryHeader(final byte[] iSource) {
+      int pos = 2;
+
+      className = readString(iSource, pos);
+      pos += OBinaryProtocol.SIZE_INT + OBinaryProtocol.bytes2int(iSource, pos);
+
+      final int fields = OBinaryProtocol.bytes2int(iSource, pos);
+      pos += OBinaryProtocol.SIZE_INT;
+
+      names = new String[fields];
+      types = new byte[fields];
+      linkedTypes = new byte[fields];
+      offsets = new int[fields];
+
+      for (int i = 0; i < fields; ++i) {
+        names[i] = readString(iSource, pos);
+        pos += OBinaryProtocol.SIZE_INT + OBinaryProtocol.bytes2int(iSource, pos);
+        types[i] = iSource[pos++];
+        linkedTypes[i] = iSource[pos++];
+        offsets[i] = OBinaryProtocol.bytes2int(iSource, pos);
+        pos += OBinaryProtocol.SIZE_INT;
+      }
+
+      dataOffset = pos;
+    }
+  }
 }
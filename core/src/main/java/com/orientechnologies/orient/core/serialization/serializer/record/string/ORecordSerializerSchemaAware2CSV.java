@@ -41,6 +41,7 @@ import com.orientechnologies.orient.core.record.ORecordInternal;
 import com.orientechnologies.orient.core.record.ORecordSchemaAware;
 import com.orientechnologies.orient.core.record.impl.ODocument;
 import com.orientechnologies.orient.core.serialization.serializer.OStringSerializerHelper;
+import com.orientechnologies.orient.core.serialization.serializer.record.ORecordSerializerFactory;
 
 public class ORecordSerializerSchemaAware2CSV extends ORecordSerializerCSVAbstract {
   private static final long                            serialVersionUID = 1L;
@@ -57,6 +58,15 @@ public class ORecordSerializerSchemaAware2CSV extends ORecordSerializerCSVAbstra
     return NAME;
   }
 
+  /**
+   * Type of a field to marshall, with its linked class and type if any.
+   */
+  protected static class OFieldTypeInfo {
+    protected OType  type;
+    protected OClass linkedClass;
+    protected OType  linkedType;
+  }
+
   @Override
   protected StringBuilder toString(ORecordInternal<?> iRecord, final StringBuilder iOutput, final String iFormat,
       OUserObject2RecordHandler iObjHandler, final Set<Integer> iMarshalledRecords, final boolean iOnlyDelta,
@@ -80,11 +90,6 @@ public class ORecordSerializerSchemaAware2CSV extends ORecordSerializerCSVAbstra
       iOutput.append(OStringSerializerHelper.CLASS_SEPARATOR);
     }
 
-    OProperty prop;
-    OType type;
-    OClass linkedClass;
-    OType linkedType;
-    String fieldClassName;
     int i = 0;
 
     final String[] fieldNames = iOnlyDelta && record.isTrackingChanges() ? record.getDirtyFields() : record.fieldNames();
@@ -98,185 +103,19 @@ public class ORecordSerializerSchemaAware2CSV extends ORecordSerializerCSVAbstra
       if (i > 0)
         iOutput.append(OStringSerializerHelper.RECORD_SEPARATOR);
 
-      // SEARCH FOR A CONFIGURED PROPERTY
-      prop = record.getSchemaClass() != null ? record.getSchemaClass().getProperty(fieldName) : null;
-      fieldClassName = getClassName(fieldValue);
-
-      type = record.fieldType(fieldName);
-      linkedClass = null;
-      linkedType = null;
-
-      if (prop != null) {
-        // RECOGNIZED PROPERTY
-        type = prop.getType();
-        linkedClass = prop.getLinkedClass();
-        linkedType = prop.getLinkedType();
-
-      } else if (fieldValue != null) {
-        // NOT FOUND: TRY TO DETERMINE THE TYPE FROM ITS CONTENT
-        if (type == null) {
-          if (fieldValue.getClass() == byte[].class)
-            type = OType.BINARY;
-          else if (ODatabaseRecordThreadLocal.INSTANCE.isDefined() && fieldValue instanceof ORecord<?>) {
-            if (type == null)
-              // DETERMINE THE FIELD TYPE
-              if (fieldValue instanceof ODocument && ((ODocument) fieldValue).hasOwners())
-                type = OType.EMBEDDED;
-              else
-                type = OType.LINK;
+      final OFieldTypeInfo fieldType = getFieldType(record, fieldName, fieldValue, autoDetectCollectionType);
 
-            linkedClass = getLinkInfo(ODatabaseRecordThreadLocal.INSTANCE.get(), fieldClassName);
-          } else if (fieldValue instanceof ORID)
-            // DETERMINE THE FIELD TYPE
-            type = OType.LINK;
-
-          else if (ODatabaseRecordThreadLocal.INSTANCE.isDefined()
-              && ODatabaseRecordThreadLocal.INSTANCE.get().getDatabaseOwner() instanceof ODatabaseObject
-              && ((ODatabaseObject) ODatabaseRecordThreadLocal.INSTANCE.get().getDatabaseOwner()).getEntityManager()
-                  .getEntityClass(fieldClassName) != null) {
-            // DETERMINE THE FIELD TYPE
-            type = OType.LINK;
-            linkedClass = getLinkInfo(ODatabaseRecordThreadLocal.INSTANCE.get(), fieldClassName);
-          } else if (fieldValue instanceof Date)
-            type = OType.DATETIME;
-          else if (fieldValue instanceof String)
-            type = OType.STRING;
-          else if (fieldValue instanceof Integer || fieldValue instanceof BigInteger)
-            type = OType.INTEGER;
-          else if (fieldValue instanceof Long)
-            type = OType.LONG;
-          else if (fieldValue instanceof Float)
-            type = OType.FLOAT;
-          else if (fieldValue instanceof Short)
-            type = OType.SHORT;
-          else if (fieldValue instanceof Byte)
-            type = OType.BYTE;
-          else if (fieldValue instanceof Double)
-            type = OType.DOUBLE;
-          else if (fieldValue instanceof BigDecimal)
-            type = OType.DECIMAL;
-        }
-
-        if (fieldValue instanceof Collection<?> || fieldValue.getClass().isArray()) {
-          final int size = OMultiValue.getSize(fieldValue);
-
-          Boolean autoConvertLinks = null;
-          if (fieldValue instanceof ORecordLazyMultiValue) {
-            autoConvertLinks = ((ORecordLazyMultiValue) fieldValue).isAutoConvertToRecord();
-            if (autoConvertLinks)
-              // DISABLE AUTO CONVERT
-              ((ORecordLazyMultiValue) fieldValue).setAutoConvertToRecord(false);
-          }
-
-          if (autoDetectCollectionType)
-            if (size > 0) {
-              final Object firstValue = OMultiValue.getFirstValue(fieldValue);
-
-              if (firstValue != null) {
-                if (firstValue instanceof ORID) {
-                  linkedClass = null;
-                  linkedType = OType.LINK;
-                  if (fieldValue instanceof Set<?>)
-                    type = OType.LINKSET;
-                  else
-                    type = OType.LINKLIST;
-                } else if (ODatabaseRecordThreadLocal.INSTANCE.isDefined()
-                    && (firstValue instanceof ODocument && !((ODocument) firstValue).isEmbedded())
-                    && (firstValue instanceof ORecord<?> || (ODatabaseRecordThreadLocal.INSTANCE.get().getDatabaseOwner() instanceof ODatabaseObject && ((ODatabaseObject) ODatabaseRecordThreadLocal.INSTANCE
-                        .get().getDatabaseOwner()).getEntityManager().getEntityClass(getClassName(firstValue)) != null))) {
-                  linkedClass = getLinkInfo(ODatabaseRecordThreadLocal.INSTANCE.get(), getClassName(firstValue));
-                  if (type == null) {
-                    // LINK: GET THE CLASS
-                    linkedType = OType.LINK;
-
-                    if (fieldValue instanceof Set<?>)
-                      type = OType.LINKSET;
-                    else
-                      type = OType.LINKLIST;
-                  } else
-                    linkedType = OType.EMBEDDED;
-                } else {
-                  // EMBEDDED COLLECTION
-                  if (firstValue instanceof ODocument
-                      && ((((ODocument) firstValue).hasOwners()) || type == OType.EMBEDDEDSET || type == OType.EMBEDDEDLIST || type == OType.EMBEDDEDMAP))
-                    linkedType = OType.EMBEDDED;
-                  else if (firstValue instanceof Enum<?>)
-                    linkedType = OType.STRING;
-                  else {
-                    linkedType = OType.getTypeByClass(firstValue.getClass());
-
-                    if (linkedType != OType.LINK) {
-                      // EMBEDDED FOR SURE SINCE IT CONTAINS JAVA TYPES
-                      if (linkedType == null) {
-                        linkedType = OType.EMBEDDED;
-                        // linkedClass = new OClass(firstValue.getClass());
-                      }
-                    }
-                  }
-
-                  if (type == null)
-                    if (fieldValue instanceof Set<?>)
-                      type = OType.EMBEDDEDSET;
-                    else
-                      type = OType.EMBEDDEDLIST;
-                }
-              }
-            } else if (type == null)
-              type = OType.EMBEDDEDLIST;
-
-          if (fieldValue instanceof ORecordLazyMultiValue && autoConvertLinks) {
-            // REPLACE PREVIOUS SETTINGS
-            ((ORecordLazyMultiValue) fieldValue).setAutoConvertToRecord(true);
-          }
-
-        } else if (fieldValue instanceof Map<?, ?> && type == null) {
-          final int size = OMultiValue.getSize(fieldValue);
-
-          Boolean autoConvertLinks = null;
-          if (fieldValue instanceof ORecordLazyMap) {
-            autoConvertLinks = ((ORecordLazyMap) fieldValue).isAutoConvertToRecord();
-            if (autoConvertLinks)
-              // DISABLE AUTO CONVERT
-              ((ORecordLazyMap) fieldValue).setAutoConvertToRecord(false);
-          }
-
-          if (size > 0) {
-            final Object firstValue = OMultiValue.getFirstValue(fieldValue);
-
-            if (firstValue != null) {
-              if (ODatabaseRecordThreadLocal.INSTANCE.isDefined()
-                  && (firstValue instanceof ODocument && !((ODocument) firstValue).isEmbedded())
-                  && (firstValue instanceof ORecord<?> || (ODatabaseRecordThreadLocal.INSTANCE.get().getDatabaseOwner() instanceof ODatabaseObject && ((ODatabaseObject) ODatabaseRecordThreadLocal.INSTANCE
-                      .get().getDatabaseOwner()).getEntityManager().getEntityClass(getClassName(firstValue)) != null))) {
-                linkedClass = getLinkInfo(ODatabaseRecordThreadLocal.INSTANCE.get(), getClassName(firstValue));
-                // LINK: GET THE CLASS
-                linkedType = OType.LINK;
-                type = OType.LINKMAP;
-              } else {
-                type = OType.EMBEDDEDMAP;
-              }
-            }
-          } else
-            type = OType.EMBEDDEDMAP;
-
-          if (fieldValue instanceof ORecordLazyMap && autoConvertLinks) {
-            // REPLACE PREVIOUS SETTINGS
-            ((ORecordLazyMap) fieldValue).setAutoConvertToRecord(true);
-          }
-        }
-      }
-
-      if (type == OType.TRANSIENT)
+      if (fieldType.type == OType.TRANSIENT)
         // TRANSIENT FIELD
         continue;
 
-      if (type == null)
-        type = OType.EMBEDDED;
+      if (fieldType.type == null)
+        fieldType.type = OType.EMBEDDED;
 
       iOutput.append(fieldName);
       iOutput.append(FIELD_VALUE_SEPARATOR);
-      fieldToStream((ODocument) iRecord, iOutput, iObjHandler, type, linkedClass, linkedType, fieldName, fieldValue,
-          iMarshalledRecords, true);
+      fieldToStream((ODocument) iRecord, iOutput, iObjHandler, fieldType.type, fieldType.linkedClass, fieldType.linkedType,
+          fieldName, fieldValue, iMarshalledRecords, true);
 
       i++;
     }
@@ -317,6 +156,192 @@ public class ORecordSerializerSchemaAware2CSV extends ORecordSerializerCSVAbstra
     return iOutput;
   }
 
+  /**
+   * Resolves the type of the field to marshall. The schema property is used if any, otherwise the type is determined by the value.
+   */
+  protected OFieldTypeInfo getFieldType(final ODocument record, final String fieldName, final Object fieldValue,
+      final boolean autoDetectCollectionType) {
+    final OProperty prop;
+    final String fieldClassName;
+    OType type;
+    OClass linkedClass;
+    OType linkedType;
+
+    // SEARCH FOR A CONFIGURED PROPERTY
+    prop = record.getSchemaClass() != null ? record.getSchemaClass().getProperty(fieldName) : null;
+    fieldClassName = getClassName(fieldValue);
+
+    type = record.fieldType(fieldName);
+    linkedClass = null;
+    linkedType = null;
+
+    if (prop != null) {
+      // RECOGNIZED PROPERTY
+      type = prop.getType();
+      linkedClass = prop.getLinkedClass();
+      linkedType = prop.getLinkedType();
+
+    } else if (fieldValue != null) {
+      // NOT FOUND: TRY TO DETERMINE THE TYPE FROM ITS CONTENT
+      if (type == null) {
+        if (fieldValue.getClass() == byte[].class)
+          type = OType.BINARY;
+        else if (ODatabaseRecordThreadLocal.INSTANCE.isDefined() && fieldValue instanceof ORecord<?>) {
+          if (type == null)
+            // DETERMINE THE FIELD TYPE
+            if (fieldValue instanceof ODocument && ((ODocument) fieldValue).hasOwners())
+              type = OType.EMBEDDED;
+            else
+              type = OType.LINK;
+
+          linkedClass = getLinkInfo(ODatabaseRecordThreadLocal.INSTANCE.get(), fieldClassName);
+        } else if (fieldValue instanceof ORID)
+          // DETERMINE THE FIELD TYPE
+          type = OType.LINK;
+
+        else if (ODatabaseRecordThreadLocal.INSTANCE.isDefined()
+            && ODatabaseRecordThreadLocal.INSTANCE.get().getDatabaseOwner() instanceof ODatabaseObject
+            && ((ODatabaseObject) ODatabaseRecordThreadLocal.INSTANCE.get().getDatabaseOwner()).getEntityManager()
+                .getEntityClass(fieldClassName) != null) {
+          // DETERMINE THE FIELD TYPE
+          type = OType.LINK;
+          linkedClass = getLinkInfo(ODatabaseRecordThreadLocal.INSTANCE.get(), fieldClassName);
+        } else if (fieldValue instanceof Date)
+          type = OType.DATETIME;
+        else if (fieldValue instanceof String)
+          type = OType.STRING;
+        else if (fieldValue instanceof Integer || fieldValue instanceof BigInteger)
+          type = OType.INTEGER;
+        else if (fieldValue instanceof Long)
+          type = OType.LONG;
+        else if (fieldValue instanceof Float)
+          type = OType.FLOAT;
+        else if (fieldValue instanceof Short)
+          type = OType.SHORT;
+        else if (fieldValue instanceof Byte)
+          type = OType.BYTE;
+        else if (fieldValue instanceof Double)
+          type = OType.DOUBLE;
+        else if (fieldValue instanceof BigDecimal)
+          type = OType.DECIMAL;
+      }
+
+      if (fieldValue instanceof Collection<?> || fieldValue.getClass().isArray()) {
+        final int size = OMultiValue.getSize(fieldValue);
+
+        Boolean autoConvertLinks = null;
+        if (fieldValue instanceof ORecordLazyMultiValue) {
+          autoConvertLinks = ((ORecordLazyMultiValue) fieldValue).isAutoConvertToRecord();
+          if (autoConvertLinks)
+            // DISABLE AUTO CONVERT
+            ((ORecordLazyMultiValue) fieldValue).setAutoConvertToRecord(false);
+        }
+
+        if (autoDetectCollectionType)
+          if (size > 0) {
+            final Object firstValue = OMultiValue.getFirstValue(fieldValue);
+
+            if (firstValue != null) {
+              if (firstValue instanceof ORID) {
+                linkedClass = null;
+                linkedType = OType.LINK;
+                if (fieldValue instanceof Set<?>)
+                  type = OType.LINKSET;
+                else
+                  type = OType.LINKLIST;
+              } else if (ODatabaseRecordThreadLocal.INSTANCE.isDefined()
+                  && (firstValue instanceof ODocument && !((ODocument) firstValue).isEmbedded())
+                  && (firstValue instanceof ORecord<?> || (ODatabaseRecordThreadLocal.INSTANCE.get().getDatabaseOwner() instanceof ODatabaseObject && ((ODatabaseObject) ODatabaseRecordThreadLocal.INSTANCE
+                      .get().getDatabaseOwner()).getEntityManager().getEntityClass(getClassName(firstValue)) != null))) {
+                linkedClass = getLinkInfo(ODatabaseRecordThreadLocal.INSTANCE.get(), getClassName(firstValue));
+                if (type == null) {
+                  // LINK: GET THE CLASS
+                  linkedType = OType.LINK;
+
+                  if (fieldValue instanceof Set<?>)
+                    type = OType.LINKSET;
+                  else
+                    type = OType.LINKLIST;
+                } else
+                  linkedType = OType.EMBEDDED;
+              } else {
+                // EMBEDDED COLLECTION
+                if (firstValue instanceof ODocument
+                    && ((((ODocument) firstValue).hasOwners()) || type == OType.EMBEDDEDSET || type == OType.EMBEDDEDLIST || type == OType.EMBEDDEDMAP))
+                  linkedType = OType.EMBEDDED;
+                else if (firstValue instanceof Enum<?>)
+                  linkedType = OType.STRING;
+                else {
+                  linkedType = OType.getTypeByClass(firstValue.getClass());
+
+                  if (linkedType != OType.LINK) {
+                    // EMBEDDED FOR SURE SINCE IT CONTAINS JAVA TYPES
+                    if (linkedType == null) {
+                      linkedType = OType.EMBEDDED;
+                      // linkedClass = new OClass(firstValue.getClass());
+                    }
+                  }
+                }
+
+                if (type == null)
+                  if (fieldValue instanceof Set<?>)
+                    type = OType.EMBEDDEDSET;
+                  else
+                    type = OType.EMBEDDEDLIST;
+              }
+            }
+          } else if (type == null)
+            type = OType.EMBEDDEDLIST;
+
+        if (fieldValue instanceof ORecordLazyMultiValue && autoConvertLinks) {
+          // REPLACE PREVIOUS SETTINGS
+          ((ORecordLazyMultiValue) fieldValue).setAutoConvertToRecord(true);
+        }
+
+      } else if (fieldValue instanceof Map<?, ?> && type == null) {
+        final int size = OMultiValue.getSize(fieldValue);
+
+        Boolean autoConvertLinks = null;
+        if (fieldValue instanceof ORecordLazyMap) {
+          autoConvertLinks = ((ORecordLazyMap) fieldValue).isAutoConvertToRecord();
+          if (autoConvertLinks)
+            // DISABLE AUTO CONVERT
+            ((ORecordLazyMap) fieldValue).setAutoConvertToRecord(false);
+        }
+
+        if (size > 0) {
+          final Object firstValue = OMultiValue.getFirstValue(fieldValue);
+
+          if (firstValue != null) {
+            if (ODatabaseRecordThreadLocal.INSTANCE.isDefined()
+                && (firstValue instanceof ODocument && !((ODocument) firstValue).isEmbedded())
+                && (firstValue instanceof ORecord<?> || (ODatabaseRecordThreadLocal.INSTANCE.get().getDatabaseOwner() instanceof ODatabaseObject && ((ODatabaseObject) ODatabaseRecordThreadLocal.INSTANCE
+                    .get().getDatabaseOwner()).getEntityManager().getEntityClass(getClassName(firstValue)) != null))) {
+              linkedClass = getLinkInfo(ODatabaseRecordThreadLocal.INSTANCE.get(), getClassName(firstValue));
+              // LINK: GET THE CLASS
+              linkedType = OType.LINK;
+              type = OType.LINKMAP;
+            } else {
+              type = OType.EMBEDDEDMAP;
+            }
+          }
+        } else
+          type = OType.EMBEDDEDMAP;
+
+        if (fieldValue instanceof ORecordLazyMap && autoConvertLinks) {
+          // REPLACE PREVIOUS SETTINGS
+          ((ORecordLazyMap) fieldValue).setAutoConvertToRecord(true);
+        }
+      }
+    }
+
+    final OFieldTypeInfo result = new OFieldTypeInfo();
+    result.type = type;
+    result.linkedClass = linkedClass;
+    result.linkedType = linkedType;
+    return result;
+  }
+
   private String getClassName(final Object iValue) {
     if (iValue instanceof ORecordSchemaAware<?>)
       return ((ORecordSchemaAware<?>) iValue).getClassName();
@@ -470,6 +495,15 @@ public class ORecordSerializerSchemaAware2CSV extends ORecordSerializerCSVAbstra
     return iRecord;
   }
 
+  @Override
+  public ORecordInternal<?> fromStream(final byte[] iSource, final ORecordInternal<?> iRecord) {
+    if (ORecordSerializerDocument2Binary.isBinary(iSource))
+      // RECORD IN BINARY FORMAT
+      return ORecordSerializerFactory.instance().getFormat(ORecordSerializerDocument2Binary.NAME).fromStream(iSource, iRecord);
+
+    return super.fromStream(iSource, iRecord);
+  }
+
   @Override
   public byte[] toStream(ORecordInternal<?> iRecord, boolean iOnlyDelta) {
     byte[] result = super.toStream(iRecord, iOnlyDelta);
@@ -18,6 +18,7 @@ package com.orientechnologies.orient.core.sql;
 import java.util.Locale;
 
 import com.orientechnologies.orient.core.command.OCommandExecutorAbstract;
+import com.orientechnologies.orient.core.command.OCommandRequest;
 
 /**
  * SQL abstract Command Executor implementation.
@@ -55,4 +56,20 @@ public abstract class OCommandExecutorSQLAbstract extends OCommandExecutorAbstra
   public boolean isIdempotent() {
     return false;
   }
+
+  /**
+   * Tells if the executor, once parsed, can execute other requests with the same text. Reusable executors are kept by
+   * {@link OSQLStatementCache} to avoid parsing the same statement again.
+   */
+  public boolean isReusable() {
+    return false;
+  }
+
+  /**
+   * Discards the state of the last execution and binds the new request to the executor already parsed. If the request is null the
+   * state is discarded only.
+   */
+  public void reset(final OCommandRequest iRequest) {
+    throw new UnsupportedOperationException("reset()");
+  }
 }
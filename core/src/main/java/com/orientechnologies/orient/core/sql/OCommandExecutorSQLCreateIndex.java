@@ -189,21 +189,22 @@ public class OCommandExecutorSQLCreateIndex extends OCommandExecutorSQLAbstract
     if (fields == null || fields.length == 0) {
       if (keyTypes != null)
         idx = database.getMetadata().getIndexManager()
-            .createIndex(indexName, indexType.toString(), new OSimpleKeyIndexDefinition(keyTypes), null, null);
+            .createIndex(indexName, indexType.toString(), new OSimpleKeyIndexDefinition(keyTypes), null, progressListener);
       else if (serializerKeyId != 0) {
         idx = database.getMetadata().getIndexManager()
-            .createIndex(indexName, indexType.toString(), new ORuntimeKeyIndexDefinition(serializerKeyId), null, null);
+            .createIndex(indexName, indexType.toString(), new ORuntimeKeyIndexDefinition(serializerKeyId), null,
+                progressListener);
       } else
-        idx = database.getMetadata().getIndexManager().createIndex(indexName, indexType.toString(), null, null, null);
+        idx = database.getMetadata().getIndexManager().createIndex(indexName, indexType.toString(), null, null, progressListener);
     } else {
       if (keyTypes == null || keyTypes.length == 0) {
-        idx = oClass.createIndex(indexName, indexType, fields);
+        idx = oClass.createIndex(indexName, indexType, progressListener, fields);
       } else {
         final OIndexDefinition idxDef = OIndexDefinitionFactory.createIndexDefinition(oClass, Arrays.asList(fields),
             Arrays.asList(keyTypes));
 
         idx = database.getMetadata().getIndexManager()
-            .createIndex(indexName, indexType.name(), idxDef, oClass.getPolymorphicClusterIds(), null);
+            .createIndex(indexName, indexType.name(), idxDef, oClass.getPolymorphicClusterIds(), progressListener);
       }
     }
 
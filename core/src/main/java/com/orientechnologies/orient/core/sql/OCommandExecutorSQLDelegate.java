@@ -30,12 +30,30 @@ import com.orientechnologies.orient.core.command.OCommandRequestText;
  */
 public class OCommandExecutorSQLDelegate extends OCommandExecutorSQLAbstract {
   protected OCommandExecutorSQLAbstract delegate;
+  private String                        cacheKey;
+  private int                           cacheVersion;
 
   @SuppressWarnings("unchecked")
   public OCommandExecutorSQLDelegate parse(final OCommandRequest iCommand) {
     if (iCommand instanceof OCommandRequestText) {
       final OCommandRequestText textRequest = (OCommandRequestText) iCommand;
       final String text = textRequest.getText();
+
+      final OSQLStatementCache cache = OSQLStatementCache.instance();
+      cacheKey = OSQLStatementCache.getKey(getDatabase(), iCommand, text);
+      if (cacheKey != null) {
+        // GET THE VERSION BEFORE PARSING: A CHANGE OF THE SCHEMA IN THE MEANTIME DISCARDS THE EXECUTOR AT RELEASE TIME
+        cacheVersion = cache.getVersion();
+
+        delegate = cache.acquire(cacheKey);
+        if (delegate != null) {
+          // REUSE THE EXECUTOR ALREADY PARSED
+          delegate.reset(iCommand);
+          delegate.setProgressListener(progressListener);
+          return this;
+        }
+      }
+
       final String textUpperCase = text.toUpperCase(Locale.ENGLISH);
 
       delegate = (OCommandExecutorSQLAbstract) OSQLEngine.getInstance().getCommand(textUpperCase);
@@ -51,11 +69,22 @@ public class OCommandExecutorSQLDelegate extends OCommandExecutorSQLAbstract {
   }
 
   public Object execute(final Map<Object, Object> iArgs) {
-    return delegate.execute(iArgs);
+    try {
+      return delegate.execute(iArgs);
+    } finally {
+      // KEEP THE CONTEXT OF THIS EXECUTION: THE DELEGATE CAN BE REUSED BY ANOTHER THREAD AS SOON AS IT'S RELEASED
+      context = delegate.getContext();
+
+      if (cacheKey != null && delegate.isReusable())
+        OSQLStatementCache.instance().release(cacheKey, delegate, cacheVersion);
+      cacheKey = null;
+    }
   }
 
   @Override
   public OCommandContext getContext() {
+    if (context != null)
+      return context;
     return delegate.getContext();
   }
 
@@ -78,7 +78,7 @@ public class OCommandExecutorSQLRebuildIndex extends OCommandExecutorSQLAbstract
       long totalIndexed = 0;
       for (OIndex<?> idx : database.getMetadata().getIndexManager().getIndexes()) {
         if (idx.isAutomatic())
-          totalIndexed += idx.rebuild();
+          totalIndexed += idx.rebuild(progressListener);
       }
 
       return totalIndexed;
@@ -92,7 +92,7 @@ public class OCommandExecutorSQLRebuildIndex extends OCommandExecutorSQLAbstract
         throw new OCommandExecutionException("Cannot rebuild index '" + name
             + "' because it's manual and there aren't indications of what to index");
 
-      return idx.rebuild();
+      return idx.rebuild(progressListener);
     }
   }
 
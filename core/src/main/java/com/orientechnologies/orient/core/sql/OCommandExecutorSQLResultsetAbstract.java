@@ -22,6 +22,7 @@ import java.util.List;
 import java.util.Map;
 import java.util.Set;
 
+import com.orientechnologies.orient.core.command.OCommandContext;
 import com.orientechnologies.orient.core.command.OCommandRequest;
 import com.orientechnologies.orient.core.command.OCommandRequestText;
 import com.orientechnologies.orient.core.db.record.ODatabaseRecord;
@@ -77,6 +78,7 @@ public abstract class OCommandExecutorSQLResultsetAbstract extends OCommandExecu
   protected List<OIdentifiable>                    tempResult;
   protected int                                    resultCount;
   protected int                                    skip               = 0;
+  protected boolean                                precalculated      = false;
 
   /**
    * Compile the filter conditions only the first time.
@@ -89,17 +91,24 @@ public abstract class OCommandExecutorSQLResultsetAbstract extends OCommandExecu
 
     init(textRequest.getText());
 
+    bindRequest(textRequest);
+    return this;
+  }
+
+  /**
+   * Sets the request to execute, building a query if the request is a generic command.
+   */
+  protected void bindRequest(final OCommandRequestText iRequest) {
     if (iRequest instanceof OSQLSynchQuery) {
       request = (OSQLSynchQuery<ORecordSchemaAware<?>>) iRequest;
     } else if (iRequest instanceof OSQLAsynchQuery)
       request = (OSQLAsynchQuery<ORecordSchemaAware<?>>) iRequest;
     else {
       // BUILD A QUERY OBJECT FROM THE COMMAND REQUEST
-      request = new OSQLSynchQuery<ORecordSchemaAware<?>>(textRequest.getText());
-      if (textRequest.getResultListener() != null)
-        request.setResultListener(textRequest.getResultListener());
+      request = new OSQLSynchQuery<ORecordSchemaAware<?>>(iRequest.getText());
+      if (iRequest.getResultListener() != null)
+        request.setResultListener(iRequest.getResultListener());
     }
-    return this;
   }
 
   @Override
@@ -129,6 +138,7 @@ public abstract class OCommandExecutorSQLResultsetAbstract extends OCommandExecu
 
     // TODO: SUPPORT MULTIPLE CLASSES LIKE A SQL JOIN
     compiledFilter.bindParameters(iArgs);
+    compiledFilter.compile();
 
     if (target == null)
       if (compiledFilter.getTargetClasses() != null)
@@ -237,6 +247,10 @@ public abstract class OCommandExecutorSQLResultsetAbstract extends OCommandExecu
   }
 
   protected boolean filter(final ORecordInternal<?> iRecord) {
+    return filter(iRecord, context);
+  }
+
+  protected boolean filter(final ORecordInternal<?> iRecord, final OCommandContext iContext) {
     if (iRecord instanceof ORecordSchemaAware<?>) {
       // CHECK THE TARGET CLASS
       final ORecordSchemaAware<?> recordSchemaAware = (ORecordSchemaAware<?>) iRecord;
@@ -250,7 +264,7 @@ public abstract class OCommandExecutorSQLResultsetAbstract extends OCommandExecu
       }
     }
 
-    return compiledFilter.evaluate(iRecord, context);
+    return compiledFilter.evaluate(iRecord, iContext);
   }
 
   protected void searchInClasses() {
@@ -311,7 +325,7 @@ public abstract class OCommandExecutorSQLResultsetAbstract extends OCommandExecu
 
       // APPLY LIMIT
       final int start = Math.min(skip, tempResult.size());
-      final int tot = Math.min(limit + start, tempResult.size());
+      final int tot = limit > -1 ? Math.min(limit + start, tempResult.size()) : tempResult.size();
       for (int i = start; i < tot; ++i)
         newList.add(tempResult.get(i));
 
@@ -353,6 +367,7 @@ public abstract class OCommandExecutorSQLResultsetAbstract extends OCommandExecu
 
     if (precalculate) {
       // all fields are static, we can calculate it only once.
+      precalculated = true;
       return function.execute(null, null); // we can pass nulls here, they wont be used
     } else {
       return function;
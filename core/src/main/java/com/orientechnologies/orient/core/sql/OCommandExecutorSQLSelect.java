@@ -19,12 +19,14 @@ import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.Comparator;
+import java.util.HashMap;
 import java.util.Iterator;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
 import java.util.Map.Entry;
+import java.util.PriorityQueue;
 import java.util.Set;
 
 import com.orientechnologies.common.collection.OCompositeKey;
@@ -34,23 +36,34 @@ import com.orientechnologies.common.profiler.OProfiler;
 import com.orientechnologies.common.util.OPair;
 import com.orientechnologies.orient.core.command.OBasicCommandContext;
 import com.orientechnologies.orient.core.command.OCommandRequest;
+import com.orientechnologies.orient.core.command.OCommandRequestText;
+import com.orientechnologies.orient.core.config.OGlobalConfiguration;
 import com.orientechnologies.orient.core.db.record.ODatabaseRecord;
+import com.orientechnologies.orient.core.db.record.ODatabaseRecordTx;
 import com.orientechnologies.orient.core.db.record.OIdentifiable;
 import com.orientechnologies.orient.core.exception.OCommandExecutionException;
 import com.orientechnologies.orient.core.exception.OQueryParsingException;
+import com.orientechnologies.orient.core.id.ORID;
 import com.orientechnologies.orient.core.id.ORecordId;
 import com.orientechnologies.orient.core.index.OCompositeIndexDefinition;
 import com.orientechnologies.orient.core.index.OIndex;
+import com.orientechnologies.orient.core.index.OIndexCursor;
 import com.orientechnologies.orient.core.index.OIndexDefinition;
+import com.orientechnologies.orient.core.index.OIndexDefinitionMultiValue;
 import com.orientechnologies.orient.core.index.OIndexInternal;
+import com.orientechnologies.orient.core.index.OIndexOneValue;
+import com.orientechnologies.orient.core.index.OPropertyIndexDefinition;
+import com.orientechnologies.orient.core.iterator.ORecordIteratorClusters;
 import com.orientechnologies.orient.core.metadata.schema.OClass;
 import com.orientechnologies.orient.core.metadata.security.ODatabaseSecurityResources;
 import com.orientechnologies.orient.core.metadata.security.ORole;
 import com.orientechnologies.orient.core.record.ORecord;
 import com.orientechnologies.orient.core.record.ORecordInternal;
 import com.orientechnologies.orient.core.record.impl.ODocument;
+import com.orientechnologies.orient.core.record.impl.ODocumentComparator;
 import com.orientechnologies.orient.core.record.impl.ODocumentHelper;
 import com.orientechnologies.orient.core.serialization.serializer.OStringSerializerHelper;
+import com.orientechnologies.orient.core.storage.OStorageEmbedded;
 import com.orientechnologies.orient.core.sql.filter.OSQLFilterCondition;
 import com.orientechnologies.orient.core.sql.filter.OSQLFilterItem;
 import com.orientechnologies.orient.core.sql.filter.OSQLFilterItemField;
@@ -66,6 +79,7 @@ import com.orientechnologies.orient.core.sql.operator.OQueryOperatorMajor;
 import com.orientechnologies.orient.core.sql.operator.OQueryOperatorMajorEquals;
 import com.orientechnologies.orient.core.sql.operator.OQueryOperatorMinor;
 import com.orientechnologies.orient.core.sql.operator.OQueryOperatorMinorEquals;
+import com.orientechnologies.orient.core.sql.query.OSQLQuery;
 import com.orientechnologies.orient.core.type.tree.OMVRBTreeRIDSet;
 
 /**
@@ -84,14 +98,24 @@ public class OCommandExecutorSQLSelect extends OCommandExecutorSQLResultsetAbstr
   public static final String          KEYWORD_ORDER         = "ORDER";
   public static final String          KEYWORD_BY            = "BY";
   public static final String          KEYWORD_ORDER_BY      = "ORDER BY";
+  public static final String          KEYWORD_GROUP         = "GROUP";
+  public static final String          KEYWORD_GROUP_BY      = "GROUP BY";
 
   private Map<String, Object>         projections           = null;
+  private Map<String, String>         projectionDefinition  = null;
   private List<OPair<String, String>> orderedFields;
   private Object                      flattenTarget;
   private boolean                     anyFunctionAggregates = false;
   private int                         fetchLimit            = -1;
+  private PriorityQueue<OIdentifiable> orderedResult;
+  private int                         orderedResultSize     = -1;
+  private boolean                     orderedByIndex        = false;
   private OIdentifiable               lastRecord;
   private Iterator<OIdentifiable>     subIterator;
+  private List<String>                groupByFields;
+  private Map<List<Object>, OGroup>   groups;
+  private int                         parsedSkip;
+  private boolean                     reusable              = false;
 
   /**
    * Compile the filter conditions only the first time.
@@ -125,6 +149,8 @@ public class OCommandExecutorSQLSelect extends OCommandExecutorSQLResultsetAbstr
 
           if (w.equals(KEYWORD_ORDER))
             parseOrderBy(w);
+          else if (w.equals(KEYWORD_GROUP))
+            parseGroupBy(w);
           else if (w.equals(KEYWORD_LIMIT))
             parseLimit(w);
           else if (w.equals(KEYWORD_SKIP))
@@ -138,9 +164,64 @@ public class OCommandExecutorSQLSelect extends OCommandExecutorSQLResultsetAbstr
       throw new IllegalArgumentException("Limit must be > 0 or = -1 (no limit)");
     }
 
+    parsedSkip = skip;
+
+    // THE EXECUTOR CAN BE REUSED ONLY IF ITS PARSED STATE DOESN'T DEPEND ON THE EXECUTION: THE TARGET MUST BE A CLASS OR A CLUSTER
+    // AND THE CONDITIONS CAN'T CONTAIN SUB-QUERIES NOR FUNCTIONS, BECAUSE THEY ARE REPLACED BY THEIR RESULT AT THE FIRST EVALUATION
+    // OR, AS SYSDATE(), AT PARSING TIME
+    reusable = flattenTarget == null
+        && (compiledFilter.getTargetClasses() != null || compiledFilter.getTargetClusters() != null) && !precalculated
+        && !containsSubQueryOrFunction(compiledFilter.getRootCondition());
+
     return this;
   }
 
+  @Override
+  public boolean isReusable() {
+    return reusable;
+  }
+
+  @Override
+  public void reset(final OCommandRequest iRequest) {
+    target = null;
+    tempResult = null;
+    resultCount = 0;
+    skip = parsedSkip;
+    parameters = null;
+    fetchLimit = -1;
+    orderedResult = null;
+    orderedResultSize = -1;
+    orderedByIndex = false;
+    lastRecord = null;
+    subIterator = null;
+    groups = null;
+    request = null;
+    context = null;
+
+    if (iRequest == null)
+      return;
+
+    getDatabase().checkSecurity(ODatabaseSecurityResources.COMMAND, ORole.PERMISSION_READ);
+    bindRequest((OCommandRequestText) iRequest);
+    context = new OBasicCommandContext();
+
+    if (projectionDefinition != null) {
+      // THE FUNCTIONS KEEP THE STATE OF THE LAST EXECUTION: PARSE THEM AGAIN
+      projections = new LinkedHashMap<String, Object>();
+      anyFunctionAggregates = false;
+
+      Object projectionValue;
+      for (Entry<String, String> projection : projectionDefinition.entrySet()) {
+        projectionValue = OSQLHelper.parseValue(this, projection.getValue(), context);
+        projections.put(projection.getKey(), projectionValue);
+
+        if (!anyFunctionAggregates && projectionValue instanceof OSQLFunctionRuntime
+            && ((OSQLFunctionRuntime) projectionValue).aggregateResults())
+          anyFunctionAggregates = true;
+      }
+    }
+  }
+
   public boolean hasNext() {
     if (lastRecord == null)
       // GET THE NEXT
@@ -194,6 +275,7 @@ public class OCommandExecutorSQLSelect extends OCommandExecutorSQLResultsetAbstr
   public Object execute(final Map<Object, Object> iArgs) {
     if (!optimizeExecution()) {
       fetchLimit = getQueryFetchLimit();
+      initOrderedResult();
 
       executeSearch(iArgs);
       applyFlatten();
@@ -205,18 +287,59 @@ public class OCommandExecutorSQLSelect extends OCommandExecutorSQLResultsetAbstr
   }
 
   protected void executeSearch(final Map<Object, Object> iArgs) {
+    if (groupByFields != null)
+      groups = new LinkedHashMap<List<Object>, OGroup>();
+
     assignTarget(iArgs);
 
     if (target == null)
       // SEARCH WITHOUT USING TARGET (USUALLY WHEN INDEXES ARE INVOLVED)
       return;
 
+    final OSQLParallelScan parallelScan = createParallelScan();
+    if (parallelScan != null) {
+      // THE WORKERS LOAD THE RECORDS AND EVALUATE THE CONDITIONS, THE RECORDS THAT MATCH ARE HANDLED HERE IN THE ORIGINAL ORDER
+      try {
+        for (OIdentifiable record : parallelScan)
+          if (!handleResult(record))
+            break;
+      } finally {
+        parallelScan.close();
+      }
+      return;
+    }
+
     // BROWSE ALL THE RECORDS
     for (OIdentifiable id : target)
       if (!executeSearchRecord(id))
         break;
   }
 
+  /**
+   * Returns the parallel scan of the target clusters when it's enabled and the clusters are big enough, otherwise null.
+   */
+  protected OSQLParallelScan createParallelScan() {
+    if (!OGlobalConfiguration.QUERY_PARALLEL_SCAN.getValueAsBoolean() || !(target instanceof ORecordIteratorClusters<?>)
+        || !(getDatabase() instanceof ODatabaseRecordTx) || compiledFilter == null || compiledFilter.getRootCondition() == null)
+      return null;
+
+    final ODatabaseRecordTx db = (ODatabaseRecordTx) getDatabase();
+    if (!(db.getStorage() instanceof OStorageEmbedded) || db.getTransaction().isActive())
+      // REMOTE STORAGES AND PENDING CHANGES OF THE TRANSACTION ARE NOT VISIBLE TO THE WORKERS
+      return null;
+
+    final ORecordIteratorClusters<?> iterator = (ORecordIteratorClusters<?>) target;
+    if (iterator.getBeginRange() != null || iterator.getEndRange() != null || !isParallelizable(compiledFilter.getRootCondition()))
+      return null;
+
+    final int threads = OGlobalConfiguration.QUERY_PARALLEL_SCAN_THREADS.getValueAsInteger();
+    if (threads < 2
+        || db.countClusterElements(iterator.getClusterIds()) < OGlobalConfiguration.QUERY_PARALLEL_SCAN_THRESHOLD.getValueAsInteger())
+      return null;
+
+    return new OSQLParallelScan(this, db, iterator.getClusterIds(), threads);
+  }
+
   @Override
   protected boolean assignTarget(Map<Object, Object> iArgs) {
     if (!super.assignTarget(iArgs)) {
@@ -247,6 +370,10 @@ public class OCommandExecutorSQLSelect extends OCommandExecutorSQLResultsetAbstr
   protected boolean handleResult(final OIdentifiable iRecord) {
     lastRecord = null;
 
+    if (groups != null)
+      // GROUP BY: SKIP AND LIMIT ARE APPLIED TO THE GROUPS AT THE END
+      return addToGroup(iRecord);
+
     if (orderedFields == null && skip > 0) {
       skip--;
       return true;
@@ -263,12 +390,21 @@ public class OCommandExecutorSQLSelect extends OCommandExecutorSQLResultsetAbstr
       // BREAK THE EXECUTION
       return false;
 
+    if (orderedByIndex && resultCount >= orderedResultSize)
+      // RECORDS ARE BROWSED IN ORDER: THE NEXT ONES CAN'T BE PART OF THE RESULT
+      return false;
+
     return true;
   }
 
   protected void addResult(final OIdentifiable iRecord) {
     if (iRecord != null)
-      if (anyFunctionAggregates || orderedFields != null || flattenTarget != null) {
+      if (orderedResult != null) {
+        // ORDER BY WITH LIMIT: KEEP ONLY THE FIRST SKIP+LIMIT RECORDS, THE HEAD OF THE QUEUE IS THE LAST ONE
+        orderedResult.offer(iRecord);
+        if (orderedResult.size() > orderedResultSize)
+          orderedResult.poll();
+      } else if (anyFunctionAggregates || orderedFields != null || flattenTarget != null) {
         // ORDER BY CLAUSE: COLLECT ALL THE RECORDS AND ORDER THEM AT THE END
         if (tempResult == null)
           tempResult = new ArrayList<OIdentifiable>();
@@ -281,8 +417,21 @@ public class OCommandExecutorSQLSelect extends OCommandExecutorSQLResultsetAbstr
       }
   }
 
+  /**
+   * Bounds the records kept in memory when the result is ordered and limited: only the first skip+limit records are needed, so
+   * they are collected in a priority queue that discards the last one every time it overflows.
+   */
+  private void initOrderedResult() {
+    if (orderedFields == null || limit < 0 || anyFunctionAggregates || flattenTarget != null || groupByFields != null)
+      return;
+
+    orderedResultSize = skip + limit;
+    orderedResult = new PriorityQueue<OIdentifiable>(orderedResultSize + 1, Collections.reverseOrder(new ODocumentComparator(
+        orderedFields)));
+  }
+
   private int getQueryFetchLimit() {
-    if (orderedFields != null) {
+    if (orderedFields != null || groupByFields != null) {
       return -1;
     }
 
@@ -316,6 +465,21 @@ public class OCommandExecutorSQLSelect extends OCommandExecutorSQLResultsetAbstr
     return orderedFields;
   }
 
+  protected void parseGroupBy(final String w) {
+    parserRequiredKeyword(KEYWORD_BY);
+
+    groupByFields = new ArrayList<String>();
+    while (!parserIsEnded() && (groupByFields.size() == 0 || parserGetLastSeparator() == ','))
+      groupByFields.add(parserRequiredWord(false, "Field name expected"));
+
+    if (groupByFields.size() == 0)
+      throwParsingException("Group by field set was missed. Example: GROUP BY city, country");
+  }
+
+  public List<String> getGroupByFields() {
+    return groupByFields;
+  }
+
   protected void parseOrderBy(final String w) {
     parserRequiredKeyword(KEYWORD_BY);
 
@@ -358,10 +522,77 @@ public class OCommandExecutorSQLSelect extends OCommandExecutorSQLResultsetAbstr
 
     if (searchForIndexes(cls))
       OProfiler.getInstance().updateCounter("Query.indexUsage", 1);
+    else if (searchForOrderedIndex(cls))
+      OProfiler.getInstance().updateCounter("Query.indexOrderUsage", 1);
     else
       super.searchInClasses();
   }
 
+  /**
+   * Browses the class in the order of the index on the ORDER BY field if any, so the execution stops as soon as the first
+   * skip+limit records are found. The index is used only if it contains all the records of the class, otherwise the records with
+   * null values would be lost. Only the indexes with one value per key are used: their size is known without browsing them and
+   * there are no ties whose order could differ from the one of the sort.
+   */
+  private boolean searchForOrderedIndex(final OClass iSchemaClass) {
+    if (orderedResult == null || orderedFields.size() != 1)
+      return false;
+
+    final ORID[] range = getRange();
+    if (range[0] != null || range[1] != null)
+      return false;
+
+    final ODatabaseRecord database = getDatabase();
+    if (database.getTransaction().isActive())
+      // THE INDEXES DON'T CONTAIN THE CHANGES OF THE CURRENT TRANSACTION
+      return false;
+
+    final String fieldName = orderedFields.get(0).getKey();
+    if (projections != null) {
+      // THE ORDER BY FIELD MUST BE THE PROJECTED FIELD ITSELF
+      final Object projection = projections.get(fieldName);
+      if (!(projection instanceof OSQLFilterItemField))
+        return false;
+      final OSQLFilterItemField field = (OSQLFilterItemField) projection;
+      if (!field.getRoot().equals(fieldName) || !field.isFieldChain() || field.getFieldChain().getItemCount() != 1)
+        return false;
+    }
+
+    for (final OIndex<?> index : iSchemaClass.getInvolvedIndexes(fieldName)) {
+      final OIndexDefinition definition = index.getDefinition();
+      if (!(definition instanceof OPropertyIndexDefinition) || definition instanceof OIndexDefinitionMultiValue
+          || !iSchemaClass.getName().equals(definition.getClassName()) || !definition.getFields().get(0).equals(fieldName)
+          || !(index.getInternal() instanceof OIndexOneValue) || !index.getInternal().canBeUsedInRangeOperators())
+        continue;
+
+      if (index.getSize() != iSchemaClass.count())
+        continue;
+
+      final boolean ascending = KEYWORD_ASC.equals(orderedFields.get(0).getValue());
+      target = new Iterable<OIdentifiable>() {
+        public Iterator<OIdentifiable> iterator() {
+          final OIndexCursor cursor = index.cursor(null, false, null, false, ascending);
+          return new Iterator<OIdentifiable>() {
+            public boolean hasNext() {
+              return cursor.hasNext();
+            }
+
+            public OIdentifiable next() {
+              return cursor.next().getValue();
+            }
+
+            public void remove() {
+              throw new UnsupportedOperationException("remove()");
+            }
+          };
+        }
+      };
+      orderedByIndex = true;
+      return true;
+    }
+    return false;
+  }
+
   @SuppressWarnings("rawtypes")
   private boolean searchForIndexes(final OClass iSchemaClass) {
     final ODatabaseRecord database = getDatabase();
@@ -413,7 +644,7 @@ public class OCommandExecutorSQLSelect extends OCommandExecutorSQLResultsetAbstr
 
         INDEX_OPERATION_TYPE opType = null;
 
-        if (projections != null && projections.size() == 1) {
+        if (projections != null && projections.size() == 1 && groupByFields == null) {
           final Object v = projections.values().iterator().next();
           if (v instanceof OSQLFunctionRuntime && ((OSQLFunctionRuntime) v).getFunction() instanceof OSQLFunctionCount)
             // OPTIMIZATION: JUST COUNT IT
@@ -579,6 +810,7 @@ public class OCommandExecutorSQLSelect extends OCommandExecutorSQLResultsetAbstr
     if (projectionString.length() > 0 && !projectionString.equals("*")) {
       // EXTRACT PROJECTIONS
       projections = new LinkedHashMap<String, Object>();
+      projectionDefinition = new LinkedHashMap<String, String>();
       final List<String> items = OStringSerializerHelper.smartSplit(projectionString, ',');
 
       String fieldName;
@@ -634,6 +866,7 @@ public class OCommandExecutorSQLSelect extends OCommandExecutorSQLResultsetAbstr
 
         projectionValue = OSQLHelper.parseValue(this, projection, context);
         projections.put(fieldName, projectionValue);
+        projectionDefinition.put(fieldName, projection);
 
         if (!anyFunctionAggregates && projectionValue instanceof OSQLFunctionRuntime
             && ((OSQLFunctionRuntime) projectionValue).aggregateResults())
@@ -675,8 +908,12 @@ public class OCommandExecutorSQLSelect extends OCommandExecutorSQLResultsetAbstr
     if (orderedFields == null)
       return;
 
+    if (orderedResult != null) {
+      tempResult = new ArrayList<OIdentifiable>(orderedResult);
+      orderedResult = null;
+    }
+
     ODocumentHelper.sort(getResult(), orderedFields);
-    orderedFields.clear();
   }
 
   /**
@@ -779,35 +1016,25 @@ public class OCommandExecutorSQLSelect extends OCommandExecutorSQLResultsetAbstr
       final OQueryOperator indexOperator = compiledFilter.getRootCondition().getOperator();
       if (indexOperator instanceof OQueryOperatorBetween) {
         final Object[] values = (Object[]) compiledFilter.getRootCondition().getRight();
-        final Collection<ODocument> entries = index.getEntriesBetween(getIndexKey(index.getDefinition(), values[0]),
-            getIndexKey(index.getDefinition(), values[2]));
-
-        for (final OIdentifiable r : entries) {
-          final boolean continueResultParsing = handleResult(r);
-          if (!continueResultParsing)
-            break;
-        }
+        parseIndexSearchResult(index.cursor(getIndexKey(index.getDefinition(), values[0]), true,
+            getIndexKey(index.getDefinition(), values[2]), true, true));
 
       } else if (indexOperator instanceof OQueryOperatorMajor) {
         final Object value = compiledFilter.getRootCondition().getRight();
-        final Collection<ODocument> entries = index.getEntriesMajor(getIndexKey(index.getDefinition(), value), false);
+        parseIndexSearchResult(index.cursor(getIndexKey(index.getDefinition(), value), false, null, false, true));
 
-        parseIndexSearchResult(entries);
       } else if (indexOperator instanceof OQueryOperatorMajorEquals) {
         final Object value = compiledFilter.getRootCondition().getRight();
-        final Collection<ODocument> entries = index.getEntriesMajor(getIndexKey(index.getDefinition(), value), true);
+        parseIndexSearchResult(index.cursor(getIndexKey(index.getDefinition(), value), true, null, false, true));
 
-        parseIndexSearchResult(entries);
       } else if (indexOperator instanceof OQueryOperatorMinor) {
         final Object value = compiledFilter.getRootCondition().getRight();
-        final Collection<ODocument> entries = index.getEntriesMinor(getIndexKey(index.getDefinition(), value), false);
+        parseIndexSearchResult(index.cursor(null, false, getIndexKey(index.getDefinition(), value), false, true));
 
-        parseIndexSearchResult(entries);
       } else if (indexOperator instanceof OQueryOperatorMinorEquals) {
         final Object value = compiledFilter.getRootCondition().getRight();
-        final Collection<ODocument> entries = index.getEntriesMinor(getIndexKey(index.getDefinition(), value), true);
+        parseIndexSearchResult(index.cursor(null, false, getIndexKey(index.getDefinition(), value), true, true));
 
-        parseIndexSearchResult(entries);
       } else if (indexOperator instanceof OQueryOperatorIn) {
         final List<Object> origValues = (List<Object>) compiledFilter.getRootCondition().getRight();
         final List<Object> values = new ArrayList<Object>(origValues.size());
@@ -961,6 +1188,19 @@ public class OCommandExecutorSQLSelect extends OCommandExecutorSQLResultsetAbstr
     }
   }
 
+  /**
+   * Browses the cursor creating the documents of the entries only while the result is accepted.
+   */
+  protected void parseIndexSearchResult(final OIndexCursor iCursor) {
+    while (iCursor.hasNext()) {
+      final Entry<Object, OIdentifiable> entry = iCursor.next();
+      final boolean continueResultParsing = handleResult(createIndexEntryAsDocument(entry.getKey(), entry.getValue()
+          .getIdentity()));
+      if (!continueResultParsing)
+        break;
+    }
+  }
+
   private static ODocument createIndexEntryAsDocument(final Object iKey, final OIdentifiable iValue) {
     final ODocument doc = new ODocument().setOrdered(true);
     doc.field("key", iKey);
@@ -969,8 +1209,42 @@ public class OCommandExecutorSQLSelect extends OCommandExecutorSQLResultsetAbstr
     return doc;
   }
 
+  /**
+   * Adds the record to the group of its GROUP BY values, creating the group the first time. Only the state of the aggregate
+   * functions is kept for every group, not the records.
+   */
+  private boolean addToGroup(final OIdentifiable iRecord) {
+    final ODocument doc = iRecord.getRecord();
+
+    final List<Object> key = new ArrayList<Object>(groupByFields.size());
+    for (String field : groupByFields)
+      key.add(ODocumentHelper.getFieldValue(doc, field));
+
+    OGroup group = groups.get(key);
+    if (group == null) {
+      final int maxGroups = OGlobalConfiguration.QUERY_GROUPBY_MAX_GROUPS.getValueAsInteger();
+      if (maxGroups > -1 && groups.size() >= maxGroups)
+        throw new OCommandExecutionException("GROUP BY exceeded the maximum number of groups (" + maxGroups
+            + "). Increase it with the setting '" + OGlobalConfiguration.QUERY_GROUPBY_MAX_GROUPS.getKey() + "'");
+
+      group = new OGroup(doc);
+      groups.put(key, group);
+    }
+
+    group.aggregate(doc);
+    resultCount++;
+    return true;
+  }
+
   private void applyProjections() {
-    if (anyFunctionAggregates) {
+    if (groups != null) {
+      // ONE RESULT PER GROUP: ORDER BY, SKIP AND LIMIT ARE APPLIED AFTERWARDS LIKE FOR RECORDS
+      tempResult = new ArrayList<OIdentifiable>(groups.size());
+      for (OGroup group : groups.values())
+        tempResult.add(group.toDocument(tempResult.size()));
+      groups = null;
+
+    } else if (anyFunctionAggregates) {
       // EXECUTE AGGREGATIONS
       Object value;
       final ODocument result = new ODocument().setOrdered(true);
@@ -990,6 +1264,31 @@ public class OCommandExecutorSQLSelect extends OCommandExecutorSQLResultsetAbstr
     }
   }
 
+  private static boolean containsSubQueryOrFunction(final Object iItem) {
+    if (iItem instanceof OSQLQuery<?> || iItem instanceof OSQLFunctionRuntime)
+      return true;
+
+    if (iItem instanceof OSQLFilterCondition)
+      return containsSubQueryOrFunction(((OSQLFilterCondition) iItem).getLeft())
+          || containsSubQueryOrFunction(((OSQLFilterCondition) iItem).getRight());
+
+    return false;
+  }
+
+  /**
+   * Sub-queries and functions can keep a state between the evaluations, so they are evaluated only by the caller thread.
+   */
+  private static boolean isParallelizable(final Object iItem) {
+    if (iItem instanceof OSQLQuery<?> || iItem instanceof OSQLFunctionRuntime)
+      return false;
+
+    if (iItem instanceof OSQLFilterCondition)
+      return isParallelizable(((OSQLFilterCondition) iItem).getLeft())
+          && isParallelizable(((OSQLFilterCondition) iItem).getRight());
+
+    return true;
+  }
+
   private static boolean checkIndexExistence(OClass iSchemaClass, OIndexSearchResult result) {
     if (!iSchemaClass.areIndexed(result.fields())) {
       return false;
@@ -1012,11 +1311,12 @@ public class OCommandExecutorSQLSelect extends OCommandExecutorSQLResultsetAbstr
 
   @Override
   public String getSyntax() {
-    return "SELECT [<Projections>] FROM <Target> [WHERE <Condition>*] [ORDER BY <Fields>* [ASC|DESC]*] [LIMIT <MaxRecords>]";
+    return "SELECT [<Projections>] FROM <Target> [WHERE <Condition>*] [GROUP BY <Fields>*] [ORDER BY <Fields>* [ASC|DESC]*] [LIMIT <MaxRecords>]";
   }
 
   protected boolean optimizeExecution() {
-    if (compiledFilter != null & compiledFilter.getRootCondition() == null && projections != null && projections.size() == 1) {
+    if (compiledFilter != null & compiledFilter.getRootCondition() == null && projections != null && projections.size() == 1
+        && groupByFields == null) {
       final Map.Entry<String, Object> entry = projections.entrySet().iterator().next();
 
       if (entry.getValue() instanceof OSQLFunctionRuntime) {
@@ -1047,6 +1347,69 @@ public class OCommandExecutorSQLSelect extends OCommandExecutorSQLResultsetAbstr
     return false;
   }
 
+  /**
+   * State of a GROUP BY group: the aggregate functions are private copies parsed again from the projection, while the other
+   * projections are evaluated against the first record of the group. Without projections the group returns its first record.
+   */
+  private class OGroup {
+    private final ODocument                        first;
+    private final Map<String, Object>              values;
+    private final Map<String, OSQLFunctionRuntime> aggregates;
+
+    private OGroup(final ODocument iFirst) {
+      if (projections == null) {
+        first = iFirst.copy();
+        values = null;
+        aggregates = null;
+        return;
+      }
+
+      first = null;
+      values = new HashMap<String, Object>();
+      aggregates = new HashMap<String, OSQLFunctionRuntime>();
+
+      for (Entry<String, Object> projection : projections.entrySet()) {
+        final Object v = projection.getValue();
+        if (v instanceof OSQLFunctionRuntime && ((OSQLFunctionRuntime) v).aggregateResults())
+          aggregates.put(projection.getKey(), (OSQLFunctionRuntime) OSQLHelper.parseValue(OCommandExecutorSQLSelect.this,
+              projectionDefinition.get(projection.getKey()), context));
+        else if (v instanceof OSQLFilterItemField)
+          values.put(projection.getKey(), ((OSQLFilterItemField) v).getValue(iFirst, null));
+        else if (v instanceof OSQLFunctionRuntime)
+          values.put(projection.getKey(), ((OSQLFunctionRuntime) v).execute(iFirst, OCommandExecutorSQLSelect.this));
+        else if (v.toString().startsWith("$"))
+          values.put(projection.getKey(), context != null ? context.getVariable(v.toString().substring(1)) : null);
+        else
+          values.put(projection.getKey(), v);
+      }
+    }
+
+    private void aggregate(final ODocument iRecord) {
+      if (aggregates != null)
+        for (OSQLFunctionRuntime f : aggregates.values())
+          f.execute(iRecord, OCommandExecutorSQLSelect.this);
+    }
+
+    private ODocument toDocument(final int iPosition) {
+      if (first != null)
+        return first;
+
+      final ODocument result = new ODocument().setOrdered(true);
+
+      // ASSIGN A TEMPORARY RID TO ALLOW PAGINATION IF ANY
+      ((ORecordId) result.getIdentity()).clusterId = -2;
+      ((ORecordId) result.getIdentity()).clusterPosition = iPosition;
+
+      for (String name : projections.keySet()) {
+        final OSQLFunctionRuntime f = aggregates.get(name);
+        final Object value = f != null ? f.getResult() : values.get(name);
+        if (value != null)
+          result.field(name, value);
+      }
+      return result;
+    }
+  }
+
   private static class IndexComparator implements Comparator<OIndex<?>> {
     private static final IndexComparator INSTANCE = new IndexComparator();
 
@@ -18,7 +18,9 @@ import com.orientechnologies.orient.core.db.record.ODatabaseRecord;
 import com.orientechnologies.orient.core.db.record.OIdentifiable;
 import com.orientechnologies.orient.core.id.ORID;
 import com.orientechnologies.orient.core.index.OIndex;
+import com.orientechnologies.orient.core.index.OIndexCursor;
 import com.orientechnologies.orient.core.index.OIndexDefinition;
+import com.orientechnologies.orient.core.index.OIndexHashUnique;
 import com.orientechnologies.orient.core.index.OIndexInternal;
 import com.orientechnologies.orient.core.index.OIndexNotUnique;
 import com.orientechnologies.orient.core.index.OIndexOneValue;
@@ -88,7 +90,7 @@ public class OIndexProxy<T> implements OIndex<T> {
     final Object result = lastIndex.get(iKey);
 
     final Collection<T> resultSet = applyTailIndexes(result, -1);
-    if (getInternal() instanceof OIndexOneValue && resultSet.size() == 1) {
+    if ((getInternal() instanceof OIndexOneValue || getInternal() instanceof OIndexHashUnique) && resultSet.size() == 1) {
       return resultSet.iterator().next();
     } else {
       return (T) resultSet;
@@ -403,6 +405,10 @@ public class OIndexProxy<T> implements OIndex<T> {
     throw new UnsupportedOperationException("Not allowed operation");
   }
 
+  public OIndexCursor cursor(Object iRangeFrom, boolean iFromInclusive, Object iRangeTo, boolean iToInclusive, boolean iAscending) {
+    throw new UnsupportedOperationException("Not allowed operation");
+  }
+
   public Collection<ODocument> getEntries(Collection<?> iKeys) {
     throw new UnsupportedOperationException("Not allowed operation");
   }
@@ -0,0 +1,228 @@
+/*
+ * Copyright 2010-2012 Luca Garulli (l.garulli--at--orientechnologies.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.orientechnologies.orient.core.sql;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.orientechnologies.common.profiler.OProfiler;
+import com.orientechnologies.orient.core.command.OBasicCommandContext;
+import com.orientechnologies.orient.core.db.ODatabaseRecordThreadLocal;
+import com.orientechnologies.orient.core.db.record.ODatabaseRecordTx;
+import com.orientechnologies.orient.core.db.record.OIdentifiable;
+import com.orientechnologies.orient.core.exception.OCommandExecutionException;
+import com.orientechnologies.orient.core.id.ORecordId;
+import com.orientechnologies.orient.core.iterator.ORecordIteratorClusters;
+import com.orientechnologies.orient.core.record.ORecordInternal;
+import com.orientechnologies.orient.core.record.impl.ODocument;
+
+/**
+ * Scans the clusters of a query in parallel. The clusters are split in chunks of positions: every worker thread opens its own
+ * database instance, takes the next chunk to scan and keeps the documents that satisfy the conditions. The iterator returns the
+ * documents already loaded and filtered chunk by chunk in the order of the clusters, so the caller thread handles the results like
+ * a sequential scan does without reading them again. The workers scan at most a few chunks ahead of the caller to bound the memory
+ * used. Closing the scan stops the workers, for example when the limit has been reached.
+ *
+ * @author Luca Garulli
+ *
+ */
+public class OSQLParallelScan implements Iterable<OIdentifiable> {
+  private static final int                          MIN_CHUNK_SIZE = 1000;
+  private static ExecutorService                    executor;
+
+  private final OCommandExecutorSQLResultsetAbstract command;
+  private final ODatabaseRecordTx                   database;
+  private final List<long[]>                        chunks         = new ArrayList<long[]>();
+  private final List<?>[]                           results;
+  private final AtomicInteger                       nextChunk      = new AtomicInteger();
+  private final int                                 threads;
+  private int                                       consumedChunks = 0;
+  private volatile boolean                          closed         = false;
+  private Throwable                                 error;
+
+  public OSQLParallelScan(final OCommandExecutorSQLResultsetAbstract iCommand, final ODatabaseRecordTx iDatabase,
+      final int[] iClusterIds, final int iThreads) {
+    command = iCommand;
+    database = iDatabase;
+
+    long positions = 0;
+    final List<long[]> ranges = new ArrayList<long[]>();
+    for (int clusterId : iClusterIds) {
+      final long[] range = database.getStorage().getClusterDataRange(clusterId);
+      if (range[0] > -1 && range[1] >= range[0]) {
+        ranges.add(new long[] { clusterId, range[0], range[1] });
+        positions += range[1] - range[0] + 1;
+      }
+    }
+
+    // FEW CHUNKS PER THREAD TO BALANCE THE LOAD WITHOUT TOO MUCH OVERHEAD
+    final long chunkSize = Math.max(MIN_CHUNK_SIZE, positions / (iThreads * 4));
+    for (long[] range : ranges)
+      for (long begin = range[1]; begin <= range[2]; begin += chunkSize)
+        chunks.add(new long[] { range[0], begin, Math.min(begin + chunkSize - 1, range[2]) });
+
+    results = new List<?>[chunks.size()];
+    threads = Math.min(iThreads, chunks.size());
+  }
+
+  public Iterator<OIdentifiable> iterator() {
+    OProfiler.getInstance().updateCounter("Query.parallelScan", +1);
+
+    for (int i = 0; i < threads; ++i)
+      getExecutor().execute(new Runnable() {
+        public void run() {
+          scan();
+        }
+      });
+
+    return new Iterator<OIdentifiable>() {
+      private int                     chunk = -1;
+      private Iterator<?>             current;
+
+      public boolean hasNext() {
+        while (current == null || !current.hasNext()) {
+          if (chunk > -1)
+            releaseChunk(chunk);
+          if (++chunk >= results.length)
+            return false;
+          current = waitForChunk(chunk).iterator();
+        }
+        return true;
+      }
+
+      public OIdentifiable next() {
+        if (!hasNext())
+          throw new NoSuchElementException();
+        return (OIdentifiable) current.next();
+      }
+
+      public void remove() {
+        throw new UnsupportedOperationException("remove()");
+      }
+    };
+  }
+
+  /**
+   * Stops the workers. The chunks not yet scanned are skipped.
+   */
+  public void close() {
+    synchronized (this) {
+      closed = true;
+      notifyAll();
+    }
+  }
+
+  private synchronized List<?> waitForChunk(final int iChunk) {
+    try {
+      while (results[iChunk] == null) {
+        if (error != null)
+          throw new OCommandExecutionException("Error on parallel scan of the clusters", error);
+        wait();
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      close();
+      throw new OCommandExecutionException("Parallel scan of the clusters interrupted");
+    }
+    return results[iChunk];
+  }
+
+  /**
+   * Frees the records of a chunk handled by the caller, letting the workers scan the next ones.
+   */
+  private synchronized void releaseChunk(final int iChunk) {
+    results[iChunk] = null;
+    consumedChunks = iChunk + 1;
+    notifyAll();
+  }
+
+  /**
+   * Waits until the caller is near enough to the chunk to scan.
+   * 
+   * @return false if the scan has been closed in the meanwhile
+   */
+  private synchronized boolean waitForRoom(final int iChunk) throws InterruptedException {
+    while (!closed && iChunk - consumedChunks >= threads * 2)
+      wait();
+    return !closed;
+  }
+
+  private void scan() {
+    ODatabaseRecordTx db = null;
+    try {
+      db = database.copy();
+
+      final OBasicCommandContext context = new OBasicCommandContext();
+      context.merge(command.getContext());
+
+      int chunk;
+      while (!closed && (chunk = nextChunk.getAndIncrement()) < results.length) {
+        if (!waitForRoom(chunk))
+          break;
+
+        final long[] range = chunks.get(chunk);
+        final int clusterId = (int) range[0];
+
+        final List<OIdentifiable> found = new ArrayList<OIdentifiable>();
+        final Iterator<ORecordInternal<?>> it = new ORecordIteratorClusters<ORecordInternal<?>>(db, db, new int[] { clusterId })
+            .setRange(new ORecordId(clusterId, range[1]), new ORecordId(clusterId, range[2]));
+
+        while (!closed && it.hasNext()) {
+          final ORecordInternal<?> record = it.next();
+          if (record.getRecordType() == ODocument.RECORD_TYPE && command.filter(record, context))
+            found.add(record);
+        }
+
+        // THE MATCHING RECORDS ARE PASSED TO THE CALLER: DON'T KEEP THE OTHERS IN MEMORY
+        db.getLevel1Cache().invalidate();
+
+        synchronized (this) {
+          results[chunk] = found;
+          notifyAll();
+        }
+      }
+    } catch (Throwable t) {
+      synchronized (this) {
+        error = t;
+        notifyAll();
+      }
+    } finally {
+      if (db != null)
+        db.close();
+      ODatabaseRecordThreadLocal.INSTANCE.remove();
+    }
+  }
+
+  private static synchronized ExecutorService getExecutor() {
+    if (executor == null)
+      executor = Executors.newCachedThreadPool(new ThreadFactory() {
+        private final AtomicInteger counter = new AtomicInteger();
+
+        public Thread newThread(final Runnable iRunnable) {
+          final Thread thread = new Thread(iRunnable, "OrientDB ParallelScan-" + counter.incrementAndGet());
+          thread.setDaemon(true);
+          return thread;
+        }
+      });
+    return executor;
+  }
+}
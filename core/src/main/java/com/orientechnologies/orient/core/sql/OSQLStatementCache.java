@@ -0,0 +1,122 @@
+/*
+ * Copyright 2010-2012 Luca Garulli (l.garulli--at--orientechnologies.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.orientechnologies.orient.core.sql;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.orientechnologies.common.profiler.OProfiler;
+import com.orientechnologies.orient.core.command.OCommandRequest;
+import com.orientechnologies.orient.core.config.OGlobalConfiguration;
+import com.orientechnologies.orient.core.db.record.ODatabaseRecord;
+
+/**
+ * Keeps the parsed executors of the most used statements to avoid parsing the same text at every execution. An executor is
+ * acquired exclusively, executed with the parameters of the new request and released back to the cache. Every change to the schema
+ * or to the indexes invalidates the whole cache, because the executors keep references to classes and indexes.
+ * 
+ * @author Luca Garulli
+ * 
+ */
+public class OSQLStatementCache {
+  private static final int                                         MAX_IDLE_PER_STATEMENT = 8;
+  private static final OSQLStatementCache                          INSTANCE               = new OSQLStatementCache();
+
+  private final Map<String, List<OCommandExecutorSQLAbstract>>     cache;
+  private volatile int                                             version                = 0;
+
+  @SuppressWarnings("serial")
+  protected OSQLStatementCache() {
+    cache = new LinkedHashMap<String, List<OCommandExecutorSQLAbstract>>(16, 0.75f, true) {
+      @Override
+      protected boolean removeEldestEntry(final Map.Entry<String, List<OCommandExecutorSQLAbstract>> iEldest) {
+        return size() > OGlobalConfiguration.QUERY_PARSED_CACHE_SIZE.getValueAsInteger();
+      }
+    };
+  }
+
+  public static OSQLStatementCache instance() {
+    return INSTANCE;
+  }
+
+  /**
+   * Returns the key of the statement, or null if the cache is disabled.
+   */
+  public static String getKey(final ODatabaseRecord iDatabase, final OCommandRequest iRequest, final String iText) {
+    if (OGlobalConfiguration.QUERY_PARSED_CACHE_SIZE.getValueAsInteger() <= 0)
+      return null;
+    return iDatabase.getURL() + "|" + iRequest.getLimit() + "|" + iText;
+  }
+
+  /**
+   * Removes an idle executor of the statement from the cache.
+   * 
+   * @return The executor already parsed, or null if there is no idle executor
+   */
+  public synchronized OCommandExecutorSQLAbstract acquire(final String iKey) {
+    final List<OCommandExecutorSQLAbstract> idle = cache.get(iKey);
+    if (idle == null || idle.isEmpty()) {
+      OProfiler.getInstance().updateCounter("Query.parsedCache.miss", +1);
+      return null;
+    }
+
+    OProfiler.getInstance().updateCounter("Query.parsedCache.hit", +1);
+    return idle.remove(idle.size() - 1);
+  }
+
+  /**
+   * Gives back an executor after its execution. The executor is discarded if the cache has been invalidated since its parsing.
+   * 
+   * @param iVersion
+   *          Version of the cache when the executor has been parsed
+   */
+  public void release(final String iKey, final OCommandExecutorSQLAbstract iExecutor, final int iVersion) {
+    // DON'T KEEP THE RESULT OF THE LAST EXECUTION IN MEMORY
+    iExecutor.reset(null);
+
+    synchronized (this) {
+      if (iVersion != version)
+        return;
+
+      List<OCommandExecutorSQLAbstract> idle = cache.get(iKey);
+      if (idle == null) {
+        idle = new ArrayList<OCommandExecutorSQLAbstract>();
+        cache.put(iKey, idle);
+      }
+
+      if (idle.size() < MAX_IDLE_PER_STATEMENT)
+        idle.add(iExecutor);
+    }
+  }
+
+  /**
+   * Discards all the executors. Called on every change of the schema and the indexes.
+   */
+  public synchronized void invalidate() {
+    version++;
+    cache.clear();
+  }
+
+  public int getVersion() {
+    return version;
+  }
+
+  public synchronized int size() {
+    return cache.size();
+  }
+}
@@ -0,0 +1,436 @@
+/*
+ * Copyright 2010-2012 Luca Garulli (l.garulli--at--orientechnologies.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.orientechnologies.orient.core.sql.filter;
+
+import java.math.BigDecimal;
+import java.util.Collection;
+import java.util.Date;
+import java.util.Map;
+
+import com.orientechnologies.orient.core.command.OCommandContext;
+import com.orientechnologies.orient.core.db.record.OIdentifiable;
+import com.orientechnologies.orient.core.db.record.ORecordElement;
+import com.orientechnologies.orient.core.id.ORID;
+import com.orientechnologies.orient.core.metadata.schema.OClass;
+import com.orientechnologies.orient.core.metadata.schema.OProperty;
+import com.orientechnologies.orient.core.metadata.schema.OType;
+import com.orientechnologies.orient.core.record.ORecord;
+import com.orientechnologies.orient.core.record.impl.ODocument;
+import com.orientechnologies.orient.core.sql.OSQLHelper;
+import com.orientechnologies.orient.core.sql.functions.OSQLFunctionRuntime;
+import com.orientechnologies.orient.core.sql.operator.OQueryOperator;
+import com.orientechnologies.orient.core.sql.operator.OQueryOperatorAnd;
+import com.orientechnologies.orient.core.sql.operator.OQueryOperatorEquals;
+import com.orientechnologies.orient.core.sql.operator.OQueryOperatorMajor;
+import com.orientechnologies.orient.core.sql.operator.OQueryOperatorMajorEquals;
+import com.orientechnologies.orient.core.sql.operator.OQueryOperatorMinor;
+import com.orientechnologies.orient.core.sql.operator.OQueryOperatorMinorEquals;
+import com.orientechnologies.orient.core.sql.operator.OQueryOperatorNot;
+import com.orientechnologies.orient.core.sql.operator.OQueryOperatorNotEquals;
+import com.orientechnologies.orient.core.sql.operator.OQueryOperatorOr;
+import com.orientechnologies.orient.core.sql.query.OSQLQuery;
+
+/**
+ * Condition tree compiled from the parsed one once the parameters are bound. Comparisons between a field and a constant are
+ * specialized on the type of the field, taken from the schema or, if not declared, from the constant: the constant is converted
+ * once and the field is read directly from the document. When the value of a record is not of the expected type the original
+ * condition is evaluated, so the result is always the same of the interpreted evaluation.
+ *
+ * @author Luca Garulli
+ *
+ */
+public abstract class OSQLCompiledCondition {
+  private static final int EQUALS       = 0;
+  private static final int NOT_EQUALS   = 1;
+  private static final int MAJOR        = 2;
+  private static final int MAJOR_EQUALS = 3;
+  private static final int MINOR        = 4;
+  private static final int MINOR_EQUALS = 5;
+
+  public abstract boolean evaluate(OIdentifiable iRecord, OCommandContext iContext);
+
+  /**
+   * Compiles the condition tree.
+   *
+   * @param iCondition
+   *          Root condition
+   * @param iClass
+   *          Class of the records to evaluate if known, otherwise null
+   * @return The compiled condition, or null if no comparison can be specialized
+   */
+  public static OSQLCompiledCondition compile(final OSQLFilterCondition iCondition, final OClass iClass) {
+    final OSQLCompiledCondition compiled = compileCondition(iCondition, iClass);
+    return compiled instanceof OInterpreted ? null : compiled;
+  }
+
+  private static OSQLCompiledCondition compileCondition(final OSQLFilterCondition iCondition, final OClass iClass) {
+    final OQueryOperator operator = iCondition.getOperator();
+    final Object left = iCondition.getLeft();
+    final Object right = iCondition.getRight();
+
+    if (operator == null) {
+      // BRACES
+      if (left instanceof OSQLFilterCondition) {
+        final OSQLCompiledCondition compiled = compileCondition((OSQLFilterCondition) left, iClass);
+        if (!(compiled instanceof OInterpreted))
+          return compiled;
+      }
+    } else if (operator.getClass() == OQueryOperatorAnd.class || operator.getClass() == OQueryOperatorOr.class) {
+      if (left instanceof OSQLFilterCondition && right instanceof OSQLFilterCondition) {
+        final OSQLCompiledCondition l = compileCondition((OSQLFilterCondition) left, iClass);
+        final OSQLCompiledCondition r = compileCondition((OSQLFilterCondition) right, iClass);
+        if (!(l instanceof OInterpreted) || !(r instanceof OInterpreted))
+          return operator.getClass() == OQueryOperatorAnd.class ? new OAnd(l, r) : new OOr(l, r);
+      }
+    } else if (operator.getClass() == OQueryOperatorNot.class) {
+      if (left instanceof OSQLFilterCondition) {
+        final OSQLCompiledCondition compiled = compileCondition((OSQLFilterCondition) left, iClass);
+        if (!(compiled instanceof OInterpreted))
+          return new ONot(compiled);
+      }
+    } else {
+      final OSQLCompiledCondition compiled = compileComparison(iCondition, iClass);
+      if (compiled != null)
+        return compiled;
+    }
+
+    return new OInterpreted(iCondition);
+  }
+
+  private static OSQLCompiledCondition compileComparison(final OSQLFilterCondition iCondition, final OClass iClass) {
+    final int operator = getOperator(iCondition.getOperator());
+    if (operator == -1 || !(iCondition.getLeft() instanceof OSQLFilterItemField))
+      return null;
+
+    final OSQLFilterItemField field = (OSQLFilterItemField) iCondition.getLeft();
+    if (field.getClass() != OSQLFilterItemField.class || !field.isFieldChain() || field.getFieldChain().isLong())
+      return null;
+
+    final String fieldName = field.getRoot();
+    if (fieldName.length() == 0 || fieldName.charAt(0) == '@' || fieldName.indexOf('.') > -1 || fieldName.indexOf('[') > -1)
+      return null;
+
+    Object value = iCondition.getRight();
+    if (value instanceof OSQLFilterItemParameter)
+      value = ((OSQLFilterItemParameter) value).getValue(null, null);
+
+    if (value == null || value instanceof OSQLFilterItem || value instanceof OSQLFilterCondition
+        || value instanceof OSQLFunctionRuntime || value instanceof OSQLQuery<?> || value instanceof Collection<?>
+        || value instanceof Map<?, ?> || value.getClass().isArray() || value.equals(OSQLHelper.DEFINED)
+        || value.equals(OSQLHelper.NOT_NULL))
+      return null;
+
+    Class<?> fieldClass = null;
+    if (iClass != null) {
+      final OProperty property = iClass.getProperty(fieldName);
+      if (property != null)
+        fieldClass = property.getType().getDefaultJavaType();
+    }
+    if (fieldClass == null)
+      fieldClass = value.getClass();
+
+    final Object constant;
+    try {
+      constant = convertConstant(iCondition, value, fieldClass);
+    } catch (RuntimeException e) {
+      // THE CONVERSION FAILS FOR EVERY RECORD: LET THE INTERPRETED CONDITION HANDLE IT
+      return null;
+    }
+    if (constant == null)
+      return null;
+
+    if (fieldClass == Integer.class)
+      return new OIntegerComparison(iCondition, fieldName, operator, ((Integer) constant).intValue());
+    else if (fieldClass == Long.class)
+      return new OLongComparison(iCondition, fieldName, operator, ((Long) constant).longValue());
+    else if (fieldClass == Double.class)
+      return new ODoubleComparison(iCondition, fieldName, operator, ((Double) constant).doubleValue());
+    else if (fieldClass == Float.class)
+      return new OFloatComparison(iCondition, fieldName, operator, ((Float) constant).floatValue());
+    else if (fieldClass == Date.class)
+      return new ODateComparison(iCondition, fieldName, operator, ((Date) constant).getTime());
+    else if (fieldClass == String.class || fieldClass == Short.class || fieldClass == Byte.class || fieldClass == Boolean.class
+        || fieldClass == BigDecimal.class)
+      return new OComparableComparison(iCondition, fieldName, operator, fieldClass, constant);
+
+    return null;
+  }
+
+  /**
+   * Converts the constant the same way the interpreted condition converts it at every record.
+   *
+   * @return The converted constant, or null if the comparison can't be specialized
+   */
+  private static Object convertConstant(final OSQLFilterCondition iCondition, final Object iValue, final Class<?> iFieldClass) {
+    if (iValue.getClass() == iFieldClass)
+      return iValue;
+
+    if (!iFieldClass.isAssignableFrom(iValue.getClass()) && !iValue.getClass().isAssignableFrom(iFieldClass)) {
+      // SAME RULES OF OSQLFilterCondition.checkForConversion()
+      if (iValue instanceof Integer && !Number.class.isAssignableFrom(iFieldClass))
+        return null;
+      else if (iFieldClass == Integer.class && !(iValue instanceof Number)) {
+        if (!(iValue instanceof String))
+          return null;
+        if (((String) iValue).indexOf('.') > -1)
+          return (int) Float.parseFloat((String) iValue);
+        return iCondition.getInteger(iValue);
+      } else if (iValue instanceof Float)
+        return null;
+      else if (iFieldClass == Float.class)
+        return iCondition.getFloat(iValue);
+      else if (iValue instanceof Date)
+        return null;
+      else if (iFieldClass == Date.class)
+        return iCondition.getDate(iValue);
+      else if (iValue instanceof ORID)
+        return null;
+    }
+
+    final Object converted = OType.convert(iValue, iFieldClass);
+    return converted != null && converted.getClass() == iFieldClass ? converted : null;
+  }
+
+  private static int getOperator(final OQueryOperator iOperator) {
+    final Class<?> cls = iOperator.getClass();
+    if (cls == OQueryOperatorEquals.class)
+      return EQUALS;
+    else if (cls == OQueryOperatorNotEquals.class)
+      return NOT_EQUALS;
+    else if (cls == OQueryOperatorMajor.class)
+      return MAJOR;
+    else if (cls == OQueryOperatorMajorEquals.class)
+      return MAJOR_EQUALS;
+    else if (cls == OQueryOperatorMinor.class)
+      return MINOR;
+    else if (cls == OQueryOperatorMinorEquals.class)
+      return MINOR_EQUALS;
+    return -1;
+  }
+
+  private static boolean matches(final int iOperator, final int iCompare) {
+    switch (iOperator) {
+    case EQUALS:
+      return iCompare == 0;
+    case NOT_EQUALS:
+      return iCompare != 0;
+    case MAJOR:
+      return iCompare > 0;
+    case MAJOR_EQUALS:
+      return iCompare >= 0;
+    case MINOR:
+      return iCompare < 0;
+    default:
+      return iCompare <= 0;
+    }
+  }
+
+  private static final class OAnd extends OSQLCompiledCondition {
+    private final OSQLCompiledCondition left;
+    private final OSQLCompiledCondition right;
+
+    private OAnd(final OSQLCompiledCondition iLeft, final OSQLCompiledCondition iRight) {
+      left = iLeft;
+      right = iRight;
+    }
+
+    @Override
+    public boolean evaluate(final OIdentifiable iRecord, final OCommandContext iContext) {
+      return left.evaluate(iRecord, iContext) && right.evaluate(iRecord, iContext);
+    }
+  }
+
+  private static final class OOr extends OSQLCompiledCondition {
+    private final OSQLCompiledCondition left;
+    private final OSQLCompiledCondition right;
+
+    private OOr(final OSQLCompiledCondition iLeft, final OSQLCompiledCondition iRight) {
+      left = iLeft;
+      right = iRight;
+    }
+
+    @Override
+    public boolean evaluate(final OIdentifiable iRecord, final OCommandContext iContext) {
+      return left.evaluate(iRecord, iContext) || right.evaluate(iRecord, iContext);
+    }
+  }
+
+  private static final class ONot extends OSQLCompiledCondition {
+    private final OSQLCompiledCondition condition;
+
+    private ONot(final OSQLCompiledCondition iCondition) {
+      condition = iCondition;
+    }
+
+    @Override
+    public boolean evaluate(final OIdentifiable iRecord, final OCommandContext iContext) {
+      return !condition.evaluate(iRecord, iContext);
+    }
+  }
+
+  /**
+   * Condition that can't be specialized: evaluates the parsed condition.
+   */
+  private static final class OInterpreted extends OSQLCompiledCondition {
+    private final OSQLFilterCondition condition;
+
+    private OInterpreted(final OSQLFilterCondition iCondition) {
+      condition = iCondition;
+    }
+
+    @Override
+    public boolean evaluate(final OIdentifiable iRecord, final OCommandContext iContext) {
+      final Object result = condition.evaluate(iRecord, iContext);
+      return result != null && (Boolean) result;
+    }
+  }
+
+  /**
+   * Comparison between a field and a constant. The field is read directly from the document: if the record isn't a loaded document
+   * or the value is not of the expected class the parsed condition is evaluated.
+   */
+  private abstract static class OFieldComparison extends OSQLCompiledCondition {
+    private final OSQLFilterCondition condition;
+    private final String              fieldName;
+    private final Class<?>            fieldClass;
+    protected final int               operator;
+
+    protected OFieldComparison(final OSQLFilterCondition iCondition, final String iFieldName, final Class<?> iFieldClass,
+        final int iOperator) {
+      condition = iCondition;
+      fieldName = iFieldName;
+      fieldClass = iFieldClass;
+      operator = iOperator;
+    }
+
+    @Override
+    public final boolean evaluate(final OIdentifiable iRecord, final OCommandContext iContext) {
+      final ORecord<?> record = iRecord.getRecord();
+      if (record instanceof ODocument && record.getInternalStatus() != ORecordElement.STATUS.NOT_LOADED) {
+        final Object value = ((ODocument) record).rawField(fieldName);
+        if (value != null && value.getClass() == fieldClass)
+          return compare(value);
+      }
+
+      final Object result = condition.evaluate(iRecord, iContext);
+      return result != null && (Boolean) result;
+    }
+
+    protected abstract boolean compare(Object iValue);
+  }
+
+  private static final class OIntegerComparison extends OFieldComparison {
+    private final int constant;
+
+    private OIntegerComparison(final OSQLFilterCondition iCondition, final String iFieldName, final int iOperator,
+        final int iConstant) {
+      super(iCondition, iFieldName, Integer.class, iOperator);
+      constant = iConstant;
+    }
+
+    @Override
+    protected boolean compare(final Object iValue) {
+      final int value = ((Integer) iValue).intValue();
+      return matches(operator, value < constant ? -1 : (value == constant ? 0 : 1));
+    }
+  }
+
+  private static final class OLongComparison extends OFieldComparison {
+    private final long constant;
+
+    private OLongComparison(final OSQLFilterCondition iCondition, final String iFieldName, final int iOperator, final long iConstant) {
+      super(iCondition, iFieldName, Long.class, iOperator);
+      constant = iConstant;
+    }
+
+    @Override
+    protected boolean compare(final Object iValue) {
+      final long value = ((Long) iValue).longValue();
+      return matches(operator, value < constant ? -1 : (value == constant ? 0 : 1));
+    }
+  }
+
+  private static final class ODoubleComparison extends OFieldComparison {
+    private final double constant;
+
+    private ODoubleComparison(final OSQLFilterCondition iCondition, final String iFieldName, final int iOperator,
+        final double iConstant) {
+      super(iCondition, iFieldName, Double.class, iOperator);
+      constant = iConstant;
+    }
+
+    @Override
+    protected boolean compare(final Object iValue) {
+      // SAME ORDER OF Double.compareTo() AND Double.equals(), NaN INCLUDED
+      return matches(operator, Double.compare(((Double) iValue).doubleValue(), constant));
+    }
+  }
+
+  private static final class OFloatComparison extends OFieldComparison {
+    private final float constant;
+
+    private OFloatComparison(final OSQLFilterCondition iCondition, final String iFieldName, final int iOperator,
+        final float iConstant) {
+      super(iCondition, iFieldName, Float.class, iOperator);
+      constant = iConstant;
+    }
+
+    @Override
+    protected boolean compare(final Object iValue) {
+      return matches(operator, Float.compare(((Float) iValue).floatValue(), constant));
+    }
+  }
+
+  private static final class ODateComparison extends OFieldComparison {
+    private final long constant;
+
+    private ODateComparison(final OSQLFilterCondition iCondition, final String iFieldName, final int iOperator, final long iConstant) {
+      super(iCondition, iFieldName, Date.class, iOperator);
+      constant = iConstant;
+    }
+
+    @Override
+    protected boolean compare(final Object iValue) {
+      final long value = ((Date) iValue).getTime();
+      return matches(operator, value < constant ? -1 : (value == constant ? 0 : 1));
+    }
+  }
+
+  /**
+   * Comparison of the other types: equality is checked with equals() like the interpreted operators do, that for BigDecimal
+   * considers the scale too.
+   */
+  private static final class OComparableComparison extends OFieldComparison {
+    private final Comparable<Object> constant;
+
+    @SuppressWarnings("unchecked")
+    private OComparableComparison(final OSQLFilterCondition iCondition, final String iFieldName, final int iOperator,
+        final Class<?> iFieldClass, final Object iConstant) {
+      super(iCondition, iFieldName, iFieldClass, iOperator);
+      constant = (Comparable<Object>) iConstant;
+    }
+
+    @SuppressWarnings("unchecked")
+    @Override
+    protected boolean compare(final Object iValue) {
+      if (operator == EQUALS)
+        return iValue.equals(constant);
+      else if (operator == NOT_EQUALS)
+        return !iValue.equals(constant);
+      return matches(operator, ((Comparable<Object>) iValue).compareTo(constant));
+    }
+  }
+}
@@ -24,6 +24,7 @@ import com.orientechnologies.orient.core.command.OCommandContext;
 import com.orientechnologies.orient.core.command.OCommandExecutor;
 import com.orientechnologies.orient.core.command.OCommandManager;
 import com.orientechnologies.orient.core.command.OCommandPredicate;
+import com.orientechnologies.orient.core.config.OGlobalConfiguration;
 import com.orientechnologies.orient.core.db.ODatabaseRecordThreadLocal;
 import com.orientechnologies.orient.core.db.record.OIdentifiable;
 import com.orientechnologies.orient.core.exception.OCommandExecutionException;
@@ -49,6 +50,7 @@ public class OSQLFilter extends OSQLPredicate implements OCommandPredicate {
   protected Map<String, String>               targetClusters;
   protected Map<OClass, String>               targetClasses;
   protected String                            targetIndex;
+  protected OSQLCompiledCondition             compiledCondition;
 
   public OSQLFilter(final String iText, final OCommandContext iContext) {
     super();
@@ -61,7 +63,7 @@ public class OSQLFilter extends OSQLPredicate implements OCommandPredicate {
         // IF WHERE EXISTS EXTRACT CONDITIONS
 
         if (parserOptionalKeyword(OCommandExecutorSQLAbstract.KEYWORD_WHERE, OCommandExecutorSQLAbstract.KEYWORD_LIMIT,
-            OCommandExecutorSQLSelect.KEYWORD_ORDER, OCommandExecutorSQLSelect.KEYWORD_SKIP)) {
+            OCommandExecutorSQLSelect.KEYWORD_ORDER, OCommandExecutorSQLSelect.KEYWORD_GROUP, OCommandExecutorSQLSelect.KEYWORD_SKIP)) {
           if (parserGetLastWord().equals(OCommandExecutorSQLAbstract.KEYWORD_WHERE)) {
             final int lastPos = parserGetCurrentPosition();
             final String lastText = text;
@@ -92,6 +94,9 @@ public class OSQLFilter extends OSQLPredicate implements OCommandPredicate {
     if (rootCondition == null)
       return true;
 
+    if (compiledCondition != null)
+      return compiledCondition.evaluate(iRecord, iContext);
+
     return (Boolean) rootCondition.evaluate(iRecord, iContext);
   }
 
@@ -204,6 +209,19 @@ public class OSQLFilter extends OSQLPredicate implements OCommandPredicate {
     return rootCondition;
   }
 
+  /**
+   * Compiles the conditions using the values of the parameters currently bound. Must be called again after every binding.
+   */
+  public void compile() {
+    compiledCondition = null;
+
+    if (rootCondition == null || !OGlobalConfiguration.QUERY_COMPILED_FILTER.getValueAsBoolean())
+      return;
+
+    final OClass cls = targetClasses != null && targetClasses.size() == 1 ? targetClasses.keySet().iterator().next() : null;
+    compiledCondition = OSQLCompiledCondition.compile(rootCondition, cls);
+  }
+
   @Override
   public String toString() {
     if (rootCondition != null)
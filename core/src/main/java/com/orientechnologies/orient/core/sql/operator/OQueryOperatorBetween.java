@@ -93,7 +93,7 @@ public class OQueryOperatorBetween extends OQueryOperatorEqualityNotNulls {
     final Collection<OIdentifiable> result;
 
     final OIndexInternal<?> internalIndex = index.getInternal();
-    if (!internalIndex.canBeUsedInEqualityOperators())
+    if (!internalIndex.canBeUsedInEqualityOperators() || !internalIndex.canBeUsedInRangeOperators())
       return null;
 
     if (indexDefinition.getParamCount() == 1) {
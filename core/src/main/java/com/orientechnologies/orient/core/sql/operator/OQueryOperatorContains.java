@@ -144,6 +144,9 @@ public class OQueryOperatorContains extends OQueryOperatorEqualityNotNulls {
       // in case of composite keys several items can be returned in case of we perform search
       // using part of composite key stored in index.
 
+      if (!internalIndex.canBeUsedInRangeOperators())
+        return null;
+
       final OCompositeIndexDefinition compositeIndexDefinition = (OCompositeIndexDefinition) indexDefinition;
 
       final Object keyOne = compositeIndexDefinition.createSingleValue(keyParams);
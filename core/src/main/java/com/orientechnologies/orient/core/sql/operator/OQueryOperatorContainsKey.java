@@ -96,6 +96,9 @@ public class OQueryOperatorContainsKey extends OQueryOperatorEqualityNotNulls {
       // in case of composite keys several items can be returned in case of we perform search
       // using part of composite key stored in index.
 
+      if (!internalIndex.canBeUsedInRangeOperators())
+        return null;
+
       final OCompositeIndexDefinition compositeIndexDefinition = (OCompositeIndexDefinition) indexDefinition;
 
       if (!((compositeIndexDefinition.getMultiValueDefinition() instanceof OPropertyMapIndexDefinition) && ((OPropertyMapIndexDefinition) compositeIndexDefinition
@@ -146,7 +146,19 @@ public class OQueryOperatorEquals extends OQueryOperatorEqualityNotNulls {
       final Object keyTwo = compositeIndexDefinition.createSingleValue(keyParams);
 
       final Collection<OIdentifiable> result;
-      if (fetchLimit > -1)
+      if (!internalIndex.canBeUsedInRangeOperators()) {
+        // THE KEYS ARE NOT ORDERED: ONLY THE COMPLETE KEY CAN BE SEARCHED
+        if (keyParams.size() < indexDefinition.getParamCount())
+          return null;
+
+        final Object indexResult = index.get(keyOne);
+        if (indexResult == null)
+          result = Collections.emptyList();
+        else if (indexResult instanceof Collection<?>)
+          result = (Collection<OIdentifiable>) indexResult;
+        else
+          result = Collections.singletonList((OIdentifiable) indexResult);
+      } else if (fetchLimit > -1)
         result = index.getValuesBetween(keyOne, true, keyTwo, true, fetchLimit);
       else
         result = index.getValuesBetween(keyOne, true, keyTwo, true);
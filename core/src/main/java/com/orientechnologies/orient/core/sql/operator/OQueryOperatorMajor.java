@@ -68,7 +68,7 @@ public class OQueryOperatorMajor extends OQueryOperatorEqualityNotNulls {
     final OIndexDefinition indexDefinition = index.getDefinition();
 
     final OIndexInternal<?> internalIndex = index.getInternal();
-    if (!internalIndex.canBeUsedInEqualityOperators())
+    if (!internalIndex.canBeUsedInEqualityOperators() || !internalIndex.canBeUsedInRangeOperators())
       return null;
     final Collection<OIdentifiable> result;
 
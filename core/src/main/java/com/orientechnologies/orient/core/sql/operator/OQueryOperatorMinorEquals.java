@@ -67,7 +67,7 @@ public class OQueryOperatorMinorEquals extends OQueryOperatorEqualityNotNulls {
     final OIndexDefinition indexDefinition = index.getDefinition();
 
     final OIndexInternal<?> internalIndex = index.getInternal();
-    if (!internalIndex.canBeUsedInEqualityOperators())
+    if (!internalIndex.canBeUsedInEqualityOperators() || !internalIndex.canBeUsedInRangeOperators())
       return null;
 
     final Collection<OIdentifiable> result;
@@ -23,6 +23,7 @@ import com.orientechnologies.orient.core.config.OGlobalConfiguration;
 import com.orientechnologies.orient.core.exception.OCommandExecutionException;
 import com.orientechnologies.orient.core.exception.OStorageException;
 import com.orientechnologies.orient.core.id.ORecordId;
+import com.orientechnologies.orient.core.tx.OTransaction;
 
 /**
  * Interface for embedded storage.
@@ -35,6 +36,7 @@ public abstract class OStorageEmbedded extends OStorageAbstract {
   protected final ORecordLockManager lockManager;
   protected final String             PROFILER_CREATE_RECORD;
   protected final String             PROFILER_READ_RECORD;
+  protected final String             PROFILER_READ_RECORDS;
   protected final String             PROFILER_UPDATE_RECORD;
   protected final String             PROFILER_DELETE_RECORD;
 
@@ -44,6 +46,7 @@ public abstract class OStorageEmbedded extends OStorageAbstract {
 
     PROFILER_CREATE_RECORD = "db." + name + ".createRecord";
     PROFILER_READ_RECORD = "db." + name + ".readRecord";
+    PROFILER_READ_RECORDS = "db." + name + ".readRecords";
     PROFILER_UPDATE_RECORD = "db." + name + ".updateRecord";
     PROFILER_DELETE_RECORD = "db." + name + ".deleteRecord";
   }
@@ -52,6 +55,23 @@ public abstract class OStorageEmbedded extends OStorageAbstract {
 
   public abstract OCluster getClusterByName(final String iClusterName);
 
+  /**
+   * Reads in one shot the records of the cluster between the positions iFrom and iTo, both inclusive. Used by the cluster iterators
+   * to read ahead the records while browsing. The item of a deleted or missing record is null.
+   * 
+   * @return The array of records by position, or null if the storage doesn't support reading records in blocks
+   */
+  public ORawBuffer[] readRecords(final int iClusterId, final long iFrom, final long iTo) {
+    return null;
+  }
+
+  /**
+   * Waits until the transaction committed by the current thread is durable. Called after the commit once all the locks have been
+   * released. Storages that synchronize during the commit have nothing to wait for.
+   */
+  public void waitForCommitSynch(final OTransaction iTx) {
+  }
+
   /**
    * Closes the storage freeing the lock manager first.
    */
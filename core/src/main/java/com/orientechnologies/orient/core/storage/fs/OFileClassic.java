@@ -23,6 +23,7 @@ import com.orientechnologies.orient.core.serialization.OBinaryProtocol;
 
 /**
  * Need to be synchronized by the external. Multiple Reader, Single Writer.<br/>
+ * Reads and writes are served by the shared {@link OFilePageCache} when it's enabled.<br/>
  * Header structure:<br/>
  * <br/>
  * +-----------+--------------+---------------+---------------+<br/>
@@ -35,17 +36,29 @@ import com.orientechnologies.orient.core.serialization.OBinaryProtocol;
 public class OFileClassic extends OAbstractFile {
   public final static String NAME                = "classic";
   protected ByteBuffer       internalWriteBuffer = ByteBuffer.allocate(OBinaryProtocol.SIZE_LONG);
+  protected OFilePageCache   pageCache;
+  protected int              fileId;
 
   public OFileClassic init(String iFileName, String iMode) {
     super.init(iFileName, iMode);
+
+    final OFilePageCache cache = OFilePageCache.getInstance();
+    if (cache.isEnabled()) {
+      pageCache = cache;
+      fileId = cache.nextFileId();
+    }
     return this;
   }
 
   @Override
   public void close() throws IOException {
-    if (channel != null)
+    if (channel != null) {
       setSoftlyClosed(true);
 
+      if (pageCache != null)
+        pageCache.removeFile(this, true);
+    }
+
     super.close();
   }
 
@@ -62,6 +75,8 @@ public class OFileClassic extends OAbstractFile {
 
   @Override
   public void shrink(int iSize) throws IOException {
+    if (pageCache != null)
+      pageCache.truncate(this, HEADER_SIZE + iSize);
     channel.truncate(HEADER_SIZE + iSize);
     size = iSize;
   }
@@ -80,8 +95,12 @@ public class OFileClassic extends OAbstractFile {
   public void read(long iOffset, byte[] iDestBuffer, int iLenght) throws IOException {
     iOffset = checkRegions(iOffset, iLenght);
 
-    ByteBuffer buffer = ByteBuffer.wrap(iDestBuffer);
-    channel.read(buffer, iOffset);
+    if (pageCache != null)
+      pageCache.read(this, iOffset, iDestBuffer, 0, iLenght);
+    else {
+      ByteBuffer buffer = ByteBuffer.wrap(iDestBuffer);
+      channel.read(buffer, iOffset);
+    }
   }
 
   @Override
@@ -148,7 +167,10 @@ public class OFileClassic extends OAbstractFile {
   public void write(long iOffset, final byte[] iSourceBuffer) throws IOException {
     if (iSourceBuffer != null) {
       iOffset += HEADER_SIZE;
-      channel.write(ByteBuffer.wrap(iSourceBuffer), iOffset);
+      if (pageCache != null)
+        pageCache.write(this, iOffset, iSourceBuffer, 0, iSourceBuffer.length);
+      else
+        channel.write(ByteBuffer.wrap(iSourceBuffer), iOffset);
       setDirty();
     }
   }
@@ -168,6 +190,8 @@ public class OFileClassic extends OAbstractFile {
   protected void flushHeader() throws IOException {
     if (headerDirty || dirty) {
       headerDirty = dirty = false;
+      if (pageCache != null)
+        pageCache.flush(this);
       channel.force(false);
     }
   }
@@ -221,14 +245,21 @@ public class OFileClassic extends OAbstractFile {
 
   private ByteBuffer readData(final long iOffset, final int iSize) throws IOException {
     ByteBuffer buffer = getBuffer(iSize);
-    channel.read(buffer, iOffset);
+    if (pageCache != null)
+      pageCache.read(this, iOffset, buffer.array(), 0, iSize);
+    else
+      channel.read(buffer, iOffset);
     buffer.rewind();
     return buffer;
   }
 
   private void writeBuffer(final ByteBuffer iBuffer, final long iOffset) throws IOException {
-    iBuffer.rewind();
-    channel.write(iBuffer, iOffset);
+    // WRITE ONLY THE BYTES PUT IN THE BUFFER, NOT THE ENTIRE RECYCLED BUFFER
+    iBuffer.flip();
+    if (pageCache != null)
+      pageCache.write(this, iOffset, iBuffer.array(), 0, iBuffer.limit());
+    else
+      channel.write(iBuffer, iOffset);
   }
 
   private ByteBuffer getBuffer(final int iLenght) {
@@ -239,7 +270,7 @@ public class OFileClassic extends OAbstractFile {
     setDirty();
     if (iLenght <= OBinaryProtocol.SIZE_LONG)
       // RECYCLE WRITE BYTE BUFFER SINCE WRITES ARE SYNCHRONIZED
-      return (ByteBuffer) internalWriteBuffer.rewind();
+      return (ByteBuffer) internalWriteBuffer.clear();
 
     return getBuffer(iLenght);
   }
@@ -0,0 +1,339 @@
+/*
+ * Copyright 2010-2012 Luca Garulli (l.garulli--at--orientechnologies.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.orientechnologies.orient.core.storage.fs;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.orientechnologies.common.log.OLogManager;
+import com.orientechnologies.common.profiler.OProfiler;
+import com.orientechnologies.common.profiler.OProfiler.OProfilerHookValue;
+import com.orientechnologies.orient.core.Orient;
+import com.orientechnologies.orient.core.config.OGlobalConfiguration;
+import com.orientechnologies.orient.core.memory.OMemoryWatchDog;
+
+/**
+ * Page cache shared by all the files accessed through the channel ({@link OFileClassic}). Files are split in fixed-size pages kept
+ * in memory up to the configured size. The cache is divided in segments, each one with its own lock and LRU list, to avoid a
+ * global contention point. Offsets are absolute channel positions, so the header of the file is cached as well.<br/>
+ * <br/>
+ * By default writes go through the cache to the channel, so the durability is the same as without the cache. With
+ * {@link OGlobalConfiguration#FILE_CLASSIC_CACHE_WRITE_BACK} dirty pages are written only on synch, close and eviction.
+ *
+ * @author Luca Garulli (l.garulli--at--orientechnologies.com)
+ *
+ */
+public class OFilePageCache {
+  private static final int            SEGMENTS           = 16;
+  private static final String         PROFILER_HITS      = "system.file.cache.hits";
+  private static final String         PROFILER_MISSES    = "system.file.cache.misses";
+  private static final String         PROFILER_EVICTIONS = "system.file.cache.evictions";
+  private static final String         PROFILER_FLUSHES   = "system.file.cache.flushes";
+
+  private static final OFilePageCache instance           = new OFilePageCache(
+                                                             OGlobalConfiguration.FILE_CLASSIC_CACHE_SIZE.getValueAsLong(),
+                                                             OGlobalConfiguration.FILE_CLASSIC_CACHE_PAGE_SIZE.getValueAsInteger(),
+                                                             OGlobalConfiguration.FILE_CLASSIC_CACHE_WRITE_BACK.getValueAsBoolean());
+
+  private final int                   pageSize;
+  private final boolean               writeBack;
+  private final OPageSegment[]        segments;
+  private final AtomicInteger         fileIdSerial       = new AtomicInteger();
+
+  protected static class OPage {
+    protected final OFileClassic file;
+    protected final long         position;
+    protected final byte[]       data;
+    protected int                length;
+    protected boolean            dirty;
+
+    protected OPage(final OFileClassic iFile, final long iPosition, final int iPageSize) {
+      file = iFile;
+      position = iPosition;
+      data = new byte[iPageSize];
+    }
+
+    protected void load() throws IOException {
+      final ByteBuffer buffer = ByteBuffer.wrap(data);
+      while (buffer.hasRemaining()) {
+        if (file.channel.read(buffer, position + buffer.position()) < 0)
+          // END OF FILE: THE REST OF THE PAGE IS EMPTY
+          break;
+      }
+      length = buffer.position();
+    }
+
+    protected void flush() throws IOException {
+      if (dirty) {
+        file.channel.write(ByteBuffer.wrap(data, 0, length), position);
+        dirty = false;
+        OProfiler.getInstance().updateCounter(PROFILER_FLUSHES, +1);
+      }
+    }
+  }
+
+  @SuppressWarnings("serial")
+  protected class OPageSegment extends LinkedHashMap<Long, OPage> {
+    private final int maxPages;
+
+    protected OPageSegment(final int iMaxPages) {
+      super(16, 0.75f, true);
+      maxPages = iMaxPages;
+    }
+
+    /**
+     * Returns the page, loading it from the file if it's not cached. Must be called inside the segment lock.
+     */
+    protected OPage getPage(final OFileClassic iFile, final long iPageIndex, final boolean iLoad) throws IOException {
+      final Long key = getKey(iFile, iPageIndex);
+      OPage page = get(key);
+      if (page != null) {
+        OProfiler.getInstance().updateCounter(PROFILER_HITS, +1);
+        return page;
+      }
+
+      if (!iLoad)
+        return null;
+
+      OProfiler.getInstance().updateCounter(PROFILER_MISSES, +1);
+
+      page = new OPage(iFile, iPageIndex * pageSize, pageSize);
+      page.load();
+      put(key, page);
+
+      evict(maxPages);
+      return page;
+    }
+
+    /**
+     * Removes the least recently used pages until the segment contains at most iMaxPages. Dirty pages are written before to be
+     * removed. Must be called inside the segment lock.
+     */
+    protected void evict(final int iMaxPages) throws IOException {
+      final Iterator<OPage> it = values().iterator();
+      while (size() > iMaxPages && it.hasNext()) {
+        it.next().flush();
+        it.remove();
+        OProfiler.getInstance().updateCounter(PROFILER_EVICTIONS, +1);
+      }
+    }
+  }
+
+  protected OFilePageCache(final long iCacheSize, final int iPageSize, final boolean iWriteBack) {
+    pageSize = iPageSize;
+    writeBack = iWriteBack;
+
+    final long totalPages = iPageSize > 0 ? iCacheSize / iPageSize : 0;
+    if (totalPages > 0) {
+      segments = new OPageSegment[SEGMENTS];
+      final int pagesPerSegment = (int) Math.max(1, totalPages / SEGMENTS);
+      for (int i = 0; i < segments.length; ++i)
+        segments[i] = new OPageSegment(pagesPerSegment);
+
+      OProfiler.getInstance().registerHookValue("system.file.cache.pages", new OProfilerHookValue() {
+        public Object getValue() {
+          return getCachedPages();
+        }
+      });
+
+      Orient.instance().getMemoryWatchDog().addListener(new OMemoryWatchDog.Listener() {
+        public void memoryUsageLow(final long iFreeMemory, final long iFreeMemoryPercentage) {
+          // RELEASE HALF OF THE PAGES, OR ALL OF THEM IF THE MEMORY IS REALLY LOW
+          final float ratio = iFreeMemoryPercentage < 10 ? 0f : 0.5f;
+          OLogManager.instance().debug(this, "Low memory (%d%%): reducing the file page cache to %d%%", iFreeMemoryPercentage,
+              (int) (ratio * 100));
+          shrink(ratio);
+        }
+      });
+    } else
+      segments = null;
+  }
+
+  public static OFilePageCache getInstance() {
+    return instance;
+  }
+
+  public boolean isEnabled() {
+    return segments != null;
+  }
+
+  public boolean isWriteBack() {
+    return writeBack;
+  }
+
+  public int getPageSize() {
+    return pageSize;
+  }
+
+  /**
+   * Returns a new id to identify the pages of a file.
+   */
+  public int nextFileId() {
+    return fileIdSerial.incrementAndGet();
+  }
+
+  /**
+   * Reads iLength bytes from the channel position iOffset of the file.
+   */
+  public void read(final OFileClassic iFile, final long iOffset, final byte[] iDestBuffer, int iDestOffset, int iLength)
+      throws IOException {
+    long position = iOffset;
+    while (iLength > 0) {
+      final long pageIndex = position / pageSize;
+      final int pageOffset = (int) (position % pageSize);
+      final int chunk = Math.min(iLength, pageSize - pageOffset);
+
+      final OPageSegment segment = getSegment(iFile, pageIndex);
+      synchronized (segment) {
+        final OPage page = segment.getPage(iFile, pageIndex, true);
+        System.arraycopy(page.data, pageOffset, iDestBuffer, iDestOffset, chunk);
+      }
+
+      position += chunk;
+      iDestOffset += chunk;
+      iLength -= chunk;
+    }
+  }
+
+  /**
+   * Writes iLength bytes at the channel position iOffset of the file. In write-through mode only the pages already cached are
+   * updated and the content is written to the channel with one call.
+   */
+  public void write(final OFileClassic iFile, final long iOffset, final byte[] iSourceBuffer, final int iSourceOffset,
+      final int iLength) throws IOException {
+    long position = iOffset;
+    int sourceOffset = iSourceOffset;
+    int remaining = iLength;
+    while (remaining > 0) {
+      final long pageIndex = position / pageSize;
+      final int pageOffset = (int) (position % pageSize);
+      final int chunk = Math.min(remaining, pageSize - pageOffset);
+
+      final OPageSegment segment = getSegment(iFile, pageIndex);
+      synchronized (segment) {
+        // IN WRITE-BACK MODE THE PAGE IS LOADED ONLY IF IT'S PARTIALLY WRITTEN
+        final OPage page = segment.getPage(iFile, pageIndex, writeBack && chunk < pageSize);
+        if (page != null) {
+          System.arraycopy(iSourceBuffer, sourceOffset, page.data, pageOffset, chunk);
+          if (pageOffset + chunk > page.length)
+            page.length = pageOffset + chunk;
+          if (writeBack)
+            page.dirty = true;
+        } else if (writeBack) {
+          // WHOLE PAGE WRITTEN: NO NEED TO LOAD IT
+          final OPage newPage = new OPage(iFile, pageIndex * pageSize, pageSize);
+          System.arraycopy(iSourceBuffer, sourceOffset, newPage.data, 0, chunk);
+          newPage.length = chunk;
+          newPage.dirty = true;
+          segment.put(getKey(iFile, pageIndex), newPage);
+          segment.evict(segment.maxPages);
+        }
+      }
+
+      position += chunk;
+      sourceOffset += chunk;
+      remaining -= chunk;
+    }
+
+    if (!writeBack)
+      iFile.channel.write(ByteBuffer.wrap(iSourceBuffer, iSourceOffset, iLength), iOffset);
+  }
+
+  /**
+   * Writes all the dirty pages of the file to the channel.
+   */
+  public void flush(final OFileClassic iFile) throws IOException {
+    if (!writeBack)
+      return;
+
+    for (OPageSegment segment : segments)
+      synchronized (segment) {
+        for (OPage page : segment.values())
+          if (page.file == iFile)
+            page.flush();
+      }
+  }
+
+  /**
+   * Removes all the pages of the file. If iFlush is true the dirty pages are written before, otherwise their changes are lost.
+   */
+  public void removeFile(final OFileClassic iFile, final boolean iFlush) throws IOException {
+    for (OPageSegment segment : segments)
+      synchronized (segment) {
+        for (Iterator<OPage> it = segment.values().iterator(); it.hasNext();) {
+          final OPage page = it.next();
+          if (page.file == iFile) {
+            if (iFlush)
+              page.flush();
+            it.remove();
+          }
+        }
+      }
+  }
+
+  /**
+   * Drops the pages of the file after the channel position iNewSize and cuts the page that contains it.
+   */
+  public void truncate(final OFileClassic iFile, final long iNewSize) {
+    for (OPageSegment segment : segments)
+      synchronized (segment) {
+        for (Iterator<OPage> it = segment.values().iterator(); it.hasNext();) {
+          final OPage page = it.next();
+          if (page.file == iFile) {
+            if (page.position >= iNewSize)
+              it.remove();
+            else if (page.position + page.length > iNewSize)
+              page.length = (int) (iNewSize - page.position);
+          }
+        }
+      }
+  }
+
+  /**
+   * Reduces the cached pages of every segment to the ratio received as parameter: 0 means all the pages are released.
+   */
+  public void shrink(final float iRatio) {
+    for (OPageSegment segment : segments)
+      synchronized (segment) {
+        try {
+          segment.evict((int) (segment.maxPages * iRatio));
+        } catch (IOException e) {
+          OLogManager.instance().error(this, "Error on releasing pages of the file page cache", e);
+        }
+      }
+  }
+
+  public int getCachedPages() {
+    int tot = 0;
+    for (OPageSegment segment : segments)
+      synchronized (segment) {
+        tot += segment.size();
+      }
+    return tot;
+  }
+
+  private OPageSegment getSegment(final OFileClassic iFile, final long iPageIndex) {
+    final int hash = (int) (iFile.fileId * 31 + iPageIndex);
+    return segments[(hash ^ (hash >>> 16)) & (SEGMENTS - 1)];
+  }
+
+  private static Long getKey(final OFileClassic iFile, final long iPageIndex) {
+    return Long.valueOf(((long) iFile.fileId << 32) | iPageIndex);
+  }
+}
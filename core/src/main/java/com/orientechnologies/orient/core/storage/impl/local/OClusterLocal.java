@@ -19,6 +19,7 @@ import java.io.File;
 import java.io.IOException;
 
 import com.orientechnologies.common.concur.resource.OSharedResourceAdaptive;
+import com.orientechnologies.common.concur.resource.OSharedResourceAdaptiveExternal;
 import com.orientechnologies.common.io.OFileUtils;
 import com.orientechnologies.common.io.OIOException;
 import com.orientechnologies.orient.core.config.OGlobalConfiguration;
@@ -47,20 +48,23 @@ import com.orientechnologies.orient.core.storage.fs.OFile;
  * </code><br/>
  */
 public class OClusterLocal extends OSharedResourceAdaptive implements OCluster {
-  public static final int                      RECORD_SIZE     = 15;
-  public static final String                   TYPE            = "PHYSICAL";
-  private static final String                  DEF_EXTENSION   = ".ocl";
-  private static final int                     DEF_SIZE        = 1000000;
-  private OMultiFileSegment                    fileSegment;
-
-  private int                                  id;
-  private long                                 beginOffsetData = -1;
-  private long                                 endOffsetData   = -1;        // end of data offset. -1 = latest
-
-  protected OClusterLocalHole                  holeSegment;
-  private OStoragePhysicalClusterConfiguration config;
-  private OStorageLocal                        storage;
-  private String                               name;
+  public static final int                       RECORD_SIZE     = 15;
+  public static final String                    TYPE            = "PHYSICAL";
+  private static final String                   DEF_EXTENSION   = ".ocl";
+  private static final int                      DEF_SIZE        = 1000000;
+  private OMultiFileSegment                     fileSegment;
+
+  private int                                   id;
+  private long                                  beginOffsetData = -1;
+  private long                                  endOffsetData   = -1;        // end of data offset. -1 = latest
+
+  protected OClusterLocalHole                   holeSegment;
+  private OStoragePhysicalClusterConfiguration  config;
+  private OStorageLocal                         storage;
+  private String                                name;
+  private final OSharedResourceAdaptiveExternal recordLock      = new OSharedResourceAdaptiveExternal(
+                                                                    OGlobalConfiguration.ENVIRONMENT_CONCURRENT.getValueAsBoolean(),
+                                                                    0, true);
 
   public OClusterLocal() {
     super(OGlobalConfiguration.ENVIRONMENT_CONCURRENT.getValueAsBoolean());
@@ -219,6 +223,57 @@ public class OClusterLocal extends OSharedResourceAdaptive implements OCluster {
     }
   }
 
+  /**
+   * Returns the physical positions of iCount consecutive logical records starting from iFrom. The entries are read in blocks
+   * instead of one by one, so browsing the cluster costs one file access every many records.
+   * 
+   * @throws IOException
+   */
+  public OPhysicalPosition[] getPhysicalPositions(final long iFrom, final int iCount) throws IOException {
+    final OPhysicalPosition[] result = new OPhysicalPosition[iCount];
+
+    acquireSharedLock();
+    try {
+
+      byte[] block = null;
+      int blockFile = -1;
+      long blockBegin = 0;
+
+      for (int i = 0; i < iCount; ++i) {
+        final long[] pos = fileSegment.getRelativePosition((iFrom + i) * RECORD_SIZE);
+        final OFile f = fileSegment.files[(int) pos[0]];
+
+        if (block == null || blockFile != pos[0] || pos[1] < blockBegin || pos[1] + RECORD_SIZE > blockBegin + block.length) {
+          // LOAD THE NEXT BLOCK OF ENTRIES FROM THE SAME FILE
+          final int size = (int) Math.min((long) (iCount - i) * RECORD_SIZE, f.getFilledUpTo() - pos[1]);
+          if (size < RECORD_SIZE) {
+            // TRUNCATED ENTRY: READ IT ALONE
+            result[i] = getPhysicalPosition(new OPhysicalPosition(iFrom + i));
+            block = null;
+            continue;
+          }
+
+          block = new byte[size];
+          f.read(pos[1], block, size);
+          blockFile = (int) pos[0];
+          blockBegin = pos[1];
+        }
+
+        int p = (int) (pos[1] - blockBegin);
+        final OPhysicalPosition ppos = new OPhysicalPosition(iFrom + i);
+        ppos.dataSegmentId = OBinaryProtocol.bytes2short(block, p);
+        ppos.dataSegmentPos = OBinaryProtocol.bytes2long(block, p += OBinaryProtocol.SIZE_SHORT);
+        ppos.recordType = block[p += OBinaryProtocol.SIZE_LONG];
+        ppos.recordVersion = OBinaryProtocol.bytes2int(block, p += OBinaryProtocol.SIZE_BYTE);
+        result[i] = ppos;
+      }
+      return result;
+
+    } finally {
+      releaseSharedLock();
+    }
+  }
+
   /**
    * Update position in data segment (usually on defrag)
    * 
@@ -520,6 +575,15 @@ public class OClusterLocal extends OSharedResourceAdaptive implements OCluster {
     return name;
   }
 
+  /**
+   * Returns the lock used by the storage to protect the records of this cluster when it runs with per-cluster locking (see
+   * {@link OGlobalConfiguration#STORAGE_LOCK_PER_CLUSTER}). It's different by the internal lock that protects only the cluster
+   * files.
+   */
+  public OSharedResourceAdaptiveExternal getRecordLock() {
+    return recordLock;
+  }
+
   public OStoragePhysicalClusterConfiguration getConfig() {
     return config;
   }
@@ -23,6 +23,7 @@ import com.orientechnologies.common.concur.resource.OSharedResourceAdaptiveExter
 import com.orientechnologies.common.io.OFileUtils;
 import com.orientechnologies.common.log.OLogManager;
 import com.orientechnologies.common.profiler.OProfiler;
+import com.orientechnologies.orient.core.Orient;
 import com.orientechnologies.orient.core.config.OGlobalConfiguration;
 import com.orientechnologies.orient.core.config.OStorageDataConfiguration;
 import com.orientechnologies.orient.core.config.OStorageDataHoleConfiguration;
@@ -48,11 +49,15 @@ import com.orientechnologies.orient.core.storage.fs.OFile;
 public class ODataLocal extends OMultiFileSegment implements ODataSegment {
   static final String                           DEF_EXTENSION   = ".oda";
   public static final int                       RECORD_FIX_SIZE = 14;
+  static final int                              READ_BLOCK_SIZE = 65536;
   protected final int                           id;
   protected final ODataLocalHole                holeSegment;
   protected int                                 defragMaxHoleDistance;
   protected int                                 defragStrategy;
   protected long                                defStartSize;
+  private ODataLocalCompactor                   compactor;
+  private volatile long                         compactedBytes;
+  private volatile long                         reclaimedBytes;
 
   private final String                          PROFILER_HOLE_FIND_CLOSER;
   private final String                          PROFILER_UPDATE_REUSED_ALL;
@@ -60,6 +65,7 @@ public class ODataLocal extends OMultiFileSegment implements ODataSegment {
   private final String                          PROFILER_UPDATE_NOT_REUSED;
   private final String                          PROFILER_MOVE_RECORD;
   private final String                          PROFILER_HOLE_HANDLE;
+  private final String                          PROFILER_COMPACT;
   private final OSharedResourceAdaptiveExternal lock            = new OSharedResourceAdaptiveExternal(
                                                                     OGlobalConfiguration.ENVIRONMENT_CONCURRENT.getValueAsBoolean(),
                                                                     0, true);
@@ -84,6 +90,7 @@ public class ODataLocal extends OMultiFileSegment implements ODataSegment {
     PROFILER_UPDATE_REUSED_PARTIAL = "db." + storage.getName() + ".data.update.reusedPartial";
     PROFILER_UPDATE_NOT_REUSED = "db." + storage.getName() + ".data.update.notReused";
     PROFILER_MOVE_RECORD = "db." + storage.getName() + ".data.move";
+    PROFILER_COMPACT = "db." + storage.getName() + ".data.compact";
   }
 
   @Override
@@ -93,6 +100,7 @@ public class ODataLocal extends OMultiFileSegment implements ODataSegment {
 
       super.open();
       holeSegment.open();
+      startCompaction();
 
     } finally {
       releaseExclusiveLock();
@@ -106,6 +114,7 @@ public class ODataLocal extends OMultiFileSegment implements ODataSegment {
 
       super.create((int) (iStartSize > -1 ? iStartSize : defStartSize));
       holeSegment.create(-1);
+      startCompaction();
 
     } finally {
       releaseExclusiveLock();
@@ -130,6 +139,7 @@ public class ODataLocal extends OMultiFileSegment implements ODataSegment {
     acquireExclusiveLock();
     try {
 
+      stopCompaction();
       super.close();
       holeSegment.close();
 
@@ -245,6 +255,67 @@ public class ODataLocal extends OMultiFileSegment implements ODataSegment {
     }
   }
 
+  /**
+   * Returns the content of the records at the positions received, sorted in ascending order. Near records are read together in
+   * blocks of READ_BLOCK_SIZE bytes, while the records bigger than a block are read alone. Deleted records are returned as null.
+   * 
+   * @throws IOException
+   */
+  public byte[][] getRecords(final long[] iPositions) throws IOException {
+    final byte[][] result = new byte[iPositions.length][];
+
+    acquireSharedLock();
+    try {
+
+      byte[] block = null;
+      int blockFile = -1;
+      long blockBegin = 0;
+
+      for (int i = 0; i < iPositions.length; ++i) {
+        if (iPositions[i] == -1)
+          continue;
+
+        final long[] pos = getRelativePosition(iPositions[i]);
+        final OFile file = files[(int) pos[0]];
+
+        if (block == null || blockFile != pos[0] || pos[1] < blockBegin || pos[1] + RECORD_FIX_SIZE > blockBegin + block.length) {
+          // LOAD THE BLOCK STARTING FROM THE CURRENT RECORD
+          final int size = (int) Math.min(READ_BLOCK_SIZE, file.getFilledUpTo() - pos[1]);
+          if (size < RECORD_FIX_SIZE) {
+            result[i] = getRecord(iPositions[i]);
+            block = null;
+            continue;
+          }
+
+          block = new byte[size];
+          file.read(pos[1], block, size);
+          blockFile = (int) pos[0];
+          blockBegin = pos[1];
+        }
+
+        final int offset = (int) (pos[1] - blockBegin);
+        final int recordSize = OBinaryProtocol.bytes2int(block, offset);
+        if (recordSize <= 0)
+          // RECORD DELETED
+          continue;
+
+        if (offset + RECORD_FIX_SIZE + recordSize > block.length) {
+          // THE RECORD GOES OVER THE BLOCK: READ IT ALONE AND RESTART THE BLOCK FROM THE NEXT ONE
+          result[i] = getRecord(iPositions[i]);
+          block = null;
+          continue;
+        }
+
+        result[i] = new byte[recordSize];
+        System.arraycopy(block, offset + RECORD_FIX_SIZE, result[i], 0, recordSize);
+      }
+      return result;
+
+    } finally {
+      releaseSharedLock();
+    }
+  }
+
   /**
    * Returns the record size.
    * 
@@ -392,10 +463,182 @@ public class ODataLocal extends OMultiFileSegment implements ODataSegment {
     }
   }
 
+  /**
+   * Returns the total size in bytes of the holes.
+   */
+  public long getHoleSize() {
+    acquireSharedLock();
+    try {
+
+      long size = 0;
+      final int tot = holeSegment.getHoles();
+      for (int i = 0; i < tot; ++i) {
+        final ODataHoleInfo h = holeSegment.getHole(i);
+        if (h != null && h.size > 0)
+          size += h.size;
+      }
+      return size;
+
+    } finally {
+      releaseSharedLock();
+    }
+  }
+
+  /**
+   * Returns the percentage of the used space taken by holes.
+   */
+  public float getFragmentation() {
+    final long filled = getSize();
+    return filled > 0 ? getHoleSize() * 100f / filled : 0f;
+  }
+
+  /**
+   * Returns the bytes of records moved by the compaction since the segment was opened.
+   */
+  public long getCompactedBytes() {
+    return compactedBytes;
+  }
+
+  /**
+   * Returns the bytes cut from the end of the files by the compaction since the segment was opened.
+   */
+  public long getReclaimedBytes() {
+    return reclaimedBytes;
+  }
+
+  /**
+   * Returns the identity of the next record to move to compact the segment: the one following the first hole. Before, the holes at
+   * the end of the files are cut and the holes adjacent to the first one merged with it.
+   * 
+   * @return the record identity or null if there are no holes to compact
+   * @throws IOException
+   */
+  public ORecordId getNextRecordToCompact() throws IOException {
+    acquireExclusiveLock();
+    try {
+
+      final ODataHoleInfo hole = getFirstHoleToCompact();
+      if (hole == null)
+        return null;
+
+      final long[] pos = getRelativePosition(hole.dataOffset);
+      final OFile file = files[(int) pos[0]];
+      final long recordPos = pos[1] + hole.size;
+
+      if (file.readInt(recordPos) < 0) {
+        OLogManager.instance().warn(this, "Found a deleted record at position %d not registered as hole: compaction stopped",
+            hole.dataOffset + hole.size);
+        return null;
+      }
+
+      return new ORecordId(file.readShort(recordPos + OBinaryProtocol.SIZE_INT), file.readLong(recordPos + OBinaryProtocol.SIZE_INT
+          + OBinaryProtocol.SIZE_SHORT));
+
+    } finally {
+      releaseExclusiveLock();
+    }
+  }
+
+  /**
+   * Moves the record following the first hole to the beginning of the hole, so the hole moves after the record. The caller must
+   * hold the locks needed to update the record.
+   * 
+   * @param iRid
+   *          Record returned by {@link #getNextRecordToCompact()}
+   * @return the bytes moved, or 0 if the segment was changed in the meanwhile and the record doesn't follow the first hole anymore
+   * @throws IOException
+   */
+  public int compactRecord(final ORecordId iRid) throws IOException {
+    acquireExclusiveLock();
+    try {
+
+      final ODataHoleInfo hole = getFirstHoleToCompact();
+      if (hole == null)
+        return 0;
+
+      final long[] pos = getRelativePosition(hole.dataOffset);
+      final OFile file = files[(int) pos[0]];
+      final long recordPos = pos[1] + hole.size;
+
+      if (file.readInt(recordPos) < 0 || file.readShort(recordPos + OBinaryProtocol.SIZE_INT) != iRid.clusterId
+          || file.readLong(recordPos + OBinaryProtocol.SIZE_INT + OBinaryProtocol.SIZE_SHORT) != iRid.clusterPosition)
+        return 0;
+
+      final long timer = OProfiler.getInstance().startChrono();
+
+      final int moved = moveRecord(hole.dataOffset + hole.size, hole.dataOffset);
+      holeSegment.updateHole(hole, hole.dataOffset + moved, hole.size);
+
+      // WRITE NEGATIVE RECORD SIZE TO MARK AS DELETED
+      file.writeInt(pos[1] + moved, hole.size * -1);
+
+      compactedBytes += moved;
+      OProfiler.getInstance().stopChrono(PROFILER_COMPACT, timer);
+      return moved;
+
+    } finally {
+      releaseExclusiveLock();
+    }
+  }
+
+  public ODataLocalCompactor getCompactor() {
+    return compactor;
+  }
+
   public int getId() {
     return id;
   }
 
+  /**
+   * Returns the first hole followed by a record. The holes at the end of the files are cut and the holes adjacent to the first one
+   * are merged with it.
+   */
+  private ODataHoleInfo getFirstHoleToCompact() throws IOException {
+    ODataHoleInfo hole;
+    while ((hole = holeSegment.getLowestHole()) != null) {
+      final long[] pos = getRelativePosition(hole.dataOffset);
+      final OFile file = files[(int) pos[0]];
+
+      if (pos[1] + hole.size >= file.getFilledUpTo()) {
+        // THE HOLE IS AT THE END OF THE FILE: CUT IT
+        file.shrink((int) pos[1]);
+        holeSegment.deleteHole(hole.holeOffset);
+
+        reclaimedBytes += hole.size;
+        continue;
+      }
+
+      final ODataHoleInfo nextHole = holeSegment.getHoleAt(hole.dataOffset + hole.size);
+      if (nextHole == null)
+        return hole;
+
+      // ADJACENT HOLES: MERGE THEM
+      final int holeSize = hole.size + nextHole.size;
+      holeSegment.deleteHole(nextHole.holeOffset);
+      holeSegment.updateHole(hole, hole.dataOffset, holeSize);
+      file.writeInt(pos[1], holeSize * -1);
+    }
+    return null;
+  }
+
+  private void startCompaction() {
+    final int interval = OGlobalConfiguration.STORAGE_COMPACTION_INTERVAL.getValueAsInteger();
+    if (interval <= 0 || compactor != null)
+      return;
+
+    compactor = new ODataLocalCompactor(storage, this,
+        OGlobalConfiguration.STORAGE_COMPACTION_FRAGMENTATION.getValueAsInteger(),
+        OGlobalConfiguration.STORAGE_COMPACTION_MAX_BYTES.getValueAsInteger());
+    Orient.getTimer().schedule(compactor, interval, interval);
+  }
+
+  private void stopCompaction() {
+    if (compactor != null) {
+      compactor.cancel();
+      compactor = null;
+    }
+  }
+
   private void handleHole(final long iRecordOffset, final int iRecordSize) throws IOException {
     long holePositionOffset = iRecordOffset;
     int holeSize = iRecordSize + RECORD_FIX_SIZE;
@@ -423,6 +666,10 @@ public class ODataLocal extends OMultiFileSegment implements ODataSegment {
       holeSize += closestHole.size;
       holeSegment.updateHole(closestHole, holePositionOffset, holeSize);
 
+    } else if (storage.isLockPerCluster()) {
+      // THE RECORDS BETWEEN THE HOLES CAN BELONG TO CLUSTERS NOT LOCKED BY THE CURRENT THREAD: DON'T MOVE THEM
+      holeSegment.createHole(iRecordOffset, holeSize);
+
     } else {
       // QUITE CLOSE, AUTO-DEFRAG!
       long closestHoleOffset;
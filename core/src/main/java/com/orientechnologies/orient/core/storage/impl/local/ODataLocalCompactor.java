@@ -0,0 +1,86 @@
+/*
+ * Copyright 2010-2012 Luca Garulli (l.garulli--at--orientechnologies.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.orientechnologies.orient.core.storage.impl.local;
+
+import java.util.TimerTask;
+
+import com.orientechnologies.common.concur.lock.OModificationOperationProhibitedException;
+import com.orientechnologies.common.log.OLogManager;
+
+/**
+ * Background compaction of a data segment. When the holes take more than the configured percentage of the segment, the records
+ * following the first hole are moved back one at a time, so the hole moves toward the end of the file merging with the holes it
+ * meets, until it's cut away. Once started the compaction goes on until there are no more holes. Every run moves at most
+ * "storage.compaction.maxBytesPerRun" bytes of records to limit the impact on the concurrent operations.
+ * 
+ * @author Luca Garulli (l.garulli--at--orientechnologies.com)
+ * 
+ */
+public class ODataLocalCompactor extends TimerTask {
+  private final OStorageLocal storage;
+  private final ODataLocal    data;
+  private final int           fragmentationThreshold;
+  private final int           maxBytesPerRun;
+  private boolean             active;
+
+  public ODataLocalCompactor(final OStorageLocal iStorage, final ODataLocal iData, final int iFragmentationThreshold,
+      final int iMaxBytesPerRun) {
+    storage = iStorage;
+    data = iData;
+    fragmentationThreshold = iFragmentationThreshold;
+    maxBytesPerRun = iMaxBytesPerRun;
+  }
+
+  @Override
+  public void run() {
+    try {
+      if (!active && data.getFragmentation() < fragmentationThreshold)
+        return;
+
+      active = true;
+      if (compact(maxBytesPerRun) < 0)
+        active = false;
+
+    } catch (OModificationOperationProhibitedException e) {
+      // STORAGE FROZEN: RETRY AT THE NEXT RUN
+    } catch (Exception e) {
+      active = false;
+      OLogManager.instance().error(this, "Error on compacting the data segment '%s' of storage '%s'", e, data.getName(),
+          storage.getName());
+    }
+  }
+
+  /**
+   * Moves records to compact the data segment until the bytes moved reach the limit.
+   * 
+   * @param iMaxBytes
+   *          Maximum bytes of records to move
+   * @return the bytes moved, or -1 if the segment has no more holes to compact
+   */
+  public synchronized long compact(final long iMaxBytes) {
+    long moved = 0;
+    while (moved < iMaxBytes) {
+      final int step = storage.compactDataSegment(data);
+      if (step < 0)
+        return moved > 0 ? moved : -1;
+      if (step == 0)
+        // THE SEGMENT HAS BEEN CHANGED OR IS BUSY: GO ON AT THE NEXT RUN
+        break;
+      moved += step;
+    }
+    return moved;
+  }
+}
@@ -164,6 +164,23 @@ public class ODataLocalHole extends OSingleFileSegment {
     return closestHole;
   }
 
+  /**
+   * Returns the hole with the lowest data offset, or null if there are no holes.
+   */
+  public synchronized ODataHoleInfo getLowestHole() {
+    if (availableHolesByPosition.isEmpty())
+      return null;
+    return availableHolesByPosition.firstKey();
+  }
+
+  /**
+   * Returns the hole starting at the data offset, or null if there is no hole there.
+   */
+  public synchronized ODataHoleInfo getHoleAt(final long iDataOffset) {
+    cursor.dataOffset = iDataOffset;
+    return availableHolesByPosition.get(cursor);
+  }
+
   /**
    * Returns the first available hole (at least iRecordSize length) to be reused.
    * 
@@ -20,6 +20,8 @@ import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
 import java.util.HashSet;
 import java.util.LinkedHashMap;
 import java.util.List;
@@ -61,21 +63,23 @@ import com.orientechnologies.orient.core.storage.fs.OMMapManagerLocator;
 import com.orientechnologies.orient.core.tx.OTransaction;
 
 public class OStorageLocal extends OStorageEmbedded {
-  private final int                     DELETE_MAX_RETRIES;
-  private final int                     DELETE_WAIT_TIME;
+  private final int                      DELETE_MAX_RETRIES;
+  private final int                      DELETE_WAIT_TIME;
 
-  private final Map<String, OCluster>   clusterMap          = new LinkedHashMap<String, OCluster>();
-  private OCluster[]                    clusters            = new OCluster[0];
-  private ODataLocal[]                  dataSegments        = new ODataLocal[0];
+  private final Map<String, OCluster>    clusterMap          = new LinkedHashMap<String, OCluster>();
+  private OCluster[]                     clusters            = new OCluster[0];
+  private ODataLocal[]                   dataSegments        = new ODataLocal[0];
 
-  private final OStorageLocalTxExecuter txManager;
-  private String                        storagePath;
-  private final OStorageVariableParser  variableParser;
-  private int                           defaultClusterId    = -1;
+  private final OStorageLocalTxExecuter  txManager;
+  private String                         storagePath;
+  private final OStorageVariableParser   variableParser;
+  private int                            defaultClusterId    = -1;
 
-  private static String[]               ALL_FILE_EXTENSIONS = { "ocf", ".och", ".ocl", ".oda", ".odh", ".otx" };
+  private static String[]                ALL_FILE_EXTENSIONS = { "ocf", ".och", ".ocl", ".oda", ".odh", ".otx" };
 
-  private OModificationLock             modificationLock    = new OModificationLock();
+  private OModificationLock              modificationLock    = new OModificationLock();
+  private final boolean                  lockPerCluster;
+  private final OStorageLocalGroupCommit groupCommit;
 
   public OStorageLocal(final String iName, final String iFilePath, final String iMode) throws IOException {
     super(iName, iFilePath, iMode);
@@ -96,6 +100,9 @@ public class OStorageLocal extends OStorageEmbedded {
 
     DELETE_MAX_RETRIES = OGlobalConfiguration.FILE_MMAP_FORCE_RETRY.getValueAsInteger();
     DELETE_WAIT_TIME = OGlobalConfiguration.FILE_MMAP_FORCE_DELAY.getValueAsInteger();
+    lockPerCluster = OGlobalConfiguration.STORAGE_LOCK_PER_CLUSTER.getValueAsBoolean();
+    groupCommit = new OStorageLocalGroupCommit(this, OGlobalConfiguration.TX_GROUP_COMMIT_BATCH.getValueAsInteger(),
+        OGlobalConfiguration.TX_GROUP_COMMIT_MAX_WAIT.getValueAsInteger());
 
     installProfilerHooks();
   }
@@ -191,6 +198,7 @@ public class OStorageLocal extends OStorageEmbedded {
         }
       }
 
+      groupCommit.reset();
       txManager.open();
 
     } catch (Exception e) {
@@ -1041,6 +1049,11 @@ public class OStorageLocal extends OStorageEmbedded {
   }
 
   public void commit(final OTransaction iTx) {
+    if (OGlobalConfiguration.TX_COMMIT_SYNCH.getValueAsBoolean() && OGlobalConfiguration.TX_GROUP_COMMIT.getValueAsBoolean()) {
+      groupCommit(iTx);
+      return;
+    }
+
     modificationLock.requestModificationLock();
     try {
       lock.acquireExclusiveLock();
@@ -1077,6 +1090,67 @@ public class OStorageLocal extends OStorageEmbedded {
     }
   }
 
+  /**
+   * Commits the transaction without synchronizing the storage and without clearing the transaction log: both are done by
+   * {@link #waitForCommitSynch(OTransaction)} that shares the synch with the concurrent commits.
+   */
+  protected void groupCommit(final OTransaction iTx) {
+    groupCommit.checkFailure();
+
+    modificationLock.requestModificationLock();
+    try {
+      lock.acquireExclusiveLock();
+      try {
+        txManager.clearLogEntries(iTx);
+        txManager.commitAllPendingRecords(iTx);
+        groupCommit.committed(iTx.getId());
+
+      } catch (RuntimeException e) {
+        // WE NEED TO CALL ROLLBACK HERE, IN THE LOCK
+        rollback(iTx);
+        clearLogEntries(iTx);
+        throw e;
+      } catch (IOException e) {
+        // WE NEED TO CALL ROLLBACK HERE, IN THE LOCK
+        rollback(iTx);
+        clearLogEntries(iTx);
+        throw new OException(e);
+      } finally {
+        lock.releaseExclusiveLock();
+      }
+    } finally {
+      modificationLock.releaseModificationLock();
+    }
+  }
+
+  /**
+   * Waits for the synch shared with the concurrent commits, then clears the log entries of the transaction. If the synch fails
+   * the transaction can't be undone anymore, since the locks have been released: the entries are kept in the log, so the recovery
+   * undoes it at the next open, and the storage refuses the next commits.
+   */
+  @Override
+  public void waitForCommitSynch(final OTransaction iTx) {
+    if (!groupCommit.waitForSynch(iTx.getId()))
+      return;
+
+    lock.acquireExclusiveLock();
+    try {
+      clearLogEntries(iTx);
+    } finally {
+      lock.releaseExclusiveLock();
+    }
+  }
+
+  private void clearLogEntries(final OTransaction iTx) {
+    try {
+      txManager.clearLogEntries(iTx);
+    } catch (Exception e) {
+      // XXX WHAT CAN WE DO HERE ? ROLLBACK IS NOT POSSIBLE
+      // IF WE THROW EXCEPTION, A ROLLBACK WILL BE DONE AT DB LEVEL BUT NOT AT STORAGE LEVEL
+      OLogManager.instance().error(this, "Clear tx log entries failed", e);
+    }
+  }
+
   public void rollback(final OTransaction iTx) {
     modificationLock.requestModificationLock();
     try {
@@ -1124,7 +1198,10 @@ public class OStorageLocal extends OStorageEmbedded {
 
     final long timer = OProfiler.getInstance().startChrono();
 
-    lock.acquireExclusiveLock();
+    if (lockPerCluster)
+      lock.acquireSharedLock();
+    else
+      lock.acquireExclusiveLock();
     try {
       cluster.synch();
 
@@ -1138,7 +1215,10 @@ public class OStorageLocal extends OStorageEmbedded {
       throw new OStorageException("Error on synch storage '" + name + "'", e);
 
     } finally {
-      lock.releaseExclusiveLock();
+      if (lockPerCluster)
+        lock.releaseSharedLock();
+      else
+        lock.releaseExclusiveLock();
 
       OProfiler.getInstance().stopChrono("db." + name + "record.synch", timer);
     }
@@ -1301,6 +1381,15 @@ public class OStorageLocal extends OStorageEmbedded {
     return mode;
   }
 
+  /**
+   * Tells if record operations lock only the involved cluster instead of the entire storage.
+   * 
+   * @see OGlobalConfiguration#STORAGE_LOCK_PER_CLUSTER
+   */
+  public boolean isLockPerCluster() {
+    return lockPerCluster;
+  }
+
   public OStorageVariableParser getVariableParser() {
     return variableParser;
   }
@@ -1443,7 +1532,7 @@ public class OStorageLocal extends OStorageEmbedded {
 
     final long timer = OProfiler.getInstance().startChrono();
 
-    lock.acquireExclusiveLock();
+    acquireClusterExclusiveLock(iClusterSegment);
     try {
       final OPhysicalPosition ppos = new OPhysicalPosition(-1, -1, iRecordType);
 
@@ -1475,7 +1564,7 @@ public class OStorageLocal extends OStorageEmbedded {
       return null;
 
     } finally {
-      lock.releaseExclusiveLock();
+      releaseClusterExclusiveLock(iClusterSegment);
 
       OProfiler.getInstance().stopChrono(PROFILER_CREATE_RECORD, timer);
     }
@@ -1494,7 +1583,7 @@ public class OStorageLocal extends OStorageEmbedded {
     // TO IMPROVE PERFORMANCES BY LOCKING THE ENTIRE CLUSTER FROM THE
     // OUTSIDE.
     if (iAtomicLock)
-      lock.acquireSharedLock();
+      acquireClusterSharedLock(iClusterSegment);
     try {
 
       lockManager.acquireLock(Thread.currentThread(), iRid, LOCK.SHARED);
@@ -1529,12 +1618,102 @@ public class OStorageLocal extends OStorageEmbedded {
 
     } finally {
       if (iAtomicLock)
-        lock.releaseSharedLock();
+        releaseClusterSharedLock(iClusterSegment);
 
       OProfiler.getInstance().stopChrono(PROFILER_READ_RECORD, timer);
     }
   }
 
+  /**
+   * Reads the records of the range in blocks: the cluster entries are read all together, then the contents are read following
+   * their order in the data segments, so near records cost one file access. The range is locked as a whole like the single reads
+   * do record by record.
+   */
+  @Override
+  public ORawBuffer[] readRecords(final int iClusterId, final long iFrom, final long iTo) {
+    checkOpeness();
+
+    final OCluster cluster = getClusterById(iClusterId);
+    if (!(cluster instanceof OClusterLocal))
+      return null;
+
+    final ORawBuffer[] result = new ORawBuffer[(int) (iTo - iFrom + 1)];
+
+    final long timer = OProfiler.getInstance().startChrono();
+
+    acquireClusterSharedLock(cluster);
+    try {
+
+      final int count = (int) (Math.min(iTo, cluster.getLastEntryPosition()) - iFrom + 1);
+      if (count <= 0)
+        return result;
+
+      final ORecordId[] rids = new ORecordId[count];
+      int locked = 0;
+      try {
+        for (; locked < count; ++locked) {
+          rids[locked] = new ORecordId(iClusterId, iFrom + locked);
+          lockManager.acquireLock(Thread.currentThread(), rids[locked], LOCK.SHARED);
+        }
+
+        final OPhysicalPosition[] ppos = ((OClusterLocal) cluster).getPhysicalPositions(iFrom, count);
+
+        // SORT THE VALID RECORDS BY DATA SEGMENT AND POSITION
+        final List<Integer> order = new ArrayList<Integer>(count);
+        for (int i = 0; i < count; ++i)
+          if (checkForRecordValidity(ppos[i]))
+            order.add(i);
+
+        Collections.sort(order, new Comparator<Integer>() {
+          public int compare(final Integer o1, final Integer o2) {
+            final OPhysicalPosition p1 = ppos[o1];
+            final OPhysicalPosition p2 = ppos[o2];
+            if (p1.dataSegmentId != p2.dataSegmentId)
+              return p1.dataSegmentId < p2.dataSegmentId ? -1 : 1;
+            return p1.dataSegmentPos < p2.dataSegmentPos ? -1 : p1.dataSegmentPos == p2.dataSegmentPos ? 0 : 1;
+          }
+        });
+
+        for (int begin = 0; begin < order.size();) {
+          final int dataSegmentId = ppos[order.get(begin)].dataSegmentId;
+          int end = begin + 1;
+          while (end < order.size() && ppos[order.get(end)].dataSegmentId == dataSegmentId)
+            end++;
+
+          final long[] positions = new long[end - begin];
+          for (int i = begin; i < end; ++i)
+            positions[i - begin] = ppos[order.get(i)].dataSegmentPos;
+
+          final byte[][] contents = getDataSegmentById(dataSegmentId).getRecords(positions);
+          for (int i = begin; i < end; ++i) {
+            final int index = order.get(i);
+            if (contents[i - begin] != null)
+              result[index] = new ORawBuffer(contents[i - begin], ppos[index].recordVersion, ppos[index].recordType);
+          }
+
+          begin = end;
+        }
+
+        return result;
+
+      } finally {
+        for (int i = 0; i < locked; ++i)
+          lockManager.releaseLock(Thread.currentThread(), rids[i], LOCK.SHARED);
+      }
+
+    } catch (IOException e) {
+
+      OLogManager.instance().error(this,
+          "Error on reading records " + iFrom + "-" + iTo + " (cluster: " + cluster + "): reading them one by one", e);
+      return null;
+
+    } finally {
+      releaseClusterSharedLock(cluster);
+
+      OProfiler.getInstance().stopChrono(PROFILER_READ_RECORDS, timer);
+    }
+  }
+
   protected OPhysicalPosition updateRecord(final OCluster iClusterSegment, final ORecordId iRid, final byte[] iContent,
       final int iVersion, final byte iRecordType) {
     if (iClusterSegment == null)
@@ -1542,7 +1721,7 @@ public class OStorageLocal extends OStorageEmbedded {
 
     final long timer = OProfiler.getInstance().startChrono();
 
-    lock.acquireExclusiveLock();
+    acquireClusterExclusiveLock(iClusterSegment);
     try {
 
       // GET THE SHARED LOCK AND GET AN EXCLUSIVE LOCK AGAINST THE RECORD
@@ -1616,7 +1795,7 @@ public class OStorageLocal extends OStorageEmbedded {
       OLogManager.instance().error(this, "Error on updating record " + iRid + " (cluster: " + iClusterSegment + ")", e);
 
     } finally {
-      lock.releaseExclusiveLock();
+      releaseClusterExclusiveLock(iClusterSegment);
 
       OProfiler.getInstance().stopChrono(PROFILER_UPDATE_RECORD, timer);
     }
@@ -1627,7 +1806,7 @@ public class OStorageLocal extends OStorageEmbedded {
   protected OPhysicalPosition deleteRecord(final OCluster iClusterSegment, final ORecordId iRid, final int iVersion) {
     final long timer = OProfiler.getInstance().startChrono();
 
-    lock.acquireExclusiveLock();
+    acquireClusterExclusiveLock(iClusterSegment);
     try {
 
       lockManager.acquireLock(Thread.currentThread(), iRid, LOCK.EXCLUSIVE);
@@ -1664,7 +1843,7 @@ public class OStorageLocal extends OStorageEmbedded {
       OLogManager.instance().error(this, "Error on deleting record " + iRid + "( cluster: " + iClusterSegment + ")", e);
 
     } finally {
-      lock.releaseExclusiveLock();
+      releaseClusterExclusiveLock(iClusterSegment);
 
       OProfiler.getInstance().stopChrono(PROFILER_DELETE_RECORD, timer);
     }
@@ -1672,6 +1851,94 @@ public class OStorageLocal extends OStorageEmbedded {
     return null;
   }
 
+  /**
+   * Moves the record following the first hole of the data segment to the beginning of the hole, taking the same locks of a record
+   * update. Called by the background compaction of the data segments.
+   * 
+   * @return the bytes moved, 0 if nothing can be moved now, or -1 if the data segment has no more holes to compact
+   */
+  protected int compactDataSegment(final ODataLocal iData) {
+    modificationLock.requestModificationLock();
+    try {
+
+      final ORecordId rid;
+      lock.acquireSharedLock();
+      try {
+        if (status != STATUS.OPEN)
+          return -1;
+
+        if (txManager.isCommitting())
+          // DON'T INTERFERE WITH THE COMMIT IN PROGRESS
+          return 0;
+
+        rid = iData.getNextRecordToCompact();
+        if (rid == null)
+          return -1;
+
+      } finally {
+        lock.releaseSharedLock();
+      }
+
+      // TEMPORARY RECORDS (CLUSTER -1) ARE MOVED UNDER THE LOCK OF THE ENTIRE STORAGE
+      final OCluster cluster = rid.clusterId > -1 && rid.clusterId < clusters.length ? clusters[rid.clusterId] : null;
+
+      acquireClusterExclusiveLock(cluster);
+      try {
+        if (status != STATUS.OPEN)
+          return -1;
+
+        lockManager.acquireLock(Thread.currentThread(), rid, LOCK.EXCLUSIVE);
+        try {
+
+          return iData.compactRecord(rid);
+
+        } finally {
+          lockManager.releaseLock(Thread.currentThread(), rid, LOCK.EXCLUSIVE);
+        }
+      } finally {
+        releaseClusterExclusiveLock(cluster);
+      }
+
+    } catch (IOException e) {
+      throw new OStorageException("Error on compacting the data segment '" + iData.getName() + "' of storage '" + name + "'", e);
+
+    } finally {
+      modificationLock.releaseModificationLock();
+    }
+  }
+
+  /**
+   * Locks the cluster to modify its records. With per-cluster locking the storage is locked in shared mode, so only structural
+   * operations are excluded, and the exclusive lock is taken against the cluster only. Otherwise the entire storage is locked.
+   */
+  private void acquireClusterExclusiveLock(final OCluster iCluster) {
+    if (lockPerCluster && iCluster instanceof OClusterLocal) {
+      lock.acquireSharedLock();
+      ((OClusterLocal) iCluster).getRecordLock().acquireExclusiveLock();
+    } else
+      lock.acquireExclusiveLock();
+  }
+
+  private void releaseClusterExclusiveLock(final OCluster iCluster) {
+    if (lockPerCluster && iCluster instanceof OClusterLocal) {
+      ((OClusterLocal) iCluster).getRecordLock().releaseExclusiveLock();
+      lock.releaseSharedLock();
+    } else
+      lock.releaseExclusiveLock();
+  }
+
+  private void acquireClusterSharedLock(final OCluster iCluster) {
+    lock.acquireSharedLock();
+    if (lockPerCluster && iCluster instanceof OClusterLocal)
+      ((OClusterLocal) iCluster).getRecordLock().acquireSharedLock();
+  }
+
+  private void releaseClusterSharedLock(final OCluster iCluster) {
+    if (lockPerCluster && iCluster instanceof OClusterLocal)
+      ((OClusterLocal) iCluster).getRecordLock().releaseSharedLock();
+    lock.releaseSharedLock();
+  }
+
   private void installProfilerHooks() {
     OProfiler.getInstance().registerHookValue("db." + name + ".data.holes", new OProfilerHookValue() {
       public Object getValue() {
@@ -1683,6 +1950,36 @@ public class OStorageLocal extends OStorageEmbedded {
         return getHoleSize();
       }
     });
+    OProfiler.getInstance().registerHookValue("db." + name + ".data.fragmentation", new OProfilerHookValue() {
+      public Object getValue() {
+        long holeSize = 0;
+        long size = 0;
+        for (ODataLocal d : dataSegments)
+          if (d != null) {
+            holeSize += d.getHoleSize();
+            size += d.getSize();
+          }
+        return size > 0 ? holeSize * 100f / size : 0f;
+      }
+    });
+    OProfiler.getInstance().registerHookValue("db." + name + ".data.compaction.moved", new OProfilerHookValue() {
+      public Object getValue() {
+        long moved = 0;
+        for (ODataLocal d : dataSegments)
+          if (d != null)
+            moved += d.getCompactedBytes();
+        return moved;
+      }
+    });
+    OProfiler.getInstance().registerHookValue("db." + name + ".data.compaction.reclaimed", new OProfilerHookValue() {
+      public Object getValue() {
+        long reclaimed = 0;
+        for (ODataLocal d : dataSegments)
+          if (d != null)
+            reclaimed += d.getReclaimedBytes();
+        return reclaimed;
+      }
+    });
   }
 
   private void formatMessage(final boolean iVerbose, final OCommandOutputListener iListener, final String iMessage,
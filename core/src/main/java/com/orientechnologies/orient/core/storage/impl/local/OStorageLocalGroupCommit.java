@@ -0,0 +1,164 @@
+/*
+ * Copyright 2010-2012 Luca Garulli (l.garulli--at--orientechnologies.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.orientechnologies.orient.core.storage.impl.local;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import com.orientechnologies.common.profiler.OProfiler;
+import com.orientechnologies.orient.core.exception.OStorageException;
+
+/**
+ * Shares one synch of the storage among concurrent commits. Every committer applies its transaction as usual, registers it by
+ * calling {@link #committed(int)} and, once the storage lock has been released, waits in {@link #waitForSynch(int)}. The first
+ * waiter becomes the leader: it waits until the batch is full or the maximum wait time is elapsed, synchronizes the storage once
+ * and releases all the committers covered by the synch.<br/>
+ * <br/>
+ * If a synch fails the transactions waiting for it have been applied but are not durable. They can't be undone, since the locks
+ * have been released and other transactions could have changed the same records, so the failure is kept: all the waiters and the
+ * next commits get an error until the storage is reopened, when the recovery undoes the transactions left in the log.
+ *
+ * @author Luca Garulli (l.garulli--at--orientechnologies.com)
+ *
+ */
+public class OStorageLocalGroupCommit {
+  private final OStorageLocal      storage;
+  private final int                batchSize;
+  private final long               maxWait;
+
+  private final Map<Integer, Long> pending       = new HashMap<Integer, Long>();
+  private long                     lastCommitted = 0;
+  private long                     lastSynched   = 0;
+  private boolean                  synching      = false;
+  private RuntimeException         failure       = null;
+
+  public OStorageLocalGroupCommit(final OStorageLocal iStorage, final int iBatchSize, final long iMaxWait) {
+    storage = iStorage;
+    batchSize = iBatchSize;
+    maxWait = iMaxWait;
+  }
+
+  /**
+   * Forgets the state of the previous opening of the storage, including the failure of its last synch.
+   */
+  public synchronized void reset() {
+    pending.clear();
+    failure = null;
+  }
+
+  /**
+   * Checks that the storage can accept new commits.
+   * 
+   * @throws OStorageException
+   *           if a previous synch failed
+   */
+  public synchronized void checkFailure() {
+    if (failure != null)
+      throw new OStorageException("Cannot commit on storage '" + storage.getName()
+          + "' because a previous synch failed: reopen the storage to recover it", failure);
+  }
+
+  /**
+   * Registers a transaction applied to the storage but not yet synchronized.
+   */
+  public synchronized void committed(final int iTxId) {
+    pending.put(iTxId, ++lastCommitted);
+    if (synching && lastCommitted - lastSynched >= batchSize)
+      // WAKE UP THE LEADER: THE BATCH IS FULL
+      notifyAll();
+  }
+
+  /**
+   * Waits until the transaction has been synchronized to the file system. The wait is not interruptible, since the log entries of
+   * the transaction can be cleared only once they are durable: the interrupted status is restored before returning.
+   *
+   * @return false if the transaction wasn't registered by {@link #committed(int)}
+   * @throws OStorageException
+   *           if the synch failed: the transaction has been applied but is not durable
+   */
+  public boolean waitForSynch(final int iTxId) {
+    final long commit;
+    synchronized (this) {
+      final Long registered = pending.remove(iTxId);
+      if (registered == null)
+        return false;
+      commit = registered;
+    }
+
+    final long timer = OProfiler.getInstance().startChrono();
+    boolean interrupted = false;
+
+    try {
+      while (true) {
+        final long batchEnd;
+
+        synchronized (this) {
+          while (lastSynched < commit && synching && failure == null)
+            // ANOTHER THREAD IS SYNCHRONIZING: WAIT FOR IT
+            try {
+              wait();
+            } catch (InterruptedException e) {
+              interrupted = true;
+            }
+
+          if (lastSynched >= commit)
+            return true;
+
+          if (failure != null)
+            throw new OStorageException("The transaction has been applied to storage '" + storage.getName()
+                + "' but it is not durable because the synch failed: reopen the storage to recover it", failure);
+
+          // BECOME THE LEADER: WAIT FOR OTHER COMMITS UNTIL THE BATCH IS FULL OR THE TIMEOUT IS REACHED
+          synching = true;
+          final long deadline = System.currentTimeMillis() + maxWait;
+          long remaining = maxWait;
+          while (lastCommitted - lastSynched < batchSize && remaining > 0) {
+            try {
+              wait(remaining);
+            } catch (InterruptedException e) {
+              interrupted = true;
+            }
+            remaining = deadline - System.currentTimeMillis();
+          }
+
+          batchEnd = lastCommitted;
+        }
+
+        try {
+          storage.synch();
+        } catch (RuntimeException e) {
+          synchronized (this) {
+            failure = e;
+            synching = false;
+            notifyAll();
+          }
+          continue;
+        }
+
+        synchronized (this) {
+          OProfiler.getInstance().updateStat("db." + storage.getName() + ".groupCommit.batchSize", batchEnd - lastSynched);
+          lastSynched = batchEnd;
+          synching = false;
+          notifyAll();
+        }
+      }
+    } finally {
+      if (interrupted)
+        Thread.currentThread().interrupt();
+      OProfiler.getInstance().stopChrono("db." + storage.getName() + ".groupCommit.latency", timer);
+    }
+  }
+}
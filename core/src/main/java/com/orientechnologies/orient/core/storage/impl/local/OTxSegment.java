@@ -26,27 +26,35 @@ import com.orientechnologies.orient.core.tx.OTransaction;
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
+import java.util.zip.CRC32;
 
 /**
  * Handles the records that wait to be committed. This class is not synchronized because the caller is responsible of it.<br/>
  * Uses the classic IO API and NOT the MMAP to avoid the buffer is not buffered by OS.<br/>
  * <br/>
+ * The log is append-only: every entry is built in memory and written at the end of the file with a single write. Each entry has a
+ * Log Sequence Number (LSN) and a checksum of its content.<br/>
+ * <br/>
  * Record structure:<br/>
  * <code>
- * +-----------------------------------------------------------------------------------------+--------------------+<br/>
- * | .................... FIXED SIZE AREA = 24 bytes ....................................... | VARIABLE SIZE AREA |<br/>
- * +--------+--------+---------+------------+----------------+--------+--------+-------------+--------------------+<br/>
- * | STATUS | OPERAT | TX ID . | CLUSTER ID | CLUSTER OFFSET | TYPE . |VERSION | RECORD SIZE | RECORD CONTENT ... |<br/>
- * | 1 byte | 1 byte | 4 bytes | 2 bytes .. | 8 bytes ...... | 1 byte |4 bytes | 4 bytes ... | ? bytes .......... |<br/>
- * +--------+--------|---------+------------+----------------+--------+--------+-------------+--------------------+<br/>
- * > 25 bytes
+ * +--------------------------------------------------------------------------------------------------------------------------------------+--------------------+<br/>
+ * | .................... FIXED SIZE AREA = 41 bytes .................................................................................... | VARIABLE SIZE AREA |<br/>
+ * +--------+--------+---------+------------+----------------+--------+---------+-------------+---------+-------------+----------+--------------------+<br/>
+ * | STATUS | OPERAT | TX ID . | CLUSTER ID | CLUSTER OFFSET | TYPE . | VERSION | DATASEGMENT | LSN ... | RECORD SIZE | CHECKSUM | RECORD CONTENT ... |<br/>
+ * | 1 byte | 1 byte | 4 bytes | 2 bytes .. | 8 bytes ...... | 1 byte | 4 bytes | 4 bytes ... | 8 bytes | 4 bytes ... | 4 bytes  | ? bytes .......... |<br/>
+ * +--------+--------|---------+------------+----------------+--------+---------+-------------+---------+-------------+----------+--------------------+<br/>
+ * > 41 bytes
  * </code><br/>
- * At commit time all the changes are written in the TX log file with status = STATUS_COMMITTING. Once all records have been
- * written, then the status of all the records is changed in STATUS_FREE. If a transactions has at least a STATUS_FREE means that
- * has been successfully committed. This is the reason why on startup all the pending transactions will be recovered, but those with
- * at least one record with status = STATUS_FREE.
+ * The checksum covers the entire entry but the STATUS. At commit time all the changes are written in the TX log file with status =
+ * STATUS_COMMITTING. Once the transaction has been committed, the log is truncated if no other transactions are pending, otherwise
+ * the status of its records is changed in STATUS_FREE. If a transactions has at least a STATUS_FREE means that has been
+ * successfully committed. This is the reason why on startup all the pending transactions will be recovered, but those with at
+ * least one record with status = STATUS_FREE. The recovery stops at the first entry with a wrong checksum, since it's the tail
+ * partially written before the crash.
  */
 public class OTxSegment extends OSingleFileSegment {
   public static final byte                STATUS_FREE           = 0;
@@ -59,13 +67,18 @@ public class OTxSegment extends OSingleFileSegment {
   private static final int                DEF_START_SIZE        = 262144;
 
   private static final int                OFFSET_TX_ID          = 2;
-  private static final int                OFFSET_RECORD_SIZE    = 25;
-  private static final int                OFFSET_RECORD_CONTENT = 29;
+  private static final int                OFFSET_LSN            = 25;
+  private static final int                OFFSET_RECORD_SIZE    = 33;
+  private static final int                OFFSET_CHECKSUM       = 37;
+  private static final int                OFFSET_RECORD_CONTENT = 41;
   private final boolean                   synchEnabled;
   private OSharedResourceAdaptiveExternal lock                  = new OSharedResourceAdaptiveExternal(
                                                                     OGlobalConfiguration.ENVIRONMENT_CONCURRENT.getValueAsBoolean(),
                                                                     0, true);
 
+  private long                            lastLSN               = 0;
+  private final Map<Integer, List<Long>>  txEntries             = new LinkedHashMap<Integer, List<Long>>();
+
   public OTxSegment(final OStorageLocal iStorage, final OStorageTxConfiguration iConfig) throws IOException {
     super(iStorage, iConfig, OGlobalConfiguration.TX_LOG_TYPE.getValueAsString());
     synchEnabled = OGlobalConfiguration.TX_LOG_SYNCH.getValueAsBoolean();
@@ -98,6 +111,7 @@ public class OTxSegment extends OSingleFileSegment {
     try {
 
       super.create(iStartSize > -1 ? iStartSize : DEF_START_SIZE);
+      txEntries.clear();
 
     } finally {
       lock.releaseExclusiveLock();
@@ -111,42 +125,58 @@ public class OTxSegment extends OSingleFileSegment {
       final byte iRecordType, final int iRecordVersion, final byte[] iRecordContent, int dataSegmentId) throws IOException {
 
     final int contentSize = iRecordContent != null ? iRecordContent.length : 0;
-    final int size = OFFSET_RECORD_CONTENT + contentSize;
+    final byte[] entry = new byte[OFFSET_RECORD_CONTENT + contentSize];
 
     lock.acquireExclusiveLock();
     try {
 
-      int offset = file.allocateSpace(size);
+      // BUILD THE ENTRY IN MEMORY TO WRITE IT WITH ONE SEQUENTIAL WRITE
+      int offset = 0;
 
-      file.writeByte(offset, STATUS_COMMITTING);
+      entry[offset] = STATUS_COMMITTING;
       offset += OBinaryProtocol.SIZE_BYTE;
 
-      file.writeByte(offset, iOperation);
+      entry[offset] = iOperation;
       offset += OBinaryProtocol.SIZE_BYTE;
 
-      file.writeInt(offset, iTxId);
+      OBinaryProtocol.int2bytes(iTxId, entry, offset);
       offset += OBinaryProtocol.SIZE_INT;
 
-      file.writeShort(offset, (short) iClusterId);
+      OBinaryProtocol.short2bytes((short) iClusterId, entry, offset);
       offset += OBinaryProtocol.SIZE_SHORT;
 
-      file.writeLong(offset, iClusterOffset);
+      OBinaryProtocol.long2bytes(iClusterOffset, entry, offset);
       offset += OBinaryProtocol.SIZE_LONG;
 
-      file.writeByte(offset, iRecordType);
+      entry[offset] = iRecordType;
       offset += OBinaryProtocol.SIZE_BYTE;
 
-      file.writeInt(offset, iRecordVersion);
+      OBinaryProtocol.int2bytes(iRecordVersion, entry, offset);
       offset += OBinaryProtocol.SIZE_INT;
 
-      file.writeInt(offset, dataSegmentId);
+      OBinaryProtocol.int2bytes(dataSegmentId, entry, offset);
       offset += OBinaryProtocol.SIZE_INT;
 
-      file.writeInt(offset, contentSize);
+      OBinaryProtocol.long2bytes(++lastLSN, entry, offset);
+      offset += OBinaryProtocol.SIZE_LONG;
+
+      OBinaryProtocol.int2bytes(contentSize, entry, offset);
       offset += OBinaryProtocol.SIZE_INT;
 
-      file.write(offset, iRecordContent);
-      offset += contentSize;
+      if (iRecordContent != null)
+        System.arraycopy(iRecordContent, 0, entry, OFFSET_RECORD_CONTENT, contentSize);
+
+      OBinaryProtocol.int2bytes(checksum(entry), entry, OFFSET_CHECKSUM);
+
+      final long position = file.allocateSpace(entry.length);
+      file.write(position, entry);
+
+      List<Long> positions = txEntries.get(iTxId);
+      if (positions == null) {
+        positions = new ArrayList<Long>();
+        txEntries.put(iTxId, positions);
+      }
+      positions.add(position);
 
       if (synchEnabled)
         file.synch();
@@ -157,7 +187,7 @@ public class OTxSegment extends OSingleFileSegment {
   }
 
   /**
-   * Clears the entire file.
+   * Clears the log entries of the transaction. The file is truncated if no other transactions have entries in the log.
    * 
    * @param iTxId
    *          The id of transaction
@@ -168,7 +198,14 @@ public class OTxSegment extends OSingleFileSegment {
     lock.acquireExclusiveLock();
     try {
 
-      truncate();
+      final List<Long> positions = txEntries.remove(iTxId);
+
+      if (txEntries.isEmpty())
+        truncate();
+      else if (positions != null)
+        // OTHER TRANSACTIONS ARE PENDING: MARK THE ENTRIES AS FREE
+        for (Long position : positions)
+          file.writeByte(position, STATUS_FREE);
 
     } finally {
       lock.releaseExclusiveLock();
@@ -179,14 +216,25 @@ public class OTxSegment extends OSingleFileSegment {
     lock.acquireExclusiveLock();
     try {
 
-      recoverTransaction(iTx.getId());
+      final List<Long> positions = txEntries.remove(iTx.getId());
+      if (positions != null)
+        recoverTransaction(positions);
 
     } finally {
       lock.releaseExclusiveLock();
     }
   }
 
+  /**
+   * Returns the LSN of the last entry appended to the log.
+   */
+  public long getLastLSN() {
+    return lastLSN;
+  }
+
   private void recoverTransactions() throws IOException {
+    txEntries.clear();
+
     if (file.getFilledUpTo() == 0)
       return;
 
@@ -196,9 +244,9 @@ public class OTxSegment extends OSingleFileSegment {
     int recoveredRecords = 0;
     int recs;
 
-    final Set<Integer> txToRecover = scanForTransactionsToRecover();
-    for (Integer txId : txToRecover) {
-      recs = recoverTransaction(txId);
+    final Map<Integer, List<Long>> txToRecover = scanForTransactionsToRecover();
+    for (List<Long> positions : txToRecover.values()) {
+      recs = recoverTransaction(positions);
 
       if (recs > 0) {
         recoveredTxs++;
@@ -218,21 +266,30 @@ public class OTxSegment extends OSingleFileSegment {
   }
 
   /**
-   * Scans the segment and returns the set of transactions ids to recover.
+   * Scans the segment sequentially and returns the positions of the entries of the transactions to recover, in LSN order.
    */
-  private Set<Integer> scanForTransactionsToRecover() throws IOException {
+  private Map<Integer, List<Long>> scanForTransactionsToRecover() throws IOException {
     // SCAN ALL THE FILE SEARCHING FOR THE TRANSACTIONS TO RECOVER
-    final Set<Integer> txToRecover = new HashSet<Integer>();
+    final Map<Integer, List<Long>> txToRecover = new LinkedHashMap<Integer, List<Long>>();
 
     final Set<Integer> txToNotRecover = new HashSet<Integer>();
 
     // BROWSE ALL THE ENTRIES
-    for (long offset = 0; eof(offset); offset = nextEntry(offset)) {
+    long offset = 0;
+    while (offset + OFFSET_RECORD_CONTENT <= file.getFilledUpTo()) {
+      final byte[] entry = readEntry(offset);
+      if (entry == null) {
+        OLogManager.instance().warn(this, "Found a corrupted entry at offset %d of the tx log: ignoring the rest of the log", offset);
+        break;
+      }
+
       // READ STATUS
-      final byte status = file.readByte(offset);
+      final byte status = entry[0];
 
       // READ TX-ID
-      final int txId = file.readInt(offset + OFFSET_TX_ID);
+      final int txId = OBinaryProtocol.bytes2int(entry, OFFSET_TX_ID);
+
+      lastLSN = Math.max(lastLSN, OBinaryProtocol.bytes2long(entry, OFFSET_LSN));
 
       switch (status) {
       case STATUS_FREE:
@@ -243,88 +300,79 @@ public class OTxSegment extends OSingleFileSegment {
 
       case STATUS_COMMITTING:
         // TO RECOVER UNLESS THE REQ/TX IS IN THE MAP txToNotRecover
-        txToRecover.add(txId);
+        List<Long> positions = txToRecover.get(txId);
+        if (positions == null) {
+          positions = new ArrayList<Long>();
+          txToRecover.put(txId, positions);
+        }
+        positions.add(offset);
         break;
       }
+
+      offset += entry.length;
     }
 
-    if (txToNotRecover.size() > 0)
-      // FILTER THE TX MAP TO RECOVER BY REMOVING THE TX WITH AT LEAST ONE "FREE" STATUS
-      txToRecover.removeAll(txToNotRecover);
+    // FILTER THE TX MAP TO RECOVER BY REMOVING THE TX WITH AT LEAST ONE "FREE" STATUS
+    for (Integer txId : txToNotRecover)
+      txToRecover.remove(txId);
 
     return txToRecover;
   }
 
   /**
-   * Recover a transaction.
+   * Recover a transaction by undoing its entries in reverse order.
    * 
-   * @param iTxId
+   * @param iPositions
+   *          Positions of the transaction entries in the log
    * @return Number of records recovered
    * 
    * @throws IOException
    */
-  private int recoverTransaction(final int iTxId) throws IOException {
+  private int recoverTransaction(final List<Long> iPositions) throws IOException {
     int recordsRecovered = 0;
     final ORecordId rid = new ORecordId();
 
-    final List<Long> txRecordPositions = new ArrayList<Long>();
-
-    // BROWSE ALL THE ENTRIES
-    for (long beginEntry = 0; eof(beginEntry); beginEntry = nextEntry(beginEntry)) {
-      long offset = beginEntry;
-
-      final byte status = file.readByte(offset);
-      offset += OBinaryProtocol.SIZE_BYTE;
-
-      if (status != STATUS_FREE) {
-        // DIRTY TX LOG ENTRY
-        offset += OBinaryProtocol.SIZE_BYTE;
+    for (int i = iPositions.size() - 1; i >= 0; i--) {
+      final long beginEntry = iPositions.get(i);
 
-        final int txId = file.readInt(offset);
-        if (txId == iTxId) {
-          txRecordPositions.add(beginEntry);
-        }
-      }
-    }
+      final byte[] entry = readEntry(beginEntry);
+      if (entry == null)
+        throw new IOException("Corrupted entry at offset " + beginEntry + " of the tx log");
 
-    for (int i = txRecordPositions.size() - 1; i >= 0; i--) {
-      final long beginEntry = txRecordPositions.get(i);
-      long offset = beginEntry;
+      int offset = 0;
 
-      final byte status = file.readByte(offset);
+      final byte status = entry[offset];
       offset += OBinaryProtocol.SIZE_BYTE;
 
       // DIRTY TX LOG ENTRY
-      final byte operation = file.readByte(offset);
+      final byte operation = entry[offset];
       offset += OBinaryProtocol.SIZE_BYTE;
 
       // TX ID FOUND
-      final int txId = file.readInt(offset);
+      final int txId = OBinaryProtocol.bytes2int(entry, offset);
       offset += OBinaryProtocol.SIZE_INT;
 
-      rid.clusterId = file.readShort(offset);
+      rid.clusterId = OBinaryProtocol.bytes2short(entry, offset);
       offset += OBinaryProtocol.SIZE_SHORT;
 
-      rid.clusterPosition = file.readLong(offset);
+      rid.clusterPosition = OBinaryProtocol.bytes2long(entry, offset);
       offset += OBinaryProtocol.SIZE_LONG;
 
-      final byte recordType = file.readByte(offset);
+      final byte recordType = entry[offset];
       offset += OBinaryProtocol.SIZE_BYTE;
 
-      final int recordVersion = file.readInt(offset);
+      final int recordVersion = OBinaryProtocol.bytes2int(entry, offset);
       offset += OBinaryProtocol.SIZE_INT;
 
-      final int dataSegmentId = file.readInt(offset);
+      final int dataSegmentId = OBinaryProtocol.bytes2int(entry, offset);
       offset += OBinaryProtocol.SIZE_INT;
 
-      final int recordSize = file.readInt(offset);
-      offset += OBinaryProtocol.SIZE_INT;
+      final int recordSize = entry.length - OFFSET_RECORD_CONTENT;
 
       final byte[] buffer;
       if (recordSize > 0) {
         buffer = new byte[recordSize];
-        file.read(offset, buffer, recordSize);
-        offset += recordSize;
+        System.arraycopy(entry, OFFSET_RECORD_CONTENT, buffer, 0, recordSize);
       } else
         buffer = null;
 
@@ -367,12 +415,32 @@ public class OTxSegment extends OSingleFileSegment {
     }
   }
 
-  private boolean eof(final long iOffset) {
-    return iOffset + OFFSET_RECORD_CONTENT < file.getFilledUpTo();
+  /**
+   * Reads the entire entry at the received offset.
+   * 
+   * @return the entry content or null if the entry is incomplete or its checksum doesn't match
+   */
+  private byte[] readEntry(final long iOffset) throws IOException {
+    final int recordSize = file.readInt(iOffset + OFFSET_RECORD_SIZE);
+    if (recordSize < 0 || iOffset + OFFSET_RECORD_CONTENT + recordSize > file.getFilledUpTo())
+      return null;
+
+    final byte[] entry = new byte[OFFSET_RECORD_CONTENT + recordSize];
+    file.read(iOffset, entry, entry.length);
+
+    if (OBinaryProtocol.bytes2int(entry, OFFSET_CHECKSUM) != checksum(entry))
+      return null;
+
+    return entry;
   }
 
-  private long nextEntry(final long iOffset) throws IOException {
-    final int recordSize = file.readInt(iOffset + OFFSET_RECORD_SIZE);
-    return iOffset + OFFSET_RECORD_CONTENT + recordSize;
+  /**
+   * Computes the checksum of the entry, excluding the status that changes after the entry has been written and the checksum itself.
+   */
+  private static int checksum(final byte[] iEntry) {
+    final CRC32 crc = new CRC32();
+    crc.update(iEntry, OBinaryProtocol.SIZE_BYTE, OFFSET_CHECKSUM - OBinaryProtocol.SIZE_BYTE);
+    crc.update(iEntry, OFFSET_RECORD_CONTENT, iEntry.length - OFFSET_RECORD_CONTENT);
+    return (int) crc.getValue();
   }
 }
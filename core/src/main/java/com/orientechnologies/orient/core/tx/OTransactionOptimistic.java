@@ -15,6 +15,7 @@
  */
 package com.orientechnologies.orient.core.tx;
 
+import com.orientechnologies.common.log.OLogManager;
 import com.orientechnologies.orient.core.config.OGlobalConfiguration;
 import com.orientechnologies.orient.core.db.ODatabaseComplex.OPERATION_MODE;
 import com.orientechnologies.orient.core.db.record.ODatabaseRecordTx;
@@ -23,20 +24,23 @@ import com.orientechnologies.orient.core.hook.ORecordHook.TYPE;
 import com.orientechnologies.orient.core.id.ORID;
 import com.orientechnologies.orient.core.id.ORecordId;
 import com.orientechnologies.orient.core.index.OIndex;
-import com.orientechnologies.orient.core.index.OIndexMVRBTreeAbstract;
+import com.orientechnologies.orient.core.index.OIndexAbstract;
+import com.orientechnologies.orient.core.metadata.schema.OClass;
 import com.orientechnologies.orient.core.record.ORecord;
 import com.orientechnologies.orient.core.record.ORecordInternal;
 import com.orientechnologies.orient.core.record.impl.ODocument;
 import com.orientechnologies.orient.core.storage.ORecordCallback;
 import com.orientechnologies.orient.core.storage.OStorageEmbedded;
 import com.orientechnologies.orient.core.storage.OStorageProxy;
+import com.orientechnologies.orient.core.tx.OTransactionIndexChangesPerKey.OTransactionIndexEntry;
 
 import java.util.ArrayList;
-import java.util.Collection;
-import java.util.Collections;
-import java.util.Comparator;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Map.Entry;
+import java.util.Set;
+import java.util.TreeMap;
 import java.util.concurrent.Callable;
 import java.util.concurrent.atomic.AtomicInteger;
 
@@ -60,56 +64,36 @@ public class OTransactionOptimistic extends OTransactionRealAbstract {
     if (database.getStorage() instanceof OStorageProxy)
       database.getStorage().commit(this);
     else {
-      final List<String> involvedIndexes = getInvolvedIndexes();
-
-      if (involvedIndexes != null)
-        Collections.sort(involvedIndexes);
-
-      // LOCK INVOLVED INDEXES
-      List<OIndexMVRBTreeAbstract<?>> lockedIndexes = null;
-      try {
-        if (involvedIndexes != null)
-          for (String indexName : involvedIndexes) {
-            final OIndexMVRBTreeAbstract<?> index = (OIndexMVRBTreeAbstract<?>) database.getMetadata().getIndexManager()
-                .getIndexInternal(indexName);
-            if (lockedIndexes == null)
-              lockedIndexes = new ArrayList<OIndexMVRBTreeAbstract<?>>();
-
-            index.acquireModificationLock();
-            lockedIndexes.add(index);
-          }
+      // LOCK THE INDEXES WITH PENDING CHANGES AND THE ONES DEFINED ON THE CLASSES OF THE TOUCHED DOCUMENTS. THE CLASSES ARE VISITED
+      // ONLY ONCE AND THE LOCKS ARE ACQUIRED BY INDEX NAME TO ALWAYS FOLLOW THE SAME ORDER
+      final Map<String, OIndexAbstract<?>> indexesToLock = new TreeMap<String, OIndexAbstract<?>>();
+      for (String indexName : indexEntries.keySet()) {
+        final OIndexAbstract<?> index = (OIndexAbstract<?>) database.getMetadata().getIndexManager().getIndexInternal(indexName);
+        if (index != null)
+          indexesToLock.put(index.getName(), index);
+      }
 
-        // SEARCH FOR INDEX BASED ON DOCUMENT TOUCHED
-        final Collection<? extends OIndex<?>> indexes = database.getMetadata().getIndexManager().getIndexes();
-        List<? extends OIndex<?>> indexesToLock = null;
-        if (indexes != null) {
-          indexesToLock = new ArrayList<OIndex<?>>(indexes);
-          Collections.sort(indexesToLock, new Comparator<OIndex<?>>() {
-            public int compare(final OIndex<?> indexOne, final OIndex<?> indexTwo) {
-              return indexOne.getName().compareTo(indexTwo.getName());
-            }
-          });
+      final Set<OClass> touchedClasses = new HashSet<OClass>();
+      for (ORecordOperation entry : recordEntries.values()) {
+        final ORecord<?> record = entry.record.getRecord();
+        if (record instanceof ODocument) {
+          final OClass cls = ((ODocument) record).getSchemaClass();
+          if (cls != null && touchedClasses.add(cls))
+            for (OIndex<?> index : cls.getIndexes())
+              if (!indexesToLock.containsKey(index.getName()))
+                indexesToLock.put(index.getName(), (OIndexAbstract<?>) index.getInternal());
         }
+      }
 
-        if (indexesToLock != null && !indexesToLock.isEmpty())
-          if (lockedIndexes == null)
-            lockedIndexes = new ArrayList<OIndexMVRBTreeAbstract<?>>();
-
-        for (OIndex<?> index : indexesToLock) {
-          for (Entry<ORID, ORecordOperation> entry : recordEntries.entrySet()) {
-            final ORecord<?> record = entry.getValue().record.getRecord();
-            if (record instanceof ODocument) {
-              ODocument doc = (ODocument) record;
-              if (!lockedIndexes.contains(index.getInternal()) && doc.getSchemaClass() != null && index.getDefinition() != null
-                  && doc.getSchemaClass().isSubClassOf(index.getDefinition().getClassName())) {
-                index.getInternal().acquireModificationLock();
-                lockedIndexes.add((OIndexMVRBTreeAbstract<?>) index.getInternal());
-              }
-            }
-          }
+      final List<OIndexAbstract<?>> lockedIndexes = new ArrayList<OIndexAbstract<?>>(indexesToLock.size());
+      boolean committed = false;
+      try {
+        for (OIndexAbstract<?> index : indexesToLock.values()) {
+          index.acquireModificationLock();
+          lockedIndexes.add(index);
         }
 
-        for (OIndexMVRBTreeAbstract<?> index : lockedIndexes)
+        for (OIndexAbstract<?> index : lockedIndexes)
           index.acquireExclusiveLock();
 
         database.getStorage().callInLock(new Callable<Void>() {
@@ -118,28 +102,46 @@ public class OTransactionOptimistic extends OTransactionRealAbstract {
 
             database.getStorage().commit(OTransactionOptimistic.this);
 
-            // COMMIT INDEX CHANGES
-            final ODocument indexEntries = getIndexChanges();
-            if (indexEntries != null) {
-              for (Entry<String, Object> indexEntry : indexEntries) {
-                final OIndex<?> index = database.getMetadata().getIndexManager().getIndexInternal(indexEntry.getKey());
-                index.commit((ODocument) indexEntry.getValue());
-              }
+            // COMMIT INDEX CHANGES DIRECTLY FROM THE CHANGES COLLECTED BY THE TRANSACTION
+            for (Entry<String, OTransactionIndexChanges> indexEntry : indexEntries.entrySet()) {
+              final OIndexAbstract<?> index = (OIndexAbstract<?>) database.getMetadata().getIndexManager()
+                  .getIndexInternal(indexEntry.getKey());
+              final OTransactionIndexChanges changes = indexEntry.getValue();
+
+              if (changes.changesCrossKey != null)
+                for (OTransactionIndexEntry e : changes.changesCrossKey.entries)
+                  resolveIndexValue(e);
+              for (OTransactionIndexChangesPerKey changesPerKey : changes.changesPerKey.values())
+                for (OTransactionIndexEntry e : changesPerKey.entries)
+                  resolveIndexValue(e);
+
+              index.commit(changes);
             }
+            indexEntries.clear();
             return null;
           }
 
         }, true);
+        committed = true;
       } finally {
         // RELEASE INDEX LOCKS IF ANY
-        if (lockedIndexes != null) {
-          for (OIndexMVRBTreeAbstract<?> index : lockedIndexes)
-            index.releaseExclusiveLock();
-
-          for (OIndexMVRBTreeAbstract<?> index : lockedIndexes)
-            index.releaseModificationLock();
-
-        }
+        for (OIndexAbstract<?> index : lockedIndexes)
+          index.releaseExclusiveLock();
+
+        for (OIndexAbstract<?> index : lockedIndexes)
+          index.releaseModificationLock();
+
+        if (database.getStorage() instanceof OStorageEmbedded)
+          // WAIT FOR THE SYNCH OUTSIDE THE LOCKS TO LET OTHER TRANSACTIONS SHARE IT. CALLED EVEN IF THE INDEXES FAILED, SINCE THE
+          // RECORDS COULD BE ALREADY APPLIED TO THE STORAGE
+          try {
+            ((OStorageEmbedded) database.getStorage()).waitForCommitSynch(this);
+          } catch (RuntimeException e) {
+            if (committed)
+              throw e;
+            // DON'T HIDE THE ORIGINAL EXCEPTION
+            OLogManager.instance().error(this, "Error on waiting for the synch of the failed commit", e);
+          }
       }
     }
   }
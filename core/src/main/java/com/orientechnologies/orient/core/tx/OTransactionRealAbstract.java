@@ -317,6 +317,19 @@ public abstract class OTransactionRealAbstract extends OTransactionAbstract {
       throw new OTransactionException("Invalid state of the transaction. The transaction must be begun.");
   }
 
+  /**
+   * Replaces the value of an index change that points to a record still new with the persisted record, saving it if needed.
+   */
+  protected void resolveIndexValue(final OTransactionIndexEntry iEntry) {
+    if (iEntry.value instanceof ORecord<?> && iEntry.value.getIdentity().isNew()) {
+      final ORecord<?> saved = temp2persistent.get(iEntry.value.getIdentity());
+      if (saved != null)
+        iEntry.value = saved;
+      else
+        ((ORecord<?>) iEntry.value).save();
+    }
+  }
+
   protected void serializeIndexChangeEntry(OTransactionIndexChangesPerKey entry, final ODocument indexDoc,
       final List<ODocument> entries) {
     // SERIALIZE KEY
@@ -356,13 +369,7 @@ public abstract class OTransactionRealAbstract extends OTransactionAbstract {
         // SERIALIZE OPERATION
         changeDoc.field("o", e.operation.ordinal());
 
-        if (e.value instanceof ORecord<?> && e.value.getIdentity().isNew()) {
-          final ORecord<?> saved = temp2persistent.get(e.value.getIdentity());
-          if (saved != null)
-            e.value = saved;
-          else
-            ((ORecord<?>) e.value).save();
-        }
+        resolveIndexValue(e);
 
         changeDoc.field("v", e.value != null ? e.value.getIdentity() : null);
 
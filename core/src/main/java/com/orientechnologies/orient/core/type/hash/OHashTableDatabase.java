@@ -0,0 +1,618 @@
+/*
+ * Copyright 2010-2012 Luca Garulli (l.garulli--at--orientechnologies.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.orientechnologies.orient.core.type.hash;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+import com.orientechnologies.orient.core.config.OGlobalConfiguration;
+import com.orientechnologies.orient.core.db.record.OIdentifiable;
+import com.orientechnologies.orient.core.exception.OConfigurationException;
+import com.orientechnologies.orient.core.id.ORID;
+import com.orientechnologies.orient.core.id.ORecordId;
+import com.orientechnologies.orient.core.record.impl.ORecordBytes;
+import com.orientechnologies.orient.core.serialization.OMemoryStream;
+import com.orientechnologies.orient.core.serialization.serializer.binary.OBinarySerializer;
+import com.orientechnologies.orient.core.serialization.serializer.binary.OBinarySerializerFactory;
+
+/**
+ * Persistent extendible hash table used by the hash indexes. The keys are hashed on their binary form, so they can be searched only
+ * by equality, but a lookup reads at most one record: the directory is kept in memory and points to the bucket that contains the
+ * key. When a bucket is full it's split in two and, only if needed, the directory doubles, so the table grows one bucket at a time
+ * without rehashing all the keys.
+ * <p>
+ * The table is stored in 3 kinds of records: the header, that is the identity of the table, contains the counters and the link to
+ * the directory, the directory contains the links to the buckets and the buckets contain the entries. Each key can have multiple
+ * values. Changes are saved like in {@link com.orientechnologies.orient.core.type.tree.OMVRBTreeDatabaseLazySave}: every
+ * "mvrbtree.lazyUpdates" updates, at transaction begin and commit or expressly by calling {@link #lazySave()}.
+ * <p>
+ * This class is not thread safe: the caller must serialize the access.
+ *
+ * @author Luca Garulli
+ */
+public class OHashTableDatabase {
+  private static final int          MAX_DEPTH    = 20;
+
+  private final String              clusterName;
+  private OBinarySerializer<Object> keySerializer;
+  private final int                 bucketSize;
+  private final int                 maxUpdatesBeforeSave;
+  private final ORecordBytes        header;
+  private ORecordBytes              directoryRecord;
+  private OHashBucket[]             directory;
+  private int                       depth;
+  private long                      keys;
+  private long                      values;
+  private boolean                   headerDirty;
+  private boolean                   directoryDirty;
+  private final List<OHashBucket>   dirtyBuckets = new ArrayList<OHashBucket>();
+  private final List<ORecordBytes>  deleted      = new ArrayList<ORecordBytes>();
+  private int                       updates      = 0;
+  private boolean                   transactionRunning;
+
+  /**
+   * Creates a new empty table. The records are created at the first save.
+   */
+  public OHashTableDatabase(final String iClusterName, final OBinarySerializer<Object> iKeySerializer) {
+    clusterName = iClusterName;
+    keySerializer = iKeySerializer;
+    bucketSize = OGlobalConfiguration.HASH_INDEX_BUCKET_SIZE.getValueAsInteger();
+    maxUpdatesBeforeSave = OGlobalConfiguration.MVRBTREE_LAZY_UPDATES.getValueAsInteger();
+
+    header = new ORecordBytes();
+    header.setIdentity(new ORecordId());
+    reset();
+  }
+
+  /**
+   * Binds an existent table. Call {@link #load()} to read it.
+   */
+  public OHashTableDatabase(final String iClusterName, final ORID iRid) {
+    clusterName = iClusterName;
+    bucketSize = OGlobalConfiguration.HASH_INDEX_BUCKET_SIZE.getValueAsInteger();
+    maxUpdatesBeforeSave = OGlobalConfiguration.MVRBTREE_LAZY_UPDATES.getValueAsInteger();
+
+    header = new ORecordBytes(iRid);
+  }
+
+  /**
+   * Reads the header and the directory. The buckets are read lazily at first access.
+   */
+  @SuppressWarnings("unchecked")
+  public void load() {
+    header.reload();
+
+    final OMemoryStream stream = new OMemoryStream(header.toStream());
+    keySerializer = (OBinarySerializer<Object>) OBinarySerializerFactory.INSTANCE.getObjectSerializer(stream.getAsByte());
+    if (keySerializer == null)
+      throw new OConfigurationException("Cannot load the hash table " + header.getIdentity() + ": unknown key serializer");
+    keys = stream.getAsLong();
+    values = stream.getAsLong();
+
+    directoryRecord = new ORecordBytes(readRid(stream));
+    directoryRecord.reload();
+
+    final OMemoryStream dirStream = new OMemoryStream(directoryRecord.toStream());
+    depth = dirStream.getAsInteger();
+    directory = new OHashBucket[1 << depth];
+
+    // THE SAME BUCKET IS POINTED BY ALL THE ENTRIES THAT SHARE THE LOWEST BITS OF ITS DEPTH
+    final Map<ORID, OHashBucket> buckets = new HashMap<ORID, OHashBucket>();
+    for (int i = 0; i < directory.length; ++i) {
+      final ORID rid = readRid(dirStream);
+      OHashBucket bucket = buckets.get(rid);
+      if (bucket == null) {
+        bucket = new OHashBucket(new ORecordBytes(rid));
+        buckets.put(rid, bucket);
+      }
+      directory[i] = bucket;
+    }
+
+    headerDirty = false;
+    directoryDirty = false;
+    dirtyBuckets.clear();
+    deleted.clear();
+    updates = 0;
+  }
+
+  /**
+   * Discards the changes not saved yet and the buckets in memory.
+   */
+  public void unload() {
+    if (header.getIdentity().isValid())
+      load();
+    else
+      reset();
+  }
+
+  /**
+   * Frees the memory used by the buckets already saved. They will be read again at the next access.
+   */
+  public int optimize() {
+    int freed = 0;
+    for (OHashBucket bucket : getBuckets())
+      if (bucket.entries != null && !bucket.dirty) {
+        bucket.entries = null;
+        ++freed;
+      }
+    return freed;
+  }
+
+  public Set<OIdentifiable> get(final Object iKey) {
+    final byte[] key = serializeKey(iKey);
+    final OHashEntry entry = getBucket(hash(key)).find(key);
+    return entry != null ? new LinkedHashSet<OIdentifiable>(entry.values) : null;
+  }
+
+  public boolean containsKey(final Object iKey) {
+    final byte[] key = serializeKey(iKey);
+    return getBucket(hash(key)).find(key) != null;
+  }
+
+  /**
+   * Adds a value to the key.
+   *
+   * @param iReplace
+   *          if true the value replaces the values of the key, otherwise is added to them
+   * @return true if the table has been changed
+   */
+  public boolean put(final Object iKey, final OIdentifiable iValue, final boolean iReplace) {
+    final byte[] key = serializeKey(iKey);
+    final int hash = hash(key);
+
+    OHashBucket bucket = getBucket(hash);
+    OHashEntry entry = bucket.find(key);
+    if (entry == null) {
+      while (bucket.entries.size() >= bucketSize && split(bucket, hash))
+        bucket = getBucket(hash);
+
+      entry = new OHashEntry(key, hash);
+      bucket.entries.add(entry);
+      ++keys;
+    } else if (entry.values.contains(iValue.getIdentity()) && (!iReplace || entry.values.size() == 1))
+      return false;
+
+    if (iReplace) {
+      values -= entry.values.size();
+      entry.values.clear();
+    }
+
+    entry.values.add(iValue.getIdentity());
+    ++values;
+
+    setDirty(bucket);
+    commitChanges(false);
+    return true;
+  }
+
+  /**
+   * Removes the key with all its values.
+   */
+  public boolean remove(final Object iKey) {
+    final byte[] key = serializeKey(iKey);
+    final OHashBucket bucket = getBucket(hash(key));
+    final OHashEntry entry = bucket.find(key);
+    if (entry == null)
+      return false;
+
+    bucket.entries.remove(entry);
+    --keys;
+    values -= entry.values.size();
+
+    setDirty(bucket);
+    commitChanges(false);
+    return true;
+  }
+
+  /**
+   * Removes one value of the key. The key is removed when it has no more values.
+   */
+  public boolean remove(final Object iKey, final OIdentifiable iValue) {
+    final byte[] key = serializeKey(iKey);
+    final OHashBucket bucket = getBucket(hash(key));
+    final OHashEntry entry = bucket.find(key);
+    if (entry == null || !entry.values.remove(iValue.getIdentity()))
+      return false;
+
+    --values;
+    if (entry.values.isEmpty()) {
+      bucket.entries.remove(entry);
+      --keys;
+    }
+
+    setDirty(bucket);
+    commitChanges(false);
+    return true;
+  }
+
+  /**
+   * Browses all the entries bucket by bucket, in no particular order. The entries of each bucket are copied before to be returned,
+   * so the table can be changed while browsing.
+   */
+  public Iterator<Entry<Object, Set<OIdentifiable>>> iterator() {
+    final Iterator<OHashBucket> buckets = new ArrayList<OHashBucket>(getBuckets()).iterator();
+
+    return new Iterator<Entry<Object, Set<OIdentifiable>>>() {
+      private Iterator<OHashTableEntry> current = Collections.<OHashTableEntry> emptyList().iterator();
+
+      public boolean hasNext() {
+        while (!current.hasNext() && buckets.hasNext()) {
+          final List<OHashTableEntry> batch = new ArrayList<OHashTableEntry>();
+          for (OHashEntry entry : loadBucket(buckets.next()).entries)
+            batch.add(new OHashTableEntry(keySerializer.deserialize(entry.key, 0), new LinkedHashSet<OIdentifiable>(entry.values)));
+          current = batch.iterator();
+        }
+        return current.hasNext();
+      }
+
+      public Entry<Object, Set<OIdentifiable>> next() {
+        if (!hasNext())
+          throw new NoSuchElementException();
+        return current.next();
+      }
+
+      public void remove() {
+        throw new UnsupportedOperationException("remove");
+      }
+    };
+  }
+
+  /**
+   * Removes all the entries, deleting the buckets.
+   */
+  public void clear() {
+    for (OHashBucket bucket : getBuckets())
+      if (bucket.record.getIdentity().isValid())
+        deleted.add(bucket.record);
+
+    reset();
+    lazySave();
+  }
+
+  /**
+   * Deletes all the records of the table.
+   */
+  public void delete() {
+    for (OHashBucket bucket : getBuckets())
+      if (bucket.record.getIdentity().isValid())
+        bucket.record.delete();
+    dirtyBuckets.clear();
+
+    if (directoryRecord.getIdentity().isValid())
+      directoryRecord.delete();
+    if (header.getIdentity().isValid())
+      header.delete();
+  }
+
+  public int commitChanges(final boolean iForce) {
+    if (transactionRunning || maxUpdatesBeforeSave == 0 || (maxUpdatesBeforeSave > 0 && ++updates >= maxUpdatesBeforeSave)
+        || iForce) {
+      updates = 0;
+      return lazySave();
+    }
+    return 0;
+  }
+
+  /**
+   * Saves the changed buckets, then the directory and the header, so they always point to records already saved.
+   *
+   * @return the number of records saved
+   */
+  public int lazySave() {
+    int saved = 0;
+
+    for (OHashBucket bucket : dirtyBuckets) {
+      bucket.record.setDirty();
+      bucket.record.fromStream(bucket.toStream());
+      bucket.record.save(clusterName);
+      bucket.dirty = false;
+      ++saved;
+    }
+    dirtyBuckets.clear();
+
+    if (directoryDirty) {
+      final OMemoryStream stream = new OMemoryStream();
+      stream.set(depth);
+      for (OHashBucket bucket : directory)
+        writeRid(stream, bucket.record.getIdentity());
+
+      directoryRecord.setDirty();
+      directoryRecord.fromStream(stream.toByteArray());
+      directoryRecord.save(clusterName);
+      directoryDirty = false;
+      headerDirty = true;
+      ++saved;
+    }
+
+    if (headerDirty) {
+      final OMemoryStream stream = new OMemoryStream();
+      stream.set(keySerializer.getId());
+      stream.set(keys);
+      stream.set(values);
+      writeRid(stream, directoryRecord.getIdentity());
+
+      header.setDirty();
+      header.fromStream(stream.toByteArray());
+      header.save(clusterName);
+      headerDirty = false;
+      ++saved;
+    }
+
+    for (ORecordBytes record : deleted)
+      record.delete();
+    deleted.clear();
+
+    return saved;
+  }
+
+  /**
+   * Change the transaction running mode. While a transaction is running every change is saved immediately.
+   */
+  public void setRunningTransaction(final boolean iTxRunning) {
+    transactionRunning = iTxRunning;
+
+    if (iTxRunning) {
+      // ASSURE ALL PENDING CHANGES ARE COMMITTED BEFORE TO START A TX
+      updates = 0;
+      lazySave();
+    }
+  }
+
+  /**
+   * Returns the number of keys.
+   */
+  public long getKeys() {
+    return keys;
+  }
+
+  /**
+   * Returns the number of values of all the keys.
+   */
+  public long getValues() {
+    return values;
+  }
+
+  /**
+   * Returns the number of bits of the hash used to address the buckets.
+   */
+  public int getDepth() {
+    return depth;
+  }
+
+  public ORecordBytes getRecord() {
+    return header;
+  }
+
+  private void reset() {
+    if (directoryRecord == null) {
+      directoryRecord = new ORecordBytes();
+      directoryRecord.setIdentity(new ORecordId());
+    }
+
+    depth = 0;
+    keys = 0;
+    values = 0;
+    directory = new OHashBucket[] { new OHashBucket(0) };
+    dirtyBuckets.clear();
+    setDirty(directory[0]);
+    directoryDirty = true;
+    headerDirty = true;
+  }
+
+  /**
+   * Splits the bucket on the next bit of the hash, doubling the directory if the bucket is already addressed by all its bits.
+   *
+   * @return false if the bucket cannot be split anymore, so it will exceed the configured size
+   */
+  private boolean split(final OHashBucket iBucket, final int iHash) {
+    if (iBucket.depth == depth) {
+      if (depth == MAX_DEPTH)
+        return false;
+
+      final OHashBucket[] newDirectory = new OHashBucket[directory.length << 1];
+      System.arraycopy(directory, 0, newDirectory, 0, directory.length);
+      System.arraycopy(directory, 0, newDirectory, directory.length, directory.length);
+      directory = newDirectory;
+      ++depth;
+    }
+
+    final int bit = 1 << iBucket.depth;
+    final OHashBucket sibling = new OHashBucket(iBucket.depth + 1);
+    iBucket.depth++;
+
+    for (Iterator<OHashEntry> it = iBucket.entries.iterator(); it.hasNext();) {
+      final OHashEntry entry = it.next();
+      if ((entry.hash & bit) != 0) {
+        sibling.entries.add(entry);
+        it.remove();
+      }
+    }
+
+    for (int i = (iHash & (bit - 1)) | bit; i < directory.length; i += bit << 1)
+      directory[i] = sibling;
+
+    setDirty(iBucket);
+    setDirty(sibling);
+    directoryDirty = true;
+    return true;
+  }
+
+  private OHashBucket getBucket(final int iHash) {
+    return loadBucket(directory[iHash & (directory.length - 1)]);
+  }
+
+  private OHashBucket loadBucket(final OHashBucket iBucket) {
+    if (iBucket.entries == null)
+      // THE BUCKET IS THE LATCH: CONCURRENT READERS LOAD IT ONLY ONCE
+      synchronized (iBucket) {
+        if (iBucket.entries == null) {
+          iBucket.record.reload();
+          iBucket.fromStream(iBucket.record.toStream());
+        }
+      }
+    return iBucket;
+  }
+
+  /**
+   * Returns the buckets without duplicates, since the same bucket is pointed by all the directory entries that share the lowest
+   * bits of its depth.
+   */
+  private Set<OHashBucket> getBuckets() {
+    final Set<OHashBucket> buckets = new LinkedHashSet<OHashBucket>();
+    for (OHashBucket bucket : directory)
+      buckets.add(bucket);
+    return buckets;
+  }
+
+  private void setDirty(final OHashBucket iBucket) {
+    if (!iBucket.dirty) {
+      iBucket.dirty = true;
+      dirtyBuckets.add(iBucket);
+    }
+    headerDirty = true;
+  }
+
+  private byte[] serializeKey(final Object iKey) {
+    final byte[] key = new byte[keySerializer.getObjectSize(iKey)];
+    keySerializer.serialize(iKey, key, 0);
+    return key;
+  }
+
+  /**
+   * Hashes the serialized key with FNV-1a, then mixes the bits since the buckets are addressed by the lowest ones.
+   */
+  private static int hash(final byte[] iKey) {
+    int h = 0x811c9dc5;
+    for (byte b : iKey) {
+      h ^= b;
+      h *= 0x01000193;
+    }
+
+    h ^= h >>> 16;
+    h *= 0x85ebca6b;
+    h ^= h >>> 13;
+    h *= 0xc2b2ae35;
+    h ^= h >>> 16;
+    return h;
+  }
+
+  private static ORID readRid(final OMemoryStream iStream) {
+    final int clusterId = iStream.getAsShort();
+    return new ORecordId(clusterId, iStream.getAsLong());
+  }
+
+  private static void writeRid(final OMemoryStream iStream, final ORID iRid) {
+    iStream.set((short) iRid.getClusterId());
+    iStream.set(iRid.getClusterPosition());
+  }
+
+  private static class OHashEntry {
+    private final byte[]             key;
+    private final int                hash;
+    private final Set<OIdentifiable> values = new LinkedHashSet<OIdentifiable>();
+
+    private OHashEntry(final byte[] iKey, final int iHash) {
+      key = iKey;
+      hash = iHash;
+    }
+  }
+
+  private static class OHashTableEntry implements Entry<Object, Set<OIdentifiable>> {
+    private final Object             key;
+    private final Set<OIdentifiable> value;
+
+    private OHashTableEntry(final Object iKey, final Set<OIdentifiable> iValue) {
+      key = iKey;
+      value = iValue;
+    }
+
+    public Object getKey() {
+      return key;
+    }
+
+    public Set<OIdentifiable> getValue() {
+      return value;
+    }
+
+    public Set<OIdentifiable> setValue(final Set<OIdentifiable> iValue) {
+      throw new UnsupportedOperationException("setValue");
+    }
+  }
+
+  private static class OHashBucket {
+    private final ORecordBytes        record;
+    private int                       depth;
+    private volatile List<OHashEntry> entries;
+    private boolean                   dirty;
+
+    private OHashBucket(final int iDepth) {
+      record = new ORecordBytes();
+      record.setIdentity(new ORecordId());
+      depth = iDepth;
+      entries = new ArrayList<OHashEntry>();
+    }
+
+    private OHashBucket(final ORecordBytes iRecord) {
+      record = iRecord;
+    }
+
+    private OHashEntry find(final byte[] iKey) {
+      for (OHashEntry entry : entries)
+        if (Arrays.equals(entry.key, iKey))
+          return entry;
+      return null;
+    }
+
+    private byte[] toStream() {
+      final OMemoryStream stream = new OMemoryStream();
+      stream.set(depth);
+      stream.set(entries.size());
+      for (OHashEntry entry : entries) {
+        stream.set(entry.key);
+        stream.set(entry.values.size());
+        for (OIdentifiable value : entry.values)
+          writeRid(stream, value.getIdentity());
+      }
+      return stream.toByteArray();
+    }
+
+    private void fromStream(final byte[] iStream) {
+      final OMemoryStream stream = new OMemoryStream(iStream);
+      depth = stream.getAsInteger();
+
+      final int size = stream.getAsInteger();
+      final List<OHashEntry> loaded = new ArrayList<OHashEntry>(size);
+      for (int i = 0; i < size; ++i) {
+        final byte[] key = stream.getAsByteArray();
+        final OHashEntry entry = new OHashEntry(key, hash(key));
+        for (int valueCount = stream.getAsInteger(); valueCount > 0; --valueCount)
+          entry.values.add(readRid(stream));
+        loaded.add(entry);
+      }
+      // PUBLISH THE ENTRIES ONLY WHEN COMPLETE
+      entries = loaded;
+    }
+  }
+}
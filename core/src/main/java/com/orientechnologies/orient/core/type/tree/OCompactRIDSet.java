@@ -0,0 +1,488 @@
+/*
+ * Copyright 2010-2012 Luca Garulli (l.garulli--at--orientechnologies.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.orientechnologies.orient.core.type.tree;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+import com.orientechnologies.common.collection.OLazyIterator;
+import com.orientechnologies.orient.core.db.ODatabaseRecordThreadLocal;
+import com.orientechnologies.orient.core.db.record.OIdentifiable;
+import com.orientechnologies.orient.core.exception.OSerializationException;
+import com.orientechnologies.orient.core.id.ORID;
+import com.orientechnologies.orient.core.id.ORecordId;
+import com.orientechnologies.orient.core.record.ORecord;
+import com.orientechnologies.orient.core.serialization.serializer.OStringSerializerHelper;
+
+/**
+ * Compact set of RIDs used by OMVRBTreeRIDSet until it reaches the configured threshold. The persistent RIDs are kept sorted as
+ * primitive arrays of cluster ids and positions, so no object is allocated per entry. The new records are kept by identity until
+ * they get a persistent RID. It's streamed in the same embedded format of OMVRBTreeRIDProvider and unmarshalled only at the first
+ * access.
+ * 
+ * @see OMVRBTreeRIDSet
+ */
+public class OCompactRIDSet implements Iterable<OIdentifiable> {
+	private static final Object										NEWMAP_VALUE				= new Object();
+
+	private final ORecord<?>											owner;
+	private short[]																clusterIds;
+	private long[]																positions;
+	private int																		size;
+	private IdentityHashMap<OIdentifiable, Object>	newEntries;
+	private StringBuilder													buffer;																// STREAMED CONTENT NOT UNMARSHALLED YET
+	private boolean																autoConvertToRecord	= true;
+
+	public OCompactRIDSet(final ORecord<?> iOwner) {
+		owner = iOwner;
+		clusterIds = new short[0];
+		positions = new long[0];
+	}
+
+	public OCompactRIDSet(final ORecord<?> iOwner, final Collection<OIdentifiable> iInitValues) {
+		this(iOwner);
+		for (OIdentifiable e : iInitValues) {
+			final ORID rid = e.getIdentity();
+			if (rid.isNew())
+				addNewEntry(e);
+			else
+				internalAdd(rid.getClusterId(), rid.getClusterPosition());
+		}
+	}
+
+	/**
+	 * Copy constructor
+	 * 
+	 * @param iSource
+	 *          Source object
+	 * @param iOwner
+	 *          Owner of the copy
+	 */
+	public OCompactRIDSet(final OCompactRIDSet iSource, final ORecord<?> iOwner) {
+		owner = iOwner;
+		size = iSource.size;
+		clusterIds = new short[size];
+		positions = new long[size];
+		System.arraycopy(iSource.clusterIds, 0, clusterIds, 0, size);
+		System.arraycopy(iSource.positions, 0, positions, 0, size);
+		if (iSource.newEntries != null)
+			newEntries = new IdentityHashMap<OIdentifiable, Object>(iSource.newEntries);
+		if (iSource.buffer != null)
+			buffer = new StringBuilder(iSource.buffer);
+		autoConvertToRecord = iSource.autoConvertToRecord;
+	}
+
+	public int size() {
+		lazyUnmarshall();
+		return newEntries != null ? size + newEntries.size() : size;
+	}
+
+	public boolean isEmpty() {
+		return size() == 0;
+	}
+
+	public boolean contains(final Object o) {
+		if (!(o instanceof OIdentifiable))
+			return false;
+
+		lazyUnmarshall();
+		if (newEntries != null && newEntries.containsKey(o))
+			return true;
+
+		final ORID rid = ((OIdentifiable) o).getIdentity();
+		return !rid.isNew() && indexOf(rid.getClusterId(), rid.getClusterPosition()) > -1;
+	}
+
+	public boolean add(final OIdentifiable e) {
+		lazyUnmarshall();
+
+		final ORID rid = e.getIdentity();
+		if (rid.isNew()) {
+			if (!addNewEntry(e))
+				return false;
+		} else if (!internalAdd(rid.getClusterId(), rid.getClusterPosition()))
+			return false;
+
+		setDirty();
+		return true;
+	}
+
+	public boolean remove(final Object o) {
+		if (!(o instanceof OIdentifiable))
+			return false;
+
+		lazyUnmarshall();
+		if (newEntries != null && newEntries.remove(o) != null) {
+			if (newEntries.isEmpty())
+				// EARLY REMOVE THE MAP TO SAVE MEMORY
+				newEntries = null;
+		} else {
+			final ORID rid = ((OIdentifiable) o).getIdentity();
+			if (rid.isNew())
+				return false;
+
+			final int index = indexOf(rid.getClusterId(), rid.getClusterPosition());
+			if (index < 0)
+				return false;
+
+			removeAt(index);
+		}
+
+		setDirty();
+		return true;
+	}
+
+	public void clear() {
+		buffer = null;
+		newEntries = null;
+		clusterIds = new short[0];
+		positions = new long[0];
+		size = 0;
+		setDirty();
+	}
+
+	public OLazyIterator<OIdentifiable> iterator() {
+		return iterator(autoConvertToRecord);
+	}
+
+	public OLazyIterator<OIdentifiable> iterator(final boolean iAutoConvertToRecord) {
+		lazyUnmarshall();
+
+		return new OLazyIterator<OIdentifiable>() {
+			private int													nextIndex			= 0;
+			private int													lastIndex			= -1;
+			private Iterator<OIdentifiable>	newIterator;
+
+			public boolean hasNext() {
+				if (nextIndex < size)
+					return true;
+				return newIterator != null ? newIterator.hasNext() : newEntries != null && !newEntries.isEmpty();
+			}
+
+			public OIdentifiable next() {
+				if (nextIndex < size) {
+					lastIndex = nextIndex;
+					final ORecordId rid = new ORecordId(clusterIds[nextIndex], positions[nextIndex]);
+					nextIndex++;
+					return iAutoConvertToRecord ? rid.getRecord() : rid;
+				}
+
+				if (newIterator == null) {
+					if (newEntries == null)
+						throw new NoSuchElementException();
+					newIterator = newEntries.keySet().iterator();
+				}
+
+				lastIndex = -1;
+				return newIterator.next();
+			}
+
+			public void remove() {
+				if (lastIndex > -1) {
+					removeAt(lastIndex);
+					nextIndex = lastIndex;
+					lastIndex = -1;
+				} else if (newIterator != null)
+					newIterator.remove();
+				else
+					throw new IllegalStateException();
+
+				setDirty();
+			}
+
+			public OIdentifiable update(final OIdentifiable iValue) {
+				// RECORDS ARE NOT KEPT IN MEMORY: NOTHING TO UPDATE
+				return iValue;
+			}
+		};
+	}
+
+	/**
+	 * Returns the entries as they are stored: RIDs for the persistent ones and records for the new ones.
+	 */
+	public List<OIdentifiable> toList() {
+		final List<OIdentifiable> result = new ArrayList<OIdentifiable>(size());
+		for (Iterator<OIdentifiable> it = iterator(false); it.hasNext();)
+			result.add(it.next());
+		return result;
+	}
+
+	/**
+	 * Returns true if all the new entries are saved as persistent, otherwise false.
+	 */
+	public boolean saveAllNewEntries() {
+		if (newEntries == null)
+			return true;
+
+		for (OIdentifiable entry : new ArrayList<OIdentifiable>(newEntries.keySet())) {
+			if (entry.getIdentity().isNew() && entry instanceof ORecord<?>)
+				((ORecord<?>) entry).save();
+
+			final ORID rid = entry.getIdentity();
+			if (!rid.isNew()) {
+				// SAVED CORRECTLY (=NO IN TX): MOVE IT INTO THE ARRAYS
+				newEntries.remove(entry);
+				internalAdd(rid.getClusterId(), rid.getClusterPosition());
+			}
+		}
+
+		if (!newEntries.isEmpty())
+			// SOMETHING IS TEMPORARY YET
+			return false;
+
+		newEntries = null;
+		return true;
+	}
+
+	public OCompactRIDSet fromStream(final StringBuilder iInput) {
+		newEntries = null;
+		clusterIds = new short[0];
+		positions = new long[0];
+		size = 0;
+
+		// KEEP THE CONTENT WITHOUT THE COLLECTION DELIMITERS TO UNMARSHALL IT AT THE FIRST ACCESS
+		int begin = 0;
+		int end = iInput.length();
+		if (end > 0 && iInput.charAt(0) == OStringSerializerHelper.COLLECTION_BEGIN) {
+			begin = 1;
+			end--;
+		}
+		buffer = end > begin ? new StringBuilder(iInput.subSequence(begin, end)) : null;
+		return this;
+	}
+
+	public StringBuilder toStream(final StringBuilder iOutput) {
+		if (buffer != null && ODatabaseRecordThreadLocal.INSTANCE.isDefined()
+				&& ODatabaseRecordThreadLocal.INSTANCE.get().getTransaction().isActive() && buffer.indexOf("-") > -1)
+			// IN TRANSACTION: UNMARSHALL THE BUFFER TO AVOID TO STORE TEMP RIDS
+			lazyUnmarshall();
+
+		saveAllNewEntries();
+
+		return writeEntries(iOutput);
+	}
+
+	/**
+	 * Returns the number of entries contained in the streamed content without unmarshalling it.
+	 */
+	public int getStreamedSize() {
+		if (buffer == null)
+			return size();
+
+		int items = 1;
+		for (int i = 0; i < buffer.length(); ++i)
+			if (buffer.charAt(i) == OStringSerializerHelper.COLLECTION_SEPARATOR)
+				items++;
+		return newEntries != null ? size + items + newEntries.size() : size + items;
+	}
+
+	public boolean isAutoConvert() {
+		return autoConvertToRecord;
+	}
+
+	public OCompactRIDSet setAutoConvert(final boolean iAutoConvert) {
+		autoConvertToRecord = iAutoConvert;
+		return this;
+	}
+
+	@Override
+	public String toString() {
+		final StringBuilder output = new StringBuilder();
+		if (size() < 10)
+			return writeEntries(output).toString();
+
+		output.append("[size=").append(size());
+		if (size > 0)
+			output.append(' ').append(new ORecordId(clusterIds[0], positions[0])).append('-')
+					.append(new ORecordId(clusterIds[size - 1], positions[size - 1]));
+		return output.append(']').toString();
+	}
+
+	protected void lazyUnmarshall() {
+		if (buffer == null)
+			return;
+
+		final StringBuilder content = buffer;
+		buffer = null;
+
+		final int length = content.length();
+		int begin = 0;
+		while (begin < length) {
+			int end = content.indexOf(",", begin);
+			if (end == -1)
+				end = length;
+
+			int from = begin;
+			int to = end;
+			while (from < to && Character.isWhitespace(content.charAt(from)))
+				from++;
+			while (to > from && Character.isWhitespace(content.charAt(to - 1)))
+				to--;
+			if (from < to && content.charAt(from) == ORID.PREFIX)
+				from++;
+
+			final int separator = content.indexOf(":", from);
+			if (separator < 0 || separator >= to)
+				throw new OSerializationException("Invalid RID '" + content.substring(begin, end) + "' in set of RIDs");
+
+			final int clusterId = (int) parseNumber(content, from, separator);
+			final long clusterPosition = parseNumber(content, separator + 1, to);
+
+			if (clusterPosition < 0)
+				// TEMPORARY RID
+				addNewEntry(new ORecordId(clusterId, clusterPosition));
+			else if (size == 0 || compare(clusterId, clusterPosition, size - 1) > 0) {
+				// ALREADY SORTED: APPEND IT
+				ensureCapacity(size + 1);
+				clusterIds[size] = (short) clusterId;
+				positions[size++] = clusterPosition;
+			} else
+				internalAdd(clusterId, clusterPosition);
+
+			begin = end + 1;
+		}
+	}
+
+	protected void setDirty() {
+		buffer = null;
+		if (owner != null)
+			owner.setDirty();
+	}
+
+	private StringBuilder writeEntries(final StringBuilder iOutput) {
+		iOutput.append(OStringSerializerHelper.COLLECTION_BEGIN);
+		if (buffer != null)
+			// UNTOUCHED: WRITE IT BACK AS IS
+			iOutput.append(buffer);
+		else {
+			for (int i = 0; i < size; ++i) {
+				if (i > 0)
+					iOutput.append(OStringSerializerHelper.COLLECTION_SEPARATOR);
+				iOutput.append(ORID.PREFIX).append(clusterIds[i]).append(ORID.SEPARATOR).append(positions[i]);
+			}
+
+			if (newEntries != null) {
+				// TEMPORARY RIDS
+				boolean first = size == 0;
+				for (OIdentifiable entry : newEntries.keySet()) {
+					if (!first)
+						iOutput.append(OStringSerializerHelper.COLLECTION_SEPARATOR);
+					else
+						first = false;
+					entry.getIdentity().toString(iOutput);
+				}
+			}
+		}
+		iOutput.append(OStringSerializerHelper.COLLECTION_END);
+
+		return iOutput;
+	}
+
+	private boolean addNewEntry(final OIdentifiable e) {
+		final ORecord<?> record = e.getRecord();
+		final OIdentifiable key = record != null ? record : e;
+
+		if (newEntries == null)
+			newEntries = new IdentityHashMap<OIdentifiable, Object>();
+		else if (newEntries.containsKey(key))
+			return false;
+
+		newEntries.put(key, NEWMAP_VALUE);
+		return true;
+	}
+
+	private boolean internalAdd(final int iClusterId, final long iClusterPosition) {
+		final int index = indexOf(iClusterId, iClusterPosition);
+		if (index > -1)
+			return false;
+
+		final int insertAt = -(index + 1);
+		ensureCapacity(size + 1);
+		System.arraycopy(clusterIds, insertAt, clusterIds, insertAt + 1, size - insertAt);
+		System.arraycopy(positions, insertAt, positions, insertAt + 1, size - insertAt);
+		clusterIds[insertAt] = (short) iClusterId;
+		positions[insertAt] = iClusterPosition;
+		size++;
+		return true;
+	}
+
+	private void removeAt(final int iIndex) {
+		System.arraycopy(clusterIds, iIndex + 1, clusterIds, iIndex, size - iIndex - 1);
+		System.arraycopy(positions, iIndex + 1, positions, iIndex, size - iIndex - 1);
+		size--;
+	}
+
+	/**
+	 * Binary search of the RID. Returns its index if found, otherwise -(insertion point) - 1.
+	 */
+	private int indexOf(final int iClusterId, final long iClusterPosition) {
+		int low = 0;
+		int high = size - 1;
+
+		while (low <= high) {
+			final int mid = (low + high) >>> 1;
+			final int cmp = compare(iClusterId, iClusterPosition, mid);
+			if (cmp > 0)
+				low = mid + 1;
+			else if (cmp < 0)
+				high = mid - 1;
+			else
+				return mid;
+		}
+		return -(low + 1);
+	}
+
+	private int compare(final int iClusterId, final long iClusterPosition, final int iIndex) {
+		if (iClusterId != clusterIds[iIndex])
+			return iClusterId > clusterIds[iIndex] ? 1 : -1;
+		if (iClusterPosition != positions[iIndex])
+			return iClusterPosition > positions[iIndex] ? 1 : -1;
+		return 0;
+	}
+
+	private void ensureCapacity(final int iCapacity) {
+		if (iCapacity <= positions.length)
+			return;
+
+		final int newCapacity = Math.max(iCapacity, positions.length * 3 / 2 + 1);
+		final short[] newClusterIds = new short[newCapacity];
+		final long[] newPositions = new long[newCapacity];
+		System.arraycopy(clusterIds, 0, newClusterIds, 0, size);
+		System.arraycopy(positions, 0, newPositions, 0, size);
+		clusterIds = newClusterIds;
+		positions = newPositions;
+	}
+
+	private static long parseNumber(final CharSequence iText, final int iBegin, final int iEnd) {
+		final boolean negative = iBegin < iEnd && iText.charAt(iBegin) == '-';
+		int i = negative ? iBegin + 1 : iBegin;
+		if (i >= iEnd)
+			throw new OSerializationException("Invalid RID '" + iText.subSequence(iBegin, iEnd) + "' in set of RIDs");
+
+		long value = 0;
+		for (; i < iEnd; ++i) {
+			final char c = iText.charAt(i);
+			if (c < '0' || c > '9')
+				throw new OSerializationException("Invalid RID '" + iText.subSequence(iBegin, iEnd) + "' in set of RIDs");
+			value = value * 10 + (c - '0');
+		}
+		return negative ? -value : value;
+	}
+}
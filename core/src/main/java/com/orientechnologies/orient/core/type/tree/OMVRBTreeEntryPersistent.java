@@ -16,14 +16,18 @@
 package com.orientechnologies.orient.core.type.tree;
 
 import java.io.IOException;
+import java.util.Comparator;
 
 import com.orientechnologies.common.collection.OMVRBTreeEntry;
+import com.orientechnologies.common.comparator.ODefaultComparator;
 import com.orientechnologies.common.log.OLogManager;
 import com.orientechnologies.orient.core.exception.OSerializationException;
 import com.orientechnologies.orient.core.id.ORID;
 import com.orientechnologies.orient.core.id.ORecordId;
+import com.orientechnologies.orient.core.serialization.serializer.binary.OComparableBinarySerializer;
 import com.orientechnologies.orient.core.type.tree.provider.OIdentityChangedListener;
 import com.orientechnologies.orient.core.type.tree.provider.OMVRBTreeEntryDataProvider;
+import com.orientechnologies.orient.core.type.tree.provider.OMVRBTreeMapEntryProvider;
 
 /**
  * 
@@ -76,9 +80,10 @@ public class OMVRBTreeEntryPersistent<K, V> extends OMVRBTreeEntry<K, V> impleme
   protected OMVRBTreeEntryDataProvider<K, V> dataProvider;
   protected OMVRBTreePersistent<K, V>        pTree;
 
-  protected OMVRBTreeEntryPersistent<K, V>   parent;
-  protected OMVRBTreeEntryPersistent<K, V>   left;
-  protected OMVRBTreeEntryPersistent<K, V>   right;
+  // VOLATILE: LAZY LOADED NODES ARE LINKED BY CONCURRENT READERS
+  protected volatile OMVRBTreeEntryPersistent<K, V> parent;
+  protected volatile OMVRBTreeEntryPersistent<K, V> left;
+  protected volatile OMVRBTreeEntryPersistent<K, V> right;
 
   /**
    * Called upon unmarshalling.
@@ -364,22 +369,28 @@ public class OMVRBTreeEntryPersistent<K, V> extends OMVRBTreeEntry<K, V> impleme
     if (parent == null && dataProvider.getParent().isValid()) {
       // System.out.println("Node " + record.getIdentity() + " is loading PARENT node " + parentRid + "...");
 
-      // LAZY LOADING OF THE PARENT NODE
-      parent = pTree.loadEntry(null, dataProvider.getParent());
-
-      checkEntryStructure();
-
-      if (parent != null) {
-        // TRY TO ASSIGN IT FOLLOWING THE RID
-        if (parent.dataProvider.getLeft().isValid() && parent.dataProvider.getLeft().equals(dataProvider.getIdentity()))
-          parent.left = this;
-        else if (parent.dataProvider.getRight().isValid() && parent.dataProvider.getRight().equals(dataProvider.getIdentity()))
-          parent.right = this;
-        else {
-          OLogManager.instance().error(this, "getParent: Cannot assign node %s to parent. Nodes parent-left=%s, parent-right=%s",
-              dataProvider.getParent(), parent.dataProvider.getLeft(), parent.dataProvider.getRight());
+      synchronized (pTree.nodeLoadLock) {
+        if (parent == null) {
+          // LAZY LOADING OF THE PARENT NODE
+          final OMVRBTreeEntryPersistent<K, V> loaded = pTree.loadEntry(null, dataProvider.getParent());
+
+          if (loaded != null) {
+            // TRY TO ASSIGN IT FOLLOWING THE RID
+            if (loaded.dataProvider.getLeft().isValid() && loaded.dataProvider.getLeft().equals(dataProvider.getIdentity()))
+              loaded.left = this;
+            else if (loaded.dataProvider.getRight().isValid() && loaded.dataProvider.getRight().equals(dataProvider.getIdentity()))
+              loaded.right = this;
+            else {
+              OLogManager.instance().error(this,
+                  "getParent: Cannot assign node %s to parent. Nodes parent-left=%s, parent-right=%s", dataProvider.getParent(),
+                  loaded.dataProvider.getLeft(), loaded.dataProvider.getRight());
+            }
+          }
+          parent = loaded;
         }
       }
+
+      checkEntryStructure();
     }
     return parent;
   }
@@ -417,8 +428,11 @@ public class OMVRBTreeEntryPersistent<K, V> extends OMVRBTreeEntry<K, V> impleme
     if (dataProvider == null)
       return null;
     if (left == null && dataProvider.getLeft().isValid()) {
-      // LAZY LOADING OF THE LEFT LEAF
-      left = pTree.loadEntry(this, dataProvider.getLeft());
+      synchronized (pTree.nodeLoadLock) {
+        if (left == null)
+          // LAZY LOADING OF THE LEFT LEAF
+          left = pTree.loadEntry(this, dataProvider.getLeft());
+      }
       checkEntryStructure();
     }
     return left;
@@ -446,8 +460,11 @@ public class OMVRBTreeEntryPersistent<K, V> extends OMVRBTreeEntry<K, V> impleme
     if (dataProvider == null)
       return null;
     if (right == null && dataProvider.getRight().isValid()) {
-      // LAZY LOADING OF THE RIGHT LEAF
-      right = pTree.loadEntry(this, dataProvider.getRight());
+      synchronized (pTree.nodeLoadLock) {
+        if (right == null)
+          // LAZY LOADING OF THE RIGHT LEAF
+          right = pTree.loadEntry(this, dataProvider.getRight());
+      }
       checkEntryStructure();
     }
     return right;
@@ -540,6 +557,20 @@ public class OMVRBTreeEntryPersistent<K, V> extends OMVRBTreeEntry<K, V> impleme
     return dataProvider.getKeyAt(iIndex);
   }
 
+  @Override
+  protected int compareKeyAt(final int iIndex, final K iKey) {
+    if (dataProvider instanceof OMVRBTreeMapEntryProvider) {
+      // IN-PLACE COMPARISON FOLLOWS THE KEYS' NATURAL ORDERING: AVOID IT WITH CUSTOM COMPARATORS
+      final Comparator<? super K> comparator = pTree.comparator();
+      if (comparator == null || comparator == ODefaultComparator.INSTANCE) {
+        final int result = ((OMVRBTreeMapEntryProvider<K, V>) dataProvider).compareKeyAt(iIndex, iKey);
+        if (result != OComparableBinarySerializer.NOT_COMPARABLE)
+          return result;
+      }
+    }
+    return super.compareKeyAt(iIndex, iKey);
+  }
+
   @Override
   protected V getValueAt(final int iIndex) {
     return dataProvider.getValueAt(iIndex);
@@ -17,13 +17,13 @@ package com.orientechnologies.orient.core.type.tree;
 
 import java.io.IOException;
 import java.util.ArrayList;
-import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
-import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
 
 import com.orientechnologies.common.collection.OMVRBTree;
 import com.orientechnologies.common.collection.OMVRBTreeEntry;
@@ -58,17 +58,24 @@ public abstract class OMVRBTreePersistent<K, V> extends OMVRBTree<K, V> {
   protected int                                            entryPointsSize;
 
   protected float                                          optimizeEntryPointsFactor;
-  private final TreeMap<K, OMVRBTreeEntryPersistent<K, V>> entryPoints;
-  private final Map<ORID, OMVRBTreeEntryPersistent<K, V>>  cache              = new HashMap<ORID, OMVRBTreeEntryPersistent<K, V>>();
+  private final ConcurrentSkipListMap<K, OMVRBTreeEntryPersistent<K, V>> entryPoints;
+  private final Map<ORID, OMVRBTreeEntryPersistent<K, V>>  cache              = new ConcurrentHashMap<ORID, OMVRBTreeEntryPersistent<K, V>>();
+
+  /**
+   * Held while a node is lazily loaded and linked to its neighbors, so concurrent readers never load the same node twice. Searches
+   * through nodes already in memory don't take it.
+   */
+  final Object                                             nodeLoadLock       = new Object();
+  private volatile boolean                                 concurrentReads    = false;
 
   private static final int                                 OPTIMIZE_MAX_RETRY = 10;
 
   public OMVRBTreePersistent(OMVRBTreeProvider<K, V> iProvider) {
     super();
     if (comparator != null)
-      entryPoints = new TreeMap<K, OMVRBTreeEntryPersistent<K, V>>(comparator);
+      entryPoints = new ConcurrentSkipListMap<K, OMVRBTreeEntryPersistent<K, V>>(comparator);
     else
-      entryPoints = new TreeMap<K, OMVRBTreeEntryPersistent<K, V>>();
+      entryPoints = new ConcurrentSkipListMap<K, OMVRBTreeEntryPersistent<K, V>>();
 
     pageLoadFactor = (Float) OGlobalConfiguration.MVRBTREE_LOAD_FACTOR.getValue();
     dataProvider = iProvider;
@@ -103,8 +110,6 @@ public abstract class OMVRBTreePersistent<K, V> extends OMVRBTree<K, V> {
   public OMVRBTreePersistent<K, V> load() {
     dataProvider.load();
 
-    // RESET LAST SEARCH STATE
-    setLastSearchNode(null, null);
     keySize = dataProvider.getKeySize();
 
     // LOAD THE ROOT OBJECT AFTER ALL
@@ -138,6 +143,12 @@ public abstract class OMVRBTreePersistent<K, V> extends OMVRBTree<K, V> {
    * Lazy loads a node.
    */
   protected OMVRBTreeEntryPersistent<K, V> loadEntry(final OMVRBTreeEntryPersistent<K, V> iParent, final ORID iRecordId) {
+    synchronized (nodeLoadLock) {
+      return loadEntryInternal(iParent, iRecordId);
+    }
+  }
+
+  private OMVRBTreeEntryPersistent<K, V> loadEntryInternal(final OMVRBTreeEntryPersistent<K, V> iParent, final ORID iRecordId) {
     // SEARCH INTO THE CACHE
     OMVRBTreeEntryPersistent<K, V> entry = searchNodeInCache(iRecordId);
     if (entry == null) {
@@ -299,10 +310,6 @@ public abstract class OMVRBTreePersistent<K, V> extends OMVRBTree<K, V> {
         // UNDER THRESHOLD AVOID TO OPTIMIZE
         return 0;
 
-      lastSearchFound = false;
-      lastSearchKey = null;
-      lastSearchNode = null;
-
       int totalDisconnected = 0;
 
       if (nodesInMemory > entryPointsSize) {
@@ -317,9 +324,9 @@ public abstract class OMVRBTreePersistent<K, V> extends OMVRBTree<K, V> {
         for (final Iterator<OMVRBTreeEntryPersistent<K, V>> it = entryPoints.values().iterator(); it.hasNext();) {
           final OMVRBTreeEntryPersistent<K, V> currentNode = it.next();
 
-          // JUMP THE FIRST (1 cannot never be the % of distance) THE LAST, ROOT AND LAST USED
+          // JUMP THE FIRST (1 cannot never be the % of distance) THE LAST AND ROOT
           // RECORDS THAT WERE CREATED INSIDE OF TRANSACTION CAN'T BE REMOVED TILL COMMIT
-          if (currentNode != root && currentNode != lastSearchNode && !currentNode.dataProvider.getIdentity().isTemporary()
+          if (currentNode != root && !currentNode.dataProvider.getIdentity().isTemporary()
               && it.hasNext())
             if (++currNode % distance != 0) {
               // REMOVE THE NODE
@@ -327,7 +334,6 @@ public abstract class OMVRBTreePersistent<K, V> extends OMVRBTree<K, V> {
               it.remove();
             }
         }
-        addNodeAsEntrypoint((OMVRBTreeEntryPersistent<K, V>) lastSearchNode);
         addNodeAsEntrypoint((OMVRBTreeEntryPersistent<K, V>) root);
 
         // DISCONNECT THE REMOVED NODES
@@ -610,12 +616,25 @@ public abstract class OMVRBTreePersistent<K, V> extends OMVRBTree<K, V> {
     optimization = i;
   }
 
+  public boolean isConcurrentReads() {
+    return concurrentReads;
+  }
+
+  /**
+   * Declares that other threads can search the tree while this one does. In this mode searches never optimize the tree, because that
+   * would unload nodes other readers are walking: the pending optimization is executed by the next put or remove, that the caller
+   * runs with exclusive access.
+   */
+  public void setConcurrentReads(final boolean iConcurrentReads) {
+    concurrentReads = iConcurrentReads;
+  }
+
   /**
    * Checks if optimization is needed by raising a {@link OLowMemoryException}.
    */
   @Override
   protected void searchNodeCallback() {
-    if (optimization > 0)
+    if (optimization > 0 && !concurrentReads)
       throw new OLowMemoryException("Optimization level: " + optimization);
   }
 
@@ -657,14 +676,14 @@ public abstract class OMVRBTreePersistent<K, V> extends OMVRBTree<K, V> {
       final OMVRBTreeEntry<K, V> firstEntry = getFirstEntry();
 
       if (firstEntry != null) {
-        final int currPageIndex = pageIndex;
+        final int currPageIndex = getPageIndex();
         buffer.append(" ");
         buffer.append(firstEntry.getFirstKey());
         if (size > 1) {
           buffer.append("-");
           buffer.append(getLastEntry().getLastKey());
         }
-        pageIndex = currPageIndex;
+        setPageIndex(currPageIndex);
       }
     }
 
@@ -768,7 +787,7 @@ public abstract class OMVRBTreePersistent<K, V> extends OMVRBTree<K, V> {
         } while (prev != null);
 
         if (e != null && e.getSize() > 0)
-          pageIndex = 0;
+          setPageIndex(0);
 
         return e;
       }
@@ -799,7 +818,7 @@ public abstract class OMVRBTreePersistent<K, V> extends OMVRBTree<K, V> {
         } while (next != null);
 
         if (e != null && e.getSize() > 0)
-          pageIndex = e.getSize() - 1;
+          setPageIndex(e.getSize() - 1);
 
         return e;
       }
@@ -16,9 +16,11 @@
 package com.orientechnologies.orient.core.type.tree;
 
 import java.util.Collection;
+import java.util.Iterator;
 import java.util.Set;
 
 import com.orientechnologies.common.collection.OLazyIterator;
+import com.orientechnologies.orient.core.config.OGlobalConfiguration;
 import com.orientechnologies.orient.core.db.record.ODetachable;
 import com.orientechnologies.orient.core.db.record.OIdentifiable;
 import com.orientechnologies.orient.core.exception.OSerializationException;
@@ -26,11 +28,15 @@ import com.orientechnologies.orient.core.record.ORecord;
 import com.orientechnologies.orient.core.record.impl.ODocument;
 import com.orientechnologies.orient.core.serialization.OBinaryProtocol;
 import com.orientechnologies.orient.core.serialization.OSerializableStream;
+import com.orientechnologies.orient.core.serialization.serializer.OStringSerializerHelper;
 import com.orientechnologies.orient.core.serialization.serializer.string.OStringBuilderSerializable;
 import com.orientechnologies.orient.core.type.tree.provider.OMVRBTreeRIDProvider;
 
 /**
- * Persistent Set<OIdentifiable> implementation that uses the MVRB-Tree to handle entries in persistent way.
+ * Persistent Set<OIdentifiable> implementation that uses the MVRB-Tree to handle entries in persistent way. Until the set is
+ * smaller than the threshold configured in OGlobalConfiguration.MVRBTREE_RID_COMPACT_THRESHOLD the entries are kept in the
+ * compact form of OCompactRIDSet and the MVRB-Tree is created only when the threshold is exceeded. The compact form never
+ * outgrows OGlobalConfiguration.MVRBTREE_RID_BINARY_THRESHOLD, so bigger sets are still streamed in binary form.
  * 
  * @author Luca Garulli (l.garulli--at--orientechnologies.com)
  * 
@@ -38,10 +44,13 @@ import com.orientechnologies.orient.core.type.tree.provider.OMVRBTreeRIDProvider
 public class OMVRBTreeRIDSet implements Set<OIdentifiable>, OStringBuilderSerializable, OSerializableStream, ODetachable {
 	private static final long		serialVersionUID	= 1L;
 
-	private final OMVRBTreeRID	tree;
+	private OMVRBTreeRID				tree;
+	private OCompactRIDSet			compact;
+	private final ORecord<?>		owner;
+	private final String				clusterName;
 
 	public OMVRBTreeRIDSet() {
-		this(new OMVRBTreeRID());
+		this((ORecord<?>) null, (String) null);
 	}
 
 	public OMVRBTreeRIDSet(final OIdentifiable iRecord) {
@@ -49,19 +58,26 @@ public class OMVRBTreeRIDSet implements Set<OIdentifiable>, OStringBuilderSerial
 	}
 
 	public OMVRBTreeRIDSet(final String iClusterName) {
-		this(new OMVRBTreeRID(iClusterName));
+		this(null, iClusterName);
 	}
 
 	public OMVRBTreeRIDSet(final ORecord<?> iOwner) {
-		this((OMVRBTreeRID) new OMVRBTreeRID().setOwner(iOwner));
+		this(iOwner, (String) null);
 	}
 
 	public OMVRBTreeRIDSet(final ORecord<?> iOwner, Collection<OIdentifiable> iInitValues) {
-		this((OMVRBTreeRID) new OMVRBTreeRID(iInitValues).setOwner(iOwner));
+		owner = iOwner;
+		clusterName = null;
+		if (isCompact(iInitValues.size()))
+			compact = new OCompactRIDSet(iOwner, iInitValues);
+		else
+			tree = (OMVRBTreeRID) new OMVRBTreeRID(iInitValues).setOwner(iOwner);
 	}
 
 	public OMVRBTreeRIDSet(final OMVRBTreeRID iProvider) {
 		tree = iProvider;
+		owner = null;
+		clusterName = null;
 	}
 
 	/**
@@ -71,49 +87,73 @@ public class OMVRBTreeRIDSet implements Set<OIdentifiable>, OStringBuilderSerial
 	 *          Source object
 	 */
 	public OMVRBTreeRIDSet(final OMVRBTreeRIDSet iSource, final ODocument iClone) {
-		tree = new OMVRBTreeRID(iSource.tree);
-		tree.setOwner(iClone);
+		owner = iClone;
+		clusterName = iSource.clusterName;
+		if (iSource.compact != null)
+			compact = new OCompactRIDSet(iSource.compact, iClone);
+		else {
+			tree = new OMVRBTreeRID(iSource.tree);
+			tree.setOwner(iClone);
+		}
+	}
+
+	protected OMVRBTreeRIDSet(final ORecord<?> iOwner, final String iClusterName) {
+		owner = iOwner;
+		clusterName = iClusterName;
+		if (isCompact(0))
+			compact = new OCompactRIDSet(iOwner);
+		else
+			tree = createTree(true);
 	}
 
 	public int size() {
-		return tree.size();
+		return compact != null ? compact.size() : tree.size();
 	}
 
 	public boolean isEmpty() {
-		return tree.isEmpty();
+		return compact != null ? compact.isEmpty() : tree.isEmpty();
 	}
 
 	public boolean contains(final Object o) {
-		return tree.containsKey(o);
+		return compact != null ? compact.contains(o) : tree.containsKey(o);
 	}
 
 	public OLazyIterator<OIdentifiable> iterator(final boolean iAutoConvertToRecord) {
-		return tree.iterator(iAutoConvertToRecord);
+		return compact != null ? compact.iterator(iAutoConvertToRecord) : tree.iterator(iAutoConvertToRecord);
 	}
 
 	public OLazyIterator<OIdentifiable> iterator() {
-		return tree.iterator();
+		return compact != null ? compact.iterator() : tree.iterator();
 	}
 
 	public Object[] toArray() {
-		return tree.toArray();
+		return compact != null ? compact.toList().toArray() : tree.toArray();
 	}
 
 	public <T> T[] toArray(final T[] a) {
-		return tree.toArray(a);
+		return compact != null ? compact.toList().toArray(a) : tree.toArray(a);
 	}
 
 	public boolean add(final OIdentifiable e) {
+		if (compact != null) {
+			if (!compact.add(e))
+				return false;
+
+			if (!isCompact(compact.size()))
+				// TOO BIG: MOVE THE ENTRIES TO THE MVRB-TREE
+				convertToTree();
+			return true;
+		}
 		return tree.put(e, null) != null;
 	}
 
 	public boolean remove(final Object o) {
-		return tree.remove(o) != null;
+		return compact != null ? compact.remove(o) : tree.remove(o) != null;
 	}
 
 	public boolean containsAll(final Collection<?> c) {
 		for (Object o : c)
-			if (!tree.containsKey(o))
+			if (!contains(o))
 				return false;
 		return true;
 	}
@@ -127,19 +167,38 @@ public class OMVRBTreeRIDSet implements Set<OIdentifiable>, OStringBuilderSerial
 	}
 
 	public boolean retainAll(final Collection<?> c) {
-		return tree.retainAll(c);
+		if (compact == null)
+			return tree.retainAll(c);
+
+		boolean modified = false;
+		for (Iterator<OIdentifiable> it = compact.iterator(false); it.hasNext();)
+			if (!c.contains(it.next())) {
+				it.remove();
+				modified = true;
+			}
+		return modified;
 	}
 
 	public boolean removeAll(final Collection<?> c) {
-		return tree.removeAll(c);
+		if (compact == null)
+			return tree.removeAll(c);
+
+		boolean modified = false;
+		for (Object o : c)
+			if (compact.remove(o))
+				modified = true;
+		return modified;
 	}
 
 	public boolean detach() {
-		return tree.detach();
+		return compact != null ? compact.saveAllNewEntries() : tree.detach();
 	}
 
 	public void clear() {
-		tree.clear();
+		if (compact != null)
+			compact.clear();
+		else
+			tree.clear();
 	}
 
 	public OMVRBTreeRIDSet fromDocument(final ODocument iDocument) {
@@ -148,6 +207,8 @@ public class OMVRBTreeRIDSet implements Set<OIdentifiable>, OStringBuilderSerial
 	}
 
 	public ODocument toDocument() {
+		if (compact != null)
+			convertToTree();
 		return ((OMVRBTreeRIDProvider) tree.getProvider()).toDocument();
 	}
 
@@ -157,6 +218,20 @@ public class OMVRBTreeRIDSet implements Set<OIdentifiable>, OStringBuilderSerial
 	}
 
 	public OStringBuilderSerializable fromStream(final StringBuilder iSource) {
+		if (compact != null) {
+			final char firstChar = iSource.length() > 0 ? iSource.charAt(0) : OStringSerializerHelper.COLLECTION_BEGIN;
+			if (firstChar == OStringSerializerHelper.COLLECTION_BEGIN || firstChar == OStringSerializerHelper.LINK) {
+				// EMBEDDED RIDS
+				compact.fromStream(iSource);
+				if (isCompact(compact.getStreamedSize()))
+					return this;
+			}
+
+			// EXTERNAL TREE OR TOO BIG: LET THE MVRB-TREE UNMARSHALL IT
+			tree = createTree(compact.isAutoConvert());
+			compact = null;
+		}
+
 		((OMVRBTreeRIDProvider) tree.getProvider()).fromStream(iSource);
 		return this;
 	}
@@ -167,7 +242,10 @@ public class OMVRBTreeRIDSet implements Set<OIdentifiable>, OStringBuilderSerial
 	}
 
 	public OStringBuilderSerializable toStream(StringBuilder iOutput) throws OSerializationException {
-		((OMVRBTreeRIDProvider) tree.getProvider()).toStream(iOutput);
+		if (compact != null)
+			compact.toStream(iOutput);
+		else
+			((OMVRBTreeRIDProvider) tree.getProvider()).toStream(iOutput);
 		return this;
 	}
 
@@ -179,11 +257,39 @@ public class OMVRBTreeRIDSet implements Set<OIdentifiable>, OStringBuilderSerial
 
 	@Override
 	public String toString() {
-		return tree.toString();
+		return compact != null ? compact.toString() : tree.toString();
 	}
 
 	public OMVRBTreeRIDSet setAutoConvert(final boolean b) {
-		tree.setAutoConvert(b);
+		if (compact != null)
+			compact.setAutoConvert(b);
+		else
+			tree.setAutoConvert(b);
 		return this;
 	}
+
+	protected void convertToTree() {
+		final OMVRBTreeRID newTree = createTree(compact.isAutoConvert());
+		newTree.putAll(compact.toList());
+		tree = newTree;
+		compact = null;
+	}
+
+	protected OMVRBTreeRID createTree(final boolean iAutoConvert) {
+		final OMVRBTreeRID newTree = clusterName != null ? new OMVRBTreeRID(clusterName) : new OMVRBTreeRID();
+		newTree.setOwner(owner);
+		newTree.setAutoConvert(iAutoConvert);
+		return newTree;
+	}
+
+	private static boolean isCompact(final int iSize) {
+		int threshold = OGlobalConfiguration.MVRBTREE_RID_COMPACT_THRESHOLD.getValueAsInteger();
+
+		// BEYOND THE BINARY THRESHOLD THE SET MUST BE STREAMED AS MVRB-TREE
+		final int binaryThreshold = OGlobalConfiguration.MVRBTREE_RID_BINARY_THRESHOLD.getValueAsInteger();
+		if (binaryThreshold > 0 && binaryThreshold < threshold)
+			threshold = binaryThreshold;
+
+		return threshold > 0 && iSize <= threshold;
+	}
 }
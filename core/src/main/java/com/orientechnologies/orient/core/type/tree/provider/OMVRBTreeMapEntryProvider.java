@@ -27,6 +27,7 @@ import com.orientechnologies.orient.core.id.ORecordId;
 import com.orientechnologies.orient.core.serialization.OMemoryStream;
 import com.orientechnologies.orient.core.serialization.OSerializableStream;
 import com.orientechnologies.orient.core.serialization.serializer.binary.OBinarySerializer;
+import com.orientechnologies.orient.core.serialization.serializer.binary.OComparableBinarySerializer;
 import com.orientechnologies.orient.core.serialization.serializer.binary.impl.OBooleanSerializer;
 import com.orientechnologies.orient.core.serialization.serializer.binary.impl.OIntegerSerializer;
 import com.orientechnologies.orient.core.serialization.serializer.binary.impl.OLinkSerializer;
@@ -81,6 +82,24 @@ public class OMVRBTreeMapEntryProvider<K, V> extends OMVRBTreeEntryDataProviderA
     return k;
   }
 
+  /**
+   * Compares the key at the given position with the passed one directly against the node buffer, without unmarshalling it.
+   * 
+   * @return The comparison result, or {@link OComparableBinarySerializer#NOT_COMPARABLE} if the key is already in memory or its
+   *         serializer cannot compare it in place
+   */
+  public int compareKeyAt(final int iIndex, final K iKey) {
+    if (keys[iIndex] != null || serializedKeys[iIndex] <= 0)
+      return OComparableBinarySerializer.NOT_COMPARABLE;
+
+    final OBinarySerializer<K> keySerializer = ((OMVRBTreeMapProvider<K, V>) treeDataProvider).keySerializer;
+    if (!(keySerializer instanceof OComparableBinarySerializer))
+      return OComparableBinarySerializer.NOT_COMPARABLE;
+
+    OProfiler.getInstance().updateCounter("OMVRBTreeMapEntry.compareKeyInStream", 1);
+    return ((OComparableBinarySerializer<K>) keySerializer).compareInStream(buffer, serializedKeys[iIndex], iKey);
+  }
+
   public V getValueAt(final int iIndex) {
     V v = values[iIndex];
     if (v == null)
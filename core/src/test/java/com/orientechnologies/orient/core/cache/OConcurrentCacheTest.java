@@ -0,0 +1,191 @@
+package com.orientechnologies.orient.core.cache;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNotNull;
+import static org.testng.Assert.assertNull;
+import static org.testng.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.testng.annotations.Test;
+
+import com.orientechnologies.orient.core.id.ORID;
+import com.orientechnologies.orient.core.id.ORecordId;
+import com.orientechnologies.orient.core.record.ORecordInternal;
+import com.orientechnologies.orient.core.record.impl.ODocument;
+
+@Test
+public class OConcurrentCacheTest {
+
+  public void storesAndRemovesRecordsUsingTheirIdentity() {
+    // Given an enabled cache
+    OCache sut = enabledCache(5);
+
+    // When new record put into
+    ORecordId id = new ORecordId(1, 1);
+    ODocument record = new ODocument(id);
+    sut.put(record);
+
+    // Then it can be retrieved and removed only once
+    assertEquals(sut.get(id), record);
+    assertEquals(sut.remove(id), record);
+    assertNull(sut.remove(id));
+    assertEquals(sut.size(), 0);
+  }
+
+  public void storesRecordsOnlyOnceForEveryIdentity() {
+    // Given an enabled cache
+    OCache sut = enabledCache(5);
+
+    // When some records with same identity put in several times
+    ODocument first = new ODocument(new ORecordId(1, 1));
+    ODocument last = new ODocument(new ORecordId(1, 1));
+    sut.put(first);
+    ORecordInternal<?> previous = sut.put(last);
+
+    // Then cache ends up storing only the last one
+    assertEquals(previous, first);
+    assertEquals(sut.size(), 1);
+    assertEquals(sut.get(new ORecordId(1, 1)), last);
+  }
+
+  public void storesNoMoreElementsThanSpecifiedLimit() {
+    // Given an enabled cache
+    OCache sut = enabledCache(5);
+
+    // When stored more distinct elements than cache limit allows
+    for (int i = sut.limit() + 20; i > 0; i--)
+      sut.put(new ODocument(new ORecordId(i, i)));
+
+    // Then size of cache should be exactly as it's limit
+    assertEquals(sut.size(), sut.limit(), "Cache doesn't meet limit requirements");
+    assertEquals(sut.keys().size(), sut.limit());
+  }
+
+  public void keepsReferencedRecordsOnEviction() {
+    // Given a full cache
+    OCache sut = enabledCache(100);
+    for (int i = 1; i <= 100; i++)
+      sut.put(new ODocument(new ORecordId(1, i)));
+
+    // When a record is looked up before new records are inserted
+    ORecordId hot = new ORecordId(1, 1);
+    sut.get(hot);
+    for (int i = 101; i <= 150; i++)
+      sut.put(new ODocument(new ORecordId(1, i)));
+
+    // Then the referenced record is still cached
+    assertNotNull(sut.get(hot));
+  }
+
+  public void providesAccessToAllKeysInCache() {
+    // Given enabled non-empty cache
+    OCache sut = enabledCache(100);
+    for (int i = 1; i <= 50; i++)
+      sut.put(new ODocument(new ORecordId(i, i)));
+
+    // When asked for keys
+    Collection<ORID> keys = sut.keys();
+
+    // Then keys count should be same as size of cache
+    assertEquals(keys.size(), sut.size());
+    for (ORID key : keys)
+      assertNotNull(sut.get(key));
+
+    // And clear removes them all
+    sut.clear();
+    assertEquals(sut.size(), 0);
+    assertTrue(sut.keys().isEmpty());
+  }
+
+  public void clearsWholeCacheIfMemoryCriticallyLow() {
+    // Given running filled cache
+    OConcurrentCache sut = runningFilledCache();
+
+    // When watchdog listener invoked with critically low memory
+    sut.lowMemoryListener.memoryUsageLow(1, 8);
+
+    // Then whole cache cleared
+    assertEquals(sut.size(), 0, "Cache has entries in it yet");
+    sut.shutdown();
+  }
+
+  public void removesPartOfEntriesInCaseOfLowMemory() {
+    // Given running filled cache with some dirty records
+    OConcurrentCache sut = runningFilledCache();
+    sut.get(new ORecordId(1, 1)).setDirty();
+    int originalSize = sut.size();
+
+    // When watchdog listener invoked with low memory
+    sut.lowMemoryListener.memoryUsageLow(1, 20);
+
+    // Then part of the cache is cleared
+    assertTrue(sut.size() < originalSize, "Cache was not cleaned");
+    assertTrue(sut.size() > 0, "Cache was cleared wholly");
+
+    // And dirty records are kept even if memory is critically low
+    sut.lowMemoryListener.memoryUsageLow(1, 8);
+    assertEquals(sut.size(), 1);
+    assertNotNull(sut.get(new ORecordId(1, 1)));
+    sut.shutdown();
+  }
+
+  public void supportsConcurrentAccess() throws InterruptedException {
+    // Given an enabled cache
+    final OCache sut = enabledCache(500);
+    final AtomicInteger errors = new AtomicInteger();
+
+    // When many threads put, get and remove records concurrently under record locks
+    final List<Thread> threads = new ArrayList<Thread>();
+    for (int t = 0; t < 8; t++) {
+      final int clusterId = t;
+      threads.add(new Thread() {
+        @Override
+        public void run() {
+          try {
+            for (int i = 0; i < 2000; i++) {
+              final ORecordId id = new ORecordId(clusterId, i % 300);
+              sut.lock(id);
+              try {
+                if (i % 7 == 0)
+                  sut.remove(id);
+                else if (sut.get(id) == null)
+                  sut.put(new ODocument(id));
+              } finally {
+                sut.unlock(id);
+              }
+            }
+          } catch (Exception e) {
+            errors.incrementAndGet();
+          }
+        }
+      });
+    }
+    for (Thread thread : threads)
+      thread.start();
+    for (Thread thread : threads)
+      thread.join();
+
+    // Then no errors occur and the limit is respected
+    assertEquals(errors.get(), 0);
+    assertTrue(sut.size() <= sut.limit());
+    assertEquals(sut.keys().size(), sut.size());
+  }
+
+  private OCache enabledCache(final int limit) {
+    OConcurrentCache cache = new OConcurrentCache(null, limit);
+    cache.enable();
+    return cache;
+  }
+
+  private OConcurrentCache runningFilledCache() {
+    OConcurrentCache cache = new OConcurrentCache(null, 100);
+    cache.startup();
+    for (int i = 100; i > 0; i--)
+      cache.put(new ODocument(new ORecordId(1, i)));
+    return cache;
+  }
+}
@@ -0,0 +1,106 @@
+package com.orientechnologies.orient.core.db.tool;
+
+import java.io.File;
+import java.util.List;
+
+import org.testng.Assert;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+
+import com.orientechnologies.orient.core.command.OCommandOutputListener;
+import com.orientechnologies.orient.core.db.document.ODatabaseDocumentTx;
+import com.orientechnologies.orient.core.metadata.schema.OClass;
+import com.orientechnologies.orient.core.metadata.schema.OType;
+import com.orientechnologies.orient.core.record.impl.ODocument;
+import com.orientechnologies.orient.core.sql.query.OSQLSynchQuery;
+
+@Test
+public class ODatabaseExportImportTest {
+  private static final OCommandOutputListener LISTENER = new OCommandOutputListener() {
+                                                         public void onMessage(final String iText) {
+                                                         }
+                                                       };
+  private ODatabaseDocumentTx                 database;
+  private String                              path;
+
+  @BeforeClass
+  public void beforeClass() {
+    path = System.getProperty("java.io.tmpdir") + File.separator + "odatabaseexportimporttest.json";
+
+    database = new ODatabaseDocumentTx("memory:odatabaseexportimporttest");
+    database.create();
+
+    final OClass cls = database.getMetadata().getSchema().createClass("Item");
+    cls.createProperty("id", OType.INTEGER).createIndex(OClass.INDEX_TYPE.UNIQUE);
+    database.getMetadata().getSchema().save();
+
+    for (int i = 0; i < 3500; ++i) {
+      final ODocument doc = new ODocument("Item").field("id", i).field("name", "item" + i);
+      if (i % 7 == 0)
+        doc.field("tags", new ODocument().field("even", i % 2 == 0));
+      doc.save();
+    }
+
+    // LEAVE HOLES IN THE CLUSTER
+    for (int i = 0; i < 3500; i += 100)
+      findById(database, i).delete();
+  }
+
+  @AfterClass
+  public void afterClass() {
+    database.drop();
+    new File(path + ".gz").delete();
+  }
+
+  public void testSequentialJSON() throws Exception {
+    checkExportImport(1, false);
+  }
+
+  public void testParallelJSON() throws Exception {
+    checkExportImport(4, false);
+  }
+
+  public void testSequentialBinary() throws Exception {
+    checkExportImport(1, true);
+  }
+
+  public void testParallelBinary() throws Exception {
+    checkExportImport(4, true);
+  }
+
+  private void checkExportImport(final int iThreads, final boolean iBinary) throws Exception {
+    final ODatabaseExport export = new ODatabaseExport(database, path, LISTENER);
+    export.setThreads(iThreads);
+    export.setBinaryRecords(iBinary);
+    export.exportDatabase();
+
+    final ODatabaseDocumentTx imported = new ODatabaseDocumentTx("memory:odatabaseexportimporttest" + iThreads + iBinary);
+    imported.create();
+    try {
+      final ODatabaseImport importer = new ODatabaseImport(imported, export.getFileName(), LISTENER);
+      importer.setThreads(iThreads);
+      importer.importDatabase();
+
+      final List<ODocument> source = database.query(new OSQLSynchQuery<ODocument>("select from Item"));
+      final List<ODocument> result = imported.query(new OSQLSynchQuery<ODocument>("select from Item"));
+      Assert.assertEquals(result.size(), source.size());
+      for (int i = 0; i < source.size(); ++i) {
+        Assert.assertEquals(result.get(i).getIdentity(), source.get(i).getIdentity());
+        Assert.assertEquals(result.get(i).field("id"), source.get(i).field("id"));
+        Assert.assertEquals(result.get(i).field("name"), source.get(i).field("name"));
+        Assert.assertEquals(result.get(i).toString(), source.get(i).toString());
+      }
+
+      Assert.assertEquals(imported.getMetadata().getIndexManager().getIndex("Item.id").getSize(), source.size());
+      Assert.assertEquals(findById(imported, 1234).getIdentity(), findById(database, 1234).getIdentity());
+    } finally {
+      imported.drop();
+    }
+  }
+
+  private ODocument findById(final ODatabaseDocumentTx iDatabase, final int iId) {
+    final List<ODocument> result = iDatabase.query(new OSQLSynchQuery<ODocument>("select from Item where id = " + iId));
+    return result.get(0);
+  }
+}
@@ -0,0 +1,141 @@
+package com.orientechnologies.orient.core.index;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.Random;
+
+import org.testng.Assert;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+
+import com.orientechnologies.common.listener.OProgressListener;
+import com.orientechnologies.orient.core.config.OGlobalConfiguration;
+import com.orientechnologies.orient.core.db.document.ODatabaseDocumentTx;
+import com.orientechnologies.orient.core.db.record.OIdentifiable;
+import com.orientechnologies.orient.core.metadata.schema.OClass;
+import com.orientechnologies.orient.core.metadata.schema.OType;
+import com.orientechnologies.orient.core.record.impl.ODocument;
+import com.orientechnologies.orient.core.sql.OCommandSQL;
+import com.orientechnologies.orient.core.sql.query.OSQLSynchQuery;
+
+@Test
+public class OIndexBulkLoaderTest {
+  private static final int    DOCUMENTS = 2000;
+
+  private ODatabaseDocumentTx database;
+  private int                 bufferSize;
+
+  @BeforeClass
+  public void beforeClass() {
+    // SMALL BUFFER TO SORT THE ENTRIES IN MANY CHUNKS AND MERGE THEM
+    bufferSize = OGlobalConfiguration.INDEX_BULK_LOAD_BUFFER_SIZE.getValueAsInteger();
+    OGlobalConfiguration.INDEX_BULK_LOAD_BUFFER_SIZE.setValue(150);
+
+    database = new ODatabaseDocumentTx("memory:oindexbulkloadertest");
+    database.create();
+
+    final OClass cls = database.getMetadata().getSchema().createClass("BulkLoaded");
+    cls.createProperty("num", OType.INTEGER);
+    cls.createProperty("group", OType.STRING);
+    cls.createProperty("tags", OType.EMBEDDEDLIST, OType.STRING);
+
+    final Random random = new Random(7);
+    for (int i = 0; i < DOCUMENTS; ++i) {
+      final ODocument doc = new ODocument("BulkLoaded");
+      doc.field("num", (i * 7919) % DOCUMENTS);
+      doc.field("group", "g" + random.nextInt(50));
+      doc.field("tags", Arrays.asList("t" + (i % 3), "t" + (i % 5)));
+      doc.save();
+    }
+  }
+
+  @AfterClass
+  public void afterClass() {
+    database.drop();
+
+    OGlobalConfiguration.INDEX_BULK_LOAD_BUFFER_SIZE.setValue(bufferSize);
+  }
+
+  @SuppressWarnings("unchecked")
+  public void testUniqueIndex() {
+    final OIndex<OIdentifiable> index = (OIndex<OIdentifiable>) database.getMetadata().getSchema().getClass("BulkLoaded")
+        .createIndex("BulkLoaded.num", OClass.INDEX_TYPE.UNIQUE, "num");
+
+    Assert.assertEquals(index.getSize(), DOCUMENTS);
+    for (int i = 0; i < DOCUMENTS; ++i) {
+      final OIdentifiable rid = index.get(i);
+      Assert.assertNotNull(rid);
+      Assert.assertEquals(((ODocument) rid.getRecord()).field("num"), i);
+    }
+
+    int expected = 0;
+    for (Object key : index.keys())
+      Assert.assertEquals(key, expected++);
+    Assert.assertEquals(expected, DOCUMENTS);
+
+    final List<ODocument> result = database.query(new OSQLSynchQuery<ODocument>(
+        "select from BulkLoaded where num between 100 and 199"));
+    Assert.assertEquals(result.size(), 100);
+  }
+
+  @SuppressWarnings("unchecked")
+  public void testNotUniqueIndexMatchesPutOneByOne() {
+    database.command(new OCommandSQL("create index BulkLoaded.group NOTUNIQUE")).execute();
+    final OIndex<Collection<OIdentifiable>> bulkLoaded = (OIndex<Collection<OIdentifiable>>) database.getMetadata()
+        .getIndexManager().getIndex("BulkLoaded.group");
+
+    OGlobalConfiguration.INDEX_BULK_LOAD.setValue(false);
+    try {
+      database.command(new OCommandSQL("create index groupOneByOne on BulkLoaded (group) NOTUNIQUE")).execute();
+    } finally {
+      OGlobalConfiguration.INDEX_BULK_LOAD.setValue(true);
+    }
+    final OIndex<Collection<OIdentifiable>> oneByOne = (OIndex<Collection<OIdentifiable>>) database.getMetadata()
+        .getIndexManager().getIndex("groupOneByOne");
+
+    Assert.assertEquals(bulkLoaded.getSize(), DOCUMENTS);
+    Assert.assertEquals(bulkLoaded.getKeySize(), oneByOne.getKeySize());
+    for (int i = 0; i < 50; ++i)
+      Assert.assertEquals(bulkLoaded.get("g" + i), oneByOne.get("g" + i));
+  }
+
+  @SuppressWarnings("unchecked")
+  public void testRebuildReportsProgress() {
+    database.getMetadata().getSchema().getClass("BulkLoaded").createIndex("BulkLoaded.tags", OClass.INDEX_TYPE.NOTUNIQUE, "tags");
+    final OIndex<Collection<OIdentifiable>> index = (OIndex<Collection<OIdentifiable>>) database.getMetadata().getIndexManager()
+        .getIndex("BulkLoaded.tags");
+
+    final float[] lastPercent = new float[] { -1 };
+    final boolean[] succeed = new boolean[1];
+    final long indexed = index.rebuild(new OProgressListener() {
+      public void onBegin(Object iTask, long iTotal) {
+        Assert.assertEquals(iTotal, DOCUMENTS);
+      }
+
+      public boolean onProgress(Object iTask, long iCounter, float iPercent) {
+        Assert.assertTrue(iPercent >= lastPercent[0]);
+        lastPercent[0] = iPercent;
+        return true;
+      }
+
+      public void onCompletition(Object iTask, boolean iSucceed) {
+        succeed[0] = iSucceed;
+      }
+    });
+
+    Assert.assertEquals(indexed, DOCUMENTS);
+    Assert.assertEquals(lastPercent[0], 100f);
+    Assert.assertTrue(succeed[0]);
+
+    Assert.assertEquals(index.getKeySize(), 5);
+    for (int t = 0; t < 5; ++t) {
+      int expected = 0;
+      for (int i = 0; i < DOCUMENTS; ++i)
+        if ((t < 3 && i % 3 == t) || i % 5 == t)
+          expected++;
+      Assert.assertEquals(index.get("t" + t).size(), expected);
+    }
+  }
+}
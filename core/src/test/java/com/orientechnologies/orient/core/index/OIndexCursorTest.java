@@ -0,0 +1,104 @@
+package com.orientechnologies.orient.core.index;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map.Entry;
+
+import org.testng.Assert;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+
+import com.orientechnologies.orient.core.db.document.ODatabaseDocumentTx;
+import com.orientechnologies.orient.core.db.record.OIdentifiable;
+import com.orientechnologies.orient.core.id.ORecordId;
+import com.orientechnologies.orient.core.metadata.schema.OClass;
+import com.orientechnologies.orient.core.metadata.schema.OType;
+
+@Test
+public class OIndexCursorTest {
+  private ODatabaseDocumentTx     database;
+  private OIndex<OIdentifiable>   uniqueIndex;
+  private OIndex<?>               multiIndex;
+
+  @SuppressWarnings("unchecked")
+  @BeforeClass
+  public void beforeClass() {
+    database = new ODatabaseDocumentTx("memory:oindexcursortest");
+    database.create();
+
+    uniqueIndex = (OIndex<OIdentifiable>) database.getMetadata().getIndexManager()
+        .createIndex("cursorUnique", OClass.INDEX_TYPE.UNIQUE.toString(), new OSimpleKeyIndexDefinition(OType.INTEGER), null, null);
+    for (int i = 0; i < 500; ++i)
+      uniqueIndex.put(i, new ORecordId(1, i));
+
+    multiIndex = database.getMetadata().getIndexManager()
+        .createIndex("cursorNotUnique", OClass.INDEX_TYPE.NOTUNIQUE.toString(), new OSimpleKeyIndexDefinition(OType.INTEGER), null,
+            null);
+    for (int i = 0; i < 10; ++i)
+      for (int j = 0; j < 3; ++j)
+        ((OIndex<Object>) multiIndex).put(i, new ORecordId(2, i * 3 + j));
+  }
+
+  @AfterClass
+  public void afterClass() {
+    database.getMetadata().getIndexManager().flush();
+    database.drop();
+  }
+
+  public void testInclusiveAscending() {
+    final List<Object> keys = keys(uniqueIndex.cursor(10, true, 20, true, true));
+    Assert.assertEquals(keys.size(), 11);
+    Assert.assertEquals(keys.get(0), 10);
+    Assert.assertEquals(keys.get(10), 20);
+  }
+
+  public void testExclusiveDescending() {
+    final List<Object> keys = keys(uniqueIndex.cursor(10, false, 20, false, false));
+    Assert.assertEquals(keys.size(), 9);
+    Assert.assertEquals(keys.get(0), 19);
+    Assert.assertEquals(keys.get(8), 11);
+  }
+
+  public void testOpenBoundsCrossBatches() {
+    final List<Object> ascending = keys(uniqueIndex.cursor(null, false, null, false, true));
+    Assert.assertEquals(ascending.size(), 500);
+    for (int i = 0; i < ascending.size(); ++i)
+      Assert.assertEquals(ascending.get(i), i);
+
+    final List<Object> descending = keys(uniqueIndex.cursor(250, true, null, false, false));
+    Assert.assertEquals(descending.size(), 250);
+    Assert.assertEquals(descending.get(0), 499);
+    Assert.assertEquals(descending.get(249), 250);
+
+    final List<Object> minor = keys(uniqueIndex.cursor(null, false, 249, false, true));
+    Assert.assertEquals(minor.size(), 249);
+    Assert.assertEquals(minor.get(248), 248);
+  }
+
+  public void testEmptyRange() {
+    Assert.assertFalse(uniqueIndex.cursor(600, true, 700, true, true).hasNext());
+    Assert.assertFalse(uniqueIndex.cursor(20, true, 10, true, true).hasNext());
+    Assert.assertFalse(uniqueIndex.cursor(10, false, 10, true, true).hasNext());
+  }
+
+  public void testMultiValueEntries() {
+    final OIndexCursor cursor = multiIndex.cursor(2, true, 4, false, true);
+    final List<Object> keys = new ArrayList<Object>();
+    while (cursor.hasNext()) {
+      final Entry<Object, OIdentifiable> entry = cursor.next();
+      Assert.assertEquals(entry.getValue().getIdentity().getClusterPosition() / 3, ((Integer) entry.getKey()).longValue());
+      keys.add(entry.getKey());
+    }
+    Assert.assertEquals(keys.size(), 6);
+    Assert.assertEquals(keys.get(0), 2);
+    Assert.assertEquals(keys.get(5), 3);
+  }
+
+  private List<Object> keys(final OIndexCursor iCursor) {
+    final List<Object> keys = new ArrayList<Object>();
+    while (iCursor.hasNext())
+      keys.add(iCursor.next().getKey());
+    return keys;
+  }
+}
@@ -0,0 +1,176 @@
+package com.orientechnologies.orient.core.index;
+
+import java.util.List;
+import java.util.Set;
+
+import org.testng.Assert;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+
+import com.orientechnologies.orient.core.config.OGlobalConfiguration;
+import com.orientechnologies.orient.core.db.document.ODatabaseDocumentTx;
+import com.orientechnologies.orient.core.db.record.OIdentifiable;
+import com.orientechnologies.orient.core.id.ORecordId;
+import com.orientechnologies.orient.core.metadata.schema.OClass;
+import com.orientechnologies.orient.core.metadata.schema.OType;
+import com.orientechnologies.orient.core.record.impl.ODocument;
+import com.orientechnologies.orient.core.sql.OCommandSQL;
+import com.orientechnologies.orient.core.sql.query.OSQLSynchQuery;
+
+@Test
+public class OIndexHashTest {
+  private ODatabaseDocumentTx database;
+  private int                 bucketSize;
+
+  @BeforeClass
+  public void beforeClass() {
+    // SMALL BUCKETS TO SPLIT THEM AND GROW THE DIRECTORY WITH FEW KEYS
+    bucketSize = OGlobalConfiguration.HASH_INDEX_BUCKET_SIZE.getValueAsInteger();
+    OGlobalConfiguration.HASH_INDEX_BUCKET_SIZE.setValue(4);
+
+    database = new ODatabaseDocumentTx("memory:oindexhashtest");
+    database.create();
+  }
+
+  @AfterClass
+  public void afterClass() {
+    database.getMetadata().getIndexManager().flush();
+    database.drop();
+
+    OGlobalConfiguration.HASH_INDEX_BUCKET_SIZE.setValue(bucketSize);
+  }
+
+  @SuppressWarnings("unchecked")
+  public void testUniqueIndex() {
+    final OIndex<OIdentifiable> index = (OIndex<OIdentifiable>) database.getMetadata().getIndexManager()
+        .createIndex("hashUnique", OClass.INDEX_TYPE.UNIQUE_HASH.toString(), new OSimpleKeyIndexDefinition(OType.INTEGER), null,
+            null);
+
+    for (int i = 0; i < 1000; ++i)
+      index.put(i, new ORecordId(1, i));
+
+    Assert.assertEquals(index.getSize(), 1000);
+    for (int i = 0; i < 1000; ++i)
+      Assert.assertEquals(index.get(i), new ORecordId(1, i));
+    Assert.assertNull(index.get(1000));
+
+    // THE KEY IS CONVERTED TO THE TYPE OF THE INDEX BEFORE TO BE HASHED
+    Assert.assertEquals(index.get(10L), new ORecordId(1, 10));
+    Assert.assertEquals(index.get("10"), new ORecordId(1, 10));
+
+    // SAME VALUE: NOTHING CHANGES
+    index.put(5, new ORecordId(1, 5));
+    try {
+      index.put(5, new ORecordId(1, 6));
+      Assert.fail();
+    } catch (OIndexException e) {
+    }
+
+    for (int i = 0; i < 1000; i += 2)
+      Assert.assertTrue(index.remove(i));
+    Assert.assertFalse(index.remove(0));
+
+    Assert.assertEquals(index.getSize(), 500);
+    for (int i = 0; i < 1000; ++i)
+      Assert.assertEquals(index.get(i), i % 2 == 0 ? null : new ORecordId(1, i));
+
+    int keys = 0;
+    for (Object key : index.keys()) {
+      Assert.assertEquals(((Integer) key) % 2, 1);
+      ++keys;
+    }
+    Assert.assertEquals(keys, 500);
+  }
+
+  @SuppressWarnings("unchecked")
+  public void testNotUniqueIndex() {
+    final OIndex<Set<OIdentifiable>> index = (OIndex<Set<OIdentifiable>>) database.getMetadata().getIndexManager()
+        .createIndex("hashNotUnique", OClass.INDEX_TYPE.NOTUNIQUE_HASH.toString(), new OSimpleKeyIndexDefinition(OType.STRING),
+            null, null);
+
+    for (int i = 0; i < 300; ++i)
+      index.put("key" + (i % 100), new ORecordId(1, i));
+
+    Assert.assertEquals(index.getSize(), 300);
+    Assert.assertEquals(index.getKeySize(), 100);
+    Assert.assertEquals(index.get("key7").size(), 3);
+    Assert.assertTrue(index.get("key7").contains(new ORecordId(1, 207)));
+    Assert.assertTrue(index.get("missing").isEmpty());
+
+    Assert.assertTrue(index.remove("key7", new ORecordId(1, 107)));
+    Assert.assertEquals(index.count("key7"), 2);
+
+    Assert.assertEquals(index.remove(new ORecordId(1, 8)), 1);
+    Assert.assertEquals(index.count("key8"), 2);
+
+    Assert.assertEquals(index.getValues(java.util.Arrays.asList("key1", "key2", "missing")).size(), 6);
+  }
+
+  @SuppressWarnings("unchecked")
+  public void testReload() {
+    final OIndex<OIdentifiable> index = (OIndex<OIdentifiable>) database.getMetadata().getIndexManager()
+        .createIndex("hashReload", OClass.INDEX_TYPE.UNIQUE_HASH.toString(), new OSimpleKeyIndexDefinition(OType.STRING), null,
+            null);
+
+    for (int i = 0; i < 500; ++i)
+      index.put("k" + i, new ORecordId(1, i));
+    index.lazySave();
+
+    final OIndexInternal<OIdentifiable> reloaded = (OIndexInternal<OIdentifiable>) new OIndexHashUnique()
+        .loadFromConfiguration(index.getConfiguration());
+    Assert.assertEquals(reloaded.getSize(), 500);
+    for (int i = 0; i < 500; ++i)
+      Assert.assertEquals(reloaded.get("k" + i), new ORecordId(1, i));
+  }
+
+  @SuppressWarnings("unchecked")
+  public void testRangeQueriesAreNotSupported() {
+    final OIndex<OIdentifiable> index = (OIndex<OIdentifiable>) database.getMetadata().getIndexManager()
+        .createIndex("hashRange", OClass.INDEX_TYPE.UNIQUE_HASH.toString(), new OSimpleKeyIndexDefinition(OType.INTEGER), null,
+            null);
+
+    Assert.assertFalse(index.getInternal().canBeUsedInRangeOperators());
+    try {
+      index.getValuesBetween(1, 10);
+      Assert.fail();
+    } catch (OIndexException e) {
+    }
+  }
+
+  public void testQueries() {
+    final OClass hashClass = database.getMetadata().getSchema().createClass("HashIndexed");
+    hashClass.createProperty("name", OType.STRING);
+    hashClass.createProperty("group", OType.INTEGER);
+    database.command(new OCommandSQL("create index HashIndexed.name UNIQUE_HASH")).execute();
+    hashClass.createIndex("HashIndexed.group", OClass.INDEX_TYPE.NOTUNIQUE_HASH, "group");
+
+    for (int i = 0; i < 100; ++i)
+      new ODocument("HashIndexed").field("name", "n" + i).field("group", i % 10).save();
+
+    Assert.assertEquals(hashClass.getClassIndex("HashIndexed.name").getType(), OClass.INDEX_TYPE.UNIQUE_HASH.toString());
+
+    List<ODocument> result = query("select from HashIndexed where name = 'n42'");
+    Assert.assertEquals(result.size(), 1);
+    Assert.assertEquals(result.get(0).field("group"), 2);
+
+    result = query("select from HashIndexed where name in ['n1', 'n2', 'n200']");
+    Assert.assertEquals(result.size(), 2);
+
+    result = query("select from HashIndexed where group = 3");
+    Assert.assertEquals(result.size(), 10);
+
+    // RANGES ARE EVALUATED WITHOUT THE INDEX
+    result = query("select from HashIndexed where group > 7");
+    Assert.assertEquals(result.size(), 20);
+
+    result = query("select from HashIndexed order by name limit 3");
+    Assert.assertEquals(result.get(0).field("name"), "n0");
+    Assert.assertEquals(result.get(1).field("name"), "n1");
+    Assert.assertEquals(result.get(2).field("name"), "n10");
+  }
+
+  private List<ODocument> query(final String iText) {
+    return database.query(new OSQLSynchQuery<ODocument>(iText));
+  }
+}
@@ -0,0 +1,167 @@
+package com.orientechnologies.orient.core.index;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.testng.Assert;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+
+import com.orientechnologies.orient.core.db.ODatabaseRecordThreadLocal;
+import com.orientechnologies.orient.core.db.document.ODatabaseDocumentTx;
+import com.orientechnologies.orient.core.db.record.OIdentifiable;
+import com.orientechnologies.orient.core.id.ORecordId;
+import com.orientechnologies.orient.core.metadata.schema.OClass;
+import com.orientechnologies.orient.core.metadata.schema.OType;
+
+@Test
+public class OIndexMVRBTreeLookupTest {
+  private ODatabaseDocumentTx database;
+
+  @BeforeClass
+  public void beforeClass() {
+    database = new ODatabaseDocumentTx("memory:oindexmvrbtreelookuptest");
+    database.create();
+  }
+
+  @AfterClass
+  public void afterClass() {
+    database.getMetadata().getIndexManager().flush();
+    database.drop();
+  }
+
+  @SuppressWarnings("unchecked")
+  public void testCachedLookupsAreInvalidatedByChanges() {
+    final OIndex<OIdentifiable> index = (OIndex<OIdentifiable>) database.getMetadata().getIndexManager()
+        .createIndex("lookupUnique", OClass.INDEX_TYPE.UNIQUE.toString(), new OSimpleKeyIndexDefinition(OType.INTEGER), null, null);
+
+    Assert.assertNull(index.get(1));
+    Assert.assertEquals(index.count(1), 0);
+
+    index.put(1, new ORecordId(1, 1));
+    Assert.assertEquals(index.get(1), new ORecordId(1, 1));
+    Assert.assertEquals(index.get(1), new ORecordId(1, 1));
+    Assert.assertEquals(index.count(1), 1);
+
+    index.remove(1);
+    Assert.assertNull(index.get(1));
+
+    index.put(1, new ORecordId(1, 2));
+    Assert.assertEquals(index.get(1), new ORecordId(1, 2));
+  }
+
+  @SuppressWarnings("unchecked")
+  public void testCachedMultiValueLookupsAreInvalidatedByChanges() {
+    final OIndex<Set<OIdentifiable>> index = (OIndex<Set<OIdentifiable>>) database.getMetadata().getIndexManager()
+        .createIndex("lookupNotUnique", OClass.INDEX_TYPE.NOTUNIQUE.toString(), new OSimpleKeyIndexDefinition(OType.STRING), null,
+            null);
+
+    Assert.assertTrue(index.get("a").isEmpty());
+
+    index.put("a", new ORecordId(1, 1));
+    index.put("a", new ORecordId(1, 2));
+    Assert.assertEquals(index.get("a").size(), 2);
+    Assert.assertEquals(index.count("a"), 2);
+
+    // THE RETURNED SET IS A COPY
+    index.get("a").clear();
+    Assert.assertEquals(index.count("a"), 2);
+
+    index.remove("a", new ORecordId(1, 1));
+    Assert.assertEquals(index.count("a"), 1);
+    Assert.assertTrue(index.get("a").contains(new ORecordId(1, 2)));
+  }
+
+  @SuppressWarnings("unchecked")
+  public void testConcurrentLookups() throws InterruptedException {
+    final OIndex<OIdentifiable> index = (OIndex<OIdentifiable>) database.getMetadata().getIndexManager()
+        .createIndex("lookupConcurrent", OClass.INDEX_TYPE.UNIQUE.toString(), new OSimpleKeyIndexDefinition(OType.INTEGER), null,
+            null);
+
+    for (int i = 0; i < 2000; ++i)
+      index.put(i, new ORecordId(1, i));
+
+    final AtomicInteger errors = new AtomicInteger();
+    final List<Thread> threads = new ArrayList<Thread>();
+    for (int t = 0; t < 4; ++t)
+      threads.add(new Thread() {
+        @Override
+        public void run() {
+          ODatabaseRecordThreadLocal.INSTANCE.set(database);
+          try {
+            for (int i = 0; i < 10000; ++i) {
+              final int key = i % 2000;
+              if (!new ORecordId(1, key).equals(index.get(key)))
+                errors.incrementAndGet();
+              if (index.getValuesBetween(key, key + 10).isEmpty())
+                errors.incrementAndGet();
+            }
+          } catch (Exception e) {
+            errors.incrementAndGet();
+          }
+        }
+      });
+
+    for (Thread thread : threads)
+      thread.start();
+    for (Thread thread : threads)
+      thread.join();
+
+    Assert.assertEquals(errors.get(), 0);
+  }
+
+  @SuppressWarnings("unchecked")
+  public void testConcurrentSearchesLoadingNodes() throws InterruptedException {
+    final OIndex<OIdentifiable> index = (OIndex<OIdentifiable>) database.getMetadata().getIndexManager()
+        .createIndex("lookupConcurrentNodes", OClass.INDEX_TYPE.UNIQUE.toString(), new OSimpleKeyIndexDefinition(OType.INTEGER),
+            null, null);
+
+    final int keys = 10000;
+    for (int i = 0; i < keys; ++i)
+      index.put(i, new ORecordId(1, i));
+
+    // UNLOAD THE NODES: THE READERS LOAD THEM CONCURRENTLY. A PENDING OPTIMIZATION MUST NOT BE EXECUTED BY THE READERS
+    final OIndexMVRBTreeAbstract<OIdentifiable> internal = (OIndexMVRBTreeAbstract<OIdentifiable>) index.getInternal();
+    internal.flush();
+    internal.map.unload();
+    Assert.assertEquals(internal.map.getNumberOfNodesInCache(), 1);
+    internal.map.setOptimization(2);
+
+    final AtomicInteger errors = new AtomicInteger();
+    final List<Thread> threads = new ArrayList<Thread>();
+    for (int t = 0; t < 4; ++t) {
+      final int offset = t * keys / 4;
+      threads.add(new Thread() {
+        @Override
+        public void run() {
+          ODatabaseRecordThreadLocal.INSTANCE.set(database);
+          try {
+            for (int i = 0; i < 2000; ++i) {
+              final int key = (offset + i * 7) % (keys - 10);
+              final Collection<OIdentifiable> values = index.getValuesBetween(key, key + 9);
+              if (values.size() != 10 || !values.contains(new ORecordId(1, key + 9)))
+                errors.incrementAndGet();
+              if (!index.contains(key))
+                errors.incrementAndGet();
+            }
+          } catch (Exception e) {
+            errors.incrementAndGet();
+          }
+        }
+      });
+    }
+
+    for (Thread thread : threads)
+      thread.start();
+    for (Thread thread : threads)
+      thread.join();
+
+    Assert.assertEquals(errors.get(), 0);
+    Assert.assertTrue(internal.map.getNumberOfNodesInCache() > 1);
+    Assert.assertEquals(internal.map.getOptimization(), 2);
+  }
+}
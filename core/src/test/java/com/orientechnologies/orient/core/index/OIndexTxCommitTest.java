@@ -0,0 +1,96 @@
+package com.orientechnologies.orient.core.index;
+
+import java.util.Set;
+
+import org.testng.Assert;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+
+import com.orientechnologies.orient.core.db.document.ODatabaseDocumentTx;
+import com.orientechnologies.orient.core.db.record.OIdentifiable;
+import com.orientechnologies.orient.core.id.ORecordId;
+import com.orientechnologies.orient.core.metadata.schema.OClass;
+import com.orientechnologies.orient.core.metadata.schema.OType;
+import com.orientechnologies.orient.core.record.impl.ODocument;
+import com.orientechnologies.orient.core.tx.OTransactionIndexChanges;
+import com.orientechnologies.orient.core.tx.OTransactionIndexChanges.OPERATION;
+
+@Test
+public class OIndexTxCommitTest {
+  private ODatabaseDocumentTx database;
+
+  @BeforeClass
+  public void beforeClass() {
+    database = new ODatabaseDocumentTx("memory:oindextxcommittest");
+    database.create();
+
+    final OClass cls = database.getMetadata().getSchema().createClass("TxIndexed");
+    cls.createProperty("name", OType.STRING).createIndex(OClass.INDEX_TYPE.UNIQUE);
+    cls.createProperty("group", OType.INTEGER).createIndex(OClass.INDEX_TYPE.NOTUNIQUE);
+  }
+
+  @AfterClass
+  public void afterClass() {
+    database.drop();
+  }
+
+  @SuppressWarnings("unchecked")
+  public void testTypedChanges() {
+    final OIndexAbstract<Set<OIdentifiable>> index = (OIndexAbstract<Set<OIdentifiable>>) database.getMetadata()
+        .getIndexManager()
+        .createIndex("txTyped", OClass.INDEX_TYPE.NOTUNIQUE.toString(), new OSimpleKeyIndexDefinition(OType.INTEGER), null, null)
+        .getInternal();
+    index.put(1, new ORecordId(1, 1));
+    index.put(2, new ORecordId(1, 2));
+    index.put(3, new ORecordId(1, 3));
+
+    final OTransactionIndexChanges changes = new OTransactionIndexChanges();
+    changes.getChangesPerKey(5).add(new ORecordId(1, 5), OPERATION.PUT);
+    changes.getChangesPerKey(4).add(new ORecordId(1, 4), OPERATION.PUT);
+    changes.getChangesPerKey(2).add(null, OPERATION.REMOVE);
+    changes.getChangesPerKey(1).add(new ORecordId(1, 1), OPERATION.REMOVE);
+    changes.getChangesCrossKey().add(new ORecordId(1, 3), OPERATION.REMOVE);
+
+    index.commit(changes);
+
+    Assert.assertTrue(index.get(1).isEmpty());
+    Assert.assertTrue(index.get(2).isEmpty());
+    Assert.assertTrue(index.get(3).isEmpty());
+    Assert.assertTrue(index.get(4).contains(new ORecordId(1, 4)));
+    Assert.assertTrue(index.get(5).contains(new ORecordId(1, 5)));
+
+    final OTransactionIndexChanges clear = new OTransactionIndexChanges();
+    clear.setCleared();
+    clear.getChangesPerKey(6).add(new ORecordId(1, 6), OPERATION.PUT);
+    index.commit(clear);
+
+    Assert.assertEquals(index.getSize(), 1);
+    Assert.assertTrue(index.get(6).contains(new ORecordId(1, 6)));
+  }
+
+  public void testTransactionCommit() {
+    database.begin();
+    for (int i = 0; i < 10; ++i)
+      new ODocument("TxIndexed").field("name", "n" + i).field("group", i % 3).save();
+    database.commit();
+
+    final OIndex<?> names = database.getMetadata().getIndexManager().getIndex("TxIndexed.name");
+    final OIndex<?> groups = database.getMetadata().getIndexManager().getIndex("TxIndexed.group");
+    Assert.assertEquals(names.getSize(), 10);
+    Assert.assertEquals(groups.getKeySize(), 3);
+    Assert.assertFalse(((OIdentifiable) names.get("n3")).getIdentity().isTemporary());
+
+    database.begin();
+    final ODocument doc = ((OIdentifiable) names.get("n3")).getRecord();
+    doc.delete();
+    final ODocument other = ((OIdentifiable) names.get("n4")).getRecord();
+    other.field("name", "renamed").save();
+    database.commit();
+
+    Assert.assertNull(names.get("n3"));
+    Assert.assertNull(names.get("n4"));
+    Assert.assertNotNull(names.get("renamed"));
+    Assert.assertEquals(names.getSize(), 9);
+  }
+}
@@ -0,0 +1,107 @@
+/*
+ * Copyright 2010-2012 Luca Garulli (l.garulli--at--orientechnologies.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.orientechnologies.orient.core.serialization.serializer.binary.impl;
+
+import java.util.Date;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import com.orientechnologies.common.collection.OAlwaysGreaterKey;
+import com.orientechnologies.common.collection.OCompositeKey;
+import com.orientechnologies.orient.core.id.ORecordId;
+import com.orientechnologies.orient.core.metadata.schema.OType;
+import com.orientechnologies.orient.core.serialization.serializer.binary.OComparableBinarySerializer;
+import com.orientechnologies.orient.core.serialization.serializer.binary.impl.index.OCompositeKeySerializer;
+import com.orientechnologies.orient.core.serialization.serializer.binary.impl.index.OSimpleKeySerializer;
+
+@Test
+public class ComparableSerializerTest {
+
+	public void testInteger() {
+		final Integer[] values = { Integer.MIN_VALUE, -10, -1, 0, 1, 10, Integer.MAX_VALUE };
+		for (Integer stored : values)
+			for (Integer key : values)
+				assertCompare(OIntegerSerializer.INSTANCE, stored, key);
+	}
+
+	public void testLong() {
+		final Long[] values = { Long.MIN_VALUE, -10L, -1L, 0L, 1L, 10L, Long.MAX_VALUE };
+		for (Long stored : values)
+			for (Long key : values)
+				assertCompare(OLongSerializer.INSTANCE, stored, key);
+	}
+
+	public void testString() {
+		final String[] values = { "", "a", "ab", "abc", "b", "\u00e8", "\uffff", "Z" };
+		for (String stored : values)
+			for (String key : values)
+				assertCompare(OStringSerializer.INSTANCE, stored, key);
+	}
+
+	public void testDate() {
+		final Date[] values = { new Date(0), new Date(-1000), new Date(), new Date(System.currentTimeMillis() + 1000) };
+		for (Date stored : values)
+			for (Date key : values)
+				assertCompare(ODateTimeSerializer.INSTANCE, stored, key);
+	}
+
+	public void testLink() {
+		final ORecordId[] values = { new ORecordId(1, 0), new ORecordId(1, 10), new ORecordId(2, 0), new ORecordId(10, -1) };
+		for (ORecordId stored : values)
+			for (ORecordId key : values)
+				assertCompare(OLinkSerializer.INSTANCE, stored, key);
+	}
+
+	public void testSimpleKey() {
+		final String[] values = { "a", "ab", "b" };
+		for (String stored : values)
+			for (String key : values)
+				assertCompare(new OSimpleKeySerializer<String>(OType.STRING), stored, key);
+	}
+
+	public void testCompositeKey() {
+		final OCompositeKey[] values = { new OCompositeKey("a", 1), new OCompositeKey("a", 2), new OCompositeKey("b", -1),
+				new OCompositeKey("a"), new OCompositeKey("b", 1, 2L), new OCompositeKey("a", new OAlwaysGreaterKey()) };
+		for (OCompositeKey stored : values)
+			for (OCompositeKey key : values)
+				if (!(stored.getKeys().get(stored.getKeys().size() - 1) instanceof OAlwaysGreaterKey))
+					assertCompare(OCompositeKeySerializer.INSTANCE, stored, key);
+	}
+
+	public void testNotComparable() {
+		final byte[] stream = new byte[OIntegerSerializer.INT_SIZE];
+		OIntegerSerializer.INSTANCE.serialize(10, stream, 0);
+		Assert.assertEquals(OIntegerSerializer.INSTANCE.compareInStream(stream, 0, 10L), OComparableBinarySerializer.NOT_COMPARABLE);
+
+		final OCompositeKey compositeKey = new OCompositeKey("a", 1);
+		final byte[] compositeStream = new byte[OCompositeKeySerializer.INSTANCE.getObjectSize(compositeKey)];
+		OCompositeKeySerializer.INSTANCE.serialize(compositeKey, compositeStream, 0);
+		Assert.assertEquals(OCompositeKeySerializer.INSTANCE.compareInStream(compositeStream, 0, new OCompositeKey("a", 1L)),
+				OComparableBinarySerializer.NOT_COMPARABLE);
+	}
+
+	@SuppressWarnings("unchecked")
+	private <T> void assertCompare(final OComparableBinarySerializer<T> serializer, final T stored, final T key) {
+		final byte[] stream = new byte[serializer.getObjectSize(stored) + 3];
+		serializer.serialize(stored, stream, 3);
+
+		final int expected = ((Comparable<T>) serializer.deserialize(stream, 3)).compareTo(key);
+		final int result = serializer.compareInStream(stream, 3, key);
+		Assert.assertEquals(Integer.signum(result), Integer.signum(expected), stored + " vs " + key);
+	}
+}
@@ -0,0 +1,134 @@
+package com.orientechnologies.orient.core.serialization.serializer.record.string;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.testng.Assert;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+
+import com.orientechnologies.orient.core.config.OGlobalConfiguration;
+import com.orientechnologies.orient.core.db.document.ODatabaseDocumentTx;
+import com.orientechnologies.orient.core.metadata.schema.OType;
+import com.orientechnologies.orient.core.record.impl.ODocument;
+import com.orientechnologies.orient.core.serialization.serializer.record.ORecordSerializerFactory;
+import com.orientechnologies.orient.core.sql.query.OSQLSynchQuery;
+
+@Test
+public class ORecordSerializerDocument2BinaryTest {
+  private ODatabaseDocumentTx database;
+  private String              previousSerializer;
+
+  @BeforeClass
+  public void beforeClass() {
+    previousSerializer = OGlobalConfiguration.DB_DOCUMENT_SERIALIZER.getValueAsString();
+    OGlobalConfiguration.DB_DOCUMENT_SERIALIZER.setValue(ORecordSerializerDocument2Binary.NAME);
+
+    database = new ODatabaseDocumentTx("memory:orecordserializerdocument2binarytest");
+    database.create();
+
+    database.getMetadata().getSchema().createClass("Person");
+    database.getMetadata().getSchema().save();
+  }
+
+  @AfterClass
+  public void afterClass() {
+    OGlobalConfiguration.DB_DOCUMENT_SERIALIZER.setValue(previousSerializer);
+
+    database.getMetadata().getIndexManager().flush();
+    database.drop();
+  }
+
+  public void testSimpleTypes() {
+    final Date now = new Date();
+    final ODocument doc = new ODocument("Person");
+    doc.field("name", "Jay").field("age", 42).field("weight", 72.5d).field("height", 1.8f).field("id", 10000000000l);
+    doc.field("active", true).field("born", now).field("short", (short) 3).field("byte", (byte) 7);
+    doc.field("salary", new BigDecimal("1234.56")).field("photo", new byte[] { 1, 2, 3 }).field("nothing", (Object) null);
+
+    final byte[] stream = doc.toStream();
+    Assert.assertTrue(ORecordSerializerDocument2Binary.isBinary(stream));
+
+    final ODocument loaded = new ODocument().fromStream(stream);
+    Assert.assertEquals(loaded.getClassName(), "Person");
+    Assert.assertEquals(loaded.field("name"), "Jay");
+    Assert.assertEquals(loaded.field("age"), 42);
+    Assert.assertEquals(loaded.field("weight"), 72.5d);
+    Assert.assertEquals(loaded.field("height"), 1.8f);
+    Assert.assertEquals(loaded.field("id"), 10000000000l);
+    Assert.assertEquals(loaded.field("active"), true);
+    Assert.assertEquals(loaded.field("born"), now);
+    Assert.assertEquals(loaded.field("short"), (short) 3);
+    Assert.assertEquals(loaded.field("byte"), (byte) 7);
+    Assert.assertEquals(loaded.field("salary"), new BigDecimal("1234.56"));
+    Assert.assertEquals((byte[]) loaded.field("photo"), new byte[] { 1, 2, 3 });
+    Assert.assertTrue(loaded.containsField("nothing"));
+    Assert.assertNull(loaded.field("nothing"));
+  }
+
+  public void testComplexTypes() {
+    final ODocument friend = new ODocument("Person").field("name", "Bob");
+    friend.save();
+
+    final List<String> tags = new ArrayList<String>();
+    tags.add("a");
+    tags.add("b");
+    final Map<String, Integer> scores = new HashMap<String, Integer>();
+    scores.put("math", 8);
+
+    final ODocument doc = new ODocument("Person");
+    doc.field("tags", tags).field("scores", scores).field("friend", friend);
+    doc.field("address", new ODocument().field("city", "Rome"), OType.EMBEDDED);
+    doc.save();
+
+    final ODocument loaded = new ODocument().fromStream(doc.toStream());
+    Assert.assertEquals(loaded.field("tags"), tags);
+    Assert.assertEquals(((Map<?, ?>) loaded.field("scores")).get("math"), 8);
+    Assert.assertEquals(((ODocument) loaded.field("friend")).getIdentity(), friend.getIdentity());
+    Assert.assertEquals(((ODocument) loaded.field("address")).field("city"), "Rome");
+    Assert.assertEquals(loaded.fieldType("address"), OType.EMBEDDED);
+  }
+
+  public void testLazyFieldRead() {
+    final byte[] stream = new ODocument("Person").field("name", "Ann").field("age", 30).field("tags", new ArrayList<String>())
+        .toStream();
+
+    Assert.assertEquals(ORecordSerializerDocument2Binary.readField(stream, "age"), 30);
+    Assert.assertEquals(ORecordSerializerDocument2Binary.readField(stream, "name"), "Ann");
+    Assert.assertNull(ORecordSerializerDocument2Binary.readField(stream, "missing"));
+    Assert.assertSame(ORecordSerializerDocument2Binary.readField(stream, "tags"), ORecordSerializerDocument2Binary.NOT_SIMPLE);
+
+    final ODocument loaded = new ODocument().fromStream(stream);
+    Assert.assertEquals(loaded.rawField("age"), 30);
+    Assert.assertEquals(loaded.rawField("tags"), new ArrayList<String>());
+  }
+
+  public void testMixedFormats() {
+    final ODocument doc = new ODocument("Person").field("name", "Csv").field("age", 20);
+    final byte[] csv = ORecordSerializerFactory.instance().getFormat(ORecordSerializerSchemaAware2CSV.NAME).toStream(doc, false);
+    Assert.assertFalse(ORecordSerializerDocument2Binary.isBinary(csv));
+
+    final ODocument fromCsv = new ODocument().fromStream(csv);
+    Assert.assertEquals(fromCsv.field("name"), "Csv");
+    Assert.assertEquals(fromCsv.field("age"), 20);
+
+    final byte[] binary = doc.toStream();
+    final ODocument fromBinary = (ODocument) ORecordSerializerFactory.instance().getFormat(ORecordSerializerSchemaAware2CSV.NAME)
+        .fromStream(binary, new ODocument());
+    Assert.assertEquals(fromBinary.field("name"), "Csv");
+    Assert.assertEquals(fromBinary.field("age"), 20);
+  }
+
+  public void testQuery() {
+    for (int i = 0; i < 10; ++i)
+      new ODocument("Person").field("name", "q" + i).field("rank", i).save();
+
+    final List<ODocument> result = database.query(new OSQLSynchQuery<ODocument>("select from Person where rank >= 7"));
+    Assert.assertEquals(result.size(), 3);
+  }
+}
@@ -0,0 +1,95 @@
+package com.orientechnologies.orient.core.sql;
+
+import java.util.List;
+
+import org.testng.Assert;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+
+import com.orientechnologies.orient.core.config.OGlobalConfiguration;
+import com.orientechnologies.orient.core.db.document.ODatabaseDocumentTx;
+import com.orientechnologies.orient.core.exception.OCommandExecutionException;
+import com.orientechnologies.orient.core.record.impl.ODocument;
+import com.orientechnologies.orient.core.sql.query.OSQLSynchQuery;
+
+@Test
+public class OCommandExecutorSQLSelectGroupByTest {
+  private ODatabaseDocumentTx database;
+
+  @BeforeClass
+  public void beforeClass() {
+    database = new ODatabaseDocumentTx("memory:ocommandexecutorsqlselectgroupbytest");
+    database.create();
+
+    database.getMetadata().getSchema().createClass("Sale");
+    database.getMetadata().getSchema().save();
+
+    final String[] cities = { "Rome", "London", "Paris" };
+    for (int i = 0; i < 30; ++i)
+      new ODocument("Sale").field("city", cities[i % 3]).field("year", 2000 + i % 2).field("amount", i).save();
+  }
+
+  @AfterClass
+  public void afterClass() {
+    database.getMetadata().getIndexManager().flush();
+    database.drop();
+  }
+
+  public void testAggregatesPerGroup() {
+    final List<ODocument> result = query("select city, count(*) as total, sum(amount) as amount, max(amount) as top from Sale"
+        + " group by city order by city");
+    Assert.assertEquals(result.size(), 3);
+
+    Assert.assertEquals(result.get(0).field("city"), "London");
+    Assert.assertEquals(((Number) result.get(0).field("total")).intValue(), 10);
+    // 1 + 4 + ... + 28
+    Assert.assertEquals(((Number) result.get(0).field("amount")).intValue(), 145);
+    Assert.assertEquals(((Number) result.get(0).field("top")).intValue(), 28);
+
+    Assert.assertEquals(result.get(1).field("city"), "Paris");
+    Assert.assertEquals(((Number) result.get(1).field("amount")).intValue(), 155);
+    Assert.assertEquals(result.get(2).field("city"), "Rome");
+    Assert.assertEquals(((Number) result.get(2).field("amount")).intValue(), 135);
+  }
+
+  public void testMultipleFieldsWithFilterAndLimit() {
+    final List<ODocument> result = query("select city, year, count(*) as total from Sale where amount < 12"
+        + " group by city, year order by total desc, city asc skip 1 limit 2");
+    Assert.assertEquals(result.size(), 2);
+    for (ODocument doc : result)
+      Assert.assertEquals(((Number) doc.field("total")).intValue(), 2);
+  }
+
+  public void testSkipWithoutLimit() {
+    final List<ODocument> result = query("select city, count(*) as total from Sale group by city order by city asc skip 1");
+    Assert.assertEquals(result.size(), 2);
+    Assert.assertEquals(result.get(0).field("city"), "Paris");
+    Assert.assertEquals(result.get(1).field("city"), "Rome");
+  }
+
+  public void testWithoutAggregates() {
+    final List<ODocument> result = query("select from Sale group by year");
+    Assert.assertEquals(result.size(), 2);
+    Assert.assertEquals(result.get(0).field("year"), 2000);
+    Assert.assertEquals(result.get(1).field("year"), 2001);
+  }
+
+  public void testMaxGroups() {
+    final int previous = OGlobalConfiguration.QUERY_GROUPBY_MAX_GROUPS.getValueAsInteger();
+    OGlobalConfiguration.QUERY_GROUPBY_MAX_GROUPS.setValue(5);
+    try {
+      query("select amount, count(*) from Sale group by amount");
+      Assert.fail("Expected failure on too many groups");
+    } catch (OCommandExecutionException e) {
+      // EXPECTED
+    } finally {
+      OGlobalConfiguration.QUERY_GROUPBY_MAX_GROUPS.setValue(previous);
+    }
+    Assert.assertEquals(query("select year, count(*) from Sale group by year").size(), 2);
+  }
+
+  private List<ODocument> query(final String iText) {
+    return database.query(new OSQLSynchQuery<ODocument>(iText));
+  }
+}
@@ -0,0 +1,88 @@
+package com.orientechnologies.orient.core.sql;
+
+import java.util.List;
+
+import org.testng.Assert;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+
+import com.orientechnologies.orient.core.db.document.ODatabaseDocumentTx;
+import com.orientechnologies.orient.core.metadata.schema.OClass;
+import com.orientechnologies.orient.core.metadata.schema.OType;
+import com.orientechnologies.orient.core.record.impl.ODocument;
+import com.orientechnologies.orient.core.sql.query.OSQLSynchQuery;
+
+@Test
+public class OCommandExecutorSQLSelectOrderTest {
+  private ODatabaseDocumentTx database;
+
+  @BeforeClass
+  public void beforeClass() {
+    database = new ODatabaseDocumentTx("memory:ocommandexecutorsqlselectordertest");
+    database.create();
+
+    final OClass indexed = database.getMetadata().getSchema().createClass("OrderIndexed");
+    indexed.createProperty("num", OType.INTEGER).createIndex(OClass.INDEX_TYPE.UNIQUE);
+    final OClass notUnique = database.getMetadata().getSchema().createClass("OrderNotUnique");
+    notUnique.createProperty("num", OType.INTEGER).createIndex(OClass.INDEX_TYPE.NOTUNIQUE);
+    final OClass plain = database.getMetadata().getSchema().createClass("OrderPlain");
+    plain.createProperty("num", OType.INTEGER);
+    database.getMetadata().getSchema().save();
+
+    // INSERT IN SCRAMBLED ORDER
+    for (int i = 0; i < 300; ++i) {
+      final int num = (i * 37) % 300;
+      new ODocument("OrderIndexed").field("num", num).field("even", num % 2 == 0).save();
+      new ODocument("OrderPlain").field("num", num).save();
+      new ODocument("OrderNotUnique").field("num", num % 10).save();
+    }
+    // A RECORD WITHOUT THE FIELD
+    new ODocument("OrderPlain").field("other", 1).save();
+  }
+
+  @AfterClass
+  public void afterClass() {
+    database.getMetadata().getIndexManager().flush();
+    database.drop();
+  }
+
+  public void testTopAscending() {
+    final List<ODocument> result = query("select from OrderPlain where num is not null order by num limit 5");
+    assertNums(result, 0, 1, 2, 3, 4);
+  }
+
+  public void testTopDescendingWithSkip() {
+    final List<ODocument> result = query("select from OrderPlain order by num desc skip 3 limit 4");
+    assertNums(result, 296, 295, 294, 293);
+  }
+
+  public void testOrderedByIndex() {
+    assertNums(query("select from OrderIndexed order by num limit 3"), 0, 1, 2);
+    assertNums(query("select from OrderIndexed order by num desc skip 2 limit 3"), 297, 296, 295);
+    assertNums(query("select from OrderIndexed where even = true order by num desc limit 3"), 298, 296, 294);
+    assertNums(query("select num from OrderIndexed order by num limit 2"), 0, 1);
+  }
+
+  public void testNotUniqueIndex() {
+    assertNums(query("select from OrderNotUnique order by num limit 3"), 0, 0, 0);
+    assertNums(query("select from OrderNotUnique order by num desc skip 28 limit 4"), 9, 9, 8, 8);
+  }
+
+  public void testWithoutLimit() {
+    final List<ODocument> result = query("select from OrderIndexed order by num desc");
+    Assert.assertEquals(result.size(), 300);
+    Assert.assertEquals(result.get(0).field("num"), 299);
+    Assert.assertEquals(result.get(299).field("num"), 0);
+  }
+
+  private List<ODocument> query(final String iText) {
+    return database.query(new OSQLSynchQuery<ODocument>(iText));
+  }
+
+  private void assertNums(final List<ODocument> iResult, final int... iExpected) {
+    Assert.assertEquals(iResult.size(), iExpected.length);
+    for (int i = 0; i < iExpected.length; ++i)
+      Assert.assertEquals(iResult.get(i).field("num"), iExpected[i]);
+  }
+}
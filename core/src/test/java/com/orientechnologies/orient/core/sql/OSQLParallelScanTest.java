@@ -0,0 +1,102 @@
+package com.orientechnologies.orient.core.sql;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.testng.Assert;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+
+import com.orientechnologies.orient.core.config.OGlobalConfiguration;
+import com.orientechnologies.orient.core.db.ODatabaseRecordThreadLocal;
+import com.orientechnologies.orient.core.db.document.ODatabaseDocumentTx;
+import com.orientechnologies.orient.core.db.record.ODatabaseRecordTx;
+import com.orientechnologies.orient.core.exception.ODatabaseException;
+import com.orientechnologies.orient.core.id.ORID;
+import com.orientechnologies.orient.core.record.impl.ODocument;
+import com.orientechnologies.orient.core.sql.query.OSQLSynchQuery;
+
+@Test
+public class OSQLParallelScanTest {
+  private ODatabaseDocumentTx database;
+  private Object              threshold;
+  private Object              threads;
+
+  @BeforeClass
+  public void beforeClass() {
+    threshold = OGlobalConfiguration.QUERY_PARALLEL_SCAN_THRESHOLD.getValue();
+    threads = OGlobalConfiguration.QUERY_PARALLEL_SCAN_THREADS.getValue();
+    OGlobalConfiguration.QUERY_PARALLEL_SCAN_THRESHOLD.setValue(100);
+    OGlobalConfiguration.QUERY_PARALLEL_SCAN_THREADS.setValue(4);
+
+    database = new ODatabaseDocumentTx("memory:osqlparallelscantest");
+    database.create();
+
+    database.getMetadata().getSchema().createClass("Item");
+    database.getMetadata().getSchema().save();
+
+    for (int i = 0; i < 5000; ++i)
+      new ODocument("Item").field("id", i).field("group", i % 10).field("name", "item" + i).save();
+  }
+
+  @AfterClass
+  public void afterClass() {
+    OGlobalConfiguration.QUERY_PARALLEL_SCAN.setValue(false);
+    OGlobalConfiguration.QUERY_PARALLEL_SCAN_THRESHOLD.setValue(threshold);
+    OGlobalConfiguration.QUERY_PARALLEL_SCAN_THREADS.setValue(threads);
+    database.drop();
+  }
+
+  public void testSameResultOfSequentialScan() {
+    final String[] queries = { "select from Item where group = 3", "select from Item where id > 1200 and id < 4100",
+        "select from Item where group = 7 limit 20", "select from Item where group = 7 skip 100 limit 20",
+        "select from Item where name like 'item1%' order by id desc", "select from Item where id < 0",
+        "select from Item where group in (select group from Item where id = 5)", "select from Item where id.asString() = '42'",
+        "select count(*) from Item where group < 5" };
+
+    for (String text : queries)
+      Assert.assertEquals(rids(text, true), rids(text, false), text);
+  }
+
+  public void testResult() {
+    OGlobalConfiguration.QUERY_PARALLEL_SCAN.setValue(true);
+    try {
+      final List<ODocument> result = query("select from Item where group = 1");
+      Assert.assertEquals(result.size(), 500);
+      for (int i = 0; i < result.size(); ++i)
+        Assert.assertEquals(result.get(i).field("id"), i * 10 + 1);
+    } finally {
+      OGlobalConfiguration.QUERY_PARALLEL_SCAN.setValue(false);
+    }
+  }
+
+  public void testCopyNeedsAnOpenDatabase() {
+    final ODatabaseRecordTx closed = new ODatabaseRecordTx(database.getURL(), ODocument.RECORD_TYPE);
+    try {
+      closed.copy();
+      Assert.fail("A closed database can't be copied without authentication");
+    } catch (ODatabaseException e) {
+    } finally {
+      ODatabaseRecordThreadLocal.INSTANCE.set(database);
+    }
+  }
+
+  private List<Object> rids(final String iText, final boolean iParallel) {
+    OGlobalConfiguration.QUERY_PARALLEL_SCAN.setValue(iParallel);
+    try {
+      final List<Object> result = new ArrayList<Object>();
+      for (ODocument doc : query(iText)) {
+        final ORID rid = doc.getIdentity();
+        result.add(rid.isPersistent() ? rid : doc.toString());
+      }
+      return result;
+    } finally {
+      OGlobalConfiguration.QUERY_PARALLEL_SCAN.setValue(false);
+    }
+  }
+
+  private List<ODocument> query(final String iText) {
+    return database.query(new OSQLSynchQuery<ODocument>(iText));
+  }
+}
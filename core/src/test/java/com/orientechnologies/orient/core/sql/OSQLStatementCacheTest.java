@@ -0,0 +1,132 @@
+package com.orientechnologies.orient.core.sql;
+
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.testng.Assert;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+
+import com.orientechnologies.orient.core.db.document.ODatabaseDocumentTx;
+import com.orientechnologies.orient.core.metadata.schema.OClass;
+import com.orientechnologies.orient.core.metadata.schema.OType;
+import com.orientechnologies.orient.core.record.impl.ODocument;
+import com.orientechnologies.orient.core.sql.query.OSQLSynchQuery;
+
+@Test
+public class OSQLStatementCacheTest {
+  private ODatabaseDocumentTx database;
+
+  @BeforeClass
+  public void beforeClass() {
+    database = new ODatabaseDocumentTx("memory:osqlstatementcachetest");
+    database.create();
+
+    final OClass person = database.getMetadata().getSchema().createClass("Person");
+    person.createProperty("age", OType.INTEGER);
+    database.getMetadata().getSchema().save();
+
+    for (int i = 0; i < 50; ++i)
+      new ODocument("Person").field("name", "n" + i).field("age", i).save();
+
+    database.getMetadata().getSchema().createClass("Event").createProperty("ts", OType.DATETIME);
+    database.getMetadata().getSchema().save();
+  }
+
+  @AfterClass
+  public void afterClass() {
+    database.getMetadata().getIndexManager().flush();
+    database.drop();
+  }
+
+  public void testReuseWithParameters() {
+    final String text = "select from Person where age >= ?";
+    Assert.assertEquals(query(text, 10).size(), 40);
+    Assert.assertNotNull(cachedExecutor(text));
+
+    Assert.assertEquals(query(text, 45).size(), 5);
+    Assert.assertEquals(query(text, 30).size(), 20);
+    Assert.assertEquals(query("select from Person where age >= 30").size(), 20);
+  }
+
+  public void testReuseWithNamedParameters() {
+    final String text = "select from Person where age between :min and :max";
+    for (int i = 0; i < 3; ++i) {
+      final List<ODocument> result = database.query(new OSQLSynchQuery<ODocument>(text), newMap("min", i * 10, "max", i * 10 + 4));
+      Assert.assertEquals(result.size(), 5);
+      for (ODocument doc : result)
+        Assert.assertTrue(((Integer) doc.field("age")) >= i * 10);
+    }
+  }
+
+  public void testReuseOfAggregates() {
+    for (int i = 0; i < 3; ++i) {
+      Assert.assertEquals(((Number) query("select count(*) from Person").get(0).field("count")).intValue(), 50);
+      Assert.assertEquals(((Number) query("select sum(age) as total from Person where age < ?", 10).get(0).field("total"))
+          .intValue(), 45);
+    }
+  }
+
+  public void testReuseWithOrderSkipAndLimit() {
+    final String text = "select from Person where age < ? order by age desc skip 2 limit 3";
+    for (int i = 0; i < 3; ++i) {
+      final List<ODocument> result = query(text, 20);
+      Assert.assertEquals(result.size(), 3);
+      Assert.assertEquals(result.get(0).field("name"), "n17");
+      Assert.assertEquals(result.get(2).field("name"), "n15");
+    }
+  }
+
+  public void testSubQueryIsNotCached() {
+    final String text = "select from Person where name in (select name from Person where age < 3)";
+    query(text);
+    Assert.assertNull(cachedExecutor(text));
+  }
+
+  public void testFunctionIsNotCached() throws InterruptedException {
+    final String text = "select from Event where ts < sysdate()";
+    for (int i = 1; i <= 3; ++i) {
+      new ODocument("Event").field("ts", new Date()).save();
+      Thread.sleep(10);
+
+      // SYSDATE() IS EVALUATED AGAIN AT EVERY EXECUTION
+      Assert.assertEquals(query(text).size(), i);
+      Assert.assertNull(cachedExecutor(text));
+    }
+  }
+
+  public void testInvalidationOnSchemaChange() {
+    final String text = "select from Person where age = ?";
+    Assert.assertEquals(query(text, 7).size(), 1);
+    Assert.assertNotNull(cachedExecutor(text));
+
+    database.getMetadata().getSchema().getClass("Person").getProperty("age").createIndex(OClass.INDEX_TYPE.NOTUNIQUE);
+    Assert.assertNull(cachedExecutor(text));
+
+    Assert.assertEquals(query(text, 7).size(), 1);
+    Assert.assertEquals(query(text, 8).size(), 1);
+  }
+
+  private OCommandExecutorSQLAbstract cachedExecutor(final String iText) {
+    final String key = OSQLStatementCache.getKey(database, new OSQLSynchQuery<ODocument>(iText), iText);
+    final OCommandExecutorSQLAbstract executor = OSQLStatementCache.instance().acquire(key);
+    if (executor != null)
+      OSQLStatementCache.instance().release(key, executor, OSQLStatementCache.instance().getVersion());
+    return executor;
+  }
+
+  private List<ODocument> query(final String iText, final Object... iArgs) {
+    return database.query(new OSQLSynchQuery<ODocument>(iText), iArgs);
+  }
+
+  private static Map<String, Object> newMap(final String iKey1, final Object iValue1, final String iKey2,
+      final Object iValue2) {
+    final Map<String, Object> map = new HashMap<String, Object>();
+    map.put(iKey1, iValue1);
+    map.put(iKey2, iValue2);
+    return map;
+  }
+}
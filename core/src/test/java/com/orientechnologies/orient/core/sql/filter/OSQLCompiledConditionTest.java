@@ -0,0 +1,107 @@
+package com.orientechnologies.orient.core.sql.filter;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+
+import org.testng.Assert;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+
+import com.orientechnologies.orient.core.command.OBasicCommandContext;
+import com.orientechnologies.orient.core.config.OGlobalConfiguration;
+import com.orientechnologies.orient.core.db.document.ODatabaseDocumentTx;
+import com.orientechnologies.orient.core.id.ORID;
+import com.orientechnologies.orient.core.metadata.schema.OClass;
+import com.orientechnologies.orient.core.metadata.schema.OType;
+import com.orientechnologies.orient.core.record.impl.ODocument;
+import com.orientechnologies.orient.core.sql.query.OSQLSynchQuery;
+
+@Test
+public class OSQLCompiledConditionTest {
+  private ODatabaseDocumentTx database;
+
+  @BeforeClass
+  public void beforeClass() {
+    database = new ODatabaseDocumentTx("memory:osqlcompiledconditiontest");
+    database.create();
+
+    final OClass account = database.getMetadata().getSchema().createClass("Account");
+    account.createProperty("id", OType.INTEGER);
+    account.createProperty("balance", OType.DOUBLE);
+    account.createProperty("number", OType.LONG);
+    account.createProperty("created", OType.DATETIME);
+    database.getMetadata().getSchema().save();
+
+    for (int i = 0; i < 100; ++i) {
+      final ODocument doc = new ODocument("Account");
+      doc.field("id", i).field("balance", i * 1.5d).field("number", 1000000000000l + i).field("name", "name" + (i % 10));
+      doc.field("created", new Date(1000000l * i)).field("active", i % 2 == 0);
+      // SCHEMA-LESS FIELD WITH VALUES OF DIFFERENT TYPES
+      doc.field("extra", i % 3 == 0 ? (Object) ("" + i) : (Object) i);
+      if (i % 7 == 0)
+        doc.removeField("name");
+      doc.save();
+    }
+  }
+
+  @AfterClass
+  public void afterClass() {
+    OGlobalConfiguration.QUERY_COMPILED_FILTER.setValue(true);
+    database.getMetadata().getIndexManager().flush();
+    database.drop();
+  }
+
+  public void testSpecializedComparisons() {
+    Assert.assertEquals(query("select from Account where id < 10").size(), 10);
+    Assert.assertEquals(query("select from Account where id >= 95 or balance <= 3").size(), 8);
+    Assert.assertEquals(query("select from Account where number = 1000000000050").size(), 1);
+    Assert.assertEquals(query("select from Account where name = 'name3' and not (id > 50)").size(), 5);
+    Assert.assertEquals(query("select from Account where id <> 0 and balance < ?", 15).size(), 9);
+  }
+
+  public void testSameResultOfInterpretedEvaluation() {
+    final String[] queries = { "select from Account where id > '50'", "select from Account where id = '12.7'",
+        "select from Account where balance > 10", "select from Account where balance = 3.0",
+        "select from Account where number > 1000000000090", "select from Account where number < 1000000000003",
+        "select from Account where extra > 50", "select from Account where extra = '33'", "select from Account where extra <> 4",
+        "select from Account where name >= 'name5'", "select from Account where name <> 'name1'",
+        "select from Account where active = true", "select from Account where created > 50000000",
+        "select from Account where not (id between 10 and 20) and balance > 100",
+        "select from Account where (id < 5 or id > 90) and name is not null", "select from Account where id > 1.5" };
+
+    for (String text : queries)
+      Assert.assertEquals(rids(text, true), rids(text, false), text);
+  }
+
+  public void testCompilation() {
+    Assert.assertNotNull(compile("Account where id > 5 and name = 'x'"));
+    Assert.assertNotNull(compile("Account where extra = 3"));
+    Assert.assertNull(compile("Account where id.asString() = '5'"));
+    Assert.assertNull(compile("Account where id in [1, 2]"));
+    Assert.assertNull(compile("Account where name like 'x%'"));
+  }
+
+  private OSQLCompiledCondition compile(final String iText) {
+    final OSQLFilter filter = new OSQLFilter(iText, new OBasicCommandContext());
+    filter.compile();
+    return filter.compiledCondition;
+  }
+
+  private List<ORID> rids(final String iText, final boolean iCompiled) {
+    OGlobalConfiguration.QUERY_COMPILED_FILTER.setValue(iCompiled);
+    try {
+      final List<ORID> result = new ArrayList<ORID>();
+      for (ODocument doc : query(iText))
+        result.add(doc.getIdentity());
+      return result;
+    } finally {
+      OGlobalConfiguration.QUERY_COMPILED_FILTER.setValue(true);
+    }
+  }
+
+  private List<ODocument> query(final String iText, final Object... iArgs) {
+    return database.query(new OSQLSynchQuery<ODocument>(iText), iArgs);
+  }
+}
@@ -0,0 +1,120 @@
+package com.orientechnologies.orient.core.storage.fs;
+
+import java.io.File;
+import java.io.IOException;
+
+import org.testng.Assert;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+@Test
+public class OFileClassicTest {
+  private File fileName;
+
+  @BeforeMethod
+  public void beforeMethod() throws IOException {
+    fileName = File.createTempFile("oFileClassicTest", ".ocl");
+    fileName.delete();
+  }
+
+  @AfterMethod
+  public void afterMethod() {
+    fileName.delete();
+  }
+
+  public void writeAndReadAcrossPages() throws IOException {
+    final OFileClassic file = createFile(new OFilePageCache(64 * 1024, 512, false));
+
+    final byte[] content = fillContent(3000);
+    file.allocateSpace(4000);
+    file.write(100, content);
+    file.writeInt(3200, 42);
+    file.writeShort(3204, (short) 7);
+    file.writeByte(3206, (byte) 3);
+    file.writeLong(3300, Long.MAX_VALUE);
+
+    assertContent(file, content);
+    file.close();
+
+    final OFileClassic reopened = openFile(new OFilePageCache(64 * 1024, 512, false));
+    assertContent(reopened, content);
+    reopened.close();
+  }
+
+  public void writeBackFlushesOnClose() throws IOException {
+    final OFilePageCache cache = new OFilePageCache(64 * 1024, 512, true);
+    final OFileClassic file = createFile(cache);
+
+    final byte[] content = fillContent(3000);
+    file.allocateSpace(4000);
+    file.write(100, content);
+    file.writeInt(3200, 42);
+    file.writeShort(3204, (short) 7);
+    file.writeByte(3206, (byte) 3);
+    file.writeLong(3300, Long.MAX_VALUE);
+
+    Assert.assertTrue(cache.getCachedPages() > 0);
+    assertContent(file, content);
+    file.close();
+    Assert.assertEquals(cache.getCachedPages(), 0);
+
+    final OFileClassic reopened = openFile(new OFilePageCache(64 * 1024, 512, false));
+    assertContent(reopened, content);
+    reopened.close();
+  }
+
+  public void evictionKeepsContent() throws IOException {
+    // ROOM FOR ONE PAGE PER SEGMENT ONLY
+    final OFilePageCache cache = new OFilePageCache(16 * 256, 256, true);
+    final OFileClassic file = createFile(cache);
+
+    final byte[] content = fillContent(3000);
+    file.allocateSpace(4000);
+    file.write(100, content);
+    file.writeInt(3200, 42);
+    file.writeShort(3204, (short) 7);
+    file.writeByte(3206, (byte) 3);
+    file.writeLong(3300, Long.MAX_VALUE);
+
+    Assert.assertTrue(cache.getCachedPages() <= 16);
+    assertContent(file, content);
+    file.close();
+  }
+
+  private OFileClassic createFile(final OFilePageCache iCache) throws IOException {
+    final OFileClassic file = new OFileClassic();
+    file.init(fileName.getAbsolutePath(), "rw");
+    file.pageCache = iCache;
+    file.fileId = iCache.nextFileId();
+    file.create(0);
+    return file;
+  }
+
+  private OFileClassic openFile(final OFilePageCache iCache) throws IOException {
+    final OFileClassic file = new OFileClassic();
+    file.init(fileName.getAbsolutePath(), "rw");
+    file.pageCache = iCache;
+    file.fileId = iCache.nextFileId();
+    file.open();
+    return file;
+  }
+
+  private byte[] fillContent(final int iSize) {
+    final byte[] content = new byte[iSize];
+    for (int i = 0; i < content.length; ++i)
+      content[i] = (byte) (i % 127);
+    return content;
+  }
+
+  private void assertContent(final OFileClassic iFile, final byte[] iContent) throws IOException {
+    final byte[] read = new byte[iContent.length];
+    iFile.read(100, read, read.length);
+    Assert.assertEquals(read, iContent);
+
+    Assert.assertEquals(iFile.readInt(3200), 42);
+    Assert.assertEquals(iFile.readShort(3204), (short) 7);
+    Assert.assertEquals(iFile.readByte(3206), (byte) 3);
+    Assert.assertEquals(iFile.readLong(3300), Long.MAX_VALUE);
+  }
+}
@@ -0,0 +1,118 @@
+package com.orientechnologies.orient.core.storage.impl.local;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.testng.Assert;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import com.orientechnologies.orient.core.config.OGlobalConfiguration;
+import com.orientechnologies.orient.core.db.document.ODatabaseDocumentTx;
+import com.orientechnologies.orient.core.id.ORecordId;
+import com.orientechnologies.orient.core.record.impl.ODocument;
+
+@Test
+public class ODataLocalCompactorTest {
+  private ODatabaseDocumentTx db;
+  private OStorageLocal       storage;
+  private boolean             lockPerCluster;
+
+  @BeforeMethod
+  public void beforeMethod() {
+    // WITH LOCK PER CLUSTER THE AUTO-DEFRAG ON DELETE IS DISABLED, SO THE HOLES STAY WHERE THEY ARE
+    lockPerCluster = OGlobalConfiguration.STORAGE_LOCK_PER_CLUSTER.getValueAsBoolean();
+    OGlobalConfiguration.STORAGE_LOCK_PER_CLUSTER.setValue(true);
+
+    String dbPath = System.getProperty("java.io.tmpdir");
+    if (!dbPath.endsWith(File.separator))
+      dbPath += "/";
+    dbPath += "orientdb/datalocalcompactortest";
+
+    db = new ODatabaseDocumentTx("local:" + dbPath);
+    if (db.exists())
+      db.open("admin", "admin").drop();
+    db.create();
+
+    storage = (OStorageLocal) db.getStorage();
+  }
+
+  @AfterMethod
+  public void afterMethod() {
+    db.drop();
+    OGlobalConfiguration.STORAGE_LOCK_PER_CLUSTER.setValue(lockPerCluster);
+  }
+
+  public void testCompactAfterDeletes() {
+    final List<ODocument> docs = new ArrayList<ODocument>();
+    for (int i = 0; i < 300; ++i) {
+      final ODocument doc = new ODocument().field("value", "record-" + i + "-" + pad(i % 17 * 10));
+      doc.save();
+      docs.add(doc);
+    }
+
+    for (int i = 0; i < docs.size(); i += 2)
+      docs.get(i).delete();
+
+    // GROW SOME RECORDS TO MOVE THEM AT THE END AND LEAVE OTHER HOLES
+    for (int i = 1; i < docs.size(); i += 6)
+      docs.get(i).field("value", "record-" + i + "-" + pad(300)).save();
+
+    final ODataLocal data = storage.getDataSegmentById(0);
+    final long sizeBefore = data.getSize();
+    Assert.assertTrue(data.getFragmentation() > 0);
+
+    final ODataLocalCompactor compactor = data.getCompactor();
+    Assert.assertNotNull(compactor);
+    Assert.assertTrue(compactor.compact(Long.MAX_VALUE) > 0);
+    Assert.assertEquals(compactor.compact(Long.MAX_VALUE), -1);
+
+    Assert.assertEquals(data.getHoleSize(), 0);
+    Assert.assertEquals(data.getFragmentation(), 0f);
+    Assert.assertTrue(data.getSize() < sizeBefore);
+    Assert.assertEquals(data.getReclaimedBytes(), sizeBefore - data.getSize());
+    Assert.assertTrue(data.getCompactedBytes() > 0);
+
+    for (int i = 0; i < docs.size(); ++i) {
+      final ORecordId rid = (ORecordId) docs.get(i).getIdentity();
+      if (i % 2 == 0)
+        Assert.assertNull(storage.readRecord(rid, null, true, null));
+      else
+        Assert.assertEquals(readValue(rid), docs.get(i).field("value"));
+    }
+
+    // THE SPACE AT THE END IS REUSED BY THE NEW RECORDS
+    final ODocument doc = new ODocument().field("value", "after");
+    doc.save();
+    Assert.assertEquals(readValue((ORecordId) doc.getIdentity()), "after");
+  }
+
+  public void testNothingToCompact() {
+    for (int i = 0; i < 10; ++i)
+      new ODocument().field("value", "record-" + i).save();
+
+    // THE SCHEMA UPDATES ON CREATION LEAVE SOME HOLES: COMPACT THEM FIRST
+    final ODataLocal data = storage.getDataSegmentById(0);
+    data.getCompactor().compact(Long.MAX_VALUE);
+
+    final long size = data.getSize();
+    final long reclaimed = data.getReclaimedBytes();
+
+    Assert.assertEquals(data.getCompactor().compact(Long.MAX_VALUE), -1);
+    Assert.assertEquals(data.getSize(), size);
+    Assert.assertEquals(data.getReclaimedBytes(), reclaimed);
+  }
+
+  private static String pad(final int iSize) {
+    final StringBuilder buffer = new StringBuilder();
+    for (int i = 0; i < iSize; ++i)
+      buffer.append('x');
+    return buffer.toString();
+  }
+
+  private Object readValue(final ORecordId iRid) {
+    return new ODocument().fromStream(storage.readRecord(iRid, null, true, null).buffer).field("value");
+  }
+}
@@ -0,0 +1,94 @@
+package com.orientechnologies.orient.core.storage.impl.local;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import com.orientechnologies.orient.core.exception.OStorageException;
+
+@Test
+public class OStorageLocalGroupCommitTest {
+
+  public void testSynchSharedByTheBatch() throws Exception {
+    final SynchStorage storage = new SynchStorage();
+    final OStorageLocalGroupCommit groupCommit = new OStorageLocalGroupCommit(storage, 3, 1000);
+
+    groupCommit.committed(1);
+    groupCommit.committed(2);
+    groupCommit.committed(3);
+
+    Assert.assertTrue(groupCommit.waitForSynch(1));
+    Assert.assertTrue(groupCommit.waitForSynch(2));
+    Assert.assertTrue(groupCommit.waitForSynch(3));
+    Assert.assertEquals(storage.synchs.get(), 1);
+
+    Assert.assertFalse(groupCommit.waitForSynch(4));
+  }
+
+  public void testFailedSynchIsKeptUntilReset() throws Exception {
+    final SynchStorage storage = new SynchStorage();
+    storage.fail = true;
+    final OStorageLocalGroupCommit groupCommit = new OStorageLocalGroupCommit(storage, 2, 1000);
+
+    groupCommit.committed(1);
+    groupCommit.committed(2);
+
+    try {
+      groupCommit.waitForSynch(1);
+      Assert.fail();
+    } catch (OStorageException e) {
+    }
+
+    // THE OTHER TRANSACTION OF THE BATCH DOESN'T RETRY THE SYNCH
+    storage.fail = false;
+    try {
+      groupCommit.waitForSynch(2);
+      Assert.fail();
+    } catch (OStorageException e) {
+    }
+    Assert.assertEquals(storage.synchs.get(), 1);
+
+    try {
+      groupCommit.checkFailure();
+      Assert.fail();
+    } catch (OStorageException e) {
+    }
+
+    groupCommit.reset();
+    groupCommit.checkFailure();
+    groupCommit.committed(3);
+    groupCommit.committed(4);
+    Assert.assertTrue(groupCommit.waitForSynch(3));
+  }
+
+  public void testInterruptDoesNotAbortTheWait() throws Exception {
+    final SynchStorage storage = new SynchStorage();
+    final OStorageLocalGroupCommit groupCommit = new OStorageLocalGroupCommit(storage, 2, 500);
+
+    groupCommit.committed(1);
+    Thread.currentThread().interrupt();
+    Assert.assertTrue(groupCommit.waitForSynch(1));
+    Assert.assertTrue(Thread.interrupted());
+    Assert.assertEquals(storage.synchs.get(), 1);
+  }
+
+  private static class SynchStorage extends OStorageLocal {
+    private final AtomicInteger synchs = new AtomicInteger();
+    private volatile boolean    fail;
+
+    public SynchStorage() throws IOException {
+      super("groupcommittest", System.getProperty("java.io.tmpdir") + File.separator + "orientdb" + File.separator
+          + "groupcommittest", "rw");
+    }
+
+    @Override
+    public void synch() {
+      synchs.incrementAndGet();
+      if (fail)
+        throw new OStorageException("Synch failed");
+    }
+  }
+}
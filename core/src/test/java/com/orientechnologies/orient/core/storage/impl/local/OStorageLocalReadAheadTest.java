@@ -0,0 +1,157 @@
+package com.orientechnologies.orient.core.storage.impl.local;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.testng.Assert;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import com.orientechnologies.orient.core.config.OGlobalConfiguration;
+import com.orientechnologies.orient.core.db.document.ODatabaseDocumentTx;
+import com.orientechnologies.orient.core.id.ORID;
+import com.orientechnologies.orient.core.id.ORecordId;
+import com.orientechnologies.orient.core.iterator.ORecordIteratorCluster;
+import com.orientechnologies.orient.core.record.impl.ODocument;
+import com.orientechnologies.orient.core.storage.ORawBuffer;
+
+@Test
+public class OStorageLocalReadAheadTest {
+  private ODatabaseDocumentTx db;
+  private OStorageLocal       storage;
+  private int                 readAhead;
+  private List<ODocument>     docs;
+  private int                 clusterId;
+
+  @BeforeMethod
+  public void beforeMethod() {
+    readAhead = OGlobalConfiguration.STORAGE_CLUSTER_READ_AHEAD.getValueAsInteger();
+
+    String dbPath = System.getProperty("java.io.tmpdir");
+    if (!dbPath.endsWith(File.separator))
+      dbPath += "/";
+    dbPath += "orientdb/storagelocalreadaheadtest";
+
+    db = new ODatabaseDocumentTx("local:" + dbPath);
+    if (db.exists())
+      db.open("admin", "admin").drop();
+    db.create();
+
+    storage = (OStorageLocal) db.getStorage();
+    db.getMetadata().getSchema().createClass("ReadAhead");
+    clusterId = db.getClusterIdByName("readahead");
+
+    docs = new ArrayList<ODocument>();
+    for (int i = 0; i < 500; ++i) {
+      // A FEW RECORDS BIGGER THAN A READ BLOCK
+      final ODocument doc = new ODocument("ReadAhead").field("value", i % 97 == 0 ? pad(ODataLocal.READ_BLOCK_SIZE + i) : "record-" + i);
+      doc.save();
+      docs.add(doc);
+    }
+
+    for (int i = 0; i < docs.size(); i += 5)
+      docs.get(i).delete();
+
+    // GROW SOME RECORDS TO MOVE THEM AT THE END OF THE DATA SEGMENT
+    for (int i = 1; i < docs.size(); i += 7)
+      if (i % 5 != 0)
+        docs.get(i).field("value", "record-" + i + "-" + pad(200)).save();
+  }
+
+  @AfterMethod
+  public void afterMethod() {
+    db.drop();
+    OGlobalConfiguration.STORAGE_CLUSTER_READ_AHEAD.setValue(readAhead);
+  }
+
+  public void testReadRecordsMatchesSingleReads() {
+    final long last = storage.getClusterDataRange(clusterId)[1];
+
+    final long[][] ranges = { { 0, last }, { 3, 40 }, { last - 10, last + 5 }, { last + 1, last + 10 } };
+    for (long[] range : ranges) {
+      final ORawBuffer[] buffers = storage.readRecords(clusterId, range[0], range[1]);
+      Assert.assertEquals(buffers.length, range[1] - range[0] + 1);
+
+      for (int i = 0; i < buffers.length; ++i) {
+        final long position = range[0] + i;
+        if (position > last) {
+          Assert.assertNull(buffers[i]);
+          continue;
+        }
+
+        final ORawBuffer expected = storage.readRecord(new ORecordId(clusterId, position), null, false, null);
+        if (expected == null)
+          Assert.assertNull(buffers[i], "Position " + position);
+        else {
+          Assert.assertNotNull(buffers[i], "Position " + position);
+          Assert.assertEquals(buffers[i].buffer, expected.buffer);
+          Assert.assertEquals(buffers[i].version, expected.version);
+          Assert.assertEquals(buffers[i].recordType, expected.recordType);
+        }
+      }
+    }
+  }
+
+  public void testBrowseWithReadAhead() {
+    OGlobalConfiguration.STORAGE_CLUSTER_READ_AHEAD.setValue(16);
+    final List<ODocument> expected = new ArrayList<ODocument>();
+    for (int i = 0; i < docs.size(); ++i)
+      if (i % 5 != 0)
+        expected.add(docs.get(i));
+
+    db.getLevel1Cache().invalidate();
+    assertBrowsed(db.browseCluster("readahead"), expected);
+
+    // THE BLOCKS NEVER GO OVER THE LIMIT
+    db.getLevel1Cache().invalidate();
+    final ORecordIteratorCluster<ODocument> limited = db.browseCluster("readahead");
+    limited.setLimit(30);
+    assertBrowsed(limited, expected.subList(0, 30));
+
+    OGlobalConfiguration.STORAGE_CLUSTER_READ_AHEAD.setValue(0);
+    db.getLevel1Cache().invalidate();
+    assertBrowsed(db.browseCluster("readahead"), expected);
+  }
+
+  public void testBrowseSeesTransactionChanges() {
+    OGlobalConfiguration.STORAGE_CLUSTER_READ_AHEAD.setValue(16);
+    db.getLevel1Cache().invalidate();
+
+    db.begin();
+    final ODocument updated = db.load(docs.get(11).getIdentity());
+    updated.field("value", "updated in tx").save();
+    db.load(docs.get(12).getIdentity()).delete();
+
+    int browsed = 0;
+    for (ODocument doc : db.browseCluster("readahead")) {
+      Assert.assertFalse(doc.getIdentity().equals(docs.get(12).getIdentity()));
+      if (doc.getIdentity().equals(updated.getIdentity()))
+        Assert.assertEquals(doc.field("value"), "updated in tx");
+      browsed++;
+    }
+    Assert.assertEquals(browsed, 400 - 1);
+
+    db.rollback();
+  }
+
+  private void assertBrowsed(final ORecordIteratorCluster<ODocument> iIterator, final List<ODocument> iExpected) {
+    final List<ORID> rids = new ArrayList<ORID>();
+    for (ODocument doc : iIterator) {
+      rids.add(doc.getIdentity().copy());
+      final ODocument exp = iExpected.get(rids.size() - 1);
+      Assert.assertEquals(doc.getIdentity(), exp.getIdentity());
+      Assert.assertEquals(doc.field("value"), exp.field("value"));
+      Assert.assertEquals(doc.getVersion(), exp.getVersion());
+    }
+    Assert.assertEquals(rids.size(), iExpected.size());
+  }
+
+  private static String pad(final int iSize) {
+    final StringBuilder buffer = new StringBuilder(iSize);
+    for (int i = 0; i < iSize; ++i)
+      buffer.append((char) ('a' + i % 26));
+    return buffer.toString();
+  }
+}
@@ -1,6 +1,9 @@
 package com.orientechnologies.orient.core.storage.impl.local;
 
 import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.testng.Assert;
 import org.testng.annotations.AfterMethod;
@@ -9,6 +12,7 @@ import org.testng.annotations.Test;
 
 import com.orientechnologies.orient.core.config.OGlobalConfiguration;
 import com.orientechnologies.orient.core.db.document.ODatabaseDocumentTx;
+import com.orientechnologies.orient.core.record.impl.ODocument;
 
 @Test
 public class OStorageLocalTest {
@@ -81,6 +85,139 @@ public class OStorageLocalTest {
 		System.out.println("Delete OK!");
 	}
 
+	public void concurrentWritesWithLockPerCluster() throws Exception {
+		final boolean oldLockPerCluster = OGlobalConfiguration.STORAGE_LOCK_PER_CLUSTER.getValueAsBoolean();
+		OGlobalConfiguration.STORAGE_LOCK_PER_CLUSTER.setValue(true);
+		try {
+			final String dbPath = getDatabasePath();
+			delTree(new File(dbPath));
+
+			ODatabaseDocumentTx db = new ODatabaseDocumentTx("local:" + dbPath);
+			db.create();
+			final int threads = 4;
+			final int records = 500;
+			for (int i = 0; i < threads; ++i)
+				db.getMetadata().getSchema().createClass("Writer" + i);
+			db.close();
+
+			final AtomicInteger errors = new AtomicInteger();
+			final List<Thread> workers = new ArrayList<Thread>();
+			for (int i = 0; i < threads; ++i) {
+				final String className = "Writer" + i;
+				final Thread t = new Thread() {
+					@Override
+					public void run() {
+						final ODatabaseDocumentTx tdb = new ODatabaseDocumentTx("local:" + dbPath).open("admin", "admin");
+						try {
+							for (int r = 0; r < records; ++r) {
+								final ODocument doc = new ODocument(className);
+								doc.field("value", r);
+								doc.field("payload", new String(new char[r % 200]).replace('\0', 'x'));
+								doc.save();
+
+								if (r % 3 == 0) {
+									// UPDATE WITH A BIGGER CONTENT TO FORCE THE RELOCATION IN THE DATA SEGMENT
+									doc.field("payload", new String(new char[300]).replace('\0', 'y'));
+									doc.save();
+								} else if (r % 5 == 0)
+									doc.delete();
+							}
+						} catch (Throwable e) {
+							e.printStackTrace();
+							errors.incrementAndGet();
+						} finally {
+							tdb.close();
+						}
+					}
+				};
+				workers.add(t);
+				t.start();
+			}
+
+			for (Thread t : workers)
+				t.join();
+
+			Assert.assertEquals(errors.get(), 0);
+
+			db = new ODatabaseDocumentTx("local:" + dbPath).open("admin", "admin");
+			int expected = 0;
+			for (int r = 0; r < records; ++r)
+				if (r % 3 == 0 || r % 5 != 0)
+					expected++;
+
+			for (int i = 0; i < threads; ++i) {
+				Assert.assertEquals(db.countClass("Writer" + i), expected);
+				for (ODocument doc : db.browseClass("Writer" + i)) {
+					final int value = (Integer) doc.field("value");
+					final String payload = doc.field("payload");
+					Assert.assertEquals(payload.length(), value % 3 == 0 ? 300 : value % 200);
+				}
+			}
+			db.drop();
+
+		} finally {
+			OGlobalConfiguration.STORAGE_LOCK_PER_CLUSTER.setValue(oldLockPerCluster);
+		}
+	}
+
+	public void concurrentTransactionsWithGroupCommit() throws Exception {
+		final boolean oldCommitSynch = OGlobalConfiguration.TX_COMMIT_SYNCH.getValueAsBoolean();
+		final boolean oldGroupCommit = OGlobalConfiguration.TX_GROUP_COMMIT.getValueAsBoolean();
+		OGlobalConfiguration.TX_COMMIT_SYNCH.setValue(true);
+		OGlobalConfiguration.TX_GROUP_COMMIT.setValue(true);
+		try {
+			final String dbPath = getDatabasePath();
+			delTree(new File(dbPath));
+
+			ODatabaseDocumentTx db = new ODatabaseDocumentTx("local:" + dbPath);
+			db.create();
+			db.getMetadata().getSchema().createClass("Account");
+			db.close();
+
+			final int threads = 8;
+			final int transactions = 50;
+			final AtomicInteger errors = new AtomicInteger();
+			final List<Thread> workers = new ArrayList<Thread>();
+			for (int i = 0; i < threads; ++i) {
+				final int thread = i;
+				final Thread t = new Thread() {
+					@Override
+					public void run() {
+						final ODatabaseDocumentTx tdb = new ODatabaseDocumentTx("local:" + dbPath).open("admin", "admin");
+						try {
+							for (int r = 0; r < transactions; ++r) {
+								tdb.begin();
+								new ODocument("Account").field("thread", thread).field("value", r).save();
+								new ODocument("Account").field("thread", thread).field("value", -r).save();
+								tdb.commit();
+							}
+						} catch (Throwable e) {
+							e.printStackTrace();
+							errors.incrementAndGet();
+						} finally {
+							tdb.close();
+						}
+					}
+				};
+				workers.add(t);
+				t.start();
+			}
+
+			for (Thread t : workers)
+				t.join();
+
+			Assert.assertEquals(errors.get(), 0);
+
+			db = new ODatabaseDocumentTx("local:" + dbPath).open("admin", "admin");
+			Assert.assertEquals(db.countClass("Account"), threads * transactions * 2);
+			db.drop();
+
+		} finally {
+			OGlobalConfiguration.TX_COMMIT_SYNCH.setValue(oldCommitSynch);
+			OGlobalConfiguration.TX_GROUP_COMMIT.setValue(oldGroupCommit);
+		}
+	}
+
 	private boolean delTree(File directory) {
 		if (directory.exists()) {
 			File[] files = directory.listFiles();
@@ -0,0 +1,127 @@
+package com.orientechnologies.orient.core.storage.impl.local;
+
+import java.io.File;
+import java.io.IOException;
+
+import org.testng.Assert;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import com.orientechnologies.orient.core.config.OStorageTxConfiguration;
+import com.orientechnologies.orient.core.db.document.ODatabaseDocumentTx;
+import com.orientechnologies.orient.core.id.ORecordId;
+import com.orientechnologies.orient.core.record.impl.ODocument;
+
+@Test
+public class OTxSegmentTest {
+  private ODatabaseDocumentTx     db;
+  private OStorageLocal           storage;
+  private OStorageTxConfiguration config;
+
+  @BeforeMethod
+  public void beforeMethod() {
+    String dbPath = System.getProperty("java.io.tmpdir");
+    if (!dbPath.endsWith(File.separator))
+      dbPath += "/";
+    dbPath += "orientdb/txsegmenttest";
+
+    db = new ODatabaseDocumentTx("local:" + dbPath);
+    if (db.exists())
+      db.open("admin", "admin").drop();
+    db.create();
+
+    storage = (OStorageLocal) db.getStorage();
+
+    config = new OStorageTxConfiguration();
+    config.path = OStorageVariableParser.DB_PATH_VARIABLE + "/test.otx";
+    config.type = "classic";
+  }
+
+  @AfterMethod
+  public void afterMethod() {
+    db.drop();
+  }
+
+  public void testRecoverPendingTransaction() throws IOException {
+    final ODocument committed = new ODocument().field("value", "committed");
+    committed.save();
+    final ODocument pending = new ODocument().field("value", "old");
+    pending.save();
+
+    final byte[] committedContent = committed.toStream();
+    final byte[] pendingContent = pending.toStream();
+    final int committedVersion = committed.getVersion();
+    final int pendingVersion = pending.getVersion();
+
+    committed.field("value", "committed-new").save();
+    pending.field("value", "new").save();
+
+    OTxSegment segment = new OTxSegment(storage, config);
+    segment.create(0);
+    segment.addLog(OTxSegment.OPERATION_UPDATE, 1, pending.getIdentity().getClusterId(), pending.getIdentity()
+        .getClusterPosition(), ODocument.RECORD_TYPE, pendingVersion, pendingContent, 0);
+    segment.addLog(OTxSegment.OPERATION_UPDATE, 2, committed.getIdentity().getClusterId(), committed.getIdentity()
+        .getClusterPosition(), ODocument.RECORD_TYPE, committedVersion, committedContent, 0);
+    Assert.assertEquals(segment.getLastLSN(), 2);
+
+    // TX 2 IS COMMITTED WHILE TX 1 IS STILL PENDING: THE LOG CAN'T BE TRUNCATED
+    segment.clearLogEntries(2);
+    Assert.assertTrue(segment.getFilledUpTo() > 0);
+
+    // SIMULATE A CRASH
+    segment.close();
+    segment = new OTxSegment(storage, config);
+    segment.open();
+
+    Assert.assertEquals(segment.getFilledUpTo(), 0);
+    Assert.assertEquals(readValue((ORecordId) pending.getIdentity()), "old");
+    Assert.assertEquals(readValue((ORecordId) committed.getIdentity()), "committed-new");
+    segment.delete();
+  }
+
+  public void testIgnoreTornTail() throws IOException {
+    final ODocument doc = new ODocument().field("value", "old");
+    doc.save();
+    final byte[] content = doc.toStream();
+    final int version = doc.getVersion();
+    doc.field("value", "new").save();
+
+    OTxSegment segment = new OTxSegment(storage, config);
+    segment.create(0);
+    segment.addLog(OTxSegment.OPERATION_UPDATE, 1, doc.getIdentity().getClusterId(), doc.getIdentity().getClusterPosition(),
+        ODocument.RECORD_TYPE, version, content, 0);
+
+    // CORRUPT THE CONTENT OF THE ENTRY AS IF THE WRITE WAS INTERRUPTED
+    segment.getFile().writeByte(segment.getFilledUpTo() - 1, (byte) (content[content.length - 1] + 1));
+
+    segment.close();
+    segment = new OTxSegment(storage, config);
+    segment.open();
+
+    Assert.assertEquals(readValue((ORecordId) doc.getIdentity()), "new");
+    segment.delete();
+  }
+
+  public void testTruncateWhenNoTransactionsArePending() throws IOException {
+    final ODocument doc = new ODocument().field("value", "old");
+    doc.save();
+
+    final OTxSegment segment = new OTxSegment(storage, config);
+    segment.create(0);
+    for (int txId = 1; txId <= 2; ++txId)
+      segment.addLog(OTxSegment.OPERATION_CREATE, txId, doc.getIdentity().getClusterId(), doc.getIdentity().getClusterPosition(),
+          ODocument.RECORD_TYPE, 0, null, 0);
+
+    segment.clearLogEntries(1);
+    Assert.assertTrue(segment.getFilledUpTo() > 0);
+
+    segment.clearLogEntries(2);
+    Assert.assertEquals(segment.getFilledUpTo(), 0);
+    segment.delete();
+  }
+
+  private Object readValue(final ORecordId iRid) {
+    return new ODocument().fromStream(storage.readRecord(iRid, null, true, null).buffer).field("value");
+  }
+}
@@ -0,0 +1,133 @@
+package com.orientechnologies.orient.core.type.tree;
+
+import java.util.Iterator;
+import java.util.Set;
+
+import org.testng.Assert;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+
+import com.orientechnologies.orient.core.config.OGlobalConfiguration;
+import com.orientechnologies.orient.core.db.graph.OGraphDatabase;
+import com.orientechnologies.orient.core.db.record.OIdentifiable;
+import com.orientechnologies.orient.core.id.ORecordId;
+import com.orientechnologies.orient.core.record.impl.ODocument;
+
+@Test
+public class OMVRBTreeRIDSetCompactTest {
+  private OGraphDatabase database;
+  private int            compactThreshold;
+  private int            binaryThreshold;
+
+  @BeforeClass
+  public void beforeClass() {
+    compactThreshold = OGlobalConfiguration.MVRBTREE_RID_COMPACT_THRESHOLD.getValueAsInteger();
+    OGlobalConfiguration.MVRBTREE_RID_COMPACT_THRESHOLD.setValue(10);
+    binaryThreshold = OGlobalConfiguration.MVRBTREE_RID_BINARY_THRESHOLD.getValueAsInteger();
+    OGlobalConfiguration.MVRBTREE_RID_BINARY_THRESHOLD.setValue(10);
+
+    database = new OGraphDatabase("memory:omvrbtreeridsetcompacttest");
+    database.create();
+  }
+
+  @AfterClass
+  public void afterClass() {
+    database.drop();
+
+    OGlobalConfiguration.MVRBTREE_RID_COMPACT_THRESHOLD.setValue(compactThreshold);
+    OGlobalConfiguration.MVRBTREE_RID_BINARY_THRESHOLD.setValue(binaryThreshold);
+  }
+
+  public void testSortedWithoutDuplicates() {
+    final OMVRBTreeRIDSet set = new OMVRBTreeRIDSet().setAutoConvert(false);
+    Assert.assertTrue(set.add(new ORecordId(5, 3)));
+    Assert.assertTrue(set.add(new ORecordId(4, 10)));
+    Assert.assertTrue(set.add(new ORecordId(5, 1)));
+    Assert.assertFalse(set.add(new ORecordId(5, 3)));
+
+    Assert.assertEquals(set.size(), 3);
+    Assert.assertTrue(set.contains(new ORecordId(4, 10)));
+    Assert.assertFalse(set.contains(new ORecordId(4, 11)));
+
+    final Iterator<OIdentifiable> it = set.iterator();
+    Assert.assertEquals(it.next(), new ORecordId(4, 10));
+    Assert.assertEquals(it.next(), new ORecordId(5, 1));
+    Assert.assertEquals(it.next(), new ORecordId(5, 3));
+    Assert.assertFalse(it.hasNext());
+
+    Assert.assertTrue(set.remove(new ORecordId(5, 1)));
+    Assert.assertFalse(set.remove(new ORecordId(5, 1)));
+    Assert.assertEquals(set.toString(), "[#4:10,#5:3]");
+  }
+
+  public void testStreamRoundTrip() {
+    final OMVRBTreeRIDSet set = new OMVRBTreeRIDSet().setAutoConvert(false);
+    for (int i = 9; i > 0; --i)
+      set.add(new ORecordId(i % 3 + 1, i * 100));
+
+    final StringBuilder buffer = new StringBuilder();
+    set.toStream(buffer);
+    Assert.assertEquals(buffer.toString(), "[#1:300,#1:600,#1:900,#2:100,#2:400,#2:700,#3:200,#3:500,#3:800]");
+
+    // WITH AND WITHOUT THE COLLECTION DELIMITERS, AS PASSED BY THE SERIALIZERS
+    final OMVRBTreeRIDSet loaded = new OMVRBTreeRIDSet().setAutoConvert(false);
+    loaded.fromStream(new StringBuilder(buffer.substring(1, buffer.length() - 1)));
+    final StringBuilder reloaded = new StringBuilder();
+    loaded.toStream(reloaded);
+    Assert.assertEquals(reloaded.toString(), buffer.toString());
+
+    loaded.fromStream(new StringBuilder(buffer));
+    Assert.assertEquals(loaded.size(), 9);
+    Assert.assertTrue(loaded.containsAll(set));
+    Assert.assertTrue(loaded.add(new ORecordId(1, 1)));
+
+    final StringBuilder changed = new StringBuilder();
+    loaded.toStream(changed);
+    Assert.assertTrue(changed.toString().startsWith("[#1:1,#1:300,"));
+  }
+
+  public void testBinaryThresholdLimitsCompactForm() {
+    OGlobalConfiguration.MVRBTREE_RID_BINARY_THRESHOLD.setValue(4);
+    try {
+      final OMVRBTreeRIDSet set = new OMVRBTreeRIDSet().setAutoConvert(false);
+      for (int i = 0; i < 4; ++i)
+        set.add(new ORecordId(3, i));
+
+      StringBuilder buffer = new StringBuilder();
+      set.toStream(buffer);
+      Assert.assertEquals(buffer.toString(), "[#3:0,#3:1,#3:2,#3:3]");
+
+      // ONE MORE ENTRY EXCEEDS THE BINARY THRESHOLD: THE SET IS MOVED TO THE MVRB-TREE AND STREAMED AS BINARY
+      set.add(new ORecordId(3, 4));
+      buffer = new StringBuilder();
+      set.toStream(buffer);
+      Assert.assertTrue(buffer.toString().startsWith("(ORIDs@"), buffer.toString());
+    } finally {
+      OGlobalConfiguration.MVRBTREE_RID_BINARY_THRESHOLD.setValue(10);
+    }
+  }
+
+  public void testEdgesAcrossThreshold() {
+    final ODocument root = database.createVertex().save();
+
+    for (int i = 0; i < 5; ++i)
+      database.createEdge(root, database.createVertex()).save();
+    root.save();
+
+    ODocument loaded = database.load(root.getIdentity(), null, true);
+    Assert.assertEquals(database.getOutEdges(loaded).size(), 5);
+    for (OIdentifiable edge : database.getOutEdges(loaded))
+      Assert.assertTrue(database.getInEdges(database.getInVertex(edge)).contains(edge));
+
+    // EXCEED THE THRESHOLD: THE SET IS MOVED TO THE MVRB-TREE
+    for (int i = 0; i < 20; ++i)
+      database.createEdge(loaded, database.createVertex()).save();
+    loaded.save();
+
+    loaded = database.load(root.getIdentity(), null, true);
+    final Set<OIdentifiable> edges = database.getOutEdges(loaded);
+    Assert.assertEquals(edges.size(), 25);
+    Assert.assertTrue(loaded.field(OGraphDatabase.VERTEX_FIELD_OUT).toString().startsWith("[size=25"));
+  }
+}
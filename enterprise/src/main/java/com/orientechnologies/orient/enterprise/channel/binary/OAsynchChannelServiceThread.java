@@ -19,7 +19,6 @@ import java.io.IOException;
 
 import com.orientechnologies.common.thread.OSoftThread;
 import com.orientechnologies.orient.core.Orient;
-import com.orientechnologies.orient.core.record.ORecordInternal;
 
 /**
  * Service thread that catches internal messages sent by the server
@@ -47,17 +46,7 @@ public class OAsynchChannelServiceThread extends OSoftThread {
       try {
         final byte request = network.readByte();
 
-        Object obj = null;
-
-        switch (request) {
-        case OChannelBinaryProtocol.REQUEST_PUSH_RECORD:
-          obj = (ORecordInternal<?>) OChannelBinaryProtocol.readIdentifiable(network);
-          break;
-
-        case OChannelBinaryProtocol.REQUEST_PUSH_DISTRIB_CONFIG:
-          obj = network.readBytes();
-          break;
-        }
+        final Object obj = OChannelBinaryProtocol.readPushData(request, network);
 
         if (remoteServerEventListener != null)
           remoteServerEventListener.onRequest(request, obj);
@@ -0,0 +1,221 @@
+/*
+ * Copyright 2010-2012 Luca Garulli (l.garulli--at--orientechnologies.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.orientechnologies.orient.enterprise.channel.binary;
+
+import java.io.IOException;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+import com.orientechnologies.common.concur.OTimeoutException;
+import com.orientechnologies.common.log.OLogManager;
+import com.orientechnologies.common.thread.OSoftThread;
+import com.orientechnologies.orient.core.Orient;
+import com.orientechnologies.orient.core.config.OContextConfiguration;
+import com.orientechnologies.orient.core.config.OGlobalConfiguration;
+
+/**
+ * Client channel that multiplexes the requests: many requests can be sent without waiting for the previous responses. The server
+ * answers the requests of a connection in the order they have been received, so every request is tagged with a progressive id
+ * and its response future is queued when the request is written. A dispatcher thread reads the responses, checks them against the
+ * head of the queue and executes the reader of the future. Responses can't be read with beginResponse() on this channel.
+ * 
+ * @author Luca Garulli (l.garulli--at--orientechnologies.com)
+ * 
+ */
+public class OChannelBinaryClientMultiplexed extends OChannelBinaryClient {
+  private final BlockingQueue<OChannelBinaryResponseFuture<?>> pending;
+  private final Semaphore                                      slots;
+  private final ORemoteServerEventListener                     serverEventListener;
+  private final OSoftThread                                    dispatcher;
+  private int                                                  lastRequestId = 0;
+  private volatile boolean                                     closed        = false;
+
+  public OChannelBinaryClientMultiplexed(final String remoteHost, final int remotePort, final OContextConfiguration iConfig,
+      final int iProtocolVersion, final ORemoteServerEventListener iServerEventListener) throws IOException {
+    super(remoteHost, remotePort, iConfig, iProtocolVersion);
+    final int maxPending = iConfig.getValueAsInteger(OGlobalConfiguration.CLIENT_CHANNEL_MULTIPLEXED_MAX_PENDING);
+    pending = new ArrayBlockingQueue<OChannelBinaryResponseFuture<?>>(maxPending);
+    slots = new Semaphore(maxPending);
+    serverEventListener = iServerEventListener;
+
+    dispatcher = new OSoftThread(Orient.getThreadGroup(), "OrientDB <- Multiplexed Client (" + socket.getRemoteSocketAddress()
+        + ")") {
+      @Override
+      protected void execute() throws Exception {
+        try {
+          dispatchResponse();
+        } catch (Exception e) {
+          if (!closed)
+            OLogManager.instance().debug(this, "Error on reading the responses of the multiplexed channel %s", e,
+                OChannelBinaryClientMultiplexed.this);
+          close();
+        }
+      }
+    };
+    dispatcher.start();
+  }
+
+  /**
+   * Begins the request reserving the slot of its response and locks the write stream. If too many requests are waiting for the
+   * response, waits for a free slot up to the channel timeout: nothing has been written yet, so the request can be retried.
+   */
+  @Override
+  public void beginRequest() {
+    try {
+      if (!slots.tryAcquire(timeout, TimeUnit.MILLISECONDS))
+        throw new OTimeoutException("Too many requests are waiting for the response on channel " + this);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new OTimeoutException("Request on channel " + this + " interrupted");
+    }
+
+    super.beginRequest();
+  }
+
+  /**
+   * Ends the request registering the reader of its response and unlocks the write lock. Must be called by the thread that began
+   * the request with beginRequest().
+   * 
+   * @param iSessionId
+   *          Session id the request has been sent with
+   * @param iResponseReader
+   *          Reads the content of the response, executed by the dispatcher thread
+   * @return The future of the response
+   */
+  public <T> OChannelBinaryResponseFuture<T> endRequest(final int iSessionId, final Callable<T> iResponseReader) throws IOException {
+    try {
+      final OChannelBinaryResponseFuture<T> response = new OChannelBinaryResponseFuture<T>(++lastRequestId, iSessionId,
+          iResponseReader);
+
+      // REGISTER IT BEFORE TO FLUSH: THE RESPONSE COULD ARRIVE BEFORE THE FUTURE IS IN THE QUEUE. THERE IS ROOM FOR IT SINCE ITS
+      // SLOT HAS BEEN RESERVED BY beginRequest()
+      pending.add(response);
+
+      if (closed)
+        // THE DISPATCHER COULD BE ALREADY GONE
+        response.fail(new IOException("Channel " + this + " has been closed"));
+
+      try {
+        flush();
+      } catch (IOException e) {
+        close();
+        throw e;
+      }
+      return response;
+
+    } finally {
+      getLockWrite().unlock();
+    }
+  }
+
+  @Override
+  public void beginResponse(final int iRequesterId, final long iTimeout) throws IOException {
+    throw new UnsupportedOperationException("The responses of a multiplexed channel are read by its dispatcher thread");
+  }
+
+  /**
+   * Returns the number of requests waiting for the response.
+   */
+  public int getPendingRequests() {
+    return pending.size();
+  }
+
+  public boolean isClosed() {
+    return closed;
+  }
+
+  @Override
+  public boolean isConnected() {
+    return !closed && super.isConnected();
+  }
+
+  /**
+   * Closes the channel. The requests waiting for the response fail.
+   */
+  @Override
+  public void close() {
+    closed = true;
+    super.close();
+
+    if (dispatcher == null)
+      // CLOSED BY THE CONSTRUCTOR OF THE SUPER CLASS
+      return;
+
+    dispatcher.sendShutdown();
+
+    // I/O ERROR TO LET THE CALLER RETRY ON ANOTHER CHANNEL
+    final IOException error = new IOException("Channel " + this + " has been closed");
+    OChannelBinaryResponseFuture<?> response;
+    while ((response = pending.poll()) != null) {
+      slots.release();
+      response.fail(error);
+    }
+  }
+
+  /**
+   * Reads the next response and completes its future. Errors on reading the content leave the channel in an unknown state, so they
+   * close it.
+   */
+  protected void dispatchResponse() throws Exception {
+    final byte status = readByte();
+    final int sessionId = readInt();
+
+    if (status == OChannelBinaryProtocol.PUSH_DATA) {
+      final byte request = readByte();
+      final Object obj = OChannelBinaryProtocol.readPushData(request, this);
+      if (serverEventListener != null)
+        serverEventListener.onRequest(request, obj);
+      return;
+    }
+
+    if (status != OChannelBinaryProtocol.RESPONSE_STATUS_OK && status != OChannelBinaryProtocol.RESPONSE_STATUS_ERROR)
+      throw new ONetworkProtocolException("Unknown status " + status + " of the response on channel " + this);
+
+    final OChannelBinaryResponseFuture<?> response = pending.poll();
+    if (response != null)
+      slots.release();
+
+    if (response == null || response.getSessionId() != sessionId) {
+      final ONetworkProtocolException error = new ONetworkProtocolException("Received a response for session " + sessionId
+          + " while waiting for " + (response != null ? response : "no request") + " on channel " + this);
+      if (response != null)
+        // IT WILL NEVER BE ANSWERED: THE CHANNEL IS CLOSED
+        response.fail(error);
+      throw error;
+    }
+
+    if (debug)
+      OLogManager.instance().debug(this, "%s - Read response for %s", socket.getLocalAddress(), response);
+
+    try {
+      handleStatus(status, sessionId);
+    } catch (RuntimeException e) {
+      // ERROR SENT BY THE SERVER: THE CHANNEL IS STILL CONSISTENT
+      response.fail(e);
+      return;
+    }
+
+    response.run();
+
+    if (response.getFailure() != null)
+      // THE CONTENT COULD BE NOT COMPLETELY READ: THE NEXT RESPONSES CAN'T BE TRUSTED
+      throw new ONetworkProtocolException("Error on reading the response of " + response + " on channel " + this,
+          response.getFailure());
+  }
+}
@@ -109,4 +109,18 @@ public class OChannelBinaryProtocol {
       return record;
     }
   }
+
+  /**
+   * Reads the content of a request pushed by the server.
+   */
+  public static Object readPushData(final byte iRequest, final OChannelBinaryClient network) throws IOException {
+    switch (iRequest) {
+    case REQUEST_PUSH_RECORD:
+      return readIdentifiable(network);
+
+    case REQUEST_PUSH_DISTRIB_CONFIG:
+      return network.readBytes();
+    }
+    return null;
+  }
 }
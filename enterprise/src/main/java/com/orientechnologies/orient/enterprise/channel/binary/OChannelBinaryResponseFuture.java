@@ -0,0 +1,70 @@
+/*
+ * Copyright 2010-2012 Luca Garulli (l.garulli--at--orientechnologies.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.orientechnologies.orient.enterprise.channel.binary;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.FutureTask;
+
+/**
+ * Response of a request sent on a multiplexed channel. The reader is executed by the dispatcher thread of the channel once the
+ * header of the response has been read, and the future completes with the value it returns.
+ * 
+ * @author Luca Garulli (l.garulli--at--orientechnologies.com)
+ * 
+ * @param <T>
+ *          Type of the result
+ */
+public class OChannelBinaryResponseFuture<T> extends FutureTask<T> {
+  private final int          requestId;
+  private final int          sessionId;
+  private volatile Throwable failure;
+
+  public OChannelBinaryResponseFuture(final int iRequestId, final int iSessionId, final Callable<T> iResponseReader) {
+    super(iResponseReader);
+    requestId = iRequestId;
+    sessionId = iSessionId;
+  }
+
+  public int getRequestId() {
+    return requestId;
+  }
+
+  public int getSessionId() {
+    return sessionId;
+  }
+
+  /**
+   * Returns the error thrown while the response was read, if any.
+   */
+  public Throwable getFailure() {
+    return failure;
+  }
+
+  protected void fail(final Throwable iError) {
+    setException(iError);
+  }
+
+  @Override
+  protected void setException(final Throwable iError) {
+    failure = iError;
+    super.setException(iError);
+  }
+
+  @Override
+  public String toString() {
+    return "request " + requestId + " of session " + sessionId;
+  }
+}
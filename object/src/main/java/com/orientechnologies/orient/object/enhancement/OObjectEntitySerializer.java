@@ -25,8 +25,10 @@ import java.lang.reflect.Modifier;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
@@ -89,6 +91,7 @@ public class OObjectEntitySerializer {
 	private static final HashMap<Class<?>, Field>									fieldIds						= new HashMap<Class<?>, Field>();
 	private static final HashMap<Class<?>, Field>									fieldVersions				= new HashMap<Class<?>, Field>();
 	private static final HashMap<String, List<Method>>						callbacks						= new HashMap<String, List<Method>>();
+	private static final HashMap<Class<?>, Map<String, OObjectFieldAccessor>>	fieldAccessors			= new HashMap<Class<?>, Map<String, OObjectFieldAccessor>>();
 
 	/**
 	 * Method that given an object serialize it an creates a proxy entity, in case the object isn't generated using the
@@ -293,9 +296,15 @@ public class OObjectEntitySerializer {
 				classes.add(currentClass);
 
 				Class<?> fieldType;
+				final Map<String, OObjectFieldAccessor> classFieldAccessors = new LinkedHashMap<String, OObjectFieldAccessor>();
+				fieldAccessors.put(currentClass, classFieldAccessors);
 				for (Field f : currentClass.getDeclaredFields()) {
 					final String fieldName = f.getName();
 					final int fieldModifier = f.getModifiers();
+					if (!Modifier.isStatic(fieldModifier))
+						// CREATE THE ACCESSOR ONCE, ALSO FOR TRANSIENT FIELDS USED BY ATTACH
+						classFieldAccessors.put(fieldName, OObjectFieldAccessor.create(f));
+
 					if (Modifier.isStatic(fieldModifier) || Modifier.isNative(fieldModifier) || Modifier.isTransient(fieldModifier))
 						continue;
 
@@ -354,7 +363,7 @@ public class OObjectEntitySerializer {
 
 					fieldType = f.getType();
 					if (Collection.class.isAssignableFrom(fieldType) || fieldType.isArray() || Map.class.isAssignableFrom(fieldType)) {
-						fieldType = OReflectionHelper.getGenericMultivalueType(f);
+						fieldType = classFieldAccessors.get(fieldName).getGenericMultiValueType();
 					}
 					if (isToSerialize(fieldType)) {
 						Map<Field, Class<?>> serializeClass = serializedFields.get(currentClass);
@@ -730,6 +739,10 @@ public class OObjectEntitySerializer {
 	}
 
 	public static Object getFieldValue(Field iField, Object iInstance) throws IllegalArgumentException, IllegalAccessException {
+		final OObjectFieldAccessor accessor = getFieldAccessor(iField);
+		if (accessor != null)
+			return accessor.get(iInstance);
+
 		if (!iField.isAccessible()) {
 			iField.setAccessible(true);
 		}
@@ -738,12 +751,71 @@ public class OObjectEntitySerializer {
 
 	public static void setFieldValue(Field iField, Object iInstance, Object iValue) throws IllegalArgumentException,
 			IllegalAccessException {
+		final OObjectFieldAccessor accessor = getFieldAccessor(iField);
+		if (accessor != null) {
+			accessor.set(iInstance, iValue);
+			return;
+		}
+
 		if (!iField.isAccessible()) {
 			iField.setAccessible(true);
 		}
 		iField.set(iInstance, iValue);
 	}
 
+	/**
+	 * Returns the accessor created at registration time for the field, if any.
+	 */
+	public static OObjectFieldAccessor getFieldAccessor(final Field iField) {
+		final Map<String, OObjectFieldAccessor> classFieldAccessors = fieldAccessors.get(iField.getDeclaringClass());
+		return classFieldAccessors != null ? classFieldAccessors.get(iField.getName()) : null;
+	}
+
+	/**
+	 * Returns the accessor of the field searching it in the class hierarchy, skipping the proxy classes.
+	 * 
+	 * @param iClass
+	 *          :- the entity or proxy class
+	 * @param iFieldName
+	 *          :- the name of the field
+	 * @return the accessor or null if the field doesn't exist
+	 */
+	public static OObjectFieldAccessor getFieldAccessor(final Class<?> iClass, final String iFieldName) {
+		for (Class<?> currentClass = iClass; currentClass != null && currentClass != Object.class
+				&& !currentClass.equals(ODocument.class); currentClass = currentClass.getSuperclass()) {
+			final OObjectFieldAccessor accessor = getFieldAccessors(currentClass).get(iFieldName);
+			if (accessor != null)
+				return accessor;
+		}
+		return null;
+	}
+
+	/**
+	 * Returns the accessors of the non static fields declared by the class, in declaration order. Proxy classes declare no fields.
+	 */
+	public static Collection<OObjectFieldAccessor> getDeclaredFieldAccessors(final Class<?> iClass) {
+		return getFieldAccessors(iClass).values();
+	}
+
+	/**
+	 * Returns the generic type of the multi-value field, cached in its accessor.
+	 */
+	public static Class<?> getGenericMultivalueType(final Field iField) {
+		final OObjectFieldAccessor accessor = getFieldAccessor(iField);
+		return accessor != null ? accessor.getGenericMultiValueType() : OReflectionHelper.getGenericMultivalueType(iField);
+	}
+
+	private static Map<String, OObjectFieldAccessor> getFieldAccessors(final Class<?> iClass) {
+		if (Proxy.class.isAssignableFrom(iClass))
+			return Collections.emptyMap();
+
+		checkClassRegistration(iClass);
+		final Map<String, OObjectFieldAccessor> classFieldAccessors = fieldAccessors.get(iClass);
+		if (classFieldAccessors == null)
+			return Collections.emptyMap();
+		return classFieldAccessors;
+	}
+
 	public static void invokeBeforeSerializationCallbacks(Class<?> iClass, Object iInstance, ODocument iDocument) {
 		invokeCallback(iClass, iInstance, iDocument, OBeforeSerialization.class);
 	}
@@ -846,8 +918,9 @@ public class OObjectEntitySerializer {
 		Class<?> currentClass = pojoClass;
 
 		while (!currentClass.equals(Object.class) && classes.contains(pojoClass)) {
-			for (Field p : currentClass.getDeclaredFields()) {
-				if (Modifier.isStatic(p.getModifiers()) || Modifier.isNative(p.getModifiers()) || Modifier.isTransient(p.getModifiers()))
+			for (OObjectFieldAccessor accessor : getDeclaredFieldAccessors(currentClass)) {
+				final Field p = accessor.getField();
+				if (Modifier.isNative(p.getModifiers()) || Modifier.isTransient(p.getModifiers()))
 					continue;
 
 				fieldName = p.getName();
@@ -858,7 +931,7 @@ public class OObjectEntitySerializer {
 						.contains(fieldName))))
 					continue;
 
-				fieldValue = getFieldValue(p, iPojo);
+				fieldValue = accessor.get(iPojo);
 				if (isSerializedType(p))
 					fieldValue = serializeFieldValue(p.getType(), fieldValue);
 
@@ -0,0 +1,220 @@
+/*
+ * Copyright 2010-2012 Luca Garulli (l.garulli--at--orientechnologies.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.orientechnologies.orient.object.enhancement;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+
+import javassist.ClassClassPath;
+import javassist.ClassPool;
+import javassist.CtClass;
+import javassist.CtNewConstructor;
+import javassist.CtNewMethod;
+import javassist.LoaderClassPath;
+
+import com.orientechnologies.common.log.OLogManager;
+import com.orientechnologies.common.reflection.OReflectionHelper;
+
+/**
+ * Reads and writes a field of an entity class. It's created once when the class is registered: for non private fields the
+ * accessor is generated with Javassist in the same package of the entity class and accesses the field directly, otherwise the
+ * field is accessed by reflection, made accessible only once. It also caches the generic type of multi-value fields.
+ * 
+ * @see OObjectEntitySerializer#getFieldAccessor(Class, String)
+ */
+public abstract class OObjectFieldAccessor {
+	private static int				generated							= 0;
+
+	protected final Field			field;
+	private Class<?>					genericMultiValueType;
+	private boolean						genericMultiValueTypeResolved;
+
+	protected OObjectFieldAccessor(final Field iField) {
+		field = iField;
+	}
+
+	/**
+	 * Creates the accessor of the field, generating it when the field is accessible from its package.
+	 */
+	public static OObjectFieldAccessor create(final Field iField) {
+		final int modifiers = iField.getModifiers();
+		final Class<?> declaringClass = iField.getDeclaringClass();
+
+		if (!Modifier.isPrivate(modifiers) && !Modifier.isFinal(modifiers) && !Modifier.isStatic(modifiers)
+				&& declaringClass.getClassLoader() != null && declaringClass.getPackage() != null && !declaringClass.isMemberClass()
+				&& !declaringClass.isLocalClass() && !declaringClass.isAnonymousClass())
+			try {
+				return generate(iField);
+			} catch (Throwable t) {
+				OLogManager.instance().debug(OObjectFieldAccessor.class,
+						"Cannot generate the accessor of field '%s', it will be accessed by reflection: %s", iField, t);
+			}
+
+		return new OObjectReflectionFieldAccessor(iField);
+	}
+
+	public Object get(final Object iInstance) throws IllegalArgumentException, IllegalAccessException {
+		try {
+			return getValue(iInstance);
+		} catch (ClassCastException e) {
+			throw new IllegalArgumentException("Cannot get field " + field + " from object of class "
+					+ (iInstance != null ? iInstance.getClass() : null), e);
+		}
+	}
+
+	public void set(final Object iInstance, final Object iValue) throws IllegalArgumentException, IllegalAccessException {
+		if (iValue == null && field.getType().isPrimitive())
+			throw new IllegalArgumentException("Cannot set null to the primitive field " + field);
+
+		try {
+			setValue(iInstance, iValue);
+		} catch (ClassCastException e) {
+			throw new IllegalArgumentException("Cannot set value of " + (iValue != null ? iValue.getClass() : null) + " to field "
+					+ field, e);
+		}
+	}
+
+	public Field getField() {
+		return field;
+	}
+
+	public String getName() {
+		return field.getName();
+	}
+
+	public Class<?> getType() {
+		return field.getType();
+	}
+
+	/**
+	 * Returns the generic type of the collection, map or array field, resolving it only once.
+	 */
+	public Class<?> getGenericMultiValueType() {
+		if (!genericMultiValueTypeResolved) {
+			genericMultiValueType = OReflectionHelper.getGenericMultivalueType(field);
+			genericMultiValueTypeResolved = true;
+		}
+		return genericMultiValueType;
+	}
+
+	@Override
+	public String toString() {
+		return field.toString();
+	}
+
+	protected abstract Object getValue(Object iInstance) throws IllegalAccessException;
+
+	protected abstract void setValue(Object iInstance, Object iValue) throws IllegalAccessException;
+
+	private static synchronized OObjectFieldAccessor generate(final Field iField) throws Exception {
+		final Class<?> declaringClass = iField.getDeclaringClass();
+		final String className = declaringClass.getName();
+		final String fieldName = iField.getName();
+
+		final ClassPool pool = new ClassPool(true);
+		pool.appendClassPath(new LoaderClassPath(declaringClass.getClassLoader()));
+		pool.appendClassPath(new ClassClassPath(OObjectFieldAccessor.class));
+
+		final CtClass accessorClass = pool.makeClass(className + "$OFieldAccessor$" + fieldName + "$" + (generated++));
+		accessorClass.setSuperclass(pool.get(OObjectFieldAccessor.class.getName()));
+
+		accessorClass.addConstructor(CtNewConstructor.make("public " + accessorClass.getSimpleName()
+				+ "(java.lang.reflect.Field iField) { super(iField); }", accessorClass));
+		accessorClass.addMethod(CtNewMethod.make("protected Object getValue(Object iInstance) { return ($w) ((" + className + ") $1)."
+				+ fieldName + "; }", accessorClass));
+		accessorClass.addMethod(CtNewMethod.make("protected void setValue(Object iInstance, Object iValue) { ((" + className
+				+ ") $1)." + fieldName + " = " + unboxValue(iField.getType()) + "; }", accessorClass));
+
+		try {
+			final Class<?> generatedClass = accessorClass.toClass(declaringClass.getClassLoader(), declaringClass.getProtectionDomain());
+			return (OObjectFieldAccessor) generatedClass.getConstructor(Field.class).newInstance(iField);
+		} finally {
+			accessorClass.detach();
+		}
+	}
+
+	private static String unboxValue(final Class<?> iType) {
+		if (iType == Boolean.TYPE)
+			return "((java.lang.Boolean) $2).booleanValue()";
+		if (iType == Character.TYPE)
+			return "((java.lang.Character) $2).charValue()";
+		if (iType == Byte.TYPE)
+			return "((java.lang.Byte) $2).byteValue()";
+		if (iType.isPrimitive())
+			// OTHER NUMBERS: ALLOW ONLY THE WIDENING CONVERSIONS LIKE Field.set() DOES
+			return OObjectFieldAccessor.class.getName() + ".unbox" + Character.toUpperCase(iType.getName().charAt(0))
+					+ iType.getName().substring(1) + "($2)";
+		return "(" + getSourceName(iType) + ") $2";
+	}
+
+	protected static short unboxShort(final Object iValue) {
+		if (iValue instanceof Short || iValue instanceof Byte)
+			return ((Number) iValue).shortValue();
+		throw new ClassCastException("Cannot convert " + iValue.getClass() + " to short without losing precision");
+	}
+
+	protected static int unboxInt(final Object iValue) {
+		if (iValue instanceof Integer || iValue instanceof Short || iValue instanceof Byte)
+			return ((Number) iValue).intValue();
+		if (iValue instanceof Character)
+			return ((Character) iValue).charValue();
+		throw new ClassCastException("Cannot convert " + iValue.getClass() + " to int without losing precision");
+	}
+
+	protected static long unboxLong(final Object iValue) {
+		if (iValue instanceof Long)
+			return ((Long) iValue).longValue();
+		return unboxInt(iValue);
+	}
+
+	protected static float unboxFloat(final Object iValue) {
+		if (iValue instanceof Float)
+			return ((Float) iValue).floatValue();
+		return unboxLong(iValue);
+	}
+
+	protected static double unboxDouble(final Object iValue) {
+		if (iValue instanceof Double)
+			return ((Double) iValue).doubleValue();
+		return unboxFloat(iValue);
+	}
+
+	private static String getSourceName(final Class<?> iType) {
+		if (iType.isArray())
+			return getSourceName(iType.getComponentType()) + "[]";
+		return iType.getName();
+	}
+
+	/**
+	 * Fallback accessor by reflection for the fields that cannot be accessed by the generated code, such as the private ones.
+	 */
+	private static class OObjectReflectionFieldAccessor extends OObjectFieldAccessor {
+		public OObjectReflectionFieldAccessor(final Field iField) {
+			super(iField);
+			iField.setAccessible(true);
+		}
+
+		@Override
+		protected Object getValue(final Object iInstance) throws IllegalAccessException {
+			return field.get(iInstance);
+		}
+
+		@Override
+		protected void setValue(final Object iInstance, final Object iValue) throws IllegalAccessException {
+			field.set(iInstance, iValue);
+		}
+	}
+}
@@ -112,7 +112,7 @@ public class OObjectProxyMethodHandler implements MethodHandler {
 			Object value = getValue(self, fieldName, false, null);
 			if (value instanceof OLazyObjectMultivalueElement)
 				((OLazyObjectMultivalueElement) value).detach();
-			OObjectEntitySerializer.setFieldValue(getField(fieldName, self.getClass()), self, value);
+			setFieldValue(self, fieldName, value);
 		}
 		OObjectEntitySerializer.setIdField(self.getClass(), self, doc.getIdentity());
 		OObjectEntitySerializer.setVersionField(self.getClass(), self, doc.getVersion());
@@ -136,10 +136,10 @@ public class OObjectProxyMethodHandler implements MethodHandler {
 				currentClass = currentClass.getSuperclass();
 				continue;
 			}
-			for (Field f : currentClass.getDeclaredFields()) {
-				Object value = OObjectEntitySerializer.getFieldValue(f, self);
-				value = setValue(self, f.getName(), value);
-				OObjectEntitySerializer.setFieldValue(f, self, value);
+			for (OObjectFieldAccessor accessor : OObjectEntitySerializer.getDeclaredFieldAccessors(currentClass)) {
+				Object value = accessor.get(self);
+				value = setValue(self, accessor.getName(), value);
+				accessor.set(self, value);
 			}
 			currentClass = currentClass.getSuperclass();
 
@@ -185,7 +185,7 @@ public class OObjectProxyMethodHandler implements MethodHandler {
 			} else {
 				if (((value instanceof Collection<?> || value instanceof Map<?, ?>) && !(value instanceof OLazyObjectMultivalueElement))
 						|| value.getClass().isArray()) {
-					Class<?> genericMultiValueType = OReflectionHelper.getGenericMultivalueType(getField(fieldName, self.getClass()));
+					Class<?> genericMultiValueType = OObjectEntitySerializer.getGenericMultivalueType(getField(fieldName, self.getClass()));
 					if (genericMultiValueType != null && !OReflectionHelper.isJavaType(genericMultiValueType)) {
 						Field f = getField(fieldName, self.getClass());
 						if (OObjectEntitySerializer.isSerializedType(f) && !(value instanceof OLazyObjectCustomSerializer)) {
@@ -247,7 +247,7 @@ public class OObjectProxyMethodHandler implements MethodHandler {
 		} else if (value.getClass().isArray()) {
 			value = manageArraySave(fieldName, (Object[]) value);
 		}
-		OObjectEntitySerializer.setFieldValue(getField(fieldName, self.getClass()), self, value);
+		setFieldValue(self, fieldName, value);
 		return value;
 	}
 
@@ -283,7 +283,7 @@ public class OObjectProxyMethodHandler implements MethodHandler {
 		} else if (value.getClass().isArray()) {
 			value = manageArraySave(fieldName, (Object[]) value);
 		}
-		OObjectEntitySerializer.setFieldValue(getField(fieldName, self.getClass()), self, value);
+		setFieldValue(self, fieldName, value);
 		return value;
 	}
 
@@ -316,7 +316,7 @@ public class OObjectProxyMethodHandler implements MethodHandler {
 		} else if (value.getClass().isArray()) {
 			value = manageArraySave(fieldName, (Object[]) value);
 		}
-		OObjectEntitySerializer.setFieldValue(getField(fieldName, self.getClass()), self, value);
+		setFieldValue(self, fieldName, value);
 		return value;
 	}
 
@@ -336,7 +336,7 @@ public class OObjectProxyMethodHandler implements MethodHandler {
 
 	@SuppressWarnings({ "unchecked", "rawtypes" })
 	protected Object manageMapSave(Field f, Map<?, ?> value, boolean customSerialization) {
-		final Class genericType = OReflectionHelper.getGenericMultivalueType(f);
+		final Class genericType = OObjectEntitySerializer.getGenericMultivalueType(f);
 		if (customSerialization) {
 			Map<Object, Object> map = new HashMap<Object, Object>();
 			doc.field(f.getName(), map);
@@ -359,7 +359,7 @@ public class OObjectProxyMethodHandler implements MethodHandler {
 
 	@SuppressWarnings({ "unchecked", "rawtypes" })
 	protected Object manageCollectionSave(Field f, Collection<?> value, boolean customSerialization) {
-		final Class genericType = OReflectionHelper.getGenericMultivalueType(f);
+		final Class genericType = OObjectEntitySerializer.getGenericMultivalueType(f);
 		if (customSerialization) {
 			if (value instanceof List<?>) {
 				List<Object> list = new ArrayList<Object>();
@@ -407,7 +407,8 @@ public class OObjectProxyMethodHandler implements MethodHandler {
 	protected Object lazyLoadField(Object self, final String fieldName, Object docValue) throws NoSuchMethodException,
 			IllegalAccessException, InvocationTargetException {
 		boolean customSerialization = false;
-		Field f = getField(fieldName, self.getClass());
+		final OObjectFieldAccessor accessor = OObjectEntitySerializer.getFieldAccessor(self.getClass(), fieldName);
+		Field f = accessor.getField();
 		if (OObjectEntitySerializer.isSerializedType(f)) {
 			customSerialization = true;
 		}
@@ -415,10 +416,10 @@ public class OObjectProxyMethodHandler implements MethodHandler {
 			if (OIdentifiable.class.isAssignableFrom(f.getType())) {
 				if (ORecordAbstract.class.isAssignableFrom(f.getType())) {
 					ORecordAbstract record = ((OIdentifiable) docValue).getRecord();
-					OObjectEntitySerializer.setFieldValue(f, self, record);
+					accessor.set(self, record);
 					return record;
 				} else {
-					OObjectEntitySerializer.setFieldValue(f, self, docValue);
+					accessor.set(self, docValue);
 					return docValue;
 				}
 			} else {
@@ -431,7 +432,7 @@ public class OObjectProxyMethodHandler implements MethodHandler {
 		} else if (docValue.getClass().isArray() && !docValue.getClass().getComponentType().isPrimitive()) {
 			docValue = manageArrayLoad(docValue);
 		} else if (customSerialization) {
-			docValue = OObjectEntitySerializer.deserializeFieldValue(getField(fieldName, self.getClass()).getType(), docValue);
+			docValue = OObjectEntitySerializer.deserializeFieldValue(f.getType(), docValue);
 		} else {
 			if (f.getType().isEnum()) {
 				if (docValue instanceof Number)
@@ -440,7 +441,7 @@ public class OObjectProxyMethodHandler implements MethodHandler {
 					docValue = Enum.valueOf((Class<Enum>) f.getType(), docValue.toString());
 			}
 		}
-		OObjectEntitySerializer.setFieldValue(f, self, docValue);
+		accessor.set(self, docValue);
 		return docValue;
 	}
 
@@ -461,7 +462,7 @@ public class OObjectProxyMethodHandler implements MethodHandler {
 
 	@SuppressWarnings({ "unchecked", "rawtypes" })
 	protected Object manageMapLoad(Field f, Object self, Object value, boolean customSerialization) {
-		final Class genericType = OReflectionHelper.getGenericMultivalueType(f);
+		final Class genericType = OObjectEntitySerializer.getGenericMultivalueType(f);
 		if (value instanceof ORecordLazyMap) {
 			value = new OObjectLazyMap(doc, (ORecordLazyMap) value);
 		} else if (customSerialization) {
@@ -474,7 +475,7 @@ public class OObjectProxyMethodHandler implements MethodHandler {
 
 	@SuppressWarnings({ "unchecked", "rawtypes" })
 	protected Object manageCollectionLoad(Field f, Object self, Object value, boolean customSerialization) {
-		final Class genericType = OReflectionHelper.getGenericMultivalueType(f);
+		final Class genericType = OObjectEntitySerializer.getGenericMultivalueType(f);
 		if (value instanceof ORecordLazyList) {
 			value = new OObjectLazyList(doc, (ORecordLazyList) value);
 		} else if (value instanceof ORecordLazySet || value instanceof OMVRBTreeRIDSet) {
@@ -537,7 +538,7 @@ public class OObjectProxyMethodHandler implements MethodHandler {
 					((ODocument) valueToSet).addOwner(doc);
 				doc.field(fieldName, valueToSet);
 			} else if (((valueToSet instanceof Collection<?> || valueToSet instanceof Map<?, ?>)) || valueToSet.getClass().isArray()) {
-				Class<?> genericMultiValueType = OReflectionHelper.getGenericMultivalueType(getField(fieldName, self.getClass()));
+				Class<?> genericMultiValueType = OObjectEntitySerializer.getGenericMultivalueType(getField(fieldName, self.getClass()));
 				if (genericMultiValueType != null && !OReflectionHelper.isJavaType(genericMultiValueType)) {
 					if (!(valueToSet instanceof OLazyObjectMultivalueElement)) {
 						if (valueToSet instanceof Collection<?>) {
@@ -669,13 +670,12 @@ public class OObjectProxyMethodHandler implements MethodHandler {
 	}
 
 	protected Field getField(String fieldName, Class<?> iClass) {
-		for (Field f : iClass.getDeclaredFields()) {
-			if (f.getName().equals(fieldName))
-				return f;
-		}
-		if (iClass.getSuperclass().equals(Object.class))
-			return null;
-		return getField(fieldName, iClass.getSuperclass());
+		final OObjectFieldAccessor accessor = OObjectEntitySerializer.getFieldAccessor(iClass, fieldName);
+		return accessor != null ? accessor.getField() : null;
+	}
+
+	protected void setFieldValue(Object self, final String fieldName, Object value) throws IllegalAccessException {
+		OObjectEntitySerializer.getFieldAccessor(self.getClass(), fieldName).set(self, value);
 	}
 
 	private ODatabaseObject getDatabase() {
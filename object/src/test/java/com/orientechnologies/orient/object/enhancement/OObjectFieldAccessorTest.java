@@ -0,0 +1,130 @@
+package com.orientechnologies.orient.object.enhancement;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertNotNull;
+import static org.testng.Assert.assertNull;
+import static org.testng.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+
+import com.orientechnologies.orient.core.id.ORID;
+import com.orientechnologies.orient.object.db.OObjectDatabaseTx;
+
+public class OObjectFieldAccessorTest {
+
+	private OObjectDatabaseTx	databaseTx;
+
+	@BeforeClass
+	protected void setUp() throws Exception {
+		databaseTx = new OObjectDatabaseTx("memory:OObjectFieldAccessorTest");
+		databaseTx.create();
+
+		databaseTx.getEntityManager().registerEntityClass(AccessorEntity.class);
+	}
+
+	@AfterClass
+	protected void tearDown() {
+		databaseTx.close();
+	}
+
+	@Test
+	public void testAccessors() throws Exception {
+		final AccessorEntity entity = new AccessorEntity();
+
+		final OObjectFieldAccessor name = OObjectEntitySerializer.getFieldAccessor(AccessorEntity.class, "name");
+		final OObjectFieldAccessor count = OObjectEntitySerializer.getFieldAccessor(AccessorEntity.class, "count");
+		final OObjectFieldAccessor total = OObjectEntitySerializer.getFieldAccessor(AccessorEntity.class, "total");
+		final OObjectFieldAccessor tags = OObjectEntitySerializer.getFieldAccessor(AccessorEntity.class, "tags");
+		final OObjectFieldAccessor active = OObjectEntitySerializer.getFieldAccessor(AccessorEntity.class, "active");
+		assertNotNull(name);
+		assertNull(OObjectEntitySerializer.getFieldAccessor(AccessorEntity.class, "missing"));
+
+		name.set(entity, "test");
+		count.set(entity, 3);
+		total.set(entity, 10);
+		tags.set(entity, new ArrayList<String>(Arrays.asList("a", "b")));
+		active.set(entity, true);
+
+		assertEquals(entity.getName(), "test");
+		assertEquals(name.get(entity), "test");
+		assertEquals(count.get(entity), 3);
+		assertEquals(total.get(entity), 10l);
+		assertEquals(tags.get(entity), Arrays.asList("a", "b"));
+		assertEquals(tags.getGenericMultiValueType(), String.class);
+		assertEquals(active.get(entity), Boolean.TRUE);
+
+		try {
+			count.set(entity, null);
+			assertTrue(false);
+		} catch (IllegalArgumentException e) {
+		}
+
+		try {
+			name.set(entity, 5);
+			assertTrue(false);
+		} catch (IllegalArgumentException e) {
+		}
+	}
+
+	@Test
+	public void testPrimitiveConversions() throws Exception {
+		final AccessorEntity entity = new AccessorEntity();
+		final OObjectFieldAccessor count = OObjectEntitySerializer.getFieldAccessor(AccessorEntity.class, "count");
+		final OObjectFieldAccessor total = OObjectEntitySerializer.getFieldAccessor(AccessorEntity.class, "total");
+
+		// WIDENING IS ALLOWED
+		count.set(entity, (short) 4);
+		assertEquals(entity.getCount(), 4);
+		count.set(entity, 'A');
+		assertEquals(entity.getCount(), 65);
+		total.set(entity, (byte) 9);
+		assertEquals(entity.getTotal(), 9);
+
+		// NARROWING IS REJECTED AS BY REFLECTION
+		try {
+			count.set(entity, 5l);
+			assertTrue(false);
+		} catch (IllegalArgumentException e) {
+		}
+
+		try {
+			total.set(entity, 2.5d);
+			assertTrue(false);
+		} catch (IllegalArgumentException e) {
+		}
+		assertEquals(entity.getCount(), 65);
+		assertEquals(entity.getTotal(), 9);
+	}
+
+	@Test
+	public void testSaveAndLoad() {
+		AccessorEntity entity = databaseTx.newInstance(AccessorEntity.class);
+		entity.setName("saved");
+		entity.setCount(7);
+		entity.setTotal(100);
+		entity.setTags(new ArrayList<String>(Arrays.asList("x", "y", "z")));
+		entity.setActive(true);
+		entity = databaseTx.save(entity);
+
+		final ORID rid = databaseTx.getIdentity(entity);
+		databaseTx.getLevel1Cache().invalidate();
+
+		final AccessorEntity loaded = databaseTx.load(rid);
+		assertEquals(loaded.getName(), "saved");
+		assertEquals(loaded.getCount(), 7);
+		assertEquals(loaded.getTotal(), 100);
+		final List<String> loadedTags = loaded.getTags();
+		assertEquals(loadedTags, Arrays.asList("x", "y", "z"));
+		assertTrue(loaded.isActive());
+
+		databaseTx.detach(loaded);
+		assertFalse(loaded.getName() == null);
+	}
+}